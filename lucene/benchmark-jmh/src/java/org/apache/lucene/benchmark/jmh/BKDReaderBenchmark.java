@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.PointValues.IntersectVisitor;
+import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.FutureArrays;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.bkd.BKDReader;
+import org.apache.lucene.util.bkd.BKDWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link BKDReader#intersect} with range queries
+ * on a single dimension of ints that match a given ratio of the points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BKDReaderBenchmark {
+
+  private static final int NUM_POINTS = 1 << 20;
+  private static final int NUM_QUERIES = 64;
+
+  /** Ratio of points that match a query. */
+  @Param({"0.001", "0.01", "0.1"})
+  public double selectivity;
+
+  private Path path;
+  private Directory dir;
+  private IndexInput in;
+  private BKDReader reader;
+  private byte[][] lowerValues;
+  private byte[][] upperValues;
+  private int queryIndex;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // fixed seed so that all runs use the same data
+    final Random random = new Random(0);
+    path = Files.createTempDirectory("BKDReaderBenchmark");
+    dir = new MMapDirectory(path);
+    final byte[] packedValue = new byte[Integer.BYTES];
+    final long indexFP;
+    try (IndexOutput out = dir.createOutput("bkd", IOContext.DEFAULT)) {
+      final BKDWriter writer = new BKDWriter(NUM_POINTS, dir, "tmp", 1, Integer.BYTES,
+          BKDWriter.DEFAULT_MAX_POINTS_IN_LEAF_NODE, BKDWriter.DEFAULT_MAX_MB_SORT_IN_HEAP, NUM_POINTS, true);
+      for (int doc = 0; doc < NUM_POINTS; ++doc) {
+        NumericUtils.intToSortableBytes(random.nextInt(), packedValue, 0);
+        writer.add(packedValue, doc);
+      }
+      indexFP = writer.finish(out);
+    }
+    in = dir.openInput("bkd", IOContext.READ);
+    in.seek(indexFP);
+    reader = new BKDReader(in);
+
+    // ints are uniformly distributed
+    final long rangeLength = (long) (selectivity * (1L << 32));
+    lowerValues = new byte[NUM_QUERIES][Integer.BYTES];
+    upperValues = new byte[NUM_QUERIES][Integer.BYTES];
+    for (int i = 0; i < NUM_QUERIES; ++i) {
+      final long lower = Integer.MIN_VALUE + (long) (random.nextDouble() * ((1L << 32) - rangeLength));
+      NumericUtils.intToSortableBytes((int) lower, lowerValues[i], 0);
+      NumericUtils.intToSortableBytes((int) (lower + rangeLength), upperValues[i], 0);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    IOUtils.close(in, dir);
+    IOUtils.rm(path);
+  }
+
+  /** Count the points that match a range, the score is a number of queries per second. */
+  @Benchmark
+  public int intersect() throws IOException {
+    final byte[] lower = lowerValues[queryIndex];
+    final byte[] upper = upperValues[queryIndex];
+    queryIndex = (queryIndex + 1) % NUM_QUERIES;
+    final int[] count = new int[1];
+    reader.intersect(new IntersectVisitor() {
+
+      @Override
+      public void visit(int docID) {
+        count[0]++;
+      }
+
+      @Override
+      public void visit(int docID, byte[] packedValue) {
+        if (FutureArrays.compareUnsigned(packedValue, 0, Integer.BYTES, lower, 0, Integer.BYTES) >= 0
+            && FutureArrays.compareUnsigned(packedValue, 0, Integer.BYTES, upper, 0, Integer.BYTES) <= 0) {
+          count[0]++;
+        }
+      }
+
+      @Override
+      public Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+        if (FutureArrays.compareUnsigned(minPackedValue, 0, Integer.BYTES, upper, 0, Integer.BYTES) > 0
+            || FutureArrays.compareUnsigned(maxPackedValue, 0, Integer.BYTES, lower, 0, Integer.BYTES) < 0) {
+          return Relation.CELL_OUTSIDE_QUERY;
+        }
+        if (FutureArrays.compareUnsigned(minPackedValue, 0, Integer.BYTES, lower, 0, Integer.BYTES) >= 0
+            && FutureArrays.compareUnsigned(maxPackedValue, 0, Integer.BYTES, upper, 0, Integer.BYTES) <= 0) {
+          return Relation.CELL_INSIDE_QUERY;
+        }
+        return Relation.CELL_CROSSES_QUERY;
+      }
+    });
+    return count[0];
+  }
+
+}
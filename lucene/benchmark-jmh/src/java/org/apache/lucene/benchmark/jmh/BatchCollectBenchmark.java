@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to collect all hits of a query with
+ * {@link TotalHitCountCollector} and {@link FacetsCollector}, when hits are
+ * passed to the collector in batches and when they are passed one at a time.
+ * <p>
+ * When a single collector type is ever seen, the JIT may inline the per-hit
+ * {@code collect} call, which hides the cost that batching saves. The setup
+ * therefore runs the queries with several collector types first, as a real
+ * application would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchCollectBenchmark {
+
+  private static final int NUM_DOCS = 1 << 20;
+
+  /** The collector to collect hits with: {@code count} or {@code facets}. */
+  @Param({"count", "facets"})
+  public String collector;
+
+  /** The query to run: {@code all}, {@code term}, {@code or} or {@code and}. */
+  @Param({"all", "term", "or", "and"})
+  public String query;
+
+  /** Whether hits may be collected in batches. */
+  @Param({"true", "false"})
+  public boolean batches;
+
+  private Directory dir;
+  private DirectoryReader reader;
+  private IndexSearcher searcher;
+  private Query q;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = new RAMDirectory();
+    // fixed seed so that all runs use the same data
+    final Random random = new Random(0);
+    try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(null))) {
+      for (int i = 0; i < NUM_DOCS; ++i) {
+        Document doc = new Document();
+        // a matches half of the docs and b a third of them
+        if (random.nextInt(2) == 0) {
+          doc.add(new StringField("f", "a", Field.Store.NO));
+        }
+        if (random.nextInt(3) == 0) {
+          doc.add(new StringField("f", "b", Field.Store.NO));
+        }
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+    }
+    reader = DirectoryReader.open(dir);
+    searcher = new IndexSearcher(reader);
+    // no caching, which would hide the cost of collection
+    searcher.setQueryCache(null);
+    q = query(query);
+
+    for (int i = 0; i < 10; ++i) {
+      for (String name : new String[] {"all", "term", "or", "and"}) {
+        searcher.search(query(name), new TotalHitCountCollector());
+        searcher.search(query(name), new FacetsCollector());
+        searcher.search(query(name), TopScoreDocCollector.create(10, null, true));
+        searcher.search(query(name), batches(new TotalHitCountCollector()));
+        searcher.search(query(name), noBatches(new TotalHitCountCollector()));
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    IOUtils.close(reader, dir);
+  }
+
+  private static Query query(String name) {
+    final Query a = new TermQuery(new Term("f", "a"));
+    final Query b = new TermQuery(new Term("f", "b"));
+    switch (name) {
+      case "all":
+        return new MatchAllDocsQuery();
+      case "term":
+        return a;
+      case "or":
+        return new BooleanQuery.Builder().add(a, Occur.SHOULD).add(b, Occur.SHOULD).build();
+      case "and":
+        return new BooleanQuery.Builder().add(a, Occur.MUST).add(b, Occur.MUST).build();
+      default:
+        throw new IllegalArgumentException("Unknown query: " + name);
+    }
+  }
+
+  /**
+   * Wraps the given collector so that it collects hits even if their number
+   * can be read from index statistics, see {@link TotalHitCountCollector#setWeight}.
+   */
+  private static Collector batches(Collector collector) {
+    // FilterCollector does not forward the weight
+    return new FilterCollector(collector) {};
+  }
+
+  /** Wraps the given collector so that hits are collected one at a time. */
+  private static Collector noBatches(Collector collector) {
+    return new FilterCollector(collector) {
+      @Override
+      public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        // FilterLeafCollector does not accept batches
+        return new FilterLeafCollector(super.getLeafCollector(context)) {};
+      }
+    };
+  }
+
+  /** Collect all hits of the query. */
+  @Benchmark
+  public int collect() throws IOException {
+    switch (collector) {
+      case "count":
+        final TotalHitCountCollector countCollector = new TotalHitCountCollector();
+        searcher.search(q, batches ? batches(countCollector) : noBatches(countCollector));
+        return countCollector.getTotalHits();
+      case "facets":
+        final FacetsCollector facetsCollector = new FacetsCollector();
+        searcher.search(q, batches ? batches(facetsCollector) : noBatches(facetsCollector));
+        return facetsCollector.getMatchingDocs().get(0).totalHits;
+      default:
+        throw new IllegalArgumentException("Unknown collector: " + collector);
+    }
+  }
+
+}
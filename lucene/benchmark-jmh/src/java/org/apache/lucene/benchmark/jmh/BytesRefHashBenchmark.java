@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.BytesRefHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the two operations of {@link BytesRefHash} that indexing relies
+ * on: {@link BytesRefHash#add} on a stream of terms that contains duplicates,
+ * like the terms of a field while indexing, and {@link BytesRefHash#sort},
+ * which sorts the terms of a field when a segment is flushed.
+ */
+@Fork(1)
+public class BytesRefHashBenchmark {
+
+  private static final int NUM_ADDS = 1 << 16;
+
+  /** Terms to add to a hash. */
+  @State(Scope.Thread)
+  public static class AddState {
+
+    /** Number of unique terms among the added terms. */
+    @Param({"1024", "65536"})
+    public int numUniqueTerms;
+
+    BytesRef[] terms;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      // fixed seed so that all runs use the same data
+      final Random random = new Random(0);
+      final BytesRef[] uniqueTerms = new BytesRef[numUniqueTerms];
+      for (int i = 0; i < numUniqueTerms; ++i) {
+        final byte[] bytes = new byte[3 + random.nextInt(10)];
+        for (int j = 0; j < bytes.length; ++j) {
+          bytes[j] = (byte) ('a' + random.nextInt(26));
+        }
+        uniqueTerms[i] = new BytesRef(bytes);
+      }
+      terms = new BytesRef[NUM_ADDS];
+      for (int i = 0; i < NUM_ADDS; ++i) {
+        terms[i] = uniqueTerms[random.nextInt(numUniqueTerms)];
+      }
+    }
+  }
+
+  /** A hash to sort, filled with the terms of a high-cardinality field such as IDs or URLs. */
+  @State(Scope.Thread)
+  public static class SortState {
+
+    /** Number of unique terms of the field. */
+    @Param({"1000000", "10000000"})
+    public int numTerms;
+
+    /** Shape of the terms: random IDs, or URLs that share long prefixes. */
+    @Param({"id", "url"})
+    public String terms;
+
+    BytesRefHash hash;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+      // fixed seed so that all runs use the same data
+      final Random random = new Random(0);
+      final BytesRefBuilder builder = new BytesRefBuilder();
+      hash = new BytesRefHash();
+      for (int i = 0; i < numTerms; ++i) {
+        final String term;
+        if (terms.equals("id")) {
+          term = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+        } else {
+          term = "https://www.example.com/articles/" + random.nextInt(1000) + "/" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+        }
+        builder.copyChars(term);
+        hash.add(builder.get());
+      }
+    }
+  }
+
+  /** Add all terms to a new hash, the score is a number of adds per microsecond. */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @OperationsPerInvocation(NUM_ADDS)
+  public int add(AddState state) {
+    final BytesRefHash hash = new BytesRefHash();
+    for (BytesRef term : state.terms) {
+      hash.add(term);
+    }
+    return hash.size();
+  }
+
+  /** Sort all terms, the score is the time to sort in milliseconds. */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  @Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+  public int sort(SortState state) {
+    return state.hash.sort()[0];
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of looking up terms in a {@link FST} that maps
+ * random terms to their ordinal, like the terms index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FSTBenchmark {
+
+  private static final int NUM_TERMS = 1 << 18;
+  private static final int NUM_LOOKUPS = 1 << 12;
+
+  private FST<Long> fst;
+  private BytesRef[] existingTerms;
+  private BytesRef[] missingTerms;
+
+  private static BytesRef randomTerm(Random random) {
+    final byte[] bytes = new byte[5 + random.nextInt(11)];
+    for (int i = 0; i < bytes.length; ++i) {
+      bytes[i] = (byte) ('a' + random.nextInt(26));
+    }
+    return new BytesRef(bytes);
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // fixed seed so that all runs use the same data
+    final Random random = new Random(0);
+    final TreeSet<BytesRef> terms = new TreeSet<>();
+    while (terms.size() < NUM_TERMS) {
+      terms.add(randomTerm(random));
+    }
+
+    final Builder<Long> builder = new Builder<>(FST.INPUT_TYPE.BYTE1, PositiveIntOutputs.getSingleton());
+    final IntsRefBuilder scratch = new IntsRefBuilder();
+    long ord = 0;
+    for (BytesRef term : terms) {
+      builder.add(Util.toIntsRef(term, scratch), ord++);
+    }
+    fst = builder.finish();
+
+    final BytesRef[] allTerms = terms.toArray(new BytesRef[0]);
+    existingTerms = new BytesRef[NUM_LOOKUPS];
+    missingTerms = new BytesRef[NUM_LOOKUPS];
+    for (int i = 0; i < NUM_LOOKUPS; ++i) {
+      existingTerms[i] = allTerms[random.nextInt(allTerms.length)];
+      BytesRef missing;
+      do {
+        missing = randomTerm(random);
+      } while (terms.contains(missing));
+      missingTerms[i] = missing;
+    }
+  }
+
+  /** Look up terms that exist, the score is a number of lookups per microsecond. */
+  @Benchmark
+  @OperationsPerInvocation(NUM_LOOKUPS)
+  public long lookupExisting() throws IOException {
+    long sum = 0;
+    for (BytesRef term : existingTerms) {
+      sum += Util.get(fst, term);
+    }
+    return sum;
+  }
+
+  /** Look up terms that don't exist, the score is a number of lookups per microsecond. */
+  @Benchmark
+  @OperationsPerInvocation(NUM_LOOKUPS)
+  public int lookupMissing() throws IOException {
+    int count = 0;
+    for (BytesRef term : missingTerms) {
+      if (Util.get(fst, term) == null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
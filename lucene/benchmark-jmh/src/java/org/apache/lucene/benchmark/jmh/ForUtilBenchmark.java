@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.codecs.interleaved.InterleavedPostingsFormat;
+import org.apache.lucene.codecs.lucene50.BlockEncoding;
+import org.apache.lucene.codecs.lucene50.BlockPacker;
+import org.apache.lucene.codecs.pfor.PForPostingsFormat;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.packed.PackedInts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+
+/**
+ * Measures the throughput of decoding blocks of postings with every
+ * {@link BlockEncoding}, for every number of bits per value that postings may
+ * require.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForUtilBenchmark {
+
+  private static final int NUM_BLOCKS = 1024;
+
+  @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16",
+          "17", "18", "19", "20", "21", "22", "23", "24", "25", "26", "27", "28", "29", "30", "31"})
+  public int bitsPerValue;
+
+  @Param({"FOR", "INTERLEAVED_FOR", "PFOR"})
+  public String encoding;
+
+  private Path path;
+  private Directory dir;
+  private IndexInput in;
+  private BlockPacker packer;
+  private final byte[] encoded = new byte[BlockPacker.MAX_ENCODED_SIZE];
+  private final int[] decoded = new int[BlockPacker.MAX_DATA_SIZE];
+
+  private static BlockEncoding blockEncoding(String name) {
+    switch (name) {
+      case "FOR":
+        return BlockEncoding.FOR;
+      case "INTERLEAVED_FOR":
+        return InterleavedPostingsFormat.BLOCK_ENCODING;
+      case "PFOR":
+        return PForPostingsFormat.BLOCK_ENCODING;
+      default:
+        throw new IllegalArgumentException("Unknown encoding: " + name);
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // fixed seed so that all runs decode the same data
+    final Random random = new Random(bitsPerValue);
+    final long maxValue = PackedInts.maxValue(bitsPerValue);
+    final int[] values = new int[BLOCK_SIZE];
+    final BlockEncoding blockEncoding = blockEncoding(encoding);
+    // postings are usually memory-mapped
+    path = Files.createTempDirectory("ForUtilBenchmark");
+    dir = new MMapDirectory(path);
+    try (IndexOutput out = dir.createOutput("blocks", IOContext.DEFAULT)) {
+      final BlockPacker writer = blockEncoding.newPacker(out);
+      for (int i = 0; i < NUM_BLOCKS; ++i) {
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[j] = (int) (random.nextLong() & maxValue);
+        }
+        // make sure that blocks need exactly bitsPerValue bits
+        values[random.nextInt(BLOCK_SIZE)] = (int) maxValue;
+        writer.writeBlock(values, encoded, out);
+      }
+    }
+    in = dir.openInput("blocks", IOContext.READ);
+    packer = blockEncoding.readPacker(in);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    IOUtils.close(in, dir);
+    IOUtils.rm(path);
+  }
+
+  /** Decode all blocks, the score is a number of blocks per microsecond. */
+  @Benchmark
+  @OperationsPerInvocation(NUM_BLOCKS)
+  public int decode() throws IOException {
+    final IndexInput in = this.in.clone();
+    int sum = 0;
+    for (int i = 0; i < NUM_BLOCKS; ++i) {
+      packer.readBlock(in, encoded, decoded);
+      sum += decoded[i & (BLOCK_SIZE - 1)];
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link NumericDocValues#advance} and
+ * {@link NumericDocValues#advanceExact} on a field whose density makes the
+ * default codec encode the documents that have a value with blocks that use
+ * the SPARSE or DENSE method, or not record them at all when all documents
+ * have a value.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedDISIBenchmark {
+
+  private static final int MAX_DOC = 1 << 22;
+  private static final int NUM_TARGETS = 1 << 14;
+
+  /** Ratio of documents that have a value. */
+  @Param({"0.01", "0.5", "1"})
+  public double density;
+
+  private Path path;
+  private Directory dir;
+  private DirectoryReader reader;
+  private LeafReader leafReader;
+  private int[] targets;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // fixed seed so that all runs use the same data
+    final Random random = new Random(0);
+    path = Files.createTempDirectory("IndexedDISIBenchmark");
+    dir = new MMapDirectory(path);
+    try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(null))) {
+      final Document withValue = new Document();
+      withValue.add(new NumericDocValuesField("f", 1L));
+      final Document withoutValue = new Document();
+      for (int doc = 0; doc < MAX_DOC; ++doc) {
+        if (density >= 1 || random.nextDouble() < density) {
+          w.addDocument(withValue);
+        } else {
+          w.addDocument(withoutValue);
+        }
+      }
+      w.forceMerge(1);
+    }
+    reader = DirectoryReader.open(dir);
+    leafReader = reader.leaves().get(0).reader();
+
+    targets = new int[NUM_TARGETS];
+    for (int i = 0; i < NUM_TARGETS; ++i) {
+      targets[i] = random.nextInt(MAX_DOC);
+    }
+    Arrays.sort(targets);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    IOUtils.close(reader, dir);
+    IOUtils.rm(path);
+  }
+
+  /** Advance to increasing targets, the score is a number of calls per microsecond. */
+  @Benchmark
+  @OperationsPerInvocation(NUM_TARGETS)
+  public long advance() throws IOException {
+    final NumericDocValues values = leafReader.getNumericDocValues("f");
+    long sum = 0;
+    for (int target : targets) {
+      if (target > values.docID()) {
+        final int doc = values.advance(target);
+        if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+          break;
+        }
+        sum += values.longValue();
+      }
+    }
+    return sum;
+  }
+
+  /** Check increasing targets, the score is a number of calls per microsecond. */
+  @Benchmark
+  @OperationsPerInvocation(NUM_TARGETS)
+  public long advanceExact() throws IOException {
+    final NumericDocValues values = leafReader.getNumericDocValues("f");
+    long sum = 0;
+    int previous = -1;
+    for (int target : targets) {
+      // advanceExact doesn't allow the same target twice
+      if (target != previous && values.advanceExact(target)) {
+        sum += values.longValue();
+      }
+      previous = target;
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of LZ4 compression and decompression of chunks of
+ * text-like data, like the stored fields of documents, through the
+ * {@link CompressionMode}s that use LZ4: {@link CompressionMode#FAST} and
+ * {@link CompressionMode#FAST_DECOMPRESSION}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LZ4Benchmark {
+
+  /** Size of the chunks to compress, in bytes. */
+  @Param({"4096", "16384", "65536"})
+  public int chunkSize;
+
+  private byte[] uncompressed;
+  private byte[] compressed;
+  private int compressedLength;
+  private final BytesRef restored = new BytesRef();
+  private final Compressor compressor = CompressionMode.FAST.newCompressor();
+  private final Compressor hcCompressor = CompressionMode.FAST_DECOMPRESSION.newCompressor();
+  private final Decompressor decompressor = CompressionMode.FAST.newDecompressor();
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // fixed seed so that all runs use the same data
+    final Random random = new Random(0);
+    // words of a small vocabulary, frequent words first
+    final String[] vocabulary = new String[1000];
+    for (int i = 0; i < vocabulary.length; ++i) {
+      final StringBuilder word = new StringBuilder();
+      final int length = 2 + random.nextInt(8);
+      for (int j = 0; j < length; ++j) {
+        word.append((char) ('a' + random.nextInt(26)));
+      }
+      vocabulary[i] = word.toString();
+    }
+    final StringBuilder text = new StringBuilder();
+    while (text.length() < chunkSize) {
+      // skew the distribution towards the first words
+      final int index = (int) (vocabulary.length * Math.pow(random.nextDouble(), 3));
+      text.append(vocabulary[index]).append(' ');
+    }
+    uncompressed = new byte[chunkSize];
+    System.arraycopy(text.toString().getBytes(StandardCharsets.UTF_8), 0, uncompressed, 0, chunkSize);
+
+    // incompressible data may grow a bit
+    compressed = new byte[chunkSize * 2];
+    compressedLength = compress();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    IOUtils.close(compressor, hcCompressor);
+  }
+
+  /** Compress a chunk with {@link CompressionMode#FAST}, the score is a number of chunks per second. */
+  @Benchmark
+  public int compress() throws IOException {
+    final ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+    compressor.compress(uncompressed, 0, uncompressed.length, out);
+    return out.getPosition();
+  }
+
+  /** Compress a chunk with {@link CompressionMode#FAST_DECOMPRESSION}, the score is a number of chunks per second. */
+  @Benchmark
+  public int compressHC() throws IOException {
+    final ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+    hcCompressor.compress(uncompressed, 0, uncompressed.length, out);
+    return out.getPosition();
+  }
+
+  /** Decompress a chunk, the score is a number of chunks per second. */
+  @Benchmark
+  public int decompress() throws IOException {
+    final ByteArrayDataInput in = new ByteArrayDataInput(compressed, 0, compressedLength);
+    decompressor.decompress(in, uncompressed.length, 0, uncompressed.length, restored);
+    return restored.length;
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.jmh;
+
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of collecting hits with
+ * {@link TopScoreDocCollector}, with random scores, when total hits are
+ * counted exactly and when they are not, in which case non-competitive hits
+ * may be skipped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopScoreDocCollectorBenchmark {
+
+  private static final int NUM_HITS = 1 << 16;
+
+  /** A {@link Scorer} that returns the doc and score that it is given. */
+  private static final class FakeScorer extends Scorer {
+    float score;
+    int doc = -1;
+
+    FakeScorer() {
+      super(null);
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public float score() {
+      return score;
+    }
+
+    @Override
+    public float getMaxScore(int upTo) {
+      return Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Weight getWeight() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<ChildScorer> getChildren() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Number of top hits to keep. */
+  @Param({"10", "100", "1000"})
+  public int numTopHits;
+
+  /** Whether the total hit count must be exact. */
+  @Param({"true", "false"})
+  public boolean trackTotalHits;
+
+  private Directory dir;
+  private DirectoryReader reader;
+  private LeafReaderContext context;
+  private float[] scores;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // collectors only need a leaf to get its doc base
+    dir = new RAMDirectory();
+    try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(null))) {
+      w.addDocument(new Document());
+    }
+    reader = DirectoryReader.open(dir);
+    context = reader.leaves().get(0);
+
+    // fixed seed so that all runs use the same data
+    final Random random = new Random(0);
+    scores = new float[NUM_HITS];
+    for (int i = 0; i < NUM_HITS; ++i) {
+      scores[i] = random.nextFloat();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    IOUtils.close(reader, dir);
+  }
+
+  /** Collect all hits, the score is a number of hits per microsecond. */
+  @Benchmark
+  @OperationsPerInvocation(NUM_HITS)
+  public TopDocs collect() throws IOException {
+    final TopScoreDocCollector collector = TopScoreDocCollector.create(numTopHits, null, trackTotalHits);
+    final LeafCollector leafCollector = collector.getLeafCollector(context);
+    final FakeScorer scorer = new FakeScorer();
+    leafCollector.setScorer(scorer);
+    for (int doc = 0; doc < NUM_HITS; ++doc) {
+      scorer.doc = doc;
+      scorer.score = scores[doc];
+      leafCollector.collect(doc);
+    }
+    return collector.topDocs();
+  }
+
+}
@@ -29,7 +29,8 @@ import org.apache.lucene.benchmark.byTask.PerfRunData;
 import org.apache.lucene.benchmark.byTask.utils.Config;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.PostingsFormat;
-import org.apache.lucene.codecs.lucene70.Lucene70Codec;
+import org.apache.lucene.codecs.lucene80.Lucene80Codec;
+import org.apache.lucene.codecs.lucene80.Lucene80StoredFieldsFormat;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexDeletionPolicy;
@@ -53,7 +54,8 @@ import org.apache.lucene.index.NoMergeScheduler;
  * org.apache.lucene.index.ConcurrentMergeScheduler),
  * concurrent.merge.scheduler.max.thread.count and
  * concurrent.merge.scheduler.max.merge.count (defaults per
- * ConcurrentMergeScheduler), default.codec </code>.
+ * ConcurrentMergeScheduler), default.codec, codec.postingsFormat,
+ * codec.storedFieldsMode (one of {@link Lucene80StoredFieldsFormat.Mode}) </code>.
  * <p>
  * This task also supports a "writer.info.stream" property with the following
  * values:
@@ -136,17 +138,30 @@ public class CreateIndexTask extends PerfTask {
     }
 
     final String postingsFormat = config.get("codec.postingsFormat",null);
-    if (defaultCodec == null && postingsFormat != null) {
+    final String storedFieldsMode = config.get("codec.storedFieldsMode",null);
+    if (defaultCodec == null && (postingsFormat != null || storedFieldsMode != null)) {
+      final Lucene80StoredFieldsFormat.Mode storedFieldsModeChosen;
       try {
-        final PostingsFormat postingsFormatChosen = PostingsFormat.forName(postingsFormat);
-        iwConf.setCodec(new Lucene70Codec() {
-          @Override
-          public PostingsFormat getPostingsFormatForField(String field) {
-            return postingsFormatChosen;
-          }
-        });
-      } catch (Exception e) {
-        throw new RuntimeException("Couldn't instantiate Postings Format: " + postingsFormat, e);
+        storedFieldsModeChosen = storedFieldsMode == null
+            ? Lucene80StoredFieldsFormat.Mode.BEST_SPEED
+            : Lucene80StoredFieldsFormat.Mode.valueOf(storedFieldsMode);
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException("Unknown stored fields mode: " + storedFieldsMode, e);
+      }
+      if (postingsFormat == null) {
+        iwConf.setCodec(new Lucene80Codec(storedFieldsModeChosen));
+      } else {
+        try {
+          final PostingsFormat postingsFormatChosen = PostingsFormat.forName(postingsFormat);
+          iwConf.setCodec(new Lucene80Codec(storedFieldsModeChosen) {
+            @Override
+            public PostingsFormat getPostingsFormatForField(String field) {
+              return postingsFormatChosen;
+            }
+          });
+        } catch (Exception e) {
+          throw new RuntimeException("Couldn't instantiate Postings Format: " + postingsFormat, e);
+        }
       }
     }
 
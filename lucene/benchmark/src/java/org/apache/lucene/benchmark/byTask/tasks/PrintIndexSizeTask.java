@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.byTask.tasks;
+
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.lucene.benchmark.byTask.PerfRunData;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+
+/**
+ * Prints the size of the files of the last commit of the index, grouped by
+ * extension. Use it with <code>compound=false</code> in order to get the size
+ * of each kind of file, for instance to compare stored fields compression
+ * modes through <code>codec.storedFieldsMode</code>.
+ */
+public class PrintIndexSizeTask extends PerfTask {
+
+  public PrintIndexSizeTask(PerfRunData runData) {
+    super(runData);
+  }
+
+  @Override
+  public int doLogic() throws Exception {
+    Directory dir = getRunData().getDirectory();
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    Map<String,Long> sizeByExtension = new TreeMap<>();
+    long totalSize = 0;
+    for (String file : infos.files(true)) {
+      final long size = dir.fileLength(file);
+      final String extension = IndexFileNames.getExtension(file);
+      sizeByExtension.merge(extension == null ? file : extension, size, Long::sum);
+      totalSize += size;
+    }
+    StringBuilder sb = new StringBuilder("--> indexSize:").append(totalSize);
+    for (Map.Entry<String,Long> entry : sizeByExtension.entrySet()) {
+      sb.append(' ').append(entry.getKey()).append(':').append(entry.getValue());
+    }
+    System.out.println(sb);
+    return 1;
+  }
+}
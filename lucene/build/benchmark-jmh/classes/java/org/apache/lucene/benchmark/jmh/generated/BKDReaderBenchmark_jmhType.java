@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class BKDReaderBenchmark_jmhType extends BKDReaderBenchmark_jmhType_B3 {
+}
+
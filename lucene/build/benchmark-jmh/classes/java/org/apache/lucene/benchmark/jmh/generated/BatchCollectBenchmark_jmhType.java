@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class BatchCollectBenchmark_jmhType extends BatchCollectBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class BytesRefHashBenchmark_AddState_jmhType extends BytesRefHashBenchmark_AddState_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class BytesRefHashBenchmark_jmhType extends BytesRefHashBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class FSTBenchmark_jmhType extends FSTBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class ForUtilBenchmark_jmhType extends ForUtilBenchmark_jmhType_B3 {
+}
+
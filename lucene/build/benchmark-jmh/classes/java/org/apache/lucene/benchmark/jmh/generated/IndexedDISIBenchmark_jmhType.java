@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class IndexedDISIBenchmark_jmhType extends IndexedDISIBenchmark_jmhType_B3 {
+}
+
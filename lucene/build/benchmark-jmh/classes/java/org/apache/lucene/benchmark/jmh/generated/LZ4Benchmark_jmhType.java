@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class LZ4Benchmark_jmhType extends LZ4Benchmark_jmhType_B3 {
+}
+
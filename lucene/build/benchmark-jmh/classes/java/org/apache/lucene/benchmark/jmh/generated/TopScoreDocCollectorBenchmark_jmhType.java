@@ -0,0 +1,4 @@
+package org.apache.lucene.benchmark.jmh.generated;
+public class TopScoreDocCollectorBenchmark_jmhType extends TopScoreDocCollectorBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.interleaved;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.lucene50.BlockPacker;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.packed.PackedInts;
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+
+/**
+ * Encode all values of a block with fixed bit width, like the default
+ * {@link org.apache.lucene.codecs.lucene50.BlockEncoding#FOR} encoding, but
+ * using a layout that allows the JVM to auto-vectorize decoding.
+ * <p>
+ * Values are first interleaved into 32-bit lanes: if they require 8 bits or
+ * less, the <code>i</code>-th int stores values <code>i</code>,
+ * <code>32+i</code>, <code>64+i</code> and <code>96+i</code>, if they
+ * require 16 bits or less, the <code>i</code>-th int stores values
+ * <code>i</code> and <code>64+i</code>, and otherwise each int stores a
+ * single value. These ints are then packed into <code>4*bitsPerValue</code>
+ * ints: as many values as fit in an int are packed with shifts that are the
+ * same for all ints of a group, and the bits that are left over in each lane
+ * are filled recursively with the remaining values, in a similar way to
+ * Euclid's algorithm. Decoding then only consists of simple loops that apply
+ * the same shift and mask to consecutive ints, which HotSpot's C2 compiler
+ * turns into SIMD instructions, rather than of per-value shifts as with
+ * {@link PackedInts}. Packed ints are stored in little-endian order, the
+ * native byte order of most hardware.
+ * <p>
+ * Encoding is not thread-safe, decoding is.
+ */
+final class InterleavedForUtil extends BlockPacker {
+
+  /**
+   * Special number of bits per value used whenever all values to encode are equal.
+   */
+  private static final int ALL_VALUES_EQUAL = 0;
+
+  private static final int[] MASKS8 = new int[8 + 1];
+  private static final int[] MASKS16 = new int[16 + 1];
+  private static final int[] MASKS32 = new int[32 + 1];
+  static {
+    for (int i = 0; i <= 8; ++i) {
+      MASKS8[i] = mask8(i);
+    }
+    for (int i = 0; i <= 16; ++i) {
+      MASKS16[i] = mask16(i);
+    }
+    for (int i = 0; i <= 32; ++i) {
+      MASKS32[i] = mask32(i);
+    }
+  }
+
+  private static int mask32(int bitsPerValue) {
+    return bitsPerValue == 32 ? -1 : (1 << bitsPerValue) - 1;
+  }
+
+  private static int mask16(int bitsPerValue) {
+    final int mask = mask32(bitsPerValue);
+    return (mask << 16) | mask;
+  }
+
+  private static int mask8(int bitsPerValue) {
+    final int mask = mask16(bitsPerValue);
+    return (mask << 8) | mask;
+  }
+
+  /** Return the number of bits of the lanes of ints for the given number of bits per value. */
+  private static int primitiveSize(int bitsPerValue) {
+    if (bitsPerValue <= 8) {
+      return 8;
+    } else if (bitsPerValue <= 16) {
+      return 16;
+    } else {
+      return 32;
+    }
+  }
+
+  private static int[] masks(int primitiveSize) {
+    switch (primitiveSize) {
+      case 8:
+        return MASKS8;
+      case 16:
+        return MASKS16;
+      case 32:
+        return MASKS32;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /**
+   * Compute the number of bytes required to encode a block of values that require
+   * <code>bitsPerValue</code> bits per value.
+   */
+  private static int encodedSize(int bitsPerValue) {
+    // BLOCK_SIZE * bitsPerValue / Byte.SIZE
+    return bitsPerValue << 4;
+  }
+
+  // buffers for encoding
+  private final int[] collapsed = new int[BLOCK_SIZE];
+  private final int[] packed = new int[BLOCK_SIZE];
+
+  InterleavedForUtil() {
+    assert encodedSize(32) <= MAX_ENCODED_SIZE;
+    assert BLOCK_SIZE <= MAX_DATA_SIZE;
+  }
+
+  @Override
+  public void writeBlock(int[] data, byte[] encoded, IndexOutput out) throws IOException {
+    if (isAllEqual(data)) {
+      out.writeByte((byte) ALL_VALUES_EQUAL);
+      out.writeVInt(data[0]);
+      return;
+    }
+
+    final int bitsPerValue = bitsRequired(data);
+    assert bitsPerValue > 0 && bitsPerValue <= 32 : bitsPerValue;
+    out.writeByte((byte) bitsPerValue);
+
+    final int primitiveSize = primitiveSize(bitsPerValue);
+    final int numInts = BLOCK_SIZE * primitiveSize / Integer.SIZE;
+    final int numPackedInts = bitsPerValue * 4; // BLOCK_SIZE * bitsPerValue / Integer.SIZE
+    collapse(data, primitiveSize, collapsed);
+    Arrays.fill(packed, 0, numPackedInts, 0);
+    pack(collapsed, 0, numInts, bitsPerValue, packed, 0, numPackedInts, primitiveSize, masks(primitiveSize));
+
+    for (int i = 0, j = 0; i < numPackedInts; ++i) {
+      final int v = packed[i];
+      encoded[j++] = (byte) v;
+      encoded[j++] = (byte) (v >>> 8);
+      encoded[j++] = (byte) (v >>> 16);
+      encoded[j++] = (byte) (v >>> 24);
+    }
+    out.writeBytes(encoded, encodedSize(bitsPerValue));
+  }
+
+  @Override
+  public void readBlock(IndexInput in, byte[] encoded, int[] decoded) throws IOException {
+    final int bitsPerValue = in.readByte();
+    assert bitsPerValue <= 32 : bitsPerValue;
+
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      final int value = in.readVInt();
+      Arrays.fill(decoded, 0, BLOCK_SIZE, value);
+      return;
+    }
+
+    // packed ints are decoded in place: they are read into the first
+    // numPackedInts slots of the decoded array, which are overwritten last
+    final int numPackedInts = bitsPerValue * 4;
+    in.readBytes(encoded, 0, numPackedInts << 2);
+    for (int i = 0, j = 0; i < numPackedInts; ++i, j += 4) {
+      decoded[i] = (encoded[j] & 0xFF) | ((encoded[j+1] & 0xFF) << 8)
+          | ((encoded[j+2] & 0xFF) << 16) | ((encoded[j+3] & 0xFF) << 24);
+    }
+
+    final int primitiveSize = primitiveSize(bitsPerValue);
+    final int numInts = BLOCK_SIZE * primitiveSize / Integer.SIZE;
+    unpack(decoded, 0, numPackedInts, primitiveSize, decoded, 0, numInts, bitsPerValue, masks(primitiveSize));
+    expand(decoded, primitiveSize);
+  }
+
+  @Override
+  public void skipBlock(IndexInput in) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      in.readVInt();
+      return;
+    }
+    assert bitsPerValue > 0 && bitsPerValue <= 32 : bitsPerValue;
+    in.seek(in.getFilePointer() + encodedSize(bitsPerValue));
+  }
+
+  /**
+   * Pack <code>numValues</code> values of <code>bitsPerValue</code> bits into
+   * the lowest <code>wordBits</code> bits of each lane of
+   * <code>numWords</code> ints, which must hold exactly as many bits. Values
+   * are packed with shifts that are the same for all ints of a group when they
+   * fit in a word, and are split in chunks of <code>wordBits</code> bits
+   * otherwise. Bits that are left over are packed recursively, in a similar
+   * way to Euclid's algorithm, so that every step is a loop over consecutive
+   * ints. Values may be modified.
+   */
+  private static void pack(int[] values, int valuesOffset, int numValues, int bitsPerValue,
+      int[] words, int wordsOffset, int numWords, int wordBits, int[] masks) {
+    assert numValues * bitsPerValue == numWords * wordBits;
+    if (bitsPerValue <= wordBits) {
+      final int numShifts = wordBits / bitsPerValue;
+      for (int j = 0; j < numShifts; ++j) {
+        final int shift = wordBits - (j + 1) * bitsPerValue;
+        final int offset = valuesOffset + j * numWords;
+        for (int i = 0; i < numWords; ++i) {
+          words[wordsOffset + i] |= values[offset + i] << shift;
+        }
+      }
+      final int remainingWordBits = wordBits - numShifts * bitsPerValue;
+      if (remainingWordBits > 0) {
+        final int consumed = numShifts * numWords;
+        pack(values, valuesOffset + consumed, numValues - consumed, bitsPerValue,
+            words, wordsOffset, numWords, remainingWordBits, masks);
+      }
+    } else {
+      final int numChunks = bitsPerValue / wordBits;
+      final int mask = masks[wordBits];
+      for (int c = 0; c < numChunks; ++c) {
+        final int shift = bitsPerValue - (c + 1) * wordBits;
+        final int offset = wordsOffset + c * numValues;
+        for (int i = 0; i < numValues; ++i) {
+          words[offset + i] |= (values[valuesOffset + i] >>> shift) & mask;
+        }
+      }
+      final int remainingBitsPerValue = bitsPerValue - numChunks * wordBits;
+      if (remainingBitsPerValue > 0) {
+        final int remainingMask = masks[remainingBitsPerValue];
+        for (int i = 0; i < numValues; ++i) {
+          values[valuesOffset + i] &= remainingMask;
+        }
+        final int consumed = numChunks * numValues;
+        pack(values, valuesOffset, numValues, remainingBitsPerValue,
+            words, wordsOffset + consumed, numWords - consumed, wordBits, masks);
+      }
+    }
+  }
+
+  /**
+   * Reverse operation of {@link #pack}. Words may only overlap with values
+   * at the top level of the recursion, when they start at the same offset:
+   * the values that share their offset with words are decoded last.
+   */
+  private static void unpack(int[] words, int wordsOffset, int numWords, int wordBits,
+      int[] values, int valuesOffset, int numValues, int bitsPerValue, int[] masks) {
+    assert numValues * bitsPerValue == numWords * wordBits;
+    if (bitsPerValue <= wordBits) {
+      final int numShifts = wordBits / bitsPerValue;
+      final int remainingWordBits = wordBits - numShifts * bitsPerValue;
+      if (remainingWordBits > 0) {
+        final int consumed = numShifts * numWords;
+        unpack(words, wordsOffset, numWords, remainingWordBits,
+            values, valuesOffset + consumed, numValues - consumed, bitsPerValue, masks);
+      }
+      final int mask = masks[bitsPerValue];
+      for (int j = numShifts - 1; j >= 0; --j) {
+        final int shift = wordBits - (j + 1) * bitsPerValue;
+        final int offset = valuesOffset + j * numWords;
+        for (int i = 0; i < numWords; ++i) {
+          values[offset + i] = (words[wordsOffset + i] >>> shift) & mask;
+        }
+      }
+    } else {
+      final int numChunks = bitsPerValue / wordBits;
+      final int remainingBitsPerValue = bitsPerValue - numChunks * wordBits;
+      if (remainingBitsPerValue > 0) {
+        final int consumed = numChunks * numValues;
+        unpack(words, wordsOffset + consumed, numWords - consumed, wordBits,
+            values, valuesOffset, numValues, remainingBitsPerValue, masks);
+      } else {
+        Arrays.fill(values, valuesOffset, valuesOffset + numValues, 0);
+      }
+      final int mask = masks[wordBits];
+      for (int c = 0; c < numChunks; ++c) {
+        final int shift = bitsPerValue - (c + 1) * wordBits;
+        final int offset = wordsOffset + c * numValues;
+        for (int i = 0; i < numValues; ++i) {
+          values[valuesOffset + i] |= (words[offset + i] & mask) << shift;
+        }
+      }
+    }
+  }
+
+  private static void collapse(int[] data, int primitiveSize, int[] collapsed) {
+    switch (primitiveSize) {
+      case 8:
+        for (int i = 0; i < 32; ++i) {
+          collapsed[i] = (data[i] << 24) | (data[32 + i] << 16) | (data[64 + i] << 8) | data[96 + i];
+        }
+        break;
+      case 16:
+        for (int i = 0; i < 64; ++i) {
+          collapsed[i] = (data[i] << 16) | data[64 + i];
+        }
+        break;
+      case 32:
+        System.arraycopy(data, 0, collapsed, 0, BLOCK_SIZE);
+        break;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  private static void expand(int[] arr, int primitiveSize) {
+    switch (primitiveSize) {
+      case 8:
+        for (int i = 0; i < 32; ++i) {
+          final int l = arr[i];
+          arr[i] = (l >>> 24) & 0xFF;
+          arr[32 + i] = (l >>> 16) & 0xFF;
+          arr[64 + i] = (l >>> 8) & 0xFF;
+          arr[96 + i] = l & 0xFF;
+        }
+        break;
+      case 16:
+        for (int i = 0; i < 64; ++i) {
+          final int l = arr[i];
+          arr[i] = (l >>> 16) & 0xFFFF;
+          arr[64 + i] = l & 0xFFFF;
+        }
+        break;
+      case 32:
+        break;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  private static boolean isAllEqual(final int[] data) {
+    final int v = data[0];
+    for (int i = 1; i < BLOCK_SIZE; ++i) {
+      if (data[i] != v) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compute the number of bits required to serialize any of the values in
+   * <code>data</code>.
+   */
+  private static int bitsRequired(final int[] data) {
+    long or = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      assert data[i] >= 0;
+      or |= data[i];
+    }
+    return PackedInts.bitsRequired(or);
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pfor;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.PostingsReaderBase;
+import org.apache.lucene.codecs.PostingsWriterBase;
+import org.apache.lucene.codecs.blocktree.BlockTreeTermsReader;
+import org.apache.lucene.codecs.blocktree.BlockTreeTermsWriter;
+import org.apache.lucene.codecs.lucene50.BlockEncoding;
+import org.apache.lucene.codecs.lucene50.BlockPacker;
+import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat;
+import org.apache.lucene.codecs.lucene50.Lucene50PostingsReader;
+import org.apache.lucene.codecs.lucene50.Lucene50PostingsWriter;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.util.IOUtils;
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+
+/**
+ * Variant of {@link Lucene50PostingsFormat} whose packed blocks use patched
+ * frame of reference (PFOR) encoding, so that a few large values, such as
+ * the gap before a document that is far from the previous one, don't
+ * increase the number of bits per value of the whole block.
+ * <p>
+ * The structure of postings files is the same as with
+ * {@link Lucene50PostingsFormat}, only the encoding of packed blocks differs:
+ * the <code>PackedBlock</code>s of the <code>.doc</code>, <code>.pos</code>
+ * and <code>.pay</code> files start with a token byte whose 3 upper bits are a
+ * number of exceptions <code>e</code> (at most 7) and whose 5 lower bits are a
+ * number of bits per value <code>b</code>. If <code>b</code> is not 0, the
+ * token is followed by the values packed on <code>b</code> bits, otherwise by a single
+ * {@link org.apache.lucene.store.DataOutput#writeVInt VInt} that all values
+ * are equal to. Then <code>e</code> pairs of bytes give the index in the
+ * block and the high bits, which are shifted left by <code>b</code> bits, of
+ * the values that didn't fit on <code>b</code> bits. The number of bits per
+ * value is chosen so that at most 7 values are exceptions and that exceptions
+ * have at most 8 more bits than other values.
+ *
+ * @lucene.experimental
+ */
+public final class PForPostingsFormat extends PostingsFormat {
+
+  /**
+   * The encoding of the packed blocks of this format.
+   * @lucene.internal
+   */
+  public static final BlockEncoding BLOCK_ENCODING = new BlockEncoding("PForPostingsWriter") {
+    @Override
+    public BlockPacker newPacker(DataOutput docOut) throws IOException {
+      return new PForUtil(docOut);
+    }
+
+    @Override
+    public BlockPacker readPacker(DataInput docIn) throws IOException {
+      return new PForUtil(docIn);
+    }
+  };
+
+  private final int minTermBlockSize;
+  private final int maxTermBlockSize;
+
+  /** Creates {@code PForPostingsFormat} with default
+   *  settings. */
+  public PForPostingsFormat() {
+    this(BlockTreeTermsWriter.DEFAULT_MIN_BLOCK_SIZE, BlockTreeTermsWriter.DEFAULT_MAX_BLOCK_SIZE);
+  }
+
+  /** Creates {@code PForPostingsFormat} with custom
+   *  values for {@code minBlockSize} and {@code
+   *  maxBlockSize} passed to block terms dictionary.
+   *  @see BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int) */
+  public PForPostingsFormat(int minTermBlockSize, int maxTermBlockSize) {
+    super("PFor50");
+    BlockTreeTermsWriter.validateSettings(minTermBlockSize, maxTermBlockSize);
+    this.minTermBlockSize = minTermBlockSize;
+    this.maxTermBlockSize = maxTermBlockSize;
+  }
+
+  @Override
+  public String toString() {
+    return getName() + "(blocksize=" + BLOCK_SIZE + ")";
+  }
+
+  @Override
+  public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+    PostingsWriterBase postingsWriter = new Lucene50PostingsWriter(state, BLOCK_ENCODING);
+
+    boolean success = false;
+    try {
+      FieldsConsumer ret = new BlockTreeTermsWriter(state, 
+                                                    postingsWriter,
+                                                    minTermBlockSize, 
+                                                    maxTermBlockSize);
+      success = true;
+      return ret;
+    } finally {
+      if (!success) {
+        IOUtils.closeWhileHandlingException(postingsWriter);
+      }
+    }
+  }
+
+  @Override
+  public FieldsProducer fieldsProducer(SegmentReadState state) throws IOException {
+    PostingsReaderBase postingsReader = new Lucene50PostingsReader(state, BLOCK_ENCODING);
+    boolean success = false;
+    try {
+      FieldsProducer ret = new BlockTreeTermsReader(postingsReader, state);
+      success = true;
+      return ret;
+    } finally {
+      if (!success) {
+        IOUtils.closeWhileHandlingException(postingsReader);
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pfor;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.lucene50.BlockPacker;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.packed.PackedInts;
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+
+/**
+ * Encode all values of a block with patched frame of reference (PFOR): values
+ * are packed with {@link PackedInts.Format#PACKED} using the number of bits
+ * per value that the smallest values require, and up to
+ * {@link #MAX_EXCEPTIONS} larger values, the exceptions, get their high bits
+ * patched in afterwards.
+ * <p>
+ * A block starts with a token whose 3 upper bits are the number of exceptions
+ * and whose 5 lower bits are the number of bits per value of packed values,
+ * which are followed by one byte for the index and one byte for the high bits
+ * of every exception. If packed values are all equal and values require 8
+ * bits or less, the token has 0 bits per value and packed values are replaced
+ * with a single {@link IndexOutput#writeVInt VInt}: exceptions then store
+ * their high bits already shifted.
+ * <p>
+ * Values must be less than <code>2^31</code>, which is always the case of
+ * postings.
+ */
+final class PForUtil extends BlockPacker {
+
+  /**
+   * Maximum number of exceptions per block.
+   */
+  static final int MAX_EXCEPTIONS = 7;
+
+  private final int[] encodedSizes = new int[32];
+  private final PackedInts.Encoder[] encoders = new PackedInts.Encoder[32];
+  private final PackedInts.Decoder[] decoders = new PackedInts.Decoder[32];
+  private final int[] iterations = new int[32];
+
+  // buffers for encoding
+  private final int[] top = new int[MAX_EXCEPTIONS + 1];
+  private final byte[] exceptions = new byte[MAX_EXCEPTIONS * 2];
+
+  /**
+   * Create a new {@link PForUtil} instance and save state into <code>out</code>.
+   */
+  PForUtil(DataOutput out) throws IOException {
+    out.writeVInt(PackedInts.VERSION_CURRENT);
+    init(PackedInts.VERSION_CURRENT);
+  }
+
+  /**
+   * Restore a {@link PForUtil} from a {@link DataInput}.
+   */
+  PForUtil(DataInput in) throws IOException {
+    final int packedIntsVersion = in.readVInt();
+    PackedInts.checkVersion(packedIntsVersion);
+    init(packedIntsVersion);
+  }
+
+  private void init(int packedIntsVersion) {
+    for (int bpv = 1; bpv < 32; ++bpv) {
+      final long byteCount = PackedInts.Format.PACKED.byteCount(packedIntsVersion, BLOCK_SIZE, bpv);
+      assert byteCount <= MAX_ENCODED_SIZE : byteCount;
+      encodedSizes[bpv] = (int) byteCount;
+      encoders[bpv] = PackedInts.getEncoder(PackedInts.Format.PACKED, packedIntsVersion, bpv);
+      decoders[bpv] = PackedInts.getDecoder(PackedInts.Format.PACKED, packedIntsVersion, bpv);
+      iterations[bpv] = (int) Math.ceil((float) BLOCK_SIZE / decoders[bpv].byteValueCount());
+      assert iterations[bpv] * decoders[bpv].byteValueCount() <= MAX_DATA_SIZE;
+    }
+  }
+
+  @Override
+  public void writeBlock(int[] data, byte[] encoded, IndexOutput out) throws IOException {
+    // the MAX_EXCEPTIONS + 1 largest values, in ascending order
+    Arrays.fill(top, 0);
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      final int v = data[i];
+      assert v >= 0;
+      if (v > top[0]) {
+        int j = 1;
+        for (; j < top.length && top[j] < v; ++j) {
+          top[j - 1] = top[j];
+        }
+        top[j - 1] = v;
+      }
+    }
+
+    final int maxBitsRequired = PackedInts.bitsRequired(top[MAX_EXCEPTIONS]);
+    assert maxBitsRequired <= 31 : maxBitsRequired;
+    // the high bits of exceptions are stored on a byte
+    final int patchedBitsRequired = Math.max(PackedInts.bitsRequired(top[0]), maxBitsRequired - Byte.SIZE);
+    final int maxUnpatchedValue = (1 << patchedBitsRequired) - 1;
+
+    int numExceptions = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      if (data[i] > maxUnpatchedValue) {
+        exceptions[numExceptions * 2] = (byte) i;
+        exceptions[numExceptions * 2 + 1] = (byte) (data[i] >>> patchedBitsRequired);
+        data[i] &= maxUnpatchedValue;
+        numExceptions++;
+      }
+    }
+    assert numExceptions <= MAX_EXCEPTIONS : numExceptions;
+
+    final int exceptionShift;
+    if (maxBitsRequired <= Byte.SIZE && isAllEqual(data)) {
+      for (int i = 0; i < numExceptions; ++i) {
+        exceptions[i * 2 + 1] = (byte) ((exceptions[i * 2 + 1] & 0xFF) << patchedBitsRequired);
+      }
+      exceptionShift = 0;
+      out.writeByte((byte) (numExceptions << 5));
+      out.writeVInt(data[0]);
+    } else {
+      // if no bits were required, all values would be equal
+      assert patchedBitsRequired > 0;
+      exceptionShift = patchedBitsRequired;
+      out.writeByte((byte) ((numExceptions << 5) | patchedBitsRequired));
+      final int iters = iterations[patchedBitsRequired];
+      encoders[patchedBitsRequired].encode(data, 0, encoded, 0, iters);
+      out.writeBytes(encoded, encodedSizes[patchedBitsRequired]);
+    }
+    out.writeBytes(exceptions, numExceptions * 2);
+
+    // restore exceptions, the caller may still need them
+    for (int i = 0; i < numExceptions; ++i) {
+      data[exceptions[i * 2] & 0xFF] |= (exceptions[i * 2 + 1] & 0xFF) << exceptionShift;
+    }
+  }
+
+  @Override
+  public void readBlock(IndexInput in, byte[] encoded, int[] decoded) throws IOException {
+    final int token = in.readByte() & 0xFF;
+    final int bitsPerValue = token & 0x1F;
+    final int numExceptions = token >>> 5;
+    if (bitsPerValue == 0) {
+      Arrays.fill(decoded, 0, BLOCK_SIZE, in.readVInt());
+    } else {
+      in.readBytes(encoded, 0, encodedSizes[bitsPerValue]);
+      decoders[bitsPerValue].decode(encoded, 0, decoded, 0, iterations[bitsPerValue]);
+    }
+    for (int i = 0; i < numExceptions; ++i) {
+      decoded[in.readByte() & 0xFF] |= (in.readByte() & 0xFF) << bitsPerValue;
+    }
+  }
+
+  @Override
+  public void skipBlock(IndexInput in) throws IOException {
+    final int token = in.readByte() & 0xFF;
+    final int bitsPerValue = token & 0x1F;
+    final int numExceptions = token >>> 5;
+    if (bitsPerValue == 0) {
+      in.readVInt();
+      in.seek(in.getFilePointer() + numExceptions * 2);
+    } else {
+      in.seek(in.getFilePointer() + encodedSizes[bitsPerValue] + numExceptions * 2);
+    }
+  }
+
+  private static boolean isAllEqual(final int[] data) {
+    final int v = data[0];
+    for (int i = 1; i < BLOCK_SIZE; ++i) {
+      if (data[i] != v) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pfor;
+
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+import static org.apache.lucene.codecs.lucene50.BlockPacker.MAX_DATA_SIZE;
+import static org.apache.lucene.codecs.lucene50.BlockPacker.MAX_ENCODED_SIZE;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.lucene50.BlockEncoding;
+import org.apache.lucene.codecs.lucene50.BlockPacker;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.packed.PackedInts;
+
+import com.carrotsearch.randomizedtesting.generators.RandomNumbers;
+
+public class TestPForUtil extends LuceneTestCase {
+
+  public void testEncodeDecode() throws IOException {
+    final int iterations = RandomNumbers.randomIntBetween(random(), 1, 1000);
+    final int[] values = new int[iterations * BLOCK_SIZE];
+    for (int i = 0; i < iterations; ++i) {
+      final int bpv = random().nextInt(32);
+      if (bpv == 0) {
+        final int value = RandomNumbers.randomIntBetween(random(), 0, Integer.MAX_VALUE);
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = value;
+        }
+      } else {
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = RandomNumbers.randomIntBetween(random(),
+              0, (int) PackedInts.maxValue(bpv));
+        }
+      }
+      // exceptions
+      final int numExceptions = random().nextInt(2 * PForUtil.MAX_EXCEPTIONS);
+      for (int j = 0; j < numExceptions; ++j) {
+        values[i * BLOCK_SIZE + random().nextInt(BLOCK_SIZE)] = RandomNumbers.randomIntBetween(random(),
+            0, Integer.MAX_VALUE);
+      }
+    }
+
+    final Directory d = newDirectory();
+    final long endPointer;
+
+    {
+      // encode
+      IndexOutput out = d.createOutput("test.bin", IOContext.DEFAULT);
+      final PForUtil forUtil = new PForUtil(out);
+
+      for (int i = 0; i < iterations; ++i) {
+        // packed formats may read up to MAX_DATA_SIZE values
+        final int[] block = Arrays.copyOf(Arrays.copyOfRange(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE), MAX_DATA_SIZE);
+        forUtil.writeBlock(block, new byte[MAX_ENCODED_SIZE], out);
+        // writing must not modify the block
+        assertArrayEquals(Arrays.copyOfRange(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE),
+            Arrays.copyOf(block, BLOCK_SIZE));
+      }
+      endPointer = out.getFilePointer();
+      out.close();
+    }
+
+    {
+      // decode
+      IndexInput in = d.openInput("test.bin", IOContext.READONCE);
+      final PForUtil forUtil = new PForUtil(in);
+      for (int i = 0; i < iterations; ++i) {
+        if (random().nextBoolean()) {
+          forUtil.skipBlock(in);
+          continue;
+        }
+        final int[] restored = new int[MAX_DATA_SIZE];
+        forUtil.readBlock(in, new byte[MAX_ENCODED_SIZE], restored);
+        assertArrayEquals(Arrays.copyOfRange(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE),
+            Arrays.copyOf(restored, BLOCK_SIZE));
+      }
+      assertEquals(endPointer, in.getFilePointer());
+      in.close();
+    }
+
+    d.close();
+  }
+
+  public void testExceptionsSaveSpace() throws IOException {
+    final int[] values = new int[MAX_DATA_SIZE];
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      values[i] = 1 + random().nextInt(3);
+    }
+    for (int i = 0; i < PForUtil.MAX_EXCEPTIONS; ++i) {
+      values[random().nextInt(BLOCK_SIZE)] = RandomNumbers.randomIntBetween(random(), 4, 1000);
+    }
+
+    final Directory d = newDirectory();
+    IndexOutput out = d.createOutput("for.bin", IOContext.DEFAULT);
+    final BlockPacker forUtil = BlockEncoding.FOR.newPacker(out);
+    final long forStart = out.getFilePointer();
+    forUtil.writeBlock(values, new byte[MAX_ENCODED_SIZE], out);
+    final long forSize = out.getFilePointer() - forStart;
+    out.close();
+
+    out = d.createOutput("pfor.bin", IOContext.DEFAULT);
+    final PForUtil pforUtil = new PForUtil(out);
+    final long pforStart = out.getFilePointer();
+    pforUtil.writeBlock(values, new byte[MAX_ENCODED_SIZE], out);
+    final long pforSize = out.getFilePointer() - pforStart;
+    out.close();
+
+    // 2 bits per value plus at most 7 exceptions instead of 10 bits per value
+    assertTrue(forSize + " <= " + pforSize, pforSize < forSize);
+    d.close();
+  }
+
+}
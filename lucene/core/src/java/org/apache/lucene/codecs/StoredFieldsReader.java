@@ -18,6 +18,7 @@ package org.apache.lucene.codecs;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.function.IntFunction;
 
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.util.Accountable;
@@ -39,6 +40,21 @@ public abstract class StoredFieldsReader implements Cloneable, Closeable, Accoun
   /** Visit the stored fields for document <code>docID</code> */
   public abstract void visitDocument(int docID, StoredFieldVisitor visitor) throws IOException;
 
+  /**
+   * Visit the stored fields of several documents. {@code docIDs} must be sorted
+   * in ascending order. {@code visitors} is called once per document, in order,
+   * in order to get the visitor of this document.
+   * <p>
+   * The default implementation calls {@link #visitDocument(int, StoredFieldVisitor)}
+   * for every document, formats that compress documents in blocks should
+   * override it in order to decompress each block only once.
+   */
+  public void visitDocuments(int[] docIDs, IntFunction<StoredFieldVisitor> visitors) throws IOException {
+    for (int docID : docIDs) {
+      visitDocument(docID, visitors.apply(docID));
+    }
+  }
+
   @Override
   public abstract StoredFieldsReader clone();
   
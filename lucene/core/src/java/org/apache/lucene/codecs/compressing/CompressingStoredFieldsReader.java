@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.IntFunction;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.StoredFieldsReader;
@@ -75,6 +76,24 @@ import org.apache.lucene.util.packed.PackedInts;
  */
 public final class CompressingStoredFieldsReader extends StoredFieldsReader {
 
+  private static volatile StoredFieldsBlockCache defaultBlockCache;
+
+  /**
+   * Expert: Get the {@link StoredFieldsBlockCache} that readers use when they
+   * are opened, or {@code null} if the cache is disabled, which is the default.
+   */
+  public static StoredFieldsBlockCache getDefaultBlockCache() {
+    return defaultBlockCache;
+  }
+
+  /**
+   * Expert: Set the {@link StoredFieldsBlockCache} to use for readers that
+   * are opened after this call. A value of {@code null} disables caching.
+   */
+  public static void setDefaultBlockCache(StoredFieldsBlockCache blockCache) {
+    defaultBlockCache = blockCache;
+  }
+
   private final int version;
   private final FieldInfos fieldInfos;
   private final CompressingStoredFieldsIndexReader indexReader;
@@ -89,6 +108,9 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   private final BlockState state;
   private final long numChunks; // number of compressed blocks written
   private final long numDirtyChunks; // number of incomplete compressed blocks written
+  private final StoredFieldsBlockCache blockCache; // null if disabled or merging
+  private final Object blockCacheKey; // identifies the core of this segment in the block cache
+  private final boolean isClone;
   private boolean closed;
 
   // used by clone
@@ -106,6 +128,9 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     this.numChunks = reader.numChunks;
     this.numDirtyChunks = reader.numDirtyChunks;
     this.merging = merging;
+    this.blockCache = merging ? null : reader.blockCache;
+    this.blockCacheKey = reader.blockCacheKey;
+    this.isClone = true;
     this.state = new BlockState();
     this.closed = false;
   }
@@ -118,6 +143,9 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     boolean success = false;
     fieldInfos = fn;
     numDocs = si.maxDoc();
+    blockCache = defaultBlockCache;
+    blockCacheKey = new Object();
+    isClone = false;
     
     int version = -1;
     long maxPointer = -1;
@@ -197,7 +225,11 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   @Override
   public void close() throws IOException {
     if (!closed) {
-      IOUtils.close(fieldsStream);
+      IOUtils.close(fieldsStream, decompressor);
+      if (blockCache != null && isClone == false) {
+        // this reader is closed with the core of its segment, whose blocks won't be read anymore
+        blockCache.clearSegment(blockCacheKey);
+      }
       closed = true;
     }
   }
@@ -510,6 +542,9 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       } else if (merging) {
         // already decompressed
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
+      } else if (blockCache != null && sliced == false) {
+        final byte[] block = cachedBlock(totalLength);
+        documentInput = new ByteArrayDataInput(block, offset, length);
       } else if (sliced) {
         fieldsStream.seek(startPointer);
         decompressor.decompress(fieldsStream, chunkSize, offset, Math.min(length, chunkSize - offset), bytes);
@@ -560,6 +595,54 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       return new SerializedDocument(documentInput, length, numStoredFields);
     }
 
+    /**
+     * Decompress the current block up to the end of the given document, so
+     * that all documents of the block up to this one can then be read with
+     * {@link #decompressedDocument(int)}.
+     */
+    void decompressUpTo(int docID) throws IOException {
+      assert contains(docID) && sliced == false && merging == false;
+      final int totalLength = offsets[chunkDocs];
+      final int length = offsets[docID - docBase + 1];
+      fieldsStream.seek(startPointer);
+      decompressor.decompress(fieldsStream, totalLength, 0, length, bytes);
+      if (bytes.length != length) {
+        throw new CorruptIndexException("Corrupted: expected to decompress " + length + " bytes, got " + bytes.length, fieldsStream);
+      }
+    }
+
+    /**
+     * Get the serialized representation of the given docID, which must have
+     * been decompressed by a previous call to {@link #decompressUpTo(int)}.
+     */
+    SerializedDocument decompressedDocument(int docID) {
+      assert contains(docID);
+      final int index = docID - docBase;
+      final int offset = offsets[index];
+      final int length = offsets[index+1] - offset;
+      assert offset + length <= bytes.length;
+      final DataInput documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
+      return new SerializedDocument(documentInput, length, numStoredFields[index]);
+    }
+
+    /**
+     * Get the whole decompressed block from the block cache, decompressing and
+     * caching it if necessary.
+     */
+    private byte[] cachedBlock(int totalLength) throws IOException {
+      byte[] block = blockCache.get(blockCacheKey, startPointer);
+      if (block == null) {
+        fieldsStream.seek(startPointer);
+        decompressor.decompress(fieldsStream, totalLength, 0, totalLength, bytes);
+        if (bytes.length != totalLength) {
+          throw new CorruptIndexException("Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length, fieldsStream);
+        }
+        block = Arrays.copyOfRange(bytes.bytes, bytes.offset, bytes.offset + bytes.length);
+        blockCache.put(blockCacheKey, startPointer, block);
+      }
+      return block;
+    }
+
   }
 
   SerializedDocument document(int docID) throws IOException {
@@ -574,9 +657,44 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   @Override
   public void visitDocument(int docID, StoredFieldVisitor visitor)
       throws IOException {
+    visitSerializedDocument(document(docID), visitor);
+  }
 
-    final SerializedDocument doc = document(docID);
+  @Override
+  public void visitDocuments(int[] docIDs, IntFunction<StoredFieldVisitor> visitors) throws IOException {
+    for (int i = 0; i < docIDs.length; ) {
+      final int docID = docIDs[i];
+      if (i > 0 && docID < docIDs[i - 1]) {
+        throw new IllegalArgumentException("docIDs must be sorted, got " + docIDs[i - 1] + " before " + docID);
+      }
+      if (state.contains(docID) == false) {
+        fieldsStream.seek(indexReader.getStartPointer(docID));
+        state.reset(docID);
+      }
+      // all requested documents that are stored in the current block
+      int upTo = i + 1;
+      while (upTo < docIDs.length && state.contains(docIDs[upTo]) && docIDs[upTo] >= docIDs[upTo - 1]) {
+        ++upTo;
+      }
+      if (upTo - i == 1 || merging || blockCache != null || state.sliced) {
+        // documents are either already decompressed, cached, or too large
+        // to be decompressed all at once
+        for (int j = i; j < upTo; ++j) {
+          visitSerializedDocument(state.document(docIDs[j]), visitors.apply(docIDs[j]));
+        }
+      } else {
+        // decompress the block once for all requested documents
+        state.decompressUpTo(docIDs[upTo - 1]);
+        for (int j = i; j < upTo; ++j) {
+          visitSerializedDocument(state.decompressedDocument(docIDs[j]), visitors.apply(docIDs[j]));
+        }
+      }
+      i = upTo;
+    }
+  }
 
+  private void visitSerializedDocument(SerializedDocument doc, StoredFieldVisitor visitor)
+      throws IOException {
     for (int fieldIDX = 0; fieldIDX < doc.numStoredFields; fieldIDX++) {
       final long infoAndBits = doc.in.readVLong();
       final int fieldNumber = (int) (infoAndBits >>> TYPE_BITS);
@@ -649,6 +767,10 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     return packedIntsVersion;
   }
 
+  StoredFieldsBlockCache getBlockCache() {
+    return blockCache;
+  }
+
   @Override
   public long ramBytesUsed() {
     return indexReader.ramBytesUsed();
@@ -226,7 +226,7 @@ public final class CompressingTermVectorsReader extends TermVectorsReader implem
   @Override
   public void close() throws IOException {
     if (!closed) {
-      IOUtils.close(vectorsStream);
+      IOUtils.close(vectorsStream, decompressor);
       closed = true;
     }
   }
@@ -113,6 +113,37 @@ public abstract class CompressionMode {
 
   };
 
+  /**
+   * This compression mode is similar to {@link #HIGH_COMPRESSION} but it
+   * splits the data into a preset dictionary, made of its first bytes, and
+   * sub-blocks that are compressed independently of each other using this
+   * dictionary. This allows to use larger chunks in order to improve the
+   * compression ratio while only decompressing the dictionary and the
+   * sub-blocks that contain the requested bytes when retrieving a document.
+   */
+  public static final CompressionMode HIGH_COMPRESSION_PRESET_DICT = new CompressionMode() {
+
+    @Override
+    public Compressor newCompressor() {
+      return new DeflateWithPresetDictCompressor(6, PRESET_DICT_LENGTH, PRESET_DICT_BLOCK_LENGTH);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+      return "HIGH_COMPRESSION_PRESET_DICT";
+    }
+
+  };
+
+  // length of the preset dictionary and of the sub-blocks that are compressed with it
+  static final int PRESET_DICT_LENGTH = 8 * 1024;
+  static final int PRESET_DICT_BLOCK_LENGTH = 12 * 1024;
+
   /** Sole constructor. */
   protected CompressionMode() {}
 
@@ -296,4 +327,183 @@ public abstract class CompressionMode {
 
   }
 
+  private static final class DeflateWithPresetDictDecompressor extends Decompressor {
+
+    final Inflater decompressor;
+    byte[] compressed;
+    boolean closed;
+
+    DeflateWithPresetDictDecompressor() {
+      decompressor = new Inflater(true);
+      compressed = new byte[0];
+    }
+
+    private void doDecompress(DataInput in, BytesRef bytes, int decompressedLength) throws IOException {
+      final int compressedLength = in.readVInt();
+      if (compressedLength == 0) {
+        if (decompressedLength != 0) {
+          throw new CorruptIndexException("Lengths mismatch: 0 != " + decompressedLength, in);
+        }
+        return;
+      }
+      // pad with extra "dummy byte": see javadocs for using Inflater(true)
+      // we do it for compliance, but it's unnecessary for years in zlib.
+      final int paddedLength = compressedLength + 1;
+      compressed = ArrayUtil.grow(compressed, paddedLength);
+      in.readBytes(compressed, 0, compressedLength);
+      compressed[compressedLength] = 0; // explicitly set dummy byte to 0
+
+      // extra "dummy byte"
+      decompressor.setInput(compressed, 0, paddedLength);
+      final int count;
+      try {
+        count = decompressor.inflate(bytes.bytes, bytes.length, decompressedLength);
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      }
+      if (!decompressor.finished()) {
+        throw new CorruptIndexException("Invalid decoder state: needsInput=" + decompressor.needsInput()
+                                                            + ", needsDict=" + decompressor.needsDictionary(), in);
+      }
+      if (count != decompressedLength) {
+        throw new CorruptIndexException("Lengths mismatch: " + count + " != " + decompressedLength, in);
+      }
+      bytes.length += count;
+    }
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      if (dictLength > originalLength || blockLength <= 0) {
+        throw new CorruptIndexException("Invalid dictionary: dictLength=" + dictLength
+            + ", blockLength=" + blockLength + ", originalLength=" + originalLength, in);
+      }
+      bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+      bytes.offset = bytes.length = 0;
+
+      int offsetInBytesRef = offset;
+      // decompress the dictionary first
+      decompressor.reset();
+      doDecompress(in, bytes, dictLength);
+      if (offset + length <= dictLength) {
+        bytes.offset = offset;
+        bytes.length = length;
+        return;
+      }
+
+      // skip sub-blocks that are entirely before the requested range
+      int offsetInBlocks = dictLength;
+      while (offsetInBlocks + blockLength <= offset) {
+        final int compressedLength = in.readVInt();
+        in.skipBytes(compressedLength);
+        offsetInBlocks += blockLength;
+        offsetInBytesRef -= blockLength;
+      }
+
+      // then decompress sub-blocks that intersect with the requested range,
+      // right after the dictionary so that the range ends up contiguous
+      while (offsetInBlocks < offset + length) {
+        final int blockDecompressedLength = Math.min(blockLength, originalLength - offsetInBlocks);
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + blockDecompressedLength);
+        decompressor.reset();
+        decompressor.setDictionary(bytes.bytes, 0, dictLength);
+        doDecompress(in, bytes, blockDecompressedLength);
+        offsetInBlocks += blockLength;
+      }
+
+      bytes.offset = offsetInBytesRef;
+      bytes.length = length;
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        decompressor.end();
+        closed = true;
+      }
+    }
+
+  }
+
+  private static class DeflateWithPresetDictCompressor extends Compressor {
+
+    final int dictLength, blockLength;
+    final Deflater compressor;
+    byte[] compressed;
+    boolean closed;
+
+    DeflateWithPresetDictCompressor(int level, int dictLength, int blockLength) {
+      compressor = new Deflater(level, true);
+      compressed = new byte[64];
+      this.dictLength = dictLength;
+      this.blockLength = blockLength;
+    }
+
+    private void doCompress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      compressor.setInput(bytes, off, len);
+      compressor.finish();
+
+      if (compressor.needsInput()) {
+        // no output
+        assert len == 0 : len;
+        out.writeVInt(0);
+        return;
+      }
+
+      int totalCount = 0;
+      for (;;) {
+        final int count = compressor.deflate(compressed, totalCount, compressed.length - totalCount);
+        totalCount += count;
+        assert totalCount <= compressed.length;
+        if (compressor.finished()) {
+          break;
+        } else {
+          compressed = ArrayUtil.grow(compressed);
+        }
+      }
+
+      out.writeVInt(totalCount);
+      out.writeBytes(compressed, totalCount);
+    }
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = Math.min(this.dictLength, len);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+      final int end = off + len;
+
+      // compress the dictionary first
+      compressor.reset();
+      doCompress(bytes, off, dictLength, out);
+
+      // then compress sub blocks
+      for (int start = off + dictLength; start < end; start += blockLength) {
+        compressor.reset();
+        compressor.setDictionary(bytes, off, dictLength);
+        doCompress(bytes, start, Math.min(blockLength, end - start), out);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        compressor.end();
+        closed = true;
+      }
+    }
+
+  }
+
 }
@@ -17,6 +17,7 @@
 package org.apache.lucene.codecs.compressing;
 
 
+import java.io.Closeable;
 import java.io.IOException;
 
 import org.apache.lucene.store.DataInput;
@@ -25,7 +26,7 @@ import org.apache.lucene.util.BytesRef;
 /**
  * A decompressor.
  */
-public abstract class Decompressor implements Cloneable {
+public abstract class Decompressor implements Cloneable, Closeable {
 
   /** Sole constructor, typically called from sub-classes. */
   protected Decompressor() {}
@@ -49,4 +50,11 @@ public abstract class Decompressor implements Cloneable {
   @Override
   public abstract Decompressor clone();
 
+  /**
+   * Release the resources that this decompressor holds. The default
+   * implementation does nothing.
+   */
+  @Override
+  public void close() throws IOException {}
+
 }
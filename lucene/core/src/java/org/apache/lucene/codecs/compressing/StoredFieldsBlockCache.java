@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A cache of decompressed blocks of documents for
+ * {@link CompressingStoredFieldsReader}, which evicts blocks using a LRU
+ * (least-recently-used) eviction policy in order to remain under a given
+ * maximum number of bytes used.
+ * <p>
+ * Blocks are keyed by the core of the segment they belong to and by their
+ * start pointer in the stored fields data file, so that a single instance can
+ * be shared across all indices of a JVM. The blocks of a segment are removed
+ * from the cache when its core is closed. It is enabled by passing it to
+ * {@link CompressingStoredFieldsReader#setDefaultBlockCache}:
+ * <pre class="prettyprint">
+ *   final long maxRamBytesUsed = 64 * 1024L * 1024L; // 64MB
+ *   CompressingStoredFieldsReader.setDefaultBlockCache(new StoredFieldsBlockCache(maxRamBytesUsed));
+ * </pre>
+ * Readers that are opened after this call will then serve documents out of
+ * the cache when possible instead of decompressing their block again. Blocks
+ * that hold a single large document which has been compressed in several
+ * slices, as well as reads performed for merging, bypass the cache.
+ * <p>
+ * This class is thread-safe. It exposes some global statistics
+ * ({@link #getHitCount() hit count}, {@link #getMissCount() miss count},
+ * {@link #getCacheSize() number of cached blocks} and
+ * {@link #getEvictionCount() number of evicted blocks}).
+ *
+ * @lucene.experimental
+ */
+public class StoredFieldsBlockCache implements Accountable {
+
+  // approximate memory usage of an entry, excluding the decompressed bytes
+  static final long ENTRY_RAM_BYTES_USED =
+      4 * RamUsageEstimator.NUM_BYTES_OBJECT_REF // key + value + previous & next references
+      * 2 // hash tables need to be oversized to avoid collisions, assume 2x capacity
+      + RamUsageEstimator.shallowSizeOfInstance(BlockKey.class);
+
+  private final long maxRamBytesUsed;
+  private final Map<BlockKey, byte[]> cache;
+  private final ReentrantLock lock;
+
+  // these variables are volatile so that we do not need to sync reads
+  // but increments need to be performed under the lock
+  private volatile long ramBytesUsed;
+  private volatile long hitCount;
+  private volatile long evictionCount;
+  // misses are also counted when the lock could not be acquired
+  private final LongAdder missCount = new LongAdder();
+
+  /**
+   * Create a new instance that will cache decompressed blocks with at most
+   * <code>maxRamBytesUsed</code> bytes of memory.
+   */
+  public StoredFieldsBlockCache(long maxRamBytesUsed) {
+    if (maxRamBytesUsed < 0) {
+      throw new IllegalArgumentException("maxRamBytesUsed must be >= 0, got " + maxRamBytesUsed);
+    }
+    this.maxRamBytesUsed = maxRamBytesUsed;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    this.lock = new ReentrantLock();
+  }
+
+  /**
+   * Return the decompressed block of the given segment that starts at
+   * {@code startPointer}, or {@code null} if it is not cached. The returned
+   * array must not be modified.
+   */
+  byte[] get(Object segmentKey, long startPointer) {
+    // don't wait on the lock: decompressing is likely cheaper than waiting
+    if (lock.tryLock() == false) {
+      missCount.increment();
+      return null;
+    }
+    try {
+      final byte[] block = cache.get(new BlockKey(segmentKey, startPointer));
+      if (block == null) {
+        missCount.increment();
+      } else {
+        hitCount += 1;
+      }
+      return block;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Cache the decompressed block of the given segment that starts at
+   * {@code startPointer}. The array must not be modified afterwards.
+   */
+  void put(Object segmentKey, long startPointer, byte[] block) {
+    final long blockRamBytesUsed = ramBytesUsed(block);
+    if (blockRamBytesUsed > maxRamBytesUsed) {
+      return;
+    }
+    if (lock.tryLock() == false) {
+      return;
+    }
+    try {
+      final byte[] previous = cache.put(new BlockKey(segmentKey, startPointer), block);
+      if (previous == null) {
+        ramBytesUsed += blockRamBytesUsed;
+      } else {
+        ramBytesUsed += blockRamBytesUsed - ramBytesUsed(previous);
+      }
+      evictIfNecessary();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove all blocks of the given segment, typically because its core has
+   * been closed.
+   */
+  void clearSegment(Object segmentKey) {
+    lock.lock();
+    try {
+      for (Iterator<Map.Entry<BlockKey, byte[]>> iterator = cache.entrySet().iterator(); iterator.hasNext(); ) {
+        final Map.Entry<BlockKey, byte[]> entry = iterator.next();
+        if (entry.getKey().segmentKey == segmentKey) {
+          iterator.remove();
+          ramBytesUsed -= ramBytesUsed(entry.getValue());
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void evictIfNecessary() {
+    assert lock.isHeldByCurrentThread();
+    final Iterator<byte[]> iterator = cache.values().iterator();
+    while (ramBytesUsed > maxRamBytesUsed && iterator.hasNext()) {
+      final byte[] block = iterator.next();
+      iterator.remove();
+      ramBytesUsed -= ramBytesUsed(block);
+      evictionCount += 1;
+    }
+  }
+
+  private static long ramBytesUsed(byte[] block) {
+    return ENTRY_RAM_BYTES_USED + RamUsageEstimator.sizeOf(block);
+  }
+
+  /**
+   * Clear the content of this cache.
+   */
+  public void clear() {
+    lock.lock();
+    try {
+      cache.clear();
+      ramBytesUsed = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the maximum number of bytes that this cache may use.
+   */
+  public final long getMaxRamBytesUsed() {
+    return maxRamBytesUsed;
+  }
+
+  /**
+   * Over the lifetime of this cache, how many times a block could be served
+   * without decompressing it.
+   */
+  public final long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Over the lifetime of this cache, how many times a block had to be
+   * decompressed because it was not in the cache, or because another thread
+   * was using the cache.
+   */
+  public final long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Return the number of blocks that are currently in the cache.
+   */
+  public final long getCacheSize() {
+    lock.lock();
+    try {
+      return cache.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the number of blocks that have been evicted from this cache in
+   * order to remain under the maximum memory usage.
+   */
+  public final long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesUsed;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(maxRamBytesUsed=" + maxRamBytesUsed + ")";
+  }
+
+  private static final class BlockKey {
+
+    private final Object segmentKey;
+    private final long startPointer;
+
+    BlockKey(Object segmentKey, long startPointer) {
+      this.segmentKey = segmentKey;
+      this.startPointer = startPointer;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      final BlockKey that = (BlockKey) obj;
+      return startPointer == that.startPointer && segmentKey == that.segmentKey;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(segmentKey) + Long.hashCode(startPointer);
+    }
+
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene50;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.packed.PackedInts;
+
+/**
+ * How {@link Lucene50PostingsWriter} and {@link Lucene50PostingsReader}
+ * encode blocks of postings. Each encoding uses its own codec names in the
+ * headers of postings files so that a file can't be read with the wrong
+ * encoding.
+ *
+ * @lucene.internal
+ */
+public abstract class BlockEncoding {
+
+  /** {@link ForUtil}, used by {@link Lucene50PostingsFormat}. */
+  public static final BlockEncoding FOR = new BlockEncoding("Lucene50PostingsWriter") {
+    @Override
+    public BlockPacker newPacker(DataOutput docOut) throws IOException {
+      return new ForUtil(PackedInts.COMPACT, docOut);
+    }
+
+    @Override
+    public BlockPacker readPacker(DataInput docIn) throws IOException {
+      return new ForUtil(docIn);
+    }
+  };
+
+  final String termsCodec;
+  final String docCodec;
+  final String posCodec;
+  final String payCodec;
+
+  /**
+   * Sole constructor. {@code codecPrefix} is the prefix of the codec names
+   * that are written in the headers of postings files, it must be unique to
+   * this encoding.
+   */
+  protected BlockEncoding(String codecPrefix) {
+    termsCodec = codecPrefix + "Terms";
+    docCodec = codecPrefix + "Doc";
+    posCodec = codecPrefix + "Pos";
+    payCodec = codecPrefix + "Pay";
+  }
+
+  /**
+   * Create a {@link BlockPacker} for writing, and save its state, if any,
+   * into <code>docOut</code>.
+   */
+  public abstract BlockPacker newPacker(DataOutput docOut) throws IOException;
+
+  /**
+   * Restore a {@link BlockPacker} that has been created with
+   * {@link #newPacker(DataOutput)} from <code>docIn</code>.
+   */
+  public abstract BlockPacker readPacker(DataInput docIn) throws IOException;
+
+}
@@ -377,11 +377,6 @@ public final class Lucene50PostingsFormat extends PostingsFormat {
    */
   static final int MAX_SKIP_LEVELS = 10;
 
-  final static String TERMS_CODEC = "Lucene50PostingsWriterTerms";
-  final static String DOC_CODEC = "Lucene50PostingsWriterDoc";
-  final static String POS_CODEC = "Lucene50PostingsWriterPos";
-  final static String PAY_CODEC = "Lucene50PostingsWriterPay";
-
   // Increment version to change it
   final static int VERSION_START = 0;
   final static int VERSION_IMPACT_SKIP_DATA = 1;
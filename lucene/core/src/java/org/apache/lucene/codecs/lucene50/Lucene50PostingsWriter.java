@@ -17,14 +17,10 @@
 package org.apache.lucene.codecs.lucene50;
 
 
-import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_DATA_SIZE;
-import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_ENCODED_SIZE;
+import static org.apache.lucene.codecs.lucene50.BlockPacker.MAX_DATA_SIZE;
+import static org.apache.lucene.codecs.lucene50.BlockPacker.MAX_ENCODED_SIZE;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
-import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.DOC_CODEC;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.MAX_SKIP_LEVELS;
-import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.PAY_CODEC;
-import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.POS_CODEC;
-import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.TERMS_CODEC;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_CURRENT;
 
 import java.io.IOException;
@@ -45,7 +41,6 @@ import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
-import org.apache.lucene.util.packed.PackedInts;
 
 /**
  * Concrete class that writes docId(maybe frq,pos,offset,payloads) list
@@ -96,7 +91,8 @@ public final class Lucene50PostingsWriter extends PushPostingsWriterBase {
 
   final byte[] encoded;
 
-  private final ForUtil forUtil;
+  private final BlockEncoding encoding;
+  private final BlockPacker forUtil;
   private final Lucene50SkipWriter skipWriter;
 
   private boolean fieldHasNorms;
@@ -105,22 +101,26 @@ public final class Lucene50PostingsWriter extends PushPostingsWriterBase {
 
   /** Creates a postings writer */
   public Lucene50PostingsWriter(SegmentWriteState state) throws IOException {
-    final float acceptableOverheadRatio = PackedInts.COMPACT;
+    this(state, BlockEncoding.FOR);
+  }
 
+  /** Creates a postings writer that encodes blocks with the given encoding */
+  public Lucene50PostingsWriter(SegmentWriteState state, BlockEncoding encoding) throws IOException {
+    this.encoding = encoding;
     String docFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, Lucene50PostingsFormat.DOC_EXTENSION);
     docOut = state.directory.createOutput(docFileName, state.context);
     IndexOutput posOut = null;
     IndexOutput payOut = null;
     boolean success = false;
     try {
-      CodecUtil.writeIndexHeader(docOut, DOC_CODEC, VERSION_CURRENT, 
+      CodecUtil.writeIndexHeader(docOut, encoding.docCodec, VERSION_CURRENT, 
                                    state.segmentInfo.getId(), state.segmentSuffix);
-      forUtil = new ForUtil(acceptableOverheadRatio, docOut);
+      forUtil = encoding.newPacker(docOut);
       if (state.fieldInfos.hasProx()) {
         posDeltaBuffer = new int[MAX_DATA_SIZE];
         String posFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, Lucene50PostingsFormat.POS_EXTENSION);
         posOut = state.directory.createOutput(posFileName, state.context);
-        CodecUtil.writeIndexHeader(posOut, POS_CODEC, VERSION_CURRENT,
+        CodecUtil.writeIndexHeader(posOut, encoding.posCodec, VERSION_CURRENT,
                                      state.segmentInfo.getId(), state.segmentSuffix);
 
         if (state.fieldInfos.hasPayloads()) {
@@ -142,7 +142,7 @@ public final class Lucene50PostingsWriter extends PushPostingsWriterBase {
         if (state.fieldInfos.hasPayloads() || state.fieldInfos.hasOffsets()) {
           String payFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, Lucene50PostingsFormat.PAY_EXTENSION);
           payOut = state.directory.createOutput(payFileName, state.context);
-          CodecUtil.writeIndexHeader(payOut, PAY_CODEC, VERSION_CURRENT,
+          CodecUtil.writeIndexHeader(payOut, encoding.payCodec, VERSION_CURRENT,
                                        state.segmentInfo.getId(), state.segmentSuffix);
         }
       } else {
@@ -182,7 +182,7 @@ public final class Lucene50PostingsWriter extends PushPostingsWriterBase {
 
   @Override
   public void init(IndexOutput termsOut, SegmentWriteState state) throws IOException {
-    CodecUtil.writeIndexHeader(termsOut, TERMS_CODEC, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+    CodecUtil.writeIndexHeader(termsOut, encoding.termsCodec, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
     termsOut.writeVInt(BLOCK_SIZE);
   }
 
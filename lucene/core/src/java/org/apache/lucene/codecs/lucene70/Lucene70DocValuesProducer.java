@@ -18,6 +18,7 @@ package org.apache.lucene.codecs.lucene70;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -434,6 +435,15 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
           public long longValue() throws IOException {
             return entry.minValue;
           }
+
+          @Override
+          public int longValues(int size, int[] docs, long[] dest) throws IOException {
+            Arrays.fill(dest, 0, size, entry.minValue);
+            if (size > 0) {
+              doc = docs[size - 1];
+            }
+            return size;
+          }
         };
       } else {
         final RandomAccessInput slice = data.randomAccessSlice(entry.valuesOffset, entry.valuesLength);
@@ -482,6 +492,17 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return table[(int) values.get(doc)];
               }
+
+              @Override
+              public int longValues(int size, int[] docs, long[] dest) throws IOException {
+                for (int i = 0; i < size; ++i) {
+                  dest[i] = table[(int) values.get(docs[i])];
+                }
+                if (size > 0) {
+                  doc = docs[size - 1];
+                }
+                return size;
+              }
             };
           } else {
             final long mul = entry.gcd;
@@ -491,6 +512,17 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return mul * values.get(doc) + delta;
               }
+
+              @Override
+              public int longValues(int size, int[] docs, long[] dest) throws IOException {
+                for (int i = 0; i < size; ++i) {
+                  dest[i] = mul * values.get(docs[i]) + delta;
+                }
+                if (size > 0) {
+                  doc = docs[size - 1];
+                }
+                return size;
+              }
             };
           }
         }
@@ -504,6 +536,19 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
           public long longValue() throws IOException {
             return entry.minValue;
           }
+
+          @Override
+          public int longValues(int size, int[] docs, long[] dest) throws IOException {
+            int count = 0;
+            for (int i = 0; i < size; ++i) {
+              final int doc = docs[i];
+              if (disi.advanceExact(doc)) {
+                docs[count] = doc;
+                dest[count++] = entry.minValue;
+              }
+            }
+            return count;
+          }
         };
       } else {
         final RandomAccessInput slice = data.randomAccessSlice(entry.valuesOffset, entry.valuesLength);
@@ -553,6 +598,19 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return table[(int) values.get(disi.index())];
               }
+
+              @Override
+              public int longValues(int size, int[] docs, long[] dest) throws IOException {
+                int count = 0;
+                for (int i = 0; i < size; ++i) {
+                  final int doc = docs[i];
+                  if (disi.advanceExact(doc)) {
+                    docs[count] = doc;
+                    dest[count++] = table[(int) values.get(disi.index())];
+                  }
+                }
+                return count;
+              }
             };
           } else {
             final long mul = entry.gcd;
@@ -562,6 +620,19 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return mul * values.get(disi.index()) + delta;
               }
+
+              @Override
+              public int longValues(int size, int[] docs, long[] dest) throws IOException {
+                int count = 0;
+                for (int i = 0; i < size; ++i) {
+                  final int doc = docs[i];
+                  if (disi.advanceExact(doc)) {
+                    docs[count] = doc;
+                    dest[count++] = mul * values.get(disi.index()) + delta;
+                  }
+                }
+                return count;
+              }
             };
           }
         }
@@ -866,6 +937,17 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
         public int ordValue() {
           return (int) ords.get(doc);
         }
+
+        @Override
+        public int ordValues(int size, int[] docs, int[] dest) {
+          for (int i = 0; i < size; ++i) {
+            dest[i] = (int) ords.get(docs[i]);
+          }
+          if (size > 0) {
+            doc = docs[size - 1];
+          }
+          return size;
+        }
       };
     } else {
       // sparse
@@ -901,6 +983,19 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
         public int ordValue() {
           return (int) ords.get(disi.index());
         }
+
+        @Override
+        public int ordValues(int size, int[] docs, int[] dest) throws IOException {
+          int count = 0;
+          for (int i = 0; i < size; ++i) {
+            final int doc = docs[i];
+            if (disi.advanceExact(doc)) {
+              docs[count] = doc;
+              dest[count++] = (int) ords.get(disi.index());
+            }
+          }
+          return count;
+        }
       };
     }
   }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene80;
+
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.lucene.codecs.StoredFieldsFormat;
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.codecs.StoredFieldsWriter;
+import org.apache.lucene.codecs.compressing.CompressingStoredFieldsFormat;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+
+/**
+ * Lucene 8.0 stored fields format.
+ * <p>
+ * The {@link Mode#BEST_SPEED BEST_SPEED} and
+ * {@link Mode#BEST_COMPRESSION BEST_COMPRESSION} modes write the same files
+ * as {@link Lucene50StoredFieldsFormat}, see its documentation for the file
+ * formats. This format adds
+ * {@link Mode#BEST_COMPRESSION_PRESET_DICT BEST_COMPRESSION_PRESET_DICT},
+ * which also uses DEFLATE but on 128KB blocks that are split into an 8KB
+ * preset dictionary and 12KB sub-blocks that are compressed independently
+ * using this dictionary: this usually gives better ratios than
+ * {@link Mode#BEST_COMPRESSION BEST_COMPRESSION} since the dictionary captures
+ * redundancy across many documents, while retrieving a single document only
+ * requires decompressing the dictionary and the sub-blocks that contain it.
+ * These options can be configured like this:
+ * <pre class="prettyprint">
+ *   // the default: for high performance
+ *   indexWriterConfig.setCodec(new Lucene80Codec(Mode.BEST_SPEED));
+ *   // instead for higher performance (but slower):
+ *   // indexWriterConfig.setCodec(new Lucene80Codec(Mode.BEST_COMPRESSION));
+ *   // or for even higher compression of many small documents:
+ *   // indexWriterConfig.setCodec(new Lucene80Codec(Mode.BEST_COMPRESSION_PRESET_DICT));
+ * </pre>
+ * @lucene.experimental
+ */
+public final class Lucene80StoredFieldsFormat extends StoredFieldsFormat {
+
+  /** Configuration option for stored fields. */
+  public static enum Mode {
+    /** Trade compression ratio for retrieval speed. */
+    BEST_SPEED,
+    /** Trade retrieval speed for compression ratio. */
+    BEST_COMPRESSION,
+    /**
+     * Like {@link #BEST_COMPRESSION}, but with larger blocks that share a
+     * preset dictionary in order to further improve the compression ratio.
+     */
+    BEST_COMPRESSION_PRESET_DICT
+  }
+
+  /** Attribute key for compression mode. */
+  public static final String MODE_KEY = Lucene80StoredFieldsFormat.class.getSimpleName() + ".mode";
+
+  final Mode mode;
+
+  /** Stored fields format with default options */
+  public Lucene80StoredFieldsFormat() {
+    this(Mode.BEST_SPEED);
+  }
+
+  /** Stored fields format with specified mode */
+  public Lucene80StoredFieldsFormat(Mode mode) {
+    this.mode = Objects.requireNonNull(mode);
+  }
+
+  @Override
+  public StoredFieldsReader fieldsReader(Directory directory, SegmentInfo si, FieldInfos fn, IOContext context) throws IOException {
+    String value = si.getAttribute(MODE_KEY);
+    if (value == null) {
+      throw new IllegalStateException("missing value for " + MODE_KEY + " for segment: " + si.name);
+    }
+    Mode mode = Mode.valueOf(value);
+    return impl(mode).fieldsReader(directory, si, fn, context);
+  }
+
+  @Override
+  public StoredFieldsWriter fieldsWriter(Directory directory, SegmentInfo si, IOContext context) throws IOException {
+    String previous = si.putAttribute(MODE_KEY, mode.name());
+    if (previous != null && previous.equals(mode.name()) == false) {
+      throw new IllegalStateException("found existing value for " + MODE_KEY + " for segment: " + si.name +
+                                      "old=" + previous + ", new=" + mode.name());
+    }
+    return impl(mode).fieldsWriter(directory, si, context);
+  }
+
+  StoredFieldsFormat impl(Mode mode) {
+    switch (mode) {
+      case BEST_SPEED:
+        return new CompressingStoredFieldsFormat("Lucene50StoredFieldsFast", CompressionMode.FAST, 1 << 14, 128, 1024);
+      case BEST_COMPRESSION:
+        return new CompressingStoredFieldsFormat("Lucene50StoredFieldsHigh", CompressionMode.HIGH_COMPRESSION, 61440, 512, 1024);
+      case BEST_COMPRESSION_PRESET_DICT:
+        // 8KB dictionary + 10 sub-blocks of 12KB
+        return new CompressingStoredFieldsFormat("Lucene80StoredFieldsHighDict", CompressionMode.HIGH_COMPRESSION_PRESET_DICT, 131072, 1024, 1024);
+      default: throw new AssertionError();
+    }
+  }
+}
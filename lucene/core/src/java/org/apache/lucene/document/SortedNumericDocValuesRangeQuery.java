@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -27,6 +28,7 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocValuesRangeIterator;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -107,8 +109,12 @@ abstract class SortedNumericDocValuesRangeQuery extends Query {
         if (values == null) {
           return null;
         }
+        final DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field);
+        if (skipper != null && (skipper.minValue() > upperValue || skipper.maxValue() < lowerValue)) {
+          return null;
+        }
         final NumericDocValues singleton = DocValues.unwrapSingleton(values);
-        final TwoPhaseIterator iterator;
+        TwoPhaseIterator iterator;
         if (singleton != null) {
           iterator = new TwoPhaseIterator(singleton) {
             @Override
@@ -143,6 +149,10 @@ abstract class SortedNumericDocValuesRangeQuery extends Query {
             }
           };
         }
+        if (skipper != null && DocValuesRangeIterator.canSkip(skipper, context.reader().maxDoc(), lowerValue, upperValue)) {
+          // canSkip consumed the skipper, pull a new one
+          iterator = new DocValuesRangeIterator(iterator, context.reader().getDocValuesSkipper(field), lowerValue, upperValue);
+        }
         return new ConstantScoreScorer(this, score(), iterator);
       }
 
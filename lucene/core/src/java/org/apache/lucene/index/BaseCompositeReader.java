@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntFunction;
 
 /** Base class for implementing {@link CompositeReader}s based on an array
  * of sub-readers. The implementing class has to add code for
@@ -118,6 +119,27 @@ public abstract class BaseCompositeReader<R extends IndexReader> extends Composi
     subReaders[i].document(docID - starts[i], visitor);    // dispatch to subreader
   }
 
+  @Override
+  public final void documents(int[] docIDs, IntFunction<StoredFieldVisitor> visitors) throws IOException {
+    ensureOpen();
+    docIDs = sortedCopy(docIDs);
+    for (int i = 0; i < docIDs.length; ) {
+      final int readerIndex = readerIndex(docIDs[i]);  // find subreader num
+      final int start = starts[readerIndex];
+      final int end = starts[readerIndex + 1];
+      int upTo = i + 1;
+      while (upTo < docIDs.length && docIDs[upTo] < end) {
+        ++upTo;
+      }
+      final int[] subDocIDs = new int[upTo - i];
+      for (int j = 0; j < subDocIDs.length; ++j) {
+        subDocIDs[j] = docIDs[i + j] - start;
+      }
+      subReaders[readerIndex].documents(subDocIDs, subDocID -> visitors.apply(start + subDocID));
+      i = upTo;
+    }
+  }
+
   @Override
   public final int docFreq(Term term) throws IOException {
     ensureOpen();
@@ -17,20 +17,30 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesProducer;
@@ -63,8 +73,10 @@ import org.apache.lucene.util.CommandLineUtil;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.SuppressForbidden;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.Version;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
@@ -197,6 +209,11 @@ public final class CheckIndex implements Closeable {
        *  segment. */
       public boolean openReaderPassed;
 
+      /** True if this segment was not checked because the
+       *  {@link CheckIndex#setVerifiedSegmentsFile verified segments file}
+       *  records that a previous check of the same files passed. */
+      public boolean previouslyVerified;
+
       /** Map that includes certain
        *  debugging details that IndexWriter records into
        *  each segment it creates */
@@ -472,6 +489,103 @@ public final class CheckIndex implements Closeable {
   
   private boolean checksumsOnly;
 
+  private int threadCount = 1;
+
+  /** Set the number of threads that check segments concurrently. The
+   *  messages of each segment are still printed in order, but only once
+   *  the segment has been checked. The default is 1: segments are checked
+   *  one after the other. */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be >= 1, got " + threadCount);
+    }
+    this.threadCount = threadCount;
+  }
+
+  /** See {@link #setThreadCount}. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  private Path verifiedSegmentsFile;
+
+  /**
+   * If not null, the segments that pass the check are recorded in the given
+   * file, keyed by their {@link SegmentInfo#getId() ID} and the generations
+   * of their deletes and updates, and the next checks skip the segments
+   * that it records. This makes repeated checks of a large index only
+   * check new segments, but corruption that occurs after a segment was
+   * verified goes unnoticed until the file is deleted. A segment verified
+   * with {@link #setChecksumsOnly checksums only} is checked again by a
+   * full check, and a segment verified by a full check is checked again
+   * with {@link #setDoSlowChecks slow checks}.
+   * <p>The file should not be in the index directory. It is created if it
+   * does not exist, and only keeps the segments of the checked commit.
+   */
+  public void setVerifiedSegmentsFile(Path verifiedSegmentsFile) {
+    this.verifiedSegmentsFile = verifiedSegmentsFile;
+  }
+
+  /** See {@link #setVerifiedSegmentsFile}. */
+  public Path getVerifiedSegmentsFile() {
+    return verifiedSegmentsFile;
+  }
+
+  /** Identifies the files of a segment: a segment ID is unique, but deletes
+   *  and doc values updates add files to the segment. */
+  private static String verifiedSegmentKey(SegmentCommitInfo info) {
+    return StringHelper.idToString(info.info.getId()) + "_" + info.getDelGen()
+        + "_" + info.getFieldInfosGen() + "_" + info.getDocValuesGen();
+  }
+
+  /** Reads the verified segments file: each line has a segment key and the
+   *  level of the check it passed: 0 for checksums only, 1 for a full check
+   *  and 2 for a full check with slow checks. */
+  private Map<String,Integer> readVerifiedSegments() throws IOException {
+    Map<String,Integer> verifiedSegments = new HashMap<>();
+    if (verifiedSegmentsFile != null && Files.exists(verifiedSegmentsFile)) {
+      for (String line : Files.readAllLines(verifiedSegmentsFile, StandardCharsets.UTF_8)) {
+        String[] parts = line.split(" ");
+        Integer level = null;
+        if (parts.length == 2) {
+          try {
+            level = Integer.parseInt(parts[1]);
+          } catch (NumberFormatException e) {
+            // handled below
+          }
+        }
+        if (level == null) {
+          // the file was corrupted or edited by hand: treat the segment as not
+          // verified so that it gets checked again, the line is dropped when the
+          // file is rewritten at the end of the check
+          msg(infoStream, "WARNING: ignoring malformed line in verified segments file " + verifiedSegmentsFile + ": \"" + line + "\"");
+        } else {
+          verifiedSegments.put(parts[0], level);
+        }
+      }
+    }
+    return verifiedSegments;
+  }
+
+  private void writeVerifiedSegments(Map<String,Integer> verifiedSegments) throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String,Integer> entry : verifiedSegments.entrySet()) {
+      lines.add(entry.getKey() + " " + entry.getValue());
+    }
+    Path parent = verifiedSegmentsFile.toAbsolutePath().getParent();
+    Path tmp = Files.createTempFile(parent, verifiedSegmentsFile.getFileName().toString(), ".tmp");
+    boolean success = false;
+    try {
+      Files.write(tmp, lines, StandardCharsets.UTF_8);
+      Files.move(tmp, verifiedSegmentsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.deleteFilesIgnoringExceptions(tmp);
+      }
+    }
+  }
+
   /** Set infoStream where messages should go.  If null, no
    *  messages are printed.  If verbose is true then more
    *  details are printed. */
@@ -514,7 +628,6 @@ public final class CheckIndex implements Closeable {
   public Status checkIndex(List<String> onlySegments) throws IOException {
     ensureOpen();
     long startNS = System.nanoTime();
-    NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
     SegmentInfos sis = null;
     Status result = new Status();
     result.dir = dir;
@@ -633,6 +746,9 @@ public final class CheckIndex implements Closeable {
     result.newSegments.clear();
     result.maxSegmentName = -1;
 
+    final int checkLevel = checksumsOnly ? 0 : doSlowChecks ? 2 : 1;
+    final Map<String,Integer> verifiedSegments = readVerifiedSegments();
+    final List<SegmentCheck> checks = new ArrayList<>();
     for(int i=0;i<numSegments;i++) {
       final SegmentCommitInfo info = sis.info(i);
       long segmentName = Long.parseLong(info.info.name.substring(1), Character.MAX_RADIX);
@@ -644,172 +760,36 @@ public final class CheckIndex implements Closeable {
       }
       Status.SegmentInfoStatus segInfoStat = new Status.SegmentInfoStatus();
       result.segmentInfos.add(segInfoStat);
-      msg(infoStream, "  " + (1+i) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
-      segInfoStat.name = info.info.name;
-      segInfoStat.maxDoc = info.info.maxDoc();
-      
-      final Version version = info.info.getVersion();
       if (info.info.maxDoc() <= 0) {
         throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
       }
+      Integer verifiedLevel = verifiedSegments.get(verifiedSegmentKey(info));
+      segInfoStat.previouslyVerified = verifiedLevel != null && verifiedLevel >= checkLevel;
+      checks.add(new SegmentCheck(i, info, segInfoStat));
+    }
 
-      int toLoseDocCount = info.info.maxDoc();
-
-      SegmentReader reader = null;
-      Sort previousIndexSort = null;
-
-      try {
-        msg(infoStream, "    version=" + (version == null ? "3.0" : version));
-        msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
-        final Codec codec = info.info.getCodec();
-        msg(infoStream, "    codec=" + codec);
-        segInfoStat.codec = codec;
-        msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
-        segInfoStat.compound = info.info.getUseCompoundFile();
-        msg(infoStream, "    numFiles=" + info.files().size());
-        Sort indexSort = info.info.getIndexSort();
-        if (indexSort != null) {
-          msg(infoStream, "    sort=" + indexSort);
-          if (previousIndexSort != null) {
-            if (previousIndexSort.equals(indexSort) == false) {
-              throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
-            }
-          } else {
-            previousIndexSort = indexSort;
-          }
-        }
-        segInfoStat.numFiles = info.files().size();
-        segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
-        msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
-        Map<String,String> diagnostics = info.info.getDiagnostics();
-        segInfoStat.diagnostics = diagnostics;
-        if (diagnostics.size() > 0) {
-          msg(infoStream, "    diagnostics = " + diagnostics);
-        }
-
-        if (!info.hasDeletions()) {
-          msg(infoStream, "    no deletions");
-          segInfoStat.hasDeletions = false;
-        } else {
-          msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
-          segInfoStat.hasDeletions = true;
-          segInfoStat.deletionsGen = info.getDelGen();
-        }
-        
-        long startOpenReaderNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: open reader.........");
-        reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
-
-        segInfoStat.openReaderPassed = true;
-        
-        long startIntegrityNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: check integrity.....");
-        reader.checkIntegrity();
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
-
-        if (reader.maxDoc() != info.info.maxDoc()) {
-          throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
-        }
-        
-        final int numDocs = reader.numDocs();
-        toLoseDocCount = numDocs;
-        
-        if (reader.hasDeletions()) {
-          if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
-          }
-          if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
-            throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-          if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-        } else {
-          if (info.getDelCount() != 0) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-        }
-        
-        if (checksumsOnly == false) {
-          // Test Livedocs
-          segInfoStat.liveDocStatus = testLiveDocs(reader, infoStream, failFast);
-
-          // Test Fieldinfos
-          segInfoStat.fieldInfoStatus = testFieldInfos(reader, infoStream, failFast);
-        
-          // Test Field Norms
-          segInfoStat.fieldNormStatus = testFieldNorms(reader, infoStream, failFast);
-
-          // Test the Term Index
-          segInfoStat.termIndexStatus = testPostings(reader, infoStream, verbose, doSlowChecks, failFast);
-
-          // Test Stored Fields
-          segInfoStat.storedFieldStatus = testStoredFields(reader, infoStream, failFast);
-
-          // Test Term Vectors
-          segInfoStat.termVectorStatus = testTermVectors(reader, infoStream, verbose, doSlowChecks, failFast);
-
-          // Test Docvalues
-          segInfoStat.docValuesStatus = testDocValues(reader, infoStream, failFast);
-
-          // Test PointValues
-          segInfoStat.pointsStatus = testPoints(reader, infoStream, failFast);
-
-          // Test index sort
-          segInfoStat.indexSortStatus = testSort(reader, indexSort, infoStream, failFast);
-
-          // Rethrow the first exception we encountered
-          //  This will cause stats for failed segments to be incremented properly
-          if (segInfoStat.liveDocStatus.error != null) {
-            throw new RuntimeException("Live docs test failed");
-          } else if (segInfoStat.fieldInfoStatus.error != null) {
-            throw new RuntimeException("Field Info test failed");
-          } else if (segInfoStat.fieldNormStatus.error != null) {
-            throw new RuntimeException("Field Norm test failed");
-          } else if (segInfoStat.termIndexStatus.error != null) {
-            throw new RuntimeException("Term Index test failed");
-          } else if (segInfoStat.storedFieldStatus.error != null) {
-            throw new RuntimeException("Stored Field test failed");
-          } else if (segInfoStat.termVectorStatus.error != null) {
-            throw new RuntimeException("Term Vector test failed");
-          } else if (segInfoStat.docValuesStatus.error != null) {
-            throw new RuntimeException("DocValues test failed");
-          } else if (segInfoStat.pointsStatus.error != null) {
-            throw new RuntimeException("Points test failed");
-          }
-        }
-
-        msg(infoStream, "");
-        
-        if (verbose) {
-          msg(infoStream, "detailed segment RAM usage: ");
-          msg(infoStream, Accountables.toString(reader));
-        }
+    checkSegments(sis, checks);
 
-      } catch (Throwable t) {
-        if (failFast) {
-          throw IOUtils.rethrowAlways(t);
-        }
-        msg(infoStream, "FAILED");
-        String comment;
-        comment = "exorciseIndex() would remove reference to this segment";
-        msg(infoStream, "    WARNING: " + comment + "; full exception:");
-        if (infoStream != null)
-          t.printStackTrace(infoStream);
-        msg(infoStream, "");
-        result.totLoseDocCount += toLoseDocCount;
+    for (SegmentCheck check : checks) {
+      if (check.failure != null) {
+        result.totLoseDocCount += check.toLoseDocCount;
         result.numBadSegments++;
-        continue;
-      } finally {
-        if (reader != null)
-          reader.close();
+      } else {
+        // Keeper
+        result.newSegments.add(check.info.clone());
+        if (check.status.previouslyVerified == false) {
+          verifiedSegments.merge(verifiedSegmentKey(check.info), checkLevel, Math::max);
+        }
       }
+    }
 
-      // Keeper
-      result.newSegments.add(info.clone());
+    if (verifiedSegmentsFile != null) {
+      Set<String> liveKeys = new HashSet<>();
+      for (SegmentCommitInfo info : sis) {
+        liveKeys.add(verifiedSegmentKey(info));
+      }
+      verifiedSegments.keySet().retainAll(liveKeys);
+      writeVerifiedSegments(verifiedSegments);
     }
 
     if (0 == result.numBadSegments) {
@@ -832,6 +812,241 @@ public final class CheckIndex implements Closeable {
     return result;
   }
 
+  /** The state of the check of a single segment. */
+  private static final class SegmentCheck {
+    final int index;
+    final SegmentCommitInfo info;
+    final Status.SegmentInfoStatus status;
+    int toLoseDocCount;
+    Throwable failure;
+
+    SegmentCheck(int index, SegmentCommitInfo info, Status.SegmentInfoStatus status) {
+      this.index = index;
+      this.info = info;
+      this.status = status;
+    }
+  }
+
+  /** Checks the given segments, concurrently if {@link #getThreadCount()} is
+   *  greater than 1. The messages of each segment are buffered and printed
+   *  in order, so that they don't interleave. */
+  private void checkSegments(SegmentInfos sis, List<SegmentCheck> checks) throws IOException {
+    if (threadCount == 1 || checks.size() <= 1) {
+      for (SegmentCheck check : checks) {
+        checkSegment(sis, check, infoStream);
+      }
+      return;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, checks.size()), new NamedThreadFactory("CheckIndex"));
+    try {
+      final List<Future<ByteArrayOutputStream>> futures = new ArrayList<>();
+      for (SegmentCheck check : checks) {
+        futures.add(executor.submit(() -> {
+          ByteArrayOutputStream output = new ByteArrayOutputStream();
+          PrintStream segmentInfoStream = infoStream == null ? null : new PrintStream(output, true, IOUtils.UTF_8);
+          try {
+            checkSegment(sis, check, segmentInfoStream);
+          } finally {
+            if (segmentInfoStream != null) {
+              segmentInfoStream.flush();
+            }
+          }
+          return output;
+        }));
+      }
+      for (Future<ByteArrayOutputStream> future : futures) {
+        ByteArrayOutputStream output;
+        try {
+          output = future.get();
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        } catch (ExecutionException e) {
+          // only happens with failFast: stop checking other segments
+          throw IOUtils.rethrowAlways(e.getCause());
+        }
+        if (infoStream != null) {
+          infoStream.print(output.toString(IOUtils.UTF_8));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Checks a single segment, printing messages to the given stream. */
+  private void checkSegment(SegmentInfos sis, SegmentCheck check, PrintStream infoStream) throws IOException {
+    final int i = check.index;
+    final SegmentCommitInfo info = check.info;
+    final Status.SegmentInfoStatus segInfoStat = check.status;
+    final int numSegments = sis.size();
+    final NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
+    msg(infoStream, "  " + (1+i) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
+    segInfoStat.name = info.info.name;
+    segInfoStat.maxDoc = info.info.maxDoc();
+    
+    final Version version = info.info.getVersion();
+    check.toLoseDocCount = info.info.maxDoc();
+
+    SegmentReader reader = null;
+    Sort previousIndexSort = null;
+
+    try {
+      msg(infoStream, "    version=" + (version == null ? "3.0" : version));
+      msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
+      final Codec codec = info.info.getCodec();
+      msg(infoStream, "    codec=" + codec);
+      segInfoStat.codec = codec;
+      msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
+      segInfoStat.compound = info.info.getUseCompoundFile();
+      msg(infoStream, "    numFiles=" + info.files().size());
+      Sort indexSort = info.info.getIndexSort();
+      if (indexSort != null) {
+        msg(infoStream, "    sort=" + indexSort);
+        if (previousIndexSort != null) {
+          if (previousIndexSort.equals(indexSort) == false) {
+            throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
+          }
+        } else {
+          previousIndexSort = indexSort;
+        }
+      }
+      segInfoStat.numFiles = info.files().size();
+      segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
+      msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
+      Map<String,String> diagnostics = info.info.getDiagnostics();
+      segInfoStat.diagnostics = diagnostics;
+      if (diagnostics.size() > 0) {
+        msg(infoStream, "    diagnostics = " + diagnostics);
+      }
+
+      if (!info.hasDeletions()) {
+        msg(infoStream, "    no deletions");
+        segInfoStat.hasDeletions = false;
+      } else {
+        msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
+        segInfoStat.hasDeletions = true;
+        segInfoStat.deletionsGen = info.getDelGen();
+      }
+
+      if (segInfoStat.previouslyVerified) {
+        msg(infoStream, "    skipped: these files passed a previous check");
+        msg(infoStream, "");
+        return;
+      }
+      
+      long startOpenReaderNS = System.nanoTime();
+      if (infoStream != null)
+        infoStream.print("    test: open reader.........");
+      reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
+      msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
+
+      segInfoStat.openReaderPassed = true;
+      
+      long startIntegrityNS = System.nanoTime();
+      if (infoStream != null)
+        infoStream.print("    test: check integrity.....");
+      reader.checkIntegrity();
+      msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
+
+      if (reader.maxDoc() != info.info.maxDoc()) {
+        throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
+      }
+      
+      final int numDocs = reader.numDocs();
+      check.toLoseDocCount = numDocs;
+      
+      if (reader.hasDeletions()) {
+        if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
+          throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
+        }
+        if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
+          throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+        if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
+          throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+      } else {
+        if (info.getDelCount() != 0) {
+          throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+      }
+      
+      if (checksumsOnly == false) {
+        // Test Livedocs
+        segInfoStat.liveDocStatus = testLiveDocs(reader, infoStream, failFast);
+
+        // Test Fieldinfos
+        segInfoStat.fieldInfoStatus = testFieldInfos(reader, infoStream, failFast);
+      
+        // Test Field Norms
+        segInfoStat.fieldNormStatus = testFieldNorms(reader, infoStream, failFast);
+
+        // Test the Term Index
+        segInfoStat.termIndexStatus = testPostings(reader, infoStream, verbose, doSlowChecks, failFast);
+
+        // Test Stored Fields
+        segInfoStat.storedFieldStatus = testStoredFields(reader, infoStream, failFast);
+
+        // Test Term Vectors
+        segInfoStat.termVectorStatus = testTermVectors(reader, infoStream, verbose, doSlowChecks, failFast);
+
+        // Test Docvalues
+        segInfoStat.docValuesStatus = testDocValues(reader, infoStream, failFast);
+
+        // Test PointValues
+        segInfoStat.pointsStatus = testPoints(reader, infoStream, failFast);
+
+        // Test index sort
+        segInfoStat.indexSortStatus = testSort(reader, indexSort, infoStream, failFast);
+
+        // Rethrow the first exception we encountered
+        //  This will cause stats for failed segments to be incremented properly
+        if (segInfoStat.liveDocStatus.error != null) {
+          throw new RuntimeException("Live docs test failed");
+        } else if (segInfoStat.fieldInfoStatus.error != null) {
+          throw new RuntimeException("Field Info test failed");
+        } else if (segInfoStat.fieldNormStatus.error != null) {
+          throw new RuntimeException("Field Norm test failed");
+        } else if (segInfoStat.termIndexStatus.error != null) {
+          throw new RuntimeException("Term Index test failed");
+        } else if (segInfoStat.storedFieldStatus.error != null) {
+          throw new RuntimeException("Stored Field test failed");
+        } else if (segInfoStat.termVectorStatus.error != null) {
+          throw new RuntimeException("Term Vector test failed");
+        } else if (segInfoStat.docValuesStatus.error != null) {
+          throw new RuntimeException("DocValues test failed");
+        } else if (segInfoStat.pointsStatus.error != null) {
+          throw new RuntimeException("Points test failed");
+        }
+      }
+
+      msg(infoStream, "");
+      
+      if (verbose) {
+        msg(infoStream, "detailed segment RAM usage: ");
+        msg(infoStream, Accountables.toString(reader));
+      }
+
+    } catch (Throwable t) {
+      if (failFast) {
+        throw IOUtils.rethrowAlways(t);
+      }
+      msg(infoStream, "FAILED");
+      String comment;
+      comment = "exorciseIndex() would remove reference to this segment";
+      msg(infoStream, "    WARNING: " + comment + "; full exception:");
+      if (infoStream != null)
+        t.printStackTrace(infoStream);
+      msg(infoStream, "");
+      check.failure = t;
+    } finally {
+      if (reader != null)
+        reader.close();
+    }
+
+  }
+
   /**
    * Tests index sort order.
    * @lucene.experimental
@@ -2731,7 +2946,7 @@ public final class CheckIndex implements Closeable {
     <p>
     Run it like this:
     <pre>
-    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y]
+    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y] [-threadCount N] [-verifiedSegmentsFile F]
     </pre>
     <ul>
     <li><code>-exorcise</code>: actually write a new segments_N file, removing any problematic segments. *LOSES DATA*
@@ -2741,6 +2956,12 @@ public final class CheckIndex implements Closeable {
     to check more than one segment, eg <code>-segment _2
     -segment _a</code>.  You can't use this with the -exorcise
     option.
+
+    <li><code>-threadCount N</code>: check up to N segments concurrently.
+
+    <li><code>-verifiedSegmentsFile F</code>: skip the segments that
+    file F records as verified by a previous check, and record the
+    segments that pass this check, see {@link #setVerifiedSegmentsFile}.
     </ul>
 
     <p><b>WARNING</b>: <code>-exorcise</code> should only be used on an emergency basis as it will cause
@@ -2771,6 +2992,8 @@ public final class CheckIndex implements Closeable {
     boolean doSlowChecks = false;
     boolean verbose = false;
     boolean doChecksumsOnly = false;
+    int threadCount = 1;
+    String verifiedSegmentsFile = null;
     List<String> onlySegments = new ArrayList<>();
     String indexPath = null;
     String dirImpl = null;
@@ -2867,6 +3090,25 @@ public final class CheckIndex implements Closeable {
         }
         i++;
         opts.onlySegments.add(args[i]);
+      } else if ("-threadCount".equals(arg)) {
+        if (i == args.length - 1) {
+          throw new IllegalArgumentException("ERROR: missing value for -threadCount option");
+        }
+        i++;
+        try {
+          opts.threadCount = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("ERROR: -threadCount must be an integer, got '" + args[i] + "'");
+        }
+        if (opts.threadCount < 1) {
+          throw new IllegalArgumentException("ERROR: -threadCount must be >= 1, got " + opts.threadCount);
+        }
+      } else if ("-verifiedSegmentsFile".equals(arg)) {
+        if (i == args.length - 1) {
+          throw new IllegalArgumentException("ERROR: missing value for -verifiedSegmentsFile option");
+        }
+        i++;
+        opts.verifiedSegmentsFile = args[i];
       } else if ("-dir-impl".equals(arg)) {
         if (i == args.length - 1) {
           throw new IllegalArgumentException("ERROR: missing value for -dir-impl option");
@@ -2884,7 +3126,7 @@ public final class CheckIndex implements Closeable {
 
     if (opts.indexPath == null) {
       throw new IllegalArgumentException("\nERROR: index path not specified" +
-                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-slow] [-segment X] [-segment Y] [-dir-impl X]\n" +
+                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-slow] [-segment X] [-segment Y] [-threadCount N] [-verifiedSegmentsFile F] [-dir-impl X]\n" +
                          "\n" +
                          "  -exorcise: actually write a new segments_N file, removing any problematic segments\n" +
                          "  -fast: just verify file checksums, omitting logical integrity checks\n" + 
@@ -2894,6 +3136,9 @@ public final class CheckIndex implements Closeable {
                          "  -segment X: only check the specified segments.  This can be specified multiple\n" + 
                          "              times, to check more than one segment, eg '-segment _2 -segment _a'.\n" +
                          "              You can't use this with the -exorcise option\n" +
+                         "  -threadCount N: check up to N segments concurrently\n" +
+                         "  -verifiedSegmentsFile F: skip the segments that file F records as verified by a previous\n" +
+                         "              check, and record the segments that pass this check\n" +
                          "  -dir-impl X: use a specific " + FSDirectory.class.getSimpleName() + " implementation. " +
                          "If no package is specified the " + FSDirectory.class.getPackage().getName() + " package will be used.\n" +
                          "\n" +
@@ -2934,6 +3179,10 @@ public final class CheckIndex implements Closeable {
     setDoSlowChecks(opts.doSlowChecks);
     setChecksumsOnly(opts.doChecksumsOnly);
     setInfoStream(opts.out, opts.verbose);
+    setThreadCount(opts.threadCount);
+    if (opts.verifiedSegmentsFile != null) {
+      setVerifiedSegmentsFile(Paths.get(opts.verifiedSegmentsFile));
+    }
 
     Status result = checkIndex(opts.onlySegments);
     if (result.missingSegments) {
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntFunction;
 
 import org.apache.lucene.codecs.DocValuesProducer;
 import org.apache.lucene.codecs.FieldsProducer;
@@ -84,6 +85,15 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     getFieldsReader().visitDocument(docID, visitor);
   }
   
+  @Override
+  public final void documents(int[] docIDs, IntFunction<StoredFieldVisitor> visitors) throws IOException {
+    docIDs = sortedCopy(docIDs);
+    for (int docID : docIDs) {
+      checkBounds(docID);
+    }
+    getFieldsReader().visitDocuments(docIDs, visitors);
+  }
+
   @Override
   public final Fields getTermVectors(int docID) throws IOException {
     TermVectorsReader termVectorsReader = getTermVectorsReader();
@@ -177,6 +187,17 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     }
     return getDocValuesReader().getSortedSet(fi);
   }
+
+  @Override
+  public final DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getDocValuesType() == DocValuesType.NONE) {
+      // Field does not exist or does not index doc values
+      return null;
+    }
+    return getDocValuesReader().getSkipper(fi);
+  }
   
   @Override
   public final NumericDocValues getNormValues(String field) throws IOException {
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.ThreadInterruptedException;
+
+/** Runs independent tasks that write files of the same segment concurrently,
+ *  such as the per-format steps of a flush or a merge. */
+final class ConcurrentIOTasks {
+
+  /** A task that may throw an {@link IOException}. */
+  @FunctionalInterface
+  interface IOTask {
+    void run() throws IOException;
+  }
+
+  private ConcurrentIOTasks() {} // no instance
+
+  /** Run {@code tasks} on {@code executor} while the calling thread runs
+   *  {@code callerTask}, and return once all tasks have completed, even if
+   *  some of them failed, so that no file is still being written when this
+   *  method returns. The first exception is rethrown, with the other ones
+   *  suppressed. Tasks that the executor rejects run on the calling thread. */
+  static void run(Executor executor, IOTask callerTask, List<IOTask> tasks) throws IOException {
+    final List<FutureTask<Void>> futures = new ArrayList<>(tasks.size());
+    Throwable th = null;
+    try {
+      for (IOTask task : tasks) {
+        final FutureTask<Void> future = new FutureTask<>(() -> {
+          task.run();
+          return null;
+        });
+        futures.add(future);
+        try {
+          executor.execute(future);
+        } catch (RejectedExecutionException e) {
+          future.run();
+        }
+      }
+      callerTask.run();
+    } catch (Throwable t) {
+      th = t;
+    }
+    for (FutureTask<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        th = IOUtils.useOrSuppress(th, new ThreadInterruptedException(e));
+      } catch (ExecutionException e) {
+        th = IOUtils.useOrSuppress(th, e.getCause());
+      }
+    }
+    if (th != null) {
+      throw IOUtils.rethrowAlways(th);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.AlreadyClosedException;
@@ -121,6 +122,8 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
 
   private double forceMergeMBPerSec = Double.POSITIVE_INFINITY;
 
+  private Executor intraMergeExecutor;
+
   /** Sole constructor, with all settings set to default
    *  values. */
   public ConcurrentMergeScheduler() {
@@ -202,6 +205,19 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     return forceMergeMBPerSec;
   }
 
+  /** Expert: set an {@link Executor} that merge threads may use to merge the
+   *  different parts of a segment (postings, stored fields, doc values, ...)
+   *  concurrently, or {@code null} (the default) to merge them sequentially.
+   *  Tasks that run on this executor share the IO rate limit of their merge. */
+  public synchronized void setIntraMergeExecutor(Executor executor) {
+    this.intraMergeExecutor = executor;
+  }
+
+  @Override
+  public synchronized Executor getIntraMergeExecutor(OneMerge merge) {
+    return intraMergeExecutor;
+  }
+
   /** Turn on dynamic IO throttling, to adaptively rate limit writes
    *  bytes/sec to the minimal rate necessary so merges do not fall behind.
    *  By default this is enabled. */
@@ -280,9 +296,9 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
         // somewhere that is failing to pass down the right IOContext:
         assert context.context == IOContext.Context.MERGE: "got context=" + context.context;
         
-        // Because rateLimiter is bound to a particular merge thread, this method should
+        // Because rateLimiter is bound to a particular merge, this method should
         // always be called from that context. Verify this.
-        assert mergeThread == Thread.currentThread() : "Not the same merge thread, current="
+        assert merge.getMergeProgress().isMergeThread(Thread.currentThread()) : "Not the same merge thread, current="
           + Thread.currentThread() + ", expected=" + mergeThread;
 
         return new RateLimitedIndexOutput(rateLimiter, in.createOutput(name, context));
@@ -26,7 +26,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.codecs.DocValuesConsumer;
 import org.apache.lucene.codecs.DocValuesFormat;
@@ -41,11 +46,13 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.AttributeSource;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefHash.MaxBytesLengthExceededException;
 import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.ThreadInterruptedException;
 
 /** Default general purpose indexing chain, which handles
  *  indexing all types of fields. */
@@ -122,65 +129,36 @@ final class DefaultIndexingChain extends DocConsumer {
     // NOTE: caller (DocumentsWriterPerThread) handles
     // aborting on any exception from this method
     Sorter.DocMap sortMap = maybeSortSegment(state);
-    int maxDoc = state.segmentInfo.maxDoc();
-    long t0 = System.nanoTime();
-    writeNorms(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write norms");
-    }
-    SegmentReadState readState = new SegmentReadState(state.directory, state.segmentInfo, state.fieldInfos, IOContext.READ, state.segmentSuffix);
-    
-    t0 = System.nanoTime();
-    writeDocValues(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write docValues");
-    }
-
-    t0 = System.nanoTime();
-    writePoints(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write points");
-    }
-    
-    // it's possible all docs hit non-aborting exceptions...
-    t0 = System.nanoTime();
-    storedFieldsConsumer.finish(maxDoc);
-    storedFieldsConsumer.flush(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to finish stored fields");
-    }
-
-    t0 = System.nanoTime();
-    Map<String,TermsHashPerField> fieldsToFlush = new HashMap<>();
-    for (int i=0;i<fieldHash.length;i++) {
-      PerField perField = fieldHash[i];
-      while (perField != null) {
-        if (perField.invertState != null) {
-          fieldsToFlush.put(perField.fieldInfo.name, perField.termsHashPerField);
-        }
-        perField = perField.next;
-      }
-    }
-
-    try (NormsProducer norms = readState.fieldInfos.hasNorms()
-        ? state.segmentInfo.getCodec().normsFormat().normsProducer(readState)
-        : null) {
-      NormsProducer normsMergeInstance = null;
-      if (norms != null) {
-        // Use the merge instance in order to reuse the same IndexInput for all terms
-        normsMergeInstance = norms.getMergeInstance();
-      }
-      termsHash.flush(fieldsToFlush, state, sortMap, normsMergeInstance);
-    }
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write postings and finish vectors");
+    // finishing doc values updates the RAM counter, which is not thread-safe
+    finishDocValues(state.segmentInfo.maxDoc());
+    recordPointRanges(state);
+
+    final Executor flushExecutor = docWriter.getIndexWriterConfig().getFlushExecutor();
+    if (flushExecutor == null) {
+      writeNorms(state, sortMap);
+      writeDocValues(state, sortMap);
+      writePoints(state, sortMap);
+      writeStoredFields(state, sortMap);
+      writePostings(state, sortMap);
+    } else {
+      // postings need norms, and are usually the most expensive to write, so write
+      // them on this thread while other formats are written concurrently
+      ConcurrentIOTasks.run(flushExecutor,
+          () -> {
+            writeNorms(state, sortMap);
+            writePostings(state, sortMap);
+          },
+          Arrays.asList(
+              () -> writeDocValues(state, sortMap),
+              () -> writePoints(state, sortMap),
+              () -> writeStoredFields(state, sortMap)));
     }
 
     // Important to save after asking consumer to flush so
     // consumer can alter the FieldInfo* if necessary.  EG,
     // FreqProxTermsWriter does this with
     // FieldInfo.storePayload.
-    t0 = System.nanoTime();
+    long t0 = System.nanoTime();
     docWriter.codec.fieldInfosFormat().write(state.directory, state.segmentInfo, "", state.fieldInfos, IOContext.DEFAULT);
     if (docState.infoStream.isEnabled("IW")) {
       docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write fieldInfos");
@@ -189,8 +167,20 @@ final class DefaultIndexingChain extends DocConsumer {
     return sortMap;
   }
 
+  /** Records the range of the {@link LiveIndexWriterConfig#getPointRangeFields() configured}
+   *  point fields in the segment's attributes. */
+  private void recordPointRanges(SegmentWriteState state) {
+    for (String field : docWriter.getIndexWriterConfig().getPointRangeFields()) {
+      PerField perField = getPerField(field);
+      if (perField != null && perField.pointValuesWriter != null) {
+        perField.pointValuesWriter.recordRange(state.segmentInfo);
+      }
+    }
+  }
+
   /** Writes all buffered points. */
   private void writePoints(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    long t0 = System.nanoTime();
     PointsWriter pointsWriter = null;
     boolean success = false;
     try {
@@ -231,11 +221,28 @@ final class DefaultIndexingChain extends DocConsumer {
         IOUtils.closeWhileHandlingException(pointsWriter);
       }
     }
+    if (docState.infoStream.isEnabled("IW")) {
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write points");
+    }
+  }
+
+  /** Finishes all buffered doc values, which must happen before they are
+   *  written since this updates RAM accounting. */
+  private void finishDocValues(int maxDoc) {
+    for (int i=0;i<fieldHash.length;i++) {
+      PerField perField = fieldHash[i];
+      while (perField != null) {
+        if (perField.docValuesWriter != null && finishedDocValues.add(perField.fieldInfo.name)) {
+          perField.docValuesWriter.finish(maxDoc);
+        }
+        perField = perField.next;
+      }
+    }
   }
 
   /** Writes all buffered doc values (called from {@link #flush}). */
   private void writeDocValues(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
-    int maxDoc = state.segmentInfo.maxDoc();
+    long t0 = System.nanoTime();
     DocValuesConsumer dvConsumer = null;
     boolean success = false;
     try {
@@ -253,9 +260,7 @@ final class DefaultIndexingChain extends DocConsumer {
               dvConsumer = fmt.fieldsConsumer(state);
             }
 
-            if (finishedDocValues.contains(perField.fieldInfo.name) == false) {
-              perField.docValuesWriter.finish(maxDoc);
-            }
+            assert finishedDocValues.contains(perField.fieldInfo.name);
             perField.docValuesWriter.flush(state, sortMap, dvConsumer);
             perField.docValuesWriter = null;
           } else if (perField.fieldInfo.getDocValuesType() != DocValuesType.NONE) {
@@ -288,9 +293,13 @@ final class DefaultIndexingChain extends DocConsumer {
       // BUG
       throw new AssertionError("segment=" + state.segmentInfo + ": fieldInfos has docValues but did not wrote them");
     }
+    if (docState.infoStream.isEnabled("IW")) {
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write docValues");
+    }
   }
 
   private void writeNorms(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    long t0 = System.nanoTime();
     boolean success = false;
     NormsConsumer normsConsumer = null;
     try {
@@ -320,6 +329,52 @@ final class DefaultIndexingChain extends DocConsumer {
         IOUtils.closeWhileHandlingException(normsConsumer);
       }
     }
+    if (docState.infoStream.isEnabled("IW")) {
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write norms");
+    }
+  }
+
+  private void writeStoredFields(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    long t0 = System.nanoTime();
+    // it's possible all docs hit non-aborting exceptions...
+    storedFieldsConsumer.finish(state.segmentInfo.maxDoc());
+    storedFieldsConsumer.flush(state, sortMap);
+    if (docState.infoStream.isEnabled("IW")) {
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to finish stored fields");
+    }
+  }
+
+  /** Writes postings and term vectors, which requires norms to be written. */
+  private void writePostings(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    long t0 = System.nanoTime();
+    Map<String,TermsHashPerField> fieldsToFlush = new HashMap<>();
+    for (int i=0;i<fieldHash.length;i++) {
+      PerField perField = fieldHash[i];
+      while (perField != null) {
+        if (perField.invertState != null) {
+          fieldsToFlush.put(perField.fieldInfo.name, perField.termsHashPerField);
+        }
+        perField = perField.next;
+      }
+    }
+
+    SegmentReadState readState = new SegmentReadState(state.directory, state.segmentInfo, state.fieldInfos, IOContext.READ, state.segmentSuffix);
+    try (NormsProducer norms = readState.fieldInfos.hasNorms()
+        ? state.segmentInfo.getCodec().normsFormat().normsProducer(readState)
+        : null) {
+      NormsProducer normsMergeInstance = null;
+      if (norms != null) {
+        // Use the merge instance in order to reuse the same IndexInput for all terms
+        normsMergeInstance = norms.getMergeInstance();
+      }
+      termsHash.flush(fieldsToFlush, state, sortMap, normsMergeInstance);
+    }
+    // postings are written: give their blocks back to the allocator so that
+    // they may be reused by the next segment
+    termsHash.reset();
+    if (docState.infoStream.isEnabled("IW")) {
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write postings and finish vectors");
+    }
   }
 
   @Override
@@ -396,12 +451,30 @@ final class DefaultIndexingChain extends DocConsumer {
 
     termsHash.startDocument();
 
+    final Executor analysisExecutor = docWriter.getIndexWriterConfig().getAnalysisExecutor();
+    Iterable<? extends IndexableField> doc = docState.doc;
+    List<FutureTask<BufferedTokenStream>> analyses = null;
+    if (analysisExecutor != null && docState.analyzer != null) {
+      final List<IndexableField> fieldList = new ArrayList<>();
+      for (IndexableField field : doc) {
+        fieldList.add(field);
+      }
+      doc = fieldList;
+      analyses = startAnalyses(fieldList, docState.analyzer, analysisExecutor);
+    }
+
     startStoredFields(docState.docID);
     try {
-      for (IndexableField field : docState.doc) {
-        fieldCount = processField(field, fieldGen, fieldCount);
+      int i = 0;
+      for (IndexableField field : doc) {
+        final FutureTask<BufferedTokenStream> analysis = analyses == null ? null : analyses.get(i++);
+        fieldCount = processField(field, analysis, fieldGen, fieldCount);
       }
     } finally {
+      if (analyses != null) {
+        // make sure that no other thread still reads fields of this document
+        awaitAnalyses(analyses);
+      }
       if (docWriter.hasHitAbortingException() == false) {
         // Finish each indexed field name seen in the document:
         for (int i=0;i<fieldCount;i++) {
@@ -421,7 +494,53 @@ final class DefaultIndexingChain extends DocConsumer {
     }
   }
 
-  private int processField(IndexableField field, long fieldGen, int fieldCount) throws IOException {
+  /** Starts analyzing tokenized fields of the given document on the executor,
+   *  and returns a list that has the task that analyzes each field at the
+   *  same index as the field, or {@code null} if the field is analyzed by the
+   *  indexing thread. The first tokenized field is always analyzed by the
+   *  indexing thread, since it can start inverting it immediately. */
+  private static List<FutureTask<BufferedTokenStream>> startAnalyses(List<IndexableField> fields,
+      Analyzer analyzer, Executor executor) {
+    final List<FutureTask<BufferedTokenStream>> analyses = new ArrayList<>(fields.size());
+    boolean first = true;
+    for (IndexableField field : fields) {
+      final IndexableFieldType fieldType = field.fieldType();
+      if (fieldType.indexOptions() == null
+          || fieldType.indexOptions() == IndexOptions.NONE
+          || fieldType.tokenized() == false) {
+        analyses.add(null);
+      } else if (first) {
+        analyses.add(null);
+        first = false;
+      } else {
+        final FutureTask<BufferedTokenStream> analysis = new FutureTask<>(() -> BufferedTokenStream.consume(field, analyzer));
+        analyses.add(analysis);
+        try {
+          executor.execute(analysis);
+        } catch (RejectedExecutionException e) {
+          // the executor is saturated or shut down, analyze on the indexing thread
+          analysis.run();
+        }
+      }
+    }
+    return analyses;
+  }
+
+  private static void awaitAnalyses(List<FutureTask<BufferedTokenStream>> analyses) {
+    for (FutureTask<BufferedTokenStream> analysis : analyses) {
+      if (analysis != null) {
+        try {
+          analysis.get();
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        } catch (ExecutionException e) {
+          // ignore: only an issue if the field was inverted, and then it has been rethrown already
+        }
+      }
+    }
+  }
+
+  private int processField(IndexableField field, FutureTask<BufferedTokenStream> analysis, long fieldGen, int fieldCount) throws IOException {
     String fieldName = field.name();
     IndexableFieldType fieldType = field.fieldType();
 
@@ -435,7 +554,7 @@ final class DefaultIndexingChain extends DocConsumer {
     if (fieldType.indexOptions() != IndexOptions.NONE) {
       fp = getOrAddField(fieldName, fieldType, true);
       boolean first = fp.fieldGen != fieldGen;
-      fp.invert(field, first);
+      fp.invert(field, analysis, first);
 
       if (first) {
         fields[fieldCount++] = fp;
@@ -718,8 +837,10 @@ final class DefaultIndexingChain extends DocConsumer {
 
     /** Inverts one field for one document; first is true
      *  if this is the first time we are seeing this field
-     *  name in this document. */
-    public void invert(IndexableField field, boolean first) throws IOException {
+     *  name in this document. If analysis is not null, the
+     *  tokens of the field are taken from it rather than
+     *  from the analyzer. */
+    public void invert(IndexableField field, FutureTask<BufferedTokenStream> analysis, boolean first) throws IOException {
       if (first) {
         // First time we're seeing this field (indexed) in
         // this document:
@@ -743,7 +864,9 @@ final class DefaultIndexingChain extends DocConsumer {
        * but rather a finally that takes note of the problem.
        */
       boolean succeededInProcessingField = false;
-      try (TokenStream stream = tokenStream = field.tokenStream(docState.analyzer, tokenStream)) {
+      try (TokenStream stream = analysis == null
+          ? tokenStream = field.tokenStream(docState.analyzer, tokenStream)
+          : BufferedTokenStream.get(analysis)) {
         // reset the TokenStream to the first token
         stream.reset();
         invertState.setAttributeSource(stream);
@@ -838,4 +961,72 @@ final class DefaultIndexingChain extends DocConsumer {
       }
     }
   }
+
+  /** A {@link TokenStream} that replays the tokens of a field that has been
+   *  analyzed in advance, possibly by another thread. */
+  private static final class BufferedTokenStream extends TokenStream {
+
+    /** Consume the tokens of the given field. */
+    static BufferedTokenStream consume(IndexableField field, Analyzer analyzer) throws IOException {
+      final List<State> states = new ArrayList<>();
+      final State finalState;
+      final AttributeSource attributes;
+      // don't reuse: the analyzer hands out one stream per thread, and this stream must be
+      // closed before this thread analyzes another field
+      try (TokenStream stream = field.tokenStream(analyzer, null)) {
+        stream.reset();
+        while (stream.incrementToken()) {
+          states.add(stream.captureState());
+        }
+        stream.end();
+        finalState = stream.captureState();
+        // the indexing thread must not share attributes with a stream that this thread will reuse
+        attributes = stream.cloneAttributes();
+      }
+      return new BufferedTokenStream(attributes, states, finalState);
+    }
+
+    static BufferedTokenStream get(FutureTask<BufferedTokenStream> analysis) throws IOException {
+      try {
+        return analysis.get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        throw IOUtils.rethrowAlways(e.getCause());
+      }
+    }
+
+    private final List<State> states;
+    private final State finalState;
+    private int upto;
+
+    private BufferedTokenStream(AttributeSource attributes, List<State> states, State finalState) {
+      super(attributes);
+      this.states = states;
+      this.finalState = finalState;
+    }
+
+    @Override
+    public void reset() throws IOException {
+      upto = 0;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+      if (upto == states.size()) {
+        return false;
+      }
+      // consumers may have added attributes that the states don't have, such as the position
+      // increment: reset them before each token and at the end, like the analyzed stream did
+      clearAttributes();
+      restoreState(states.get(upto++));
+      return true;
+    }
+
+    @Override
+    public void end() throws IOException {
+      endAttributes();
+      restoreState(finalState);
+    }
+  }
 }
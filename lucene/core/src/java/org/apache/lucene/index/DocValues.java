@@ -444,7 +444,8 @@ public final class DocValues {
   public static boolean isCacheable(LeafReaderContext ctx, String... fields) {
     for (String field : fields) {
       FieldInfo fi = ctx.reader().getFieldInfos().fieldInfo(field);
-      if (fi != null && fi.getDocValuesGen() > -1)
+      // updates that are written as overlays don't change the base gen
+      if (fi != null && (fi.getDocValuesGen() > -1 || NumericUpdateOverlays.hasOverlays(fi)))
         return false;
     }
     return true;
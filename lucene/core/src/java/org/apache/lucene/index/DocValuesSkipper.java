@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * Skipper over the doc values of a field, that gives the range of values of
+ * blocks of documents without decoding them. Blocks are organized in levels,
+ * where a block of level {@code n+1} covers several consecutive blocks of
+ * level {@code n}, so that queries can skip large ranges of documents at once,
+ * typically when the index is sorted or the values are clustered.
+ * <p>
+ * Before the first call to {@link #advance(int)}, {@link #minDocID(int)} and
+ * {@link #maxDocID(int)} return {@code -1}. Once the skipper is exhausted,
+ * they return {@link DocIdSetIterator#NO_MORE_DOCS}.
+ *
+ * @lucene.experimental
+ */
+public abstract class DocValuesSkipper {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected DocValuesSkipper() {}
+
+  /**
+   * Advance this skipper so that all levels contain the next document on or
+   * after {@code target}. Documents that have no value may be between blocks,
+   * so {@link #minDocID(int) minDocID(0)} may be greater than {@code target}
+   * after this call. Unlike iterators, this may be called with a target that
+   * is not greater than the current position, in which case it is a no-op.
+   */
+  public abstract void advance(int target) throws IOException;
+
+  /** Return the number of levels, which is at least 1. */
+  public abstract int numLevels();
+
+  /** Return the minimum doc ID of the block on the given level, inclusive. */
+  public abstract int minDocID(int level);
+
+  /** Return the maximum doc ID of the block on the given level, inclusive. */
+  public abstract int maxDocID(int level);
+
+  /** Return the minimum value of the block on the given level, inclusive. */
+  public abstract long minValue(int level);
+
+  /** Return the maximum value of the block on the given level, inclusive. */
+  public abstract long maxValue(int level);
+
+  /** Return the number of documents that have a value in the block on the given level. */
+  public abstract int docCount(int level);
+
+  /** Return the minimum value of the field in the segment. */
+  public abstract long minValue();
+
+  /** Return the maximum value of the field in the segment. */
+  public abstract long maxValue();
+
+  /** Return the number of documents that have a value for the field in the segment. */
+  public abstract int docCount();
+
+}
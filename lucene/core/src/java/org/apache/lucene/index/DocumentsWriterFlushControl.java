@@ -97,12 +97,12 @@ final class DocumentsWriterFlushControl implements Accountable {
   }
   
   private long stallLimitBytes() {
-    final double maxRamMB = config.getRAMBufferSizeMB();
+    final double maxRamMB = flushPolicy.getRAMBufferSizeMB();
     return maxRamMB != IndexWriterConfig.DISABLE_AUTO_FLUSH ? (long)(2 * (maxRamMB * 1024 * 1024)) : Long.MAX_VALUE;
   }
   
   private boolean assertMemory() {
-    final double maxRamMB = config.getRAMBufferSizeMB();
+    final double maxRamMB = flushPolicy.getRAMBufferSizeMB();
     // We can only assert if we have always been flushing by RAM usage; otherwise the assert will false trip if e.g. the
     // flush-by-doc-count * doc size was large enough to use far more RAM than the sudden change to IWC's maxRAMBufferSizeMB:
     if (maxRamMB != IndexWriterConfig.DISABLE_AUTO_FLUSH && flushByRAMWasDisabled == false) {
@@ -442,10 +442,16 @@ final class DocumentsWriterFlushControl implements Accountable {
     return documentsWriter.deleteQueue.ramBytesUsed();
   }
 
+  /** Returns heap bytes consumed by blocks that the {@link IndexingBufferAllocator}
+   *  retains for reuse by future in-memory segments. */
+  public long getRetainedBufferBytes() {
+    return config.getIndexingBufferAllocator().ramBytesUsed();
+  }
+
   @Override
   public long ramBytesUsed() {
     // TODO: improve this to return more detailed info?
-    return getDeleteBytesUsed() + netBytes();
+    return getDeleteBytesUsed() + netBytes() + getRetainedBufferBytes();
   }
   
   synchronized int numFlushingDWPT() {
@@ -17,6 +17,8 @@
 package org.apache.lucene.index;
 
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -26,6 +28,9 @@ import java.util.Objects;
  *  of this class are thread-safe for multiple readers, but only one thread can
  *  be adding documents at a time, with no other reader or writer threads
  *  accessing this object.
+ *  <p>
+ *  Codec attributes are the exception: formats may write the files of a
+ *  segment concurrently, so they may be read and put by several threads.
  **/
 
 public final class FieldInfo {
@@ -308,7 +313,7 @@ public final class FieldInfo {
   /**
    * Get a codec attribute value, or null if it does not exist
    */
-  public String getAttribute(String key) {
+  public synchronized String getAttribute(String key) {
     return attributes.get(key);
   }
   
@@ -322,14 +327,14 @@ public final class FieldInfo {
    * If a value already exists for the field, it will be replaced with 
    * the new value.
    */
-  public String putAttribute(String key, String value) {
+  public synchronized String putAttribute(String key, String value) {
     return attributes.put(key, value);
   }
   
   /**
-   * Returns internal codec attributes map.
+   * Returns an unmodifiable snapshot of the codec attributes.
    */
-  public Map<String,String> attributes() {
-    return attributes;
+  public synchronized Map<String,String> attributes() {
+    return Collections.unmodifiableMap(new HashMap<>(attributes));
   }
 }
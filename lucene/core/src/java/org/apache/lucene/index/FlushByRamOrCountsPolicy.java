@@ -75,7 +75,7 @@ class FlushByRamOrCountsPolicy extends FlushPolicy {
       // Flush this state by num docs
       control.setFlushPending(state);
     } else if (flushOnRAM()) {// flush by RAM
-      final long limit = (long) (indexWriterConfig.getRAMBufferSizeMB() * 1024.d * 1024.d);
+      final long limit = (long) (getRAMBufferSizeMB() * 1024.d * 1024.d);
       final long totalRam = control.activeBytes() + control.getDeleteBytesUsed();
       if (totalRam >= limit) {
         if (infoStream.isEnabled("FP")) {
@@ -93,6 +93,14 @@ abstract class FlushPolicy {
     infoStream = indexWriterConfig.getInfoStream();
   }
 
+  /**
+   * Returns the size of the RAM buffer, in MB, that this policy currently
+   * flushes at. Defaults to {@link IndexWriterConfig#getRAMBufferSizeMB()}.
+   */
+  protected double getRAMBufferSizeMB() {
+    return indexWriterConfig.getRAMBufferSizeMB();
+  }
+
   /**
    * Returns the current most RAM consuming non-pending {@link ThreadState} with
    * at least one indexed document.
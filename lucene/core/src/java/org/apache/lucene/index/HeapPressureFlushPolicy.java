@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.DocumentsWriterPerThreadPool.ThreadState;
+
+/**
+ * A {@link FlushByRamOrCountsPolicy} that also adapts to the occupancy of the
+ * old generation of the JVM heap, as measured after garbage collections:
+ * <ul>
+ * <li>when the occupancy exceeds <code>maxOldGenOccupancy</code>, or is
+ * expected to exceed it after the next collection given how much it grew
+ * since the previous one, the largest {@link DocumentsWriterPerThread} is
+ * flushed early, once per observed collection, and the RAM buffer is not
+ * grown</li>
+ * <li>otherwise the RAM buffer grows from
+ * {@link IndexWriterConfig#getRAMBufferSizeMB()} towards
+ * <code>maxRAMBufferSizeMB</code> as the occupancy decreases, so that
+ * indexing uses larger buffers, and thus produces fewer segments, when the
+ * heap is plentiful</li>
+ * </ul>
+ * Decisions are reported to the {@link org.apache.lucene.util.InfoStream}
+ * under the "FP" component. If no suitable memory pool can be found, this
+ * policy behaves like {@link FlushByRamOrCountsPolicy}.
+ *
+ * @see IndexWriterConfig#setHeapPressureFlushing(double, double)
+ */
+class HeapPressureFlushPolicy extends FlushByRamOrCountsPolicy {
+
+  // how often we check whether a collection happened
+  private static final long SAMPLE_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  // we use reflection for the management API, because it is not part of
+  // the compact1 profile that lucene core is compiled against
+  static final String MANAGEMENT_FACTORY_CLASS = "java.lang.management.ManagementFactory";
+  static final String MEMORY_POOL_BEAN_CLASS = "java.lang.management.MemoryPoolMXBean";
+  static final String GARBAGE_COLLECTOR_BEAN_CLASS = "java.lang.management.GarbageCollectorMXBean";
+  static final String MEMORY_USAGE_CLASS = "java.lang.management.MemoryUsage";
+
+  private static final Method GET_COLLECTION_COUNT, GET_COLLECTION_USAGE, GET_USED, GET_MAX;
+  static {
+    Method getCollectionCount = null, getCollectionUsage = null, getUsed = null, getMax = null;
+    try {
+      getCollectionCount = Class.forName(GARBAGE_COLLECTOR_BEAN_CLASS).getMethod("getCollectionCount");
+      getCollectionUsage = Class.forName(MEMORY_POOL_BEAN_CLASS).getMethod("getCollectionUsage");
+      final Class<?> memoryUsageClazz = Class.forName(MEMORY_USAGE_CLASS);
+      getUsed = memoryUsageClazz.getMethod("getUsed");
+      getMax = memoryUsageClazz.getMethod("getMax");
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // the management API is not available, findOldGenPool will return null
+      getCollectionCount = getCollectionUsage = getUsed = getMax = null;
+    }
+    GET_COLLECTION_COUNT = getCollectionCount;
+    GET_COLLECTION_USAGE = getCollectionUsage;
+    GET_USED = getUsed;
+    GET_MAX = getMax;
+  }
+
+  private final double maxOldGenOccupancy;
+  private final double maxRAMBufferSizeMB;
+  private final Object oldGen; // a MemoryPoolMXBean
+  private final String oldGenName;
+  private final List<Object> collectors; // GarbageCollectorMXBeans
+
+  // only accessed under the lock of DocumentsWriterFlushControl
+  private long lastSampleNS;
+  private long lastCollectionCount = -1;
+  private double lastOccupancy = -1;
+  private boolean underPressure;
+  private volatile double ramBufferSizeMB = -1;
+
+  HeapPressureFlushPolicy(double maxOldGenOccupancy, double maxRAMBufferSizeMB) {
+    this(maxOldGenOccupancy, maxRAMBufferSizeMB, findOldGenPool());
+  }
+
+  HeapPressureFlushPolicy(double maxOldGenOccupancy, double maxRAMBufferSizeMB, Object oldGen) {
+    if (maxOldGenOccupancy <= 0 || maxOldGenOccupancy > 1) {
+      throw new IllegalArgumentException("maxOldGenOccupancy must be in (0, 1], got " + maxOldGenOccupancy);
+    }
+    if (maxRAMBufferSizeMB <= 0) {
+      throw new IllegalArgumentException("maxRAMBufferSizeMB must be > 0, got " + maxRAMBufferSizeMB);
+    }
+    this.maxOldGenOccupancy = maxOldGenOccupancy;
+    this.maxRAMBufferSizeMB = maxRAMBufferSizeMB;
+    this.oldGen = oldGen;
+    this.collectors = new ArrayList<>();
+    String oldGenName = null;
+    if (oldGen != null) {
+      try {
+        oldGenName = (String) Class.forName(MEMORY_POOL_BEAN_CLASS).getMethod("getName").invoke(oldGen);
+        final Method getMemoryPoolNames = Class.forName(GARBAGE_COLLECTOR_BEAN_CLASS).getMethod("getMemoryPoolNames");
+        final List<?> allCollectors = (List<?>) Class.forName(MANAGEMENT_FACTORY_CLASS)
+            .getMethod("getGarbageCollectorMXBeans").invoke(null);
+        for (Object collector : allCollectors) {
+          if (Arrays.asList((String[]) getMemoryPoolNames.invoke(collector)).contains(oldGenName)) {
+            collectors.add(collector);
+          }
+        }
+      } catch (ReflectiveOperationException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    this.oldGenName = oldGenName;
+  }
+
+  /**
+   * Return the heap memory pool that holds long-lived objects, as a
+   * {@code MemoryPoolMXBean}, or {@code null} if it cannot be identified.
+   */
+  static Object findOldGenPool() {
+    if (GET_COLLECTION_COUNT == null) {
+      return null;
+    }
+    try {
+      final Class<?> poolClazz = Class.forName(MEMORY_POOL_BEAN_CLASS);
+      final Method getName = poolClazz.getMethod("getName");
+      final Method getType = poolClazz.getMethod("getType");
+      final Method isCollectionUsageThresholdSupported = poolClazz.getMethod("isCollectionUsageThresholdSupported");
+      final List<?> pools = (List<?>) Class.forName(MANAGEMENT_FACTORY_CLASS)
+          .getMethod("getMemoryPoolMXBeans").invoke(null);
+      List<Object> candidates = new ArrayList<>();
+      for (Object pool : pools) {
+        if (((Enum<?>) getType.invoke(pool)).name().equals("HEAP")
+            && (Boolean) isCollectionUsageThresholdSupported.invoke(pool)) {
+          final String name = (String) getName.invoke(pool);
+          if (name.contains("Old Gen") || name.contains("Tenured")) {
+            return pool;
+          }
+          candidates.add(pool);
+        }
+      }
+      // single-generation collectors have a single heap pool
+      return candidates.size() == 1 ? candidates.get(0) : null;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** Return the total number of collections of the old generation pool so far. */
+  long collectionCount() {
+    long count = 0;
+    try {
+      for (Object collector : collectors) {
+        count += Math.max(0, (Long) GET_COLLECTION_COUNT.invoke(collector));
+      }
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+    return count;
+  }
+
+  /**
+   * Return the occupancy of the old generation pool after the last
+   * collection as a fraction of its maximum size, or -1 if unknown.
+   */
+  double oldGenOccupancy() {
+    if (oldGen == null) {
+      return -1;
+    }
+    try {
+      final Object usage = GET_COLLECTION_USAGE.invoke(oldGen);
+      if (usage == null) {
+        return -1;
+      }
+      final long max = (Long) GET_MAX.invoke(usage);
+      final long used = (Long) GET_USED.invoke(usage);
+      return (double) used / (max > 0 ? max : Runtime.getRuntime().maxMemory());
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  protected double getRAMBufferSizeMB() {
+    final double configured = super.getRAMBufferSizeMB();
+    final double ramBufferSizeMB = this.ramBufferSizeMB;
+    if (configured == IndexWriterConfig.DISABLE_AUTO_FLUSH || ramBufferSizeMB < 0) {
+      return configured;
+    }
+    return Math.max(configured, ramBufferSizeMB);
+  }
+
+  @Override
+  public void onInsert(DocumentsWriterFlushControl control, ThreadState state) {
+    if (flushOnRAM()) {
+      maybeFlushOnHeapPressure(control, state);
+    }
+    if (state.flushPending == false) {
+      super.onInsert(control, state);
+    }
+  }
+
+  private void maybeFlushOnHeapPressure(DocumentsWriterFlushControl control, ThreadState state) {
+    final long now = System.nanoTime();
+    if (lastCollectionCount != -1 && now - lastSampleNS < SAMPLE_INTERVAL_NS) {
+      return;
+    }
+    lastSampleNS = now;
+    final long collectionCount = collectionCount();
+    if (collectionCount == lastCollectionCount) {
+      return;
+    }
+    lastCollectionCount = collectionCount;
+    final double occupancy = oldGenOccupancy();
+    if (occupancy < 0) {
+      return;
+    }
+    // assume the next collection will leave as much more live data as the last one
+    final double growth = lastOccupancy < 0 ? 0 : Math.max(0, occupancy - lastOccupancy);
+    lastOccupancy = occupancy;
+
+    final double configured = super.getRAMBufferSizeMB();
+    final boolean wasUnderPressure = underPressure;
+    underPressure = occupancy + growth >= maxOldGenOccupancy;
+    if (underPressure || maxRAMBufferSizeMB <= configured) {
+      ramBufferSizeMB = configured;
+    } else {
+      final double slack = 1 - (occupancy + growth) / maxOldGenOccupancy;
+      ramBufferSizeMB = configured + (maxRAMBufferSizeMB - configured) * slack;
+    }
+    if (infoStream.isEnabled("FP")) {
+      infoStream.message("FP", String.format(Locale.ROOT,
+          "old gen occupancy after %d collections: %.1f%% (+%.1f%%) vs max %.1f%%; ramBufferMB=%.1f",
+          collectionCount, 100 * occupancy, 100 * growth, 100 * maxOldGenOccupancy, ramBufferSizeMB));
+      if (underPressure != wasUnderPressure) {
+        infoStream.message("FP", underPressure ? "heap pressure detected" : "heap pressure released");
+      }
+    }
+
+    if (underPressure) {
+      if (infoStream.isEnabled("FP")) {
+        infoStream.message("FP", "flush largest writer early due to heap pressure: activeBytes=" + control.activeBytes());
+      }
+      markLargestWriterPending(control, state, control.activeBytes());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(maxOldGenOccupancy=" + maxOldGenOccupancy
+        + ",maxRAMBufferSizeMB=" + maxRAMBufferSizeMB
+        + ",oldGen=" + oldGenName + ")";
+  }
+}
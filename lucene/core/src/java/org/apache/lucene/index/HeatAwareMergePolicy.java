@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link TieredMergePolicy} that takes into account how hot segments are
+ * for queries, as recorded by {@link SegmentAccessStats}. This is mostly
+ * useful for append-mostly indices, such as logs, where queries focus on
+ * recent data:
+ * <ul>
+ * <li>hot segments, and segments that are smaller than the
+ * {@link #setFloorSegmentMB floor segment size}, are merged with
+ * {@link #setHotSegmentsPerTier hotSegmentsPerTier} segments per tier,
+ * which is usually much lower than {@link #setSegmentsPerTier the default},
+ * so that queries on hot data need to visit fewer segments</li>
+ * <li>cold segments are only merged to reclaim deletes, once more than
+ * {@link #setColdDeletesPctAllowed coldDeletesPctAllowed} percent of their
+ * documents are deleted, so that no merge IO is spent on data that is
+ * rarely read</li>
+ * </ul>
+ * The heat of a segment is the decayed time that queries spent searching it,
+ * or the decayed number of queries that hit it if no time was recorded. A
+ * segment is cold if its heat is less than
+ * {@link #setColdHeatRatio coldHeatRatio} times the average heat of the
+ * segments that have statistics. Segments without statistics, such as
+ * newly flushed segments, are considered hot, and merged segments inherit
+ * the statistics of the segments they were merged from. Until statistics
+ * are recorded, this policy behaves exactly like {@link TieredMergePolicy}.
+ * Forced merges are not affected.
+ *
+ * @lucene.experimental
+ */
+public class HeatAwareMergePolicy extends TieredMergePolicy {
+
+  private final SegmentAccessStats stats;
+  private double hotSegmentsPerTier = 4.0;
+  private double coldHeatRatio = 0.1;
+  private double coldDeletesPctAllowed = 33.0;
+
+  /** Create a new instance that reads heat from the given statistics. */
+  public HeatAwareMergePolicy(SegmentAccessStats stats) {
+    if (stats == null) {
+      throw new IllegalArgumentException("stats must not be null");
+    }
+    this.stats = stats;
+  }
+
+  /** Return the statistics that this policy reads heat from. */
+  public SegmentAccessStats getStats() {
+    return stats;
+  }
+
+  /** Sets the allowed number of hot segments per tier. Smaller values merge
+   *  hot segments more aggressively. Hot segments are merged at most
+   *  {@link #getMaxMergeAtOnce()} or this many at a time, whichever is
+   *  smaller. Must be &gt;= 2.0.
+   *
+   *  Default is 4.0. */
+  public HeatAwareMergePolicy setHotSegmentsPerTier(double v) {
+    if (v < 2.0) {
+      throw new IllegalArgumentException("hotSegmentsPerTier must be >= 2.0 (got " + v + ")");
+    }
+    hotSegmentsPerTier = v;
+    return this;
+  }
+
+  /** Returns the current hotSegmentsPerTier setting.
+   *
+   * @see #setHotSegmentsPerTier */
+  public double getHotSegmentsPerTier() {
+    return hotSegmentsPerTier;
+  }
+
+  /** Segments whose heat is less than this ratio times the average heat
+   *  of all segments are considered cold. Must be &gt;= 0.0; 0.0 makes all
+   *  segments hot.
+   *
+   *  Default is 0.1. */
+  public HeatAwareMergePolicy setColdHeatRatio(double v) {
+    if (v < 0.0) {
+      throw new IllegalArgumentException("coldHeatRatio must be >= 0.0 (got " + v + ")");
+    }
+    coldHeatRatio = v;
+    return this;
+  }
+
+  /** Returns the current coldHeatRatio setting.
+   *
+   * @see #setColdHeatRatio */
+  public double getColdHeatRatio() {
+    return coldHeatRatio;
+  }
+
+  /** Cold segments are merged once more than this percentage of their
+   *  documents are deleted. Must be between 0.0 and 100.0.
+   *
+   *  Default is 33.0. */
+  public HeatAwareMergePolicy setColdDeletesPctAllowed(double v) {
+    if (v < 0.0 || v > 100.0) {
+      throw new IllegalArgumentException("coldDeletesPctAllowed must be between 0.0 and 100.0 inclusive (got " + v + ")");
+    }
+    coldDeletesPctAllowed = v;
+    return this;
+  }
+
+  /** Returns the current coldDeletesPctAllowed setting.
+   *
+   * @see #setColdDeletesPctAllowed */
+  public double getColdDeletesPctAllowed() {
+    return coldDeletesPctAllowed;
+  }
+
+  @Override
+  public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos infos, IndexWriter writer) throws IOException {
+    final List<String> segmentNames = new ArrayList<>();
+    for (SegmentCommitInfo info : infos) {
+      segmentNames.add(info.info.name);
+    }
+    stats.retainAll(segmentNames);
+
+    double totalCost = 0, totalHits = 0;
+    int numSegmentsWithStats = 0;
+    final Map<SegmentCommitInfo, Double> costs = new HashMap<>();
+    final Map<SegmentCommitInfo, Double> hits = new HashMap<>();
+    for (SegmentCommitInfo info : infos) {
+      if (stats.contains(info.info.name) == false) {
+        continue;
+      }
+      final double cost = stats.getCostNanos(info.info.name);
+      final double hit = stats.getHits(info.info.name);
+      costs.put(info, cost);
+      hits.put(info, hit);
+      totalCost += cost;
+      totalHits += hit;
+      numSegmentsWithStats++;
+    }
+    if (totalHits == 0) {
+      // no statistics yet
+      return withHeatTransfer(super.findMerges(mergeTrigger, infos, writer));
+    }
+    final Map<SegmentCommitInfo, Double> heats = totalCost > 0 ? costs : hits;
+    final double coldHeat = coldHeatRatio * (totalCost > 0 ? totalCost : totalHits) / numSegmentsWithStats;
+
+    final SegmentInfos hot = new SegmentInfos(infos.getIndexCreatedVersionMajor());
+    final SegmentInfos cold = new SegmentInfos(infos.getIndexCreatedVersionMajor());
+    final long floorSegmentBytes = (long) (getFloorSegmentMB() * 1024 * 1024);
+    for (SegmentCommitInfo info : infos) {
+      final Double heat = heats.get(info);
+      // segments without statistics, e.g. new segments, are assumed to be hot
+      final boolean isHot = heat == null || heat >= coldHeat || size(info, writer) < floorSegmentBytes;
+      if (isHot) {
+        hot.add(info);
+      } else {
+        cold.add(info);
+      }
+      if (verbose(writer)) {
+        message("  seg=" + writer.segString(info)
+            + (heat == null ? " no stats" : String.format(Locale.ROOT, " hits=%.1f costMS=%.1f", hits.get(info), costs.get(info) / 1000000))
+            + (isHot ? " [hot]" : " [cold]"), writer);
+      }
+    }
+
+    // merging more segments at once than allowed per tier would prevent merging
+    final int hotMaxMergeAtOnce = Math.min(getMaxMergeAtOnce(), (int) hotSegmentsPerTier);
+    final MergeSpecification hotSpec = copyOf(this)
+        .setMaxMergeAtOnce(hotMaxMergeAtOnce)
+        .setSegmentsPerTier(hotSegmentsPerTier)
+        .findMerges(mergeTrigger, hot, writer);
+    final MergeSpecification coldSpec = cold.size() == 0 ? null :
+        copyOf(this).setForceMergeDeletesPctAllowed(coldDeletesPctAllowed).findForcedDeletesMerges(cold, writer);
+    if (hotSpec == null) {
+      return withHeatTransfer(coldSpec);
+    } else if (coldSpec != null) {
+      for (OneMerge merge : coldSpec.merges) {
+        hotSpec.add(merge);
+      }
+    }
+    return withHeatTransfer(hotSpec);
+  }
+
+  @Override
+  public MergeSpecification findForcedMerges(SegmentInfos infos, int maxSegmentCount, Map<SegmentCommitInfo,Boolean> segmentsToMerge, IndexWriter writer) throws IOException {
+    return withHeatTransfer(super.findForcedMerges(infos, maxSegmentCount, segmentsToMerge, writer));
+  }
+
+  @Override
+  public MergeSpecification findForcedDeletesMerges(SegmentInfos infos, IndexWriter writer) throws IOException {
+    return withHeatTransfer(super.findForcedDeletesMerges(infos, writer));
+  }
+
+  /** Return a copy of the given merges whose new segments inherit the statistics of the segments they merge. */
+  private MergeSpecification withHeatTransfer(MergeSpecification spec) {
+    if (spec == null) {
+      return null;
+    }
+    final MergeSpecification copy = new MergeSpecification();
+    for (OneMerge merge : spec.merges) {
+      copy.add(new HeatTransferringMerge(merge.segments));
+    }
+    return copy;
+  }
+
+  /** A merge that gives the new segment the statistics of the segments it merges once it is done. */
+  private final class HeatTransferringMerge extends OneMerge {
+
+    HeatTransferringMerge(List<SegmentCommitInfo> segments) {
+      super(segments);
+    }
+
+    @Override
+    public void mergeFinished() throws IOException {
+      // if the merge failed, the new segment never gets visible and will be forgotten by retainAll
+      final SegmentCommitInfo info = getMergeInfo();
+      if (info != null) {
+        final List<String> segmentNames = new ArrayList<>();
+        for (SegmentCommitInfo source : segments) {
+          segmentNames.add(source.info.name);
+        }
+        stats.merge(segmentNames, info.info.name);
+      }
+    }
+  }
+
+  /** Return a {@link TieredMergePolicy} that has the same settings as the given one. */
+  private static TieredMergePolicy copyOf(TieredMergePolicy policy) {
+    TieredMergePolicy copy = new TieredMergePolicy();
+    copy.setMaxMergeAtOnce(policy.getMaxMergeAtOnce());
+    copy.setMaxMergeAtOnceExplicit(policy.getMaxMergeAtOnceExplicit());
+    copy.setMaxMergedSegmentMB(policy.getMaxMergedSegmentMB());
+    copy.setReclaimDeletesWeight(policy.getReclaimDeletesWeight());
+    copy.setFloorSegmentMB(policy.getFloorSegmentMB());
+    copy.setForceMergeDeletesPctAllowed(policy.getForceMergeDeletesPctAllowed());
+    copy.setSegmentsPerTier(policy.getSegmentsPerTier());
+    copy.setNoCFSRatio(policy.getNoCFSRatio());
+    copy.setMaxCFSSegmentSizeMB(policy.getMaxCFSSegmentSizeMB());
+    return copy;
+  }
+
+  private boolean verbose(IndexWriter writer) {
+    return writer != null && writer.infoStream.isEnabled("HMP");
+  }
+
+  private void message(String message, IndexWriter writer) {
+    writer.infoStream.message("HMP", message);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(super.toString());
+    sb.append(", hotSegmentsPerTier=").append(hotSegmentsPerTier);
+    sb.append(", coldHeatRatio=").append(coldHeatRatio);
+    sb.append(", coldDeletesPctAllowed=").append(coldDeletesPctAllowed);
+    sb.append(", stats=").append(stats);
+    return sb.toString();
+  }
+}
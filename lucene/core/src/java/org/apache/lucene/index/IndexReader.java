@@ -19,11 +19,13 @@ package org.apache.lucene.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.DocumentStoredFieldVisitor;
@@ -321,6 +323,32 @@ public abstract class IndexReader implements Closeable {
    *  #document(int)}.  If you want to load a subset, use
    *  {@link DocumentStoredFieldVisitor}.  */
   public abstract void document(int docID, StoredFieldVisitor visitor) throws IOException;
+
+  /** Expert: visits the fields of several stored documents.
+   *  {@code visitors} is called once per document, in ascending
+   *  order of doc IDs, in order to get the visitor of this
+   *  document. This is typically more efficient than calling
+   *  {@link #document(int, StoredFieldVisitor)} for every
+   *  document since readers may decompress blocks that
+   *  contain several of the requested documents only once.
+   *  {@code docIDs} is not modified. */
+  public void documents(int[] docIDs, IntFunction<StoredFieldVisitor> visitors) throws IOException {
+    for (int docID : sortedCopy(docIDs)) {
+      document(docID, visitors.apply(docID));
+    }
+  }
+
+  /** Return the given doc IDs if they are sorted, or a sorted copy otherwise. */
+  static int[] sortedCopy(int[] docIDs) {
+    for (int i = 1; i < docIDs.length; ++i) {
+      if (docIDs[i - 1] > docIDs[i]) {
+        final int[] sorted = docIDs.clone();
+        Arrays.sort(sorted);
+        return sorted;
+      }
+    }
+    return docIDs;
+  }
   
   /**
    * Returns the stored fields of the <code>n</code><sup>th</sup>
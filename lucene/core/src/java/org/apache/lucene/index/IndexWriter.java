@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -616,7 +617,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
             // did was move the state to disk:
             checkpointNoSIS();
           }
-          if (rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), infoStream)) {
+          if (rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), config.getMaxNumericUpdateOverlays(), infoStream)) {
             checkpointNoSIS();
           }
           if (rld.getNumDVUpdates() == 0) {
@@ -643,7 +644,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       }
       boolean any = false;
       for (ReadersAndUpdates rld : copy) {
-        any |= rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), infoStream);
+        any |= rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), config.getMaxNumericUpdateOverlays(), infoStream);
       }
       if (any) {
         checkpoint();
@@ -656,7 +657,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       for (SegmentCommitInfo info : infos) {
         ReadersAndUpdates rld = get(info, false);
         if (rld != null) {
-          any |= rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), infoStream);
+          any |= rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), config.getMaxNumericUpdateOverlays(), infoStream);
           rld.setIsMerging();
         }
       }
@@ -709,7 +710,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
                 // Only acquire IW lock on each write, since this is a time consuming operation.  This way
                 // other threads get a chance to run in between our writes.
                 synchronized (IndexWriter.this) {
-                  if (rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), infoStream)) {
+                  if (rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), config.getMaxNumericUpdateOverlays(), infoStream)) {
                     checkpointNoSIS();
                   }
                 }
@@ -794,7 +795,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
         if (rld != null) {
           assert rld.info == info;
           boolean changed = rld.writeLiveDocs(directory);
-          changed |= rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), infoStream);
+          changed |= rld.writeFieldUpdates(directory, globalFieldNumberMap, bufferedUpdatesStream.getCompletedDelGen(), config.getMaxNumericUpdateOverlays(), infoStream);
 
           if (changed) {
             // Make sure we only write del docs for a live segment:
@@ -3126,6 +3127,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       }
 
       merger.merge();                // merge 'em
+      SegmentPointRanges.recordMerged(merger.mergeState, config.getPointRangeFields());
 
       SegmentCommitInfo infoPerCommit = new SegmentCommitInfo(info, 0, -1L, -1L, -1L);
 
@@ -4463,10 +4465,15 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
         validateMergeReader(wrappedReader);
         mergeReaders.add(wrappedReader);
       }
+      Executor intraMergeExecutor = config.getMergeScheduler().getIntraMergeExecutor(merge);
+      if (intraMergeExecutor != null) {
+        // helper threads must be able to write files and be paused like the merge thread
+        intraMergeExecutor = merge.getMergeProgress().wrapExecutor(intraMergeExecutor);
+      }
       final SegmentMerger merger = new SegmentMerger(mergeReaders,
                                                      merge.info.info, infoStream, dirWrapper,
                                                      globalFieldNumberMap, 
-                                                     context);
+                                                     context, intraMergeExecutor);
 
       merge.checkAborted();
 
@@ -4475,6 +4482,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       // This is where all the work happens:
       if (merger.shouldMerge()) {
         merger.merge();
+        SegmentPointRanges.recordMerged(merger.mergeState, config.getPointRangeFields());
       }
 
       MergeState mergeState = merger.mergeState;
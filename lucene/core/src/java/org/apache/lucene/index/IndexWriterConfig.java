@@ -19,7 +19,10 @@ package org.apache.lucene.index;
 
 import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -338,6 +341,26 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return this;
   }
 
+  /**
+   * Expert: Flush segments based on the pressure on the JVM heap in addition
+   * to {@link #setRAMBufferSizeMB(double) RAM usage} and
+   * {@link #setMaxBufferedDocs(int) document counts}. When the occupancy of
+   * the old generation after a garbage collection exceeds
+   * <code>maxOldGenOccupancy</code>, or is about to, the largest in-memory
+   * segment is flushed early. When the heap is plentiful, the RAM buffer is
+   * allowed to grow up to <code>maxRAMBufferSizeMB</code>. Decisions are
+   * logged to the {@link InfoStream} under the "FP" component.
+   *
+   * @param maxOldGenOccupancy the fraction of the old generation, in (0, 1],
+   *        above which segments get flushed early
+   * @param maxRAMBufferSizeMB the size that the RAM buffer may grow to when
+   *        the heap is plentiful
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setHeapPressureFlushing(double maxOldGenOccupancy, double maxRAMBufferSizeMB) {
+    return setFlushPolicy(new HeapPressureFlushPolicy(maxOldGenOccupancy, maxRAMBufferSizeMB));
+  }
+
   /**
    * Expert: Sets the maximum memory consumption per thread triggering a forced
    * flush if exceeded. A {@link DocumentsWriterPerThread} is forcefully flushed
@@ -473,6 +496,96 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return this;
   }
 
+  /**
+   * Expert: Sets an {@link Executor} that is used to analyze the fields of a
+   * document concurrently, or {@code null}, the default, to analyze all fields
+   * on the indexing thread. This can reduce the latency of indexing documents
+   * that have many tokenized fields, which is mostly useful to applications
+   * that index from a single thread.
+   * <p>
+   * Tokenized fields other than the first one of each document are consumed
+   * on the executor and their tokens are buffered, while the indexing thread
+   * inverts them in the order of the document as they become available, so
+   * that the index is the same as if fields were analyzed on the indexing
+   * thread. Note that {@link Analyzer}s keep a {@link org.apache.lucene.analysis.TokenStream} per thread
+   * and field, so the executor should have a bounded number of threads.
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setAnalysisExecutor(Executor analysisExecutor) {
+    this.analysisExecutor = analysisExecutor;
+    return this;
+  }
+
+  /**
+   * Expert: Sets an {@link Executor} that is used to write the files of a
+   * flushed segment concurrently, or {@code null}, the default, to write them
+   * all from the flushing thread. When set, doc values, points and stored
+   * fields are each written by a task of this executor while the flushing
+   * thread writes norms, postings and term vectors, which shortens flushes
+   * and the time during which indexing threads may be stalled because too
+   * many flushes are pending.
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setFlushExecutor(Executor flushExecutor) {
+    this.flushExecutor = flushExecutor;
+    return this;
+  }
+
+  /**
+   * Expert: Sets the {@link IndexingBufferAllocator} that allocates the byte
+   * and int blocks of in-memory segments. The default,
+   * {@link IndexingBufferAllocator#NON_RECYCLING}, allocates new blocks for
+   * every segment. Use a {@link RecyclingIndexingBufferAllocator} to reuse
+   * the blocks of flushed segments, which reduces garbage collection
+   * pressure with large {@link #setRAMBufferSizeMB RAM buffers}.
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setIndexingBufferAllocator(IndexingBufferAllocator indexingBufferAllocator) {
+    if (indexingBufferAllocator == null) {
+      throw new IllegalArgumentException("indexingBufferAllocator must not be null");
+    }
+    this.indexingBufferAllocator = indexingBufferAllocator;
+    return this;
+  }
+
+  /**
+   * Sets the point fields whose minimum and maximum values should be recorded
+   * in the attributes of each flushed or merged segment, see
+   * {@link SegmentPointRanges}. This makes the range of values of a segment
+   * available without opening it, for instance to a
+   * {@link PointRangeMergePolicy}.
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setPointRangeFields(String... fields) {
+    for (String field : fields) {
+      if (field == null) {
+        throw new IllegalArgumentException("fields must not be null");
+      }
+    }
+    this.pointRangeFields = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(fields)));
+    return this;
+  }
+
+  /**
+   * Expert: Sets how many sparse overlays {@link IndexWriter#updateNumericDocValue
+   * numeric doc values updates} may add to a field of a segment. By default,
+   * 0, every time updates are written, all values of the updated fields are
+   * written to a new generation, which is costly for frequent updates of few
+   * documents of large segments. With overlays, only the updated documents
+   * are written and readers merge them with the previous values on the fly,
+   * at the cost of slower reads. Once a field has that many overlays, the
+   * next updates write all its values again, and merges also rewrite all
+   * values.
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setMaxNumericUpdateOverlays(int maxNumericUpdateOverlays) {
+    if (maxNumericUpdateOverlays < 0) {
+      throw new IllegalArgumentException("maxNumericUpdateOverlays must be >= 0, got " + maxNumericUpdateOverlays);
+    }
+    this.maxNumericUpdateOverlays = maxNumericUpdateOverlays;
+    return this;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder(super.toString());
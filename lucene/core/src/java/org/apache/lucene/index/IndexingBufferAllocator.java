@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+
+/**
+ * Expert: allocates the byte and int blocks that back the in-memory indexing
+ * buffers of {@link IndexWriter}, such as the postings and term vectors of
+ * the documents that have not been flushed yet. Every indexing thread state
+ * gets its own {@link ByteBlockPool.Allocator} and {@link IntBlockPool.Allocator}
+ * which must increment the given {@link Counter} by the number of bytes of
+ * the blocks they hand out, and decrement it by the number of bytes of the
+ * blocks that are recycled, so that {@link IndexWriter} can flush by RAM
+ * usage.
+ * <p>
+ * Allocators are shared by all indexing threads, so implementations must be
+ * thread-safe. Blocks that an implementation retains for later reuse should
+ * be reported by {@link #ramBytesUsed()}.
+ *
+ * @see IndexWriterConfig#setIndexingBufferAllocator(IndexingBufferAllocator)
+ * @see RecyclingIndexingBufferAllocator
+ * @lucene.experimental
+ */
+public abstract class IndexingBufferAllocator implements Accountable {
+
+  /**
+   * Allocates new blocks on every request and lets recycled blocks be
+   * garbage collected. This is the default.
+   */
+  public static final IndexingBufferAllocator NON_RECYCLING = new IndexingBufferAllocator() {
+
+    @Override
+    public ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+      return new ByteBlockPool.DirectTrackingAllocator(bytesUsed);
+    }
+
+    @Override
+    public IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+      return new IntBlockAllocator(bytesUsed);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "NON_RECYCLING";
+    }
+  };
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected IndexingBufferAllocator() {
+  }
+
+  /**
+   * Return a new allocator of byte blocks of {@link ByteBlockPool#BYTE_BLOCK_SIZE}
+   * bytes for a single indexing thread state, which tracks the bytes of the
+   * blocks it hands out in {@code bytesUsed}.
+   */
+  public abstract ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed);
+
+  /**
+   * Return a new allocator of int blocks of {@link IntBlockPool#INT_BLOCK_SIZE}
+   * ints for a single indexing thread state, which tracks the bytes of the
+   * blocks it hands out in {@code bytesUsed}.
+   */
+  public abstract IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed);
+
+  /**
+   * Return the number of bytes of the blocks that are retained by this
+   * allocator for reuse, excluding blocks that are in use by indexing threads.
+   */
+  @Override
+  public abstract long ramBytesUsed();
+
+  private static class IntBlockAllocator extends IntBlockPool.Allocator {
+    private final Counter bytesUsed;
+    
+    public IntBlockAllocator(Counter bytesUsed) {
+      super(IntBlockPool.INT_BLOCK_SIZE);
+      this.bytesUsed = bytesUsed;
+    }
+    
+    /* Allocate another int[] from the shared pool */
+    @Override
+    public int[] getIntBlock() {
+      int[] b = new int[IntBlockPool.INT_BLOCK_SIZE];
+      bytesUsed.addAndGet(IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES);
+      return b;
+    }
+    
+    @Override
+    public void recycleIntBlocks(int[][] blocks, int offset, int length) {
+      bytesUsed.addAndGet(-(length * (IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES)));
+    }
+    
+  }
+}
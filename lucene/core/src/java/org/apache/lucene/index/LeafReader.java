@@ -197,6 +197,15 @@ public abstract class LeafReader extends IndexReader {
    *  used by a single thread. */
   public abstract SortedSetDocValues getSortedSetDocValues(String field) throws IOException;
 
+  /** Returns a {@link DocValuesSkipper} over the doc values of this field, or
+   *  null if the doc values of this field don't have a skip index. The
+   *  returned instance should only be used by a single thread. The default
+   *  implementation returns null.
+   *  @lucene.experimental */
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    return null;
+  }
+
   /** Returns {@link NumericDocValues} representing norms
    *  for this field, or null if no {@link NumericDocValues}
    *  were indexed. The returned instance should only be
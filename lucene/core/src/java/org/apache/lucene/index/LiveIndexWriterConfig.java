@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
@@ -106,6 +107,21 @@ public class LiveIndexWriterConfig {
   /** if an indexing thread should check for pending flushes on update in order to help out on a full flush*/
   protected volatile boolean checkPendingFlushOnUpdate = true;
 
+  /** {@link Executor} to analyze the fields of a document concurrently, or {@code null}. */
+  protected volatile Executor analysisExecutor = null;
+
+  /** {@link Executor} to write the files of a flushed segment concurrently, or {@code null}. */
+  protected volatile Executor flushExecutor = null;
+
+  /** {@link IndexingBufferAllocator} to allocate the blocks of in-memory segments. */
+  protected volatile IndexingBufferAllocator indexingBufferAllocator = IndexingBufferAllocator.NON_RECYCLING;
+
+  /** The point fields whose range of values is recorded in the attributes of each segment. */
+  protected volatile Set<String> pointRangeFields = Collections.emptySet();
+
+  /** How many sparse overlays numeric doc values updates may add to a field before it is rewritten. */
+  protected volatile int maxNumericUpdateOverlays = 0;
+
   // used by IndexWriterConfig
   LiveIndexWriterConfig(Analyzer analyzer) {
     this.analyzer = analyzer;
@@ -452,6 +468,58 @@ public class LiveIndexWriterConfig {
     return this;
   }
 
+  /**
+   * Expert: Returns the {@link Executor} that is used to analyze the fields
+   * of a document concurrently, or {@code null} if fields are analyzed on the
+   * indexing thread.
+   * @see IndexWriterConfig#setAnalysisExecutor(Executor)
+   * @lucene.experimental
+   */
+  public Executor getAnalysisExecutor() {
+    return analysisExecutor;
+  }
+
+  /**
+   * Expert: Returns the {@link Executor} that is used to write the files of
+   * flushed segments concurrently, or {@code null} if they are written by the
+   * flushing thread.
+   * @see IndexWriterConfig#setFlushExecutor(Executor)
+   * @lucene.experimental
+   */
+  public Executor getFlushExecutor() {
+    return flushExecutor;
+  }
+
+  /**
+   * Expert: Returns the {@link IndexingBufferAllocator} that allocates the
+   * blocks of in-memory segments.
+   * @see IndexWriterConfig#setIndexingBufferAllocator(IndexingBufferAllocator)
+   * @lucene.experimental
+   */
+  public IndexingBufferAllocator getIndexingBufferAllocator() {
+    return indexingBufferAllocator;
+  }
+
+  /**
+   * Returns the point fields whose minimum and maximum values are recorded
+   * in the attributes of each segment.
+   * @see IndexWriterConfig#setPointRangeFields(String...)
+   * @lucene.experimental
+   */
+  public Set<String> getPointRangeFields() {
+    return pointRangeFields;
+  }
+
+  /**
+   * Returns how many sparse overlays numeric doc values updates may add to a
+   * field of a segment before all its values are rewritten.
+   * @see IndexWriterConfig#setMaxNumericUpdateOverlays(int)
+   * @lucene.experimental
+   */
+  public int getMaxNumericUpdateOverlays() {
+    return maxNumericUpdateOverlays;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -475,6 +543,11 @@ public class LiveIndexWriterConfig {
     sb.append("commitOnClose=").append(getCommitOnClose()).append("\n");
     sb.append("indexSort=").append(getIndexSort()).append("\n");
     sb.append("checkPendingFlushOnUpdate=").append(isCheckPendingFlushOnUpdate()).append("\n");
+    sb.append("analysisExecutor=").append(getAnalysisExecutor()).append("\n");
+    sb.append("flushExecutor=").append(getFlushExecutor()).append("\n");
+    sb.append("indexingBufferAllocator=").append(getIndexingBufferAllocator()).append("\n");
+    sb.append("pointRangeFields=").append(getPointRangeFields()).append("\n");
+    sb.append("maxNumericUpdateOverlays=").append(getMaxNumericUpdateOverlays()).append("\n");
     return sb.toString();
   }
 }
@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -91,11 +93,15 @@ public abstract class MergePolicy {
 
     /**
      * This field is for sanity-check purposes only. Only the same thread that invoked
-     * {@link OneMerge#mergeInit()} is permitted to be calling 
-     * {@link #pauseNanos}. This is always verified at runtime. 
+     * {@link OneMerge#mergeInit()}, or threads that run parts of the merge on its
+     * behalf, are permitted to be calling {@link #pauseNanos}. This is always
+     * verified at runtime.
      */
     private Thread owner;
 
+    /** Threads that run parts of this merge on behalf of the owner thread. */
+    private final Set<Thread> helperThreads = ConcurrentHashMap.newKeySet();
+
     /** Creates a new merge progress info. */
     public OneMergeProgress() {
       // Place all the pause reasons in there immediately so that we can simply update values.
@@ -136,7 +142,7 @@ public abstract class MergePolicy {
      *      condition 
      */
     public void pauseNanos(long pauseNanos, PauseReason reason, BooleanSupplier condition) throws InterruptedException {
-      if (Thread.currentThread() != owner) {
+      if (isMergeThread(Thread.currentThread()) == false) {
         throw new RuntimeException("Only the merge owner thread can call pauseNanos(). This thread: "
             + Thread.currentThread().getName() + ", owner thread: "
             + owner);
@@ -180,6 +186,28 @@ public abstract class MergePolicy {
       assert this.owner == null;
       this.owner = owner;
     }
+
+    /** Returns true if the given thread is the owner of this merge, or runs
+     *  a part of it through an executor returned by {@link #wrapExecutor}. */
+    final boolean isMergeThread(Thread thread) {
+      return thread == owner || helperThreads.contains(thread);
+    }
+
+    /** Wraps the given executor so that threads that run its tasks are
+     *  allowed to pause on behalf of this merge. */
+    final Executor wrapExecutor(Executor executor) {
+      return task -> executor.execute(() -> {
+        final Thread thread = Thread.currentThread();
+        final boolean added = helperThreads.add(thread);
+        try {
+          task.run();
+        } finally {
+          if (added) {
+            helperThreads.remove(thread);
+          }
+        }
+      });
+    }
   }
 
   /** OneMerge provides the information necessary to perform
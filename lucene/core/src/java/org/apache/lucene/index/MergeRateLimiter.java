@@ -22,6 +22,7 @@ import org.apache.lucene.util.ThreadInterruptedException;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.lucene.index.MergePolicy.OneMergeProgress;
 import org.apache.lucene.index.MergePolicy.OneMergeProgress.PauseReason;
@@ -43,6 +44,10 @@ public class MergeRateLimiter extends RateLimiter {
 
   private long lastNS;
 
+  // threads that write files of this merge concurrently pause one at a time so
+  // that they share the rate limit of the merge, this also protects lastNS
+  private final ReentrantLock pauseLock = new ReentrantLock();
+
   private AtomicLong totalBytesWritten = new AtomicLong();
 
   private final OneMergeProgress mergeProgress;
@@ -90,9 +95,14 @@ public class MergeRateLimiter extends RateLimiter {
     // is changed while we were pausing:
     long paused = 0;
     long delta;
-    while ((delta = maybePause(bytes, System.nanoTime())) >= 0) {
-      // Keep waiting.
-      paused += delta;
+    pauseLock.lock();
+    try {
+      while ((delta = maybePause(bytes, System.nanoTime())) >= 0) {
+        // Keep waiting.
+        paused += delta;
+      }
+    } finally {
+      pauseLock.unlock();
     }
 
     return paused;
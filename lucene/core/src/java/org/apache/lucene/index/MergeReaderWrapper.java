@@ -153,6 +153,17 @@ class MergeReaderWrapper extends LeafReader {
     return docValues.getSortedSet(fi);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getDocValuesType() == DocValuesType.NONE) {
+      // Field does not exist or was not indexed with doc values
+      return null;
+    }
+    return docValues.getSkipper(fi);
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.Directory;
@@ -54,6 +55,18 @@ public abstract class MergeScheduler implements Closeable {
     return in;
   }
 
+  /**
+   * Returns an {@link Executor} that may be used to merge the different parts
+   * of a segment (stored fields, doc values, points, term vectors) concurrently
+   * with each other and with postings, or {@code null}, the default, to run
+   * the whole merge on the thread that calls {@link IndexWriter#merge}. Threads
+   * of this executor share the IO rate limit of the merge.
+   * @lucene.experimental
+   */
+  public Executor getIntraMergeExecutor(OneMerge merge) {
+    return null;
+  }
+
   /** Close this MergeScheduler. */
   @Override
   public abstract void close() throws IOException;
@@ -146,6 +146,27 @@ public class MergeState {
     this.docMaps = buildDocMaps(readers, indexSort);
   }
 
+  /** Create a copy of {@code other} whose per-reader arrays and merged
+   *  {@link FieldInfos} can be modified, eg. by per-field formats, without
+   *  affecting {@code other}. Producers and doc maps are shared. */
+  MergeState(MergeState other) {
+    this.docMaps = other.docMaps;
+    this.leafDocMaps = other.leafDocMaps;
+    this.segmentInfo = other.segmentInfo;
+    this.mergeFieldInfos = other.mergeFieldInfos;
+    this.storedFieldsReaders = other.storedFieldsReaders.clone();
+    this.termVectorsReaders = other.termVectorsReaders.clone();
+    this.normsProducers = other.normsProducers.clone();
+    this.docValuesProducers = other.docValuesProducers.clone();
+    this.fieldInfos = other.fieldInfos.clone();
+    this.liveDocs = other.liveDocs.clone();
+    this.fieldsProducers = other.fieldsProducers.clone();
+    this.pointsReaders = other.pointsReaders.clone();
+    this.maxDocs = other.maxDocs.clone();
+    this.infoStream = other.infoStream;
+    this.needsIndexSort = other.needsIndexSort;
+  }
+
   // Remap docIDs around deletions
   private DocMap[] buildDeletionDocMaps(List<CodecReader> readers) {
 
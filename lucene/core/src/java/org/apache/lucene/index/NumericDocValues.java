@@ -36,4 +36,30 @@ public abstract class NumericDocValues extends DocValuesIterator {
    */
   public abstract long longValue() throws IOException;
 
+  /**
+   * Bulk version of {@link #advanceExact(int)} and {@link #longValue()}.
+   * The first {@code size} entries of {@code docs} must be valid doc IDs in
+   * strictly increasing order, the first of which is greater than or equal to
+   * the current {@link #docID() doc ID}. The doc IDs of the documents that
+   * have a value are written back to the start of {@code docs}, in order, and
+   * their values to the same indices of {@code values}, which must have at
+   * least {@code size} entries. After this method returns, the iterator is
+   * positioned as if {@link #advanceExact(int)} had been called with
+   * {@code docs[size-1]}.
+   * @return the number of documents that have a value
+   * @lucene.experimental
+   */
+  public int longValues(int size, int[] docs, long[] values) throws IOException {
+    int count = 0;
+    for (int i = 0; i < size; ++i) {
+      final int doc = docs[i];
+      if (advanceExact(doc)) {
+        docs[count] = doc;
+        values[count] = longValue();
+        count++;
+      }
+    }
+    return count;
+  }
+
 }
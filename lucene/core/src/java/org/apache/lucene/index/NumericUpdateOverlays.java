@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.DocValuesProducer;
+
+/**
+ * Numeric doc values updates may be written as sparse overlays that only
+ * hold the updated documents, rather than as a new generation of the whole
+ * field, see {@link IndexWriterConfig#setMaxNumericUpdateOverlays(int)}.
+ * The generations of the overlays of a field are recorded, oldest first,
+ * in an attribute of its {@link FieldInfo}, and readers merge them with the
+ * {@link FieldInfo#getDocValuesGen() base generation} of the field on the
+ * fly.
+ */
+final class NumericUpdateOverlays {
+
+  /** Attribute of the {@link FieldInfo} that records the overlay generations. */
+  static final String OVERLAY_GENS_KEY = NumericUpdateOverlays.class.getSimpleName() + ".gens";
+
+  private static final long[] NO_GENS = new long[0];
+
+  private NumericUpdateOverlays() {}
+
+  /** Returns the generations of the overlays of the given field, oldest first. */
+  static long[] getGens(FieldInfo fieldInfo) {
+    String value = fieldInfo.getAttribute(OVERLAY_GENS_KEY);
+    if (value == null || value.isEmpty()) {
+      return NO_GENS;
+    }
+    String[] parts = value.split(",");
+    long[] gens = new long[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      gens[i] = Long.parseLong(parts[i], Character.MAX_RADIX);
+    }
+    return gens;
+  }
+
+  /** Returns whether the given field has overlays. */
+  static boolean hasOverlays(FieldInfo fieldInfo) {
+    String value = fieldInfo.getAttribute(OVERLAY_GENS_KEY);
+    return value != null && value.isEmpty() == false;
+  }
+
+  /** Records the generations of the overlays of the given field; an empty
+   *  array means that the base generation holds all values. */
+  static void setGens(FieldInfo fieldInfo, long[] gens) {
+    if (gens.length == 0 && fieldInfo.getAttribute(OVERLAY_GENS_KEY) == null) {
+      return;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (long gen : gens) {
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+      sb.append(Long.toString(gen, Character.MAX_RADIX));
+    }
+    fieldInfo.putAttribute(OVERLAY_GENS_KEY, sb.toString());
+  }
+
+  /** Returns a view of {@code base} where the values of the given overlays,
+   *  oldest first, replace the values of the documents they hold. */
+  static NumericDocValues overlay(FieldInfo field, NumericDocValues base, DocValuesProducer[] overlays) throws IOException {
+    NumericDocValues[] subs = new NumericDocValues[overlays.length + 1];
+    int numSubs = 0;
+    if (base != null) {
+      subs[numSubs++] = base;
+    }
+    for (DocValuesProducer overlay : overlays) {
+      subs[numSubs++] = overlay.getNumeric(field);
+    }
+    if (numSubs == 1) {
+      return subs[0];
+    }
+    return new OverlayNumericDocValues(Arrays.copyOf(subs, numSubs));
+  }
+
+  /** Union of several {@link NumericDocValues}, where the value of a
+   *  document is taken from the last one that has a value for it. */
+  private static final class OverlayNumericDocValues extends NumericDocValues {
+
+    private final NumericDocValues[] subs;
+    // whether each sub is positioned on a document that has a value, which
+    // is not the case after advanceExact returned false
+    private final boolean[] hasValue;
+    private final long cost;
+    private int doc = -1;
+    private NumericDocValues current;
+
+    OverlayNumericDocValues(NumericDocValues[] subs) {
+      this.subs = subs;
+      this.hasValue = new boolean[subs.length];
+      long cost = 0;
+      for (NumericDocValues sub : subs) {
+        cost += sub.cost();
+      }
+      this.cost = cost;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      int min = NO_MORE_DOCS;
+      for (int i = 0; i < subs.length; i++) {
+        NumericDocValues sub = subs[i];
+        int subDoc = sub.docID();
+        if (subDoc < target) {
+          subDoc = sub.advance(target);
+          hasValue[i] = true;
+        } else if (hasValue[i] == false && subDoc != NO_MORE_DOCS) {
+          subDoc = sub.advance(subDoc + 1);
+          hasValue[i] = true;
+        }
+        min = Math.min(min, subDoc);
+      }
+      current = null;
+      if (min != NO_MORE_DOCS) {
+        // the most recent overlay that has a value wins
+        for (int i = subs.length - 1; i >= 0; i--) {
+          if (subs[i].docID() == min) {
+            current = subs[i];
+            break;
+          }
+        }
+      }
+      return doc = min;
+    }
+
+    @Override
+    public boolean advanceExact(int target) throws IOException {
+      doc = target;
+      // the most recent overlay that has a value wins
+      for (int i = subs.length - 1; i >= 0; i--) {
+        NumericDocValues sub = subs[i];
+        if (sub.docID() < target) {
+          hasValue[i] = sub.advanceExact(target);
+        }
+        if (sub.docID() == target && hasValue[i]) {
+          current = sub;
+          return true;
+        }
+      }
+      current = null;
+      return false;
+    }
+
+    @Override
+    public long longValue() throws IOException {
+      return current.longValue();
+    }
+
+    @Override
+    public long cost() {
+      return cost;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.FutureArrays;
+
+/**
+ * A {@link LogByteSizeMergePolicy} that only merges segments that are
+ * adjacent when ordered by the minimum value of a point field, rather than
+ * in index order. With time-based data, merged segments then cover
+ * contiguous time ranges even if documents are not indexed in order of time,
+ * which keeps segments that are disjoint from the range of a query
+ * {@link org.apache.lucene.search.PointRangeQuery} cheap to skip.
+ *
+ * <p>The range of each segment is read from its attributes, so the field
+ * must be passed to {@link IndexWriterConfig#setPointRangeFields(String...)}.
+ * Segments are ordered by their {@link SegmentPointRanges#getMinPackedValue
+ * minimum packed value}, ie. by the first dimension for multi-dimensional
+ * points. Segments whose range was not recorded come last, in index order.
+ *
+ * @lucene.experimental
+ */
+public class PointRangeMergePolicy extends LogByteSizeMergePolicy {
+
+  private final String field;
+
+  /** Create a new instance that orders segments by the minimum value of the
+   *  given point field. */
+  public PointRangeMergePolicy(String field) {
+    if (field == null) {
+      throw new IllegalArgumentException("field must not be null");
+    }
+    this.field = field;
+  }
+
+  /** Returns the field that segments are ordered by. */
+  public String getField() {
+    return field;
+  }
+
+  /** Returns a copy of the given infos, sorted by the minimum value of {@link #getField()}. */
+  private SegmentInfos sortByMinValue(SegmentInfos infos) {
+    List<SegmentCommitInfo> sorted = new ArrayList<>(infos.asList());
+    // stable, so segments with the same min value or no recorded range keep their index order
+    sorted.sort(Comparator.comparing((SegmentCommitInfo info) -> SegmentPointRanges.getMinPackedValue(info.info, field),
+        Comparator.nullsLast((a, b) -> FutureArrays.compareUnsigned(a, 0, a.length, b, 0, b.length))));
+    SegmentInfos copy = new SegmentInfos(infos.getIndexCreatedVersionMajor());
+    copy.addAll(sorted);
+    return copy;
+  }
+
+  @Override
+  public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos infos, IndexWriter writer) throws IOException {
+    return super.findMerges(mergeTrigger, sortByMinValue(infos), writer);
+  }
+
+  @Override
+  public MergeSpecification findForcedMerges(SegmentInfos infos, int maxNumSegments,
+      Map<SegmentCommitInfo,Boolean> segmentsToMerge, IndexWriter writer) throws IOException {
+    return super.findForcedMerges(sortByMinValue(infos), maxNumSegments, segmentsToMerge, writer);
+  }
+
+  @Override
+  public MergeSpecification findForcedDeletesMerges(SegmentInfos infos, IndexWriter writer) throws IOException {
+    return super.findForcedDeletesMerges(sortByMinValue(infos), writer);
+  }
+
+  @Override
+  public String toString() {
+    String s = super.toString();
+    return s.substring(0, s.length() - 1) + ", field=" + field + "]";
+  }
+}
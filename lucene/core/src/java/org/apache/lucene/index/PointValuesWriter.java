@@ -69,6 +69,26 @@ class PointValuesWriter {
     numPoints++;
   }
 
+  /** Records the per-dimension minimum and maximum of the buffered values
+   *  in the attributes of the given segment. */
+  void recordRange(SegmentInfo segmentInfo) {
+    final int numDims = fieldInfo.getPointDimensionCount();
+    final int bytesPerDim = fieldInfo.getPointNumBytes();
+    final byte[] min = new byte[packedBytesLength];
+    final byte[] max = new byte[packedBytesLength];
+    final byte[] packedValue = new byte[packedBytesLength];
+    for (int i = 0; i < numPoints; i++) {
+      bytes.readBytes((long) packedBytesLength * i, packedValue, 0, packedBytesLength);
+      if (i == 0) {
+        System.arraycopy(packedValue, 0, min, 0, packedBytesLength);
+        System.arraycopy(packedValue, 0, max, 0, packedBytesLength);
+      } else {
+        SegmentPointRanges.union(numDims, bytesPerDim, min, max, packedValue, packedValue);
+      }
+    }
+    SegmentPointRanges.setRange(segmentInfo, fieldInfo.name, min, max);
+  }
+
   public void flush(SegmentWriteState state, Sorter.DocMap sortMap, PointsWriter writer) throws IOException {
     PointValues points = new MutablePointValues() {
       final int[] ords = new int[numPoints];
@@ -19,9 +19,11 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -274,7 +276,8 @@ final class ReadersAndUpdates {
   @SuppressWarnings("synthetic-access")
   private synchronized void handleNumericDVUpdates(FieldInfos infos,
                                                    Directory dir, DocValuesFormat dvFormat, final SegmentReader reader,
-                                                   Map<Integer,Set<String>> fieldFiles, long maxDelGen, InfoStream infoStream) throws IOException {
+                                                   Map<Integer,Set<String>> fieldFiles, long maxDelGen, int maxOverlays,
+                                                   InfoStream infoStream) throws IOException {
 
     for (Entry<String,List<DocValuesFieldUpdates>> ent : pendingDVUpdates.entrySet()) {
       final String field = ent.getKey();
@@ -311,10 +314,53 @@ final class ReadersAndUpdates {
       final IOContext updatesContext = new IOContext(new FlushInfo(info.info.maxDoc(), bytes));
       final FieldInfo fieldInfo = infos.fieldInfo(field);
       assert fieldInfo != null;
-      fieldInfo.setDocValuesGen(nextDocValuesGen);
-      final FieldInfos fieldInfos = new FieldInfos(new FieldInfo[] { fieldInfo });
+      final long[] overlayGens = NumericUpdateOverlays.getGens(fieldInfo);
+      final FieldInfo currentFieldInfo = reader.getFieldInfos().fieldInfo(field);
+      // only write an overlay if there are values to overlay, else a new gen
+      // with all values, which also compacts the existing overlays
+      final boolean writeOverlay = overlayGens.length < maxOverlays
+          && currentFieldInfo != null && currentFieldInfo.getDocValuesType() == DocValuesType.NUMERIC;
+      if (writeOverlay == false) {
+        fieldInfo.setDocValuesGen(nextDocValuesGen);
+      }
       // separately also track which files were created for this gen
       final TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(dir);
+      if (writeOverlay) {
+        // the overlay is written like a new gen of the field, so that codecs
+        // don't mistake it for the first write of the field
+        final FieldInfo overlayFieldInfo = new FieldInfo(fieldInfo.name, fieldInfo.number, fieldInfo.hasVectors(), fieldInfo.omitsNorms(),
+            fieldInfo.hasPayloads(), fieldInfo.getIndexOptions(), fieldInfo.getDocValuesType(), nextDocValuesGen,
+            new HashMap<>(fieldInfo.attributes()), fieldInfo.getPointDimensionCount(), fieldInfo.getPointNumBytes());
+        final SegmentWriteState overlayState = new SegmentWriteState(null, trackingDir, info.info,
+            new FieldInfos(new FieldInfo[] { overlayFieldInfo }), null, updatesContext, segmentSuffix);
+        try (final DocValuesConsumer fieldsConsumer = dvFormat.fieldsConsumer(overlayState)) {
+          // write only the updated documents to a new gen'd docvalues file
+          fieldsConsumer.addNumericField(overlayFieldInfo, new EmptyDocValuesProducer() {
+              @Override
+              public NumericDocValues getNumeric(FieldInfo fieldInfoIn) throws IOException {
+                if (fieldInfoIn != overlayFieldInfo) {
+                  throw new IllegalArgumentException("wrong fieldInfo");
+                }
+                return newUpdatesValues(updatesToApply);
+              }
+            });
+        }
+        info.advanceDocValuesGen();
+        long[] newOverlayGens = Arrays.copyOf(overlayGens, overlayGens.length + 1);
+        newOverlayGens[overlayGens.length] = nextDocValuesGen;
+        NumericUpdateOverlays.setGens(fieldInfo, newOverlayGens);
+        // the field still needs the files of its base gen and previous overlays
+        final Set<String> files = new HashSet<>(trackingDir.getCreatedFiles());
+        final Set<String> previousFiles = info.getDocValuesUpdatesFiles().get(fieldInfo.number);
+        if (previousFiles != null) {
+          files.addAll(previousFiles);
+        }
+        assert !fieldFiles.containsKey(fieldInfo.number);
+        fieldFiles.put(fieldInfo.number, files);
+        continue;
+      }
+      NumericUpdateOverlays.setGens(fieldInfo, new long[0]);
+      final FieldInfos fieldInfos = new FieldInfos(new FieldInfo[] { fieldInfo });
       final SegmentWriteState state = new SegmentWriteState(null, trackingDir, info.info, fieldInfos, null, updatesContext, segmentSuffix);
       try (final DocValuesConsumer fieldsConsumer = dvFormat.fieldsConsumer(state)) {
         // write the numeric updates to a new gen'd docvalues file
@@ -406,6 +452,54 @@ final class ReadersAndUpdates {
     }
   }
 
+  /** Returns the values of the given updates, for the updated documents only. */
+  private static NumericDocValues newUpdatesValues(List<DocValuesFieldUpdates> updatesToApply) {
+    DocValuesFieldUpdates.Iterator[] subs = new DocValuesFieldUpdates.Iterator[updatesToApply.size()];
+    for(int i=0;i<subs.length;i++) {
+      subs[i] = updatesToApply.get(i).iterator();
+    }
+    final DocValuesFieldUpdates.Iterator updatesIter = DocValuesFieldUpdates.mergedIterator(subs);
+
+    return new NumericDocValues() {
+      private int docID = -1;
+      private long value;
+
+      @Override
+      public int docID() {
+        return docID;
+      }
+
+      @Override
+      public int nextDoc() {
+        docID = updatesIter == null ? NO_MORE_DOCS : updatesIter.nextDoc();
+        if (docID != NO_MORE_DOCS) {
+          value = (Long) updatesIter.value();
+        }
+        return docID;
+      }
+
+      @Override
+      public int advance(int target) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean advanceExact(int target) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long cost() {
+        return updatesIter == null ? 0 : updatesToApply.stream().mapToLong(DocValuesFieldUpdates::size).sum();
+      }
+
+      @Override
+      public long longValue() {
+        return value;
+      }
+    };
+  }
+
   @SuppressWarnings("synthetic-access")
   private synchronized void handleBinaryDVUpdates(FieldInfos infos,
                                                   TrackingDirectoryWrapper dir, DocValuesFormat dvFormat, final SegmentReader reader,
@@ -558,7 +652,12 @@ final class ReadersAndUpdates {
     return trackingDir.getCreatedFiles();
   }
 
-  public synchronized boolean writeFieldUpdates(Directory dir, FieldInfos.FieldNumbers fieldNumbers, long maxDelGen, InfoStream infoStream) throws IOException {
+  /** Writes pending doc values updates. Numeric updates are written as sparse
+   *  overlays of the current values of their field, unless the field already
+   *  has {@code maxNumericUpdateOverlays} overlays, in which case all values
+   *  of the field are written to a new generation. */
+  public synchronized boolean writeFieldUpdates(Directory dir, FieldInfos.FieldNumbers fieldNumbers, long maxDelGen,
+                                                int maxNumericUpdateOverlays, InfoStream infoStream) throws IOException {
     long startTimeNS = System.nanoTime();
     final Map<Integer,Set<String>> newDVFiles = new HashMap<>();
     Set<String> fieldInfosFiles = null;
@@ -622,7 +721,7 @@ final class ReadersAndUpdates {
         fieldInfos = builder.finish();
         final DocValuesFormat docValuesFormat = codec.docValuesFormat();
         
-        handleNumericDVUpdates(fieldInfos, trackingDir, docValuesFormat, reader, newDVFiles, maxDelGen, infoStream);
+        handleNumericDVUpdates(fieldInfos, trackingDir, docValuesFormat, reader, newDVFiles, maxDelGen, maxNumericUpdateOverlays, infoStream);
         handleBinaryDVUpdates(fieldInfos, trackingDir, docValuesFormat, reader, newDVFiles, maxDelGen, infoStream);
 
         fieldInfosFiles = writeFieldInfosGen(fieldInfos, trackingDir, codec.fieldInfosFormat());
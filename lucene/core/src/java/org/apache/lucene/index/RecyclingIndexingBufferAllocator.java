@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+import org.apache.lucene.util.RecyclingByteBlockAllocator;
+import org.apache.lucene.util.RecyclingIntBlockAllocator;
+
+/**
+ * An {@link IndexingBufferAllocator} that keeps the blocks of flushed
+ * segments in order to reuse them for the next in-memory segments, instead
+ * of letting them be garbage collected. With large RAM buffers, this keeps
+ * the blocks of indexing buffers in the old generation rather than
+ * promoting and collecting gigabytes of short-lived arrays on every flush.
+ * <p>
+ * At most <code>maxBufferedByteBlocks</code> byte blocks and
+ * <code>maxBufferedIntBlocks</code> int blocks, of 32KB each, are retained
+ * across all indexing threads. Note that retained blocks come on top of
+ * the {@link IndexWriterConfig#setRAMBufferSizeMB RAM buffer}; they are
+ * reported by {@link #ramBytesUsed()} and included in
+ * {@link IndexWriter#ramBytesUsed()}.
+ *
+ * @lucene.experimental
+ */
+public final class RecyclingIndexingBufferAllocator extends IndexingBufferAllocator {
+
+  private static final int INT_BLOCK_BYTES = IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+
+  // not thread-safe: accesses must be synchronized on the allocator
+  private final RecyclingByteBlockAllocator byteBlocks;
+  private final RecyclingIntBlockAllocator intBlocks;
+
+  /**
+   * Create a new instance that retains at most
+   * <code>maxBufferedByteBlocks</code> byte blocks and
+   * <code>maxBufferedIntBlocks</code> int blocks.
+   */
+  public RecyclingIndexingBufferAllocator(int maxBufferedByteBlocks, int maxBufferedIntBlocks) {
+    if (maxBufferedByteBlocks < 0) {
+      throw new IllegalArgumentException("maxBufferedByteBlocks must be >= 0, got " + maxBufferedByteBlocks);
+    }
+    if (maxBufferedIntBlocks < 0) {
+      throw new IllegalArgumentException("maxBufferedIntBlocks must be >= 0, got " + maxBufferedIntBlocks);
+    }
+    byteBlocks = new RecyclingByteBlockAllocator(ByteBlockPool.BYTE_BLOCK_SIZE, maxBufferedByteBlocks);
+    intBlocks = new RecyclingIntBlockAllocator(IntBlockPool.INT_BLOCK_SIZE, maxBufferedIntBlocks);
+  }
+
+  @Override
+  public ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+    return new ByteBlockAllocator(bytesUsed);
+  }
+
+  @Override
+  public IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+    return new IntBlockAllocator(bytesUsed);
+  }
+
+  /** Return the number of byte blocks that are currently retained. */
+  public int numBufferedByteBlocks() {
+    synchronized (byteBlocks) {
+      return byteBlocks.numBufferedBlocks();
+    }
+  }
+
+  /** Return the number of int blocks that are currently retained. */
+  public int numBufferedIntBlocks() {
+    synchronized (intBlocks) {
+      return intBlocks.numBufferedBlocks();
+    }
+  }
+
+  /** Release all retained blocks. */
+  public void clear() {
+    synchronized (byteBlocks) {
+      byteBlocks.freeBlocks(byteBlocks.numBufferedBlocks());
+    }
+    synchronized (intBlocks) {
+      intBlocks.freeBlocks(intBlocks.numBufferedBlocks());
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return (long) numBufferedByteBlocks() * ByteBlockPool.BYTE_BLOCK_SIZE
+        + (long) numBufferedIntBlocks() * INT_BLOCK_BYTES;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(maxBufferedByteBlocks=" + byteBlocks.maxBufferedBlocks()
+        + ",maxBufferedIntBlocks=" + intBlocks.maxBufferedBlocks() + ")";
+  }
+
+  private final class ByteBlockAllocator extends ByteBlockPool.Allocator {
+    private final Counter bytesUsed;
+
+    ByteBlockAllocator(Counter bytesUsed) {
+      super(ByteBlockPool.BYTE_BLOCK_SIZE);
+      this.bytesUsed = bytesUsed;
+    }
+
+    @Override
+    public byte[] getByteBlock() {
+      final byte[] block;
+      synchronized (byteBlocks) {
+        block = byteBlocks.getByteBlock();
+      }
+      bytesUsed.addAndGet(blockSize);
+      return block;
+    }
+
+    @Override
+    public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+      // pools are not zero-filled on reset, but byte slices expect blocks to
+      // be filled with zeros like new ones
+      for (int i = start; i < end; i++) {
+        Arrays.fill(blocks[i], (byte) 0);
+      }
+      synchronized (byteBlocks) {
+        byteBlocks.recycleByteBlocks(blocks, start, end);
+      }
+      bytesUsed.addAndGet(-(end - start) * blockSize);
+    }
+  }
+
+  private final class IntBlockAllocator extends IntBlockPool.Allocator {
+    private final Counter bytesUsed;
+
+    IntBlockAllocator(Counter bytesUsed) {
+      super(IntBlockPool.INT_BLOCK_SIZE);
+      this.bytesUsed = bytesUsed;
+    }
+
+    @Override
+    public int[] getIntBlock() {
+      final int[] block;
+      synchronized (intBlocks) {
+        block = intBlocks.getIntBlock();
+      }
+      bytesUsed.addAndGet(INT_BLOCK_BYTES);
+      return block;
+    }
+
+    @Override
+    public void recycleIntBlocks(int[][] blocks, int start, int end) {
+      for (int i = start; i < end; i++) {
+        Arrays.fill(blocks[i], 0);
+      }
+      synchronized (intBlocks) {
+        intBlocks.recycleIntBlocks(blocks, start, end);
+      }
+      bytesUsed.addAndGet(-(end - start) * (long) INT_BLOCK_BYTES);
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-segment read statistics: how often queries hit each segment, and how
+ * much they pay in every segment, decayed over time so that they reflect
+ * recent activity. These statistics are consumed by
+ * {@link HeatAwareMergePolicy}.
+ * <p>
+ * Applications record statistics while searching, for instance with an
+ * {@link org.apache.lucene.search.IndexSearcher} that times the search of
+ * every leaf:
+ * <pre class="prettyprint">
+ *   final SegmentAccessStats stats = new SegmentAccessStats(10, TimeUnit.MINUTES);
+ *   IndexSearcher searcher = new IndexSearcher(reader) {
+ *     &#64;Override
+ *     protected void search(List&lt;LeafReaderContext&gt; leaves, Weight weight, Collector collector) throws IOException {
+ *       for (LeafReaderContext leaf : leaves) {
+ *         final long start = System.nanoTime();
+ *         super.search(Collections.singletonList(leaf), weight, collector);
+ *         stats.record(leaf, System.nanoTime() - start);
+ *       }
+ *     }
+ *   };
+ * </pre>
+ * <p>
+ * This class is thread-safe.
+ *
+ * @lucene.experimental
+ */
+public final class SegmentAccessStats {
+
+  private final double halfLifeNanos;
+  private final LongSupplier clock;
+  private final Map<String, Heat> heats = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new instance whose statistics are halved every
+   * <code>halfLife</code>.
+   */
+  public SegmentAccessStats(long halfLife, TimeUnit unit) {
+    this(halfLife, unit, System::nanoTime);
+  }
+
+  // for testing
+  SegmentAccessStats(long halfLife, TimeUnit unit, LongSupplier clock) {
+    if (halfLife <= 0) {
+      throw new IllegalArgumentException("halfLife must be > 0, got " + halfLife);
+    }
+    this.halfLifeNanos = unit.toNanos(halfLife);
+    this.clock = clock;
+  }
+
+  /**
+   * Record that a query hit the segment of the given leaf, and spent
+   * <code>costNanos</code> searching it. Leaves that are not backed by a
+   * segment are ignored.
+   */
+  public void record(LeafReaderContext context, long costNanos) {
+    final LeafReader reader = FilterLeafReader.unwrap(context.reader());
+    if (reader instanceof SegmentReader) {
+      record(((SegmentReader) reader).getSegmentName(), costNanos);
+    }
+  }
+
+  /**
+   * Record that a query hit the segment called <code>segmentName</code>, and
+   * spent <code>costNanos</code> searching it.
+   */
+  public void record(String segmentName, long costNanos) {
+    if (costNanos < 0) {
+      throw new IllegalArgumentException("costNanos must be >= 0, got " + costNanos);
+    }
+    final long now = clock.getAsLong();
+    heats.computeIfAbsent(segmentName, k -> new Heat(now)).add(now, costNanos);
+  }
+
+  /** Return the decayed number of queries that hit the given segment. */
+  public double getHits(String segmentName) {
+    final Heat heat = heats.get(segmentName);
+    return heat == null ? 0 : heat.hits(clock.getAsLong());
+  }
+
+  /** Return the decayed time, in nanoseconds, that queries spent in the given segment. */
+  public double getCostNanos(String segmentName) {
+    final Heat heat = heats.get(segmentName);
+    return heat == null ? 0 : heat.costNanos(clock.getAsLong());
+  }
+
+  /** Return whether statistics have been recorded for the given segment. */
+  boolean contains(String segmentName) {
+    return heats.containsKey(segmentName);
+  }
+
+  /**
+   * Give the segment called <code>mergedSegmentName</code> the sum of the
+   * statistics of the segments it has been merged from. Nothing is recorded
+   * if none of these segments has statistics.
+   */
+  void merge(Collection<String> sourceSegmentNames, String mergedSegmentName) {
+    final long now = clock.getAsLong();
+    Heat merged = null;
+    for (String name : sourceSegmentNames) {
+      final Heat heat = heats.get(name);
+      if (heat != null) {
+        if (merged == null) {
+          merged = new Heat(now);
+        }
+        merged.addAll(now, heat);
+      }
+    }
+    if (merged != null) {
+      heats.put(mergedSegmentName, merged);
+    }
+  }
+
+  /** Forget about segments that are not in the given collection, typically because they have been merged away. */
+  void retainAll(Collection<String> segmentNames) {
+    heats.keySet().retainAll(segmentNames);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(halfLife=" + TimeUnit.NANOSECONDS.toMillis((long) halfLifeNanos) + "ms, segments=" + heats.size() + ")";
+  }
+
+  private final class Heat {
+    private long lastUpdateNanos;
+    private double hits;
+    private double costNanos;
+
+    Heat(long now) {
+      this.lastUpdateNanos = now;
+    }
+
+    private void decay(long now) {
+      final long elapsed = now - lastUpdateNanos;
+      if (elapsed > 0) {
+        final double factor = Math.pow(0.5, elapsed / halfLifeNanos);
+        hits *= factor;
+        costNanos *= factor;
+        lastUpdateNanos = now;
+      }
+    }
+
+    synchronized void add(long now, long costNanos) {
+      decay(now);
+      this.hits += 1;
+      this.costNanos += costNanos;
+    }
+
+    void addAll(long now, Heat other) {
+      final double hits, costNanos;
+      synchronized (other) {
+        other.decay(now);
+        hits = other.hits;
+        costNanos = other.costNanos;
+      }
+      synchronized (this) {
+        decay(now);
+        this.hits += hits;
+        this.costNanos += costNanos;
+      }
+    }
+
+    synchronized double hits(long now) {
+      decay(now);
+      return hits;
+    }
+
+    synchronized double costNanos(long now) {
+      decay(now);
+      return costNanos;
+    }
+  }
+}
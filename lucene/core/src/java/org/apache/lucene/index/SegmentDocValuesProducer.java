@@ -43,6 +43,8 @@ class SegmentDocValuesProducer extends DocValuesProducer {
       RamUsageEstimator.shallowSizeOfInstance(SegmentDocValuesProducer.class);
 
   final Map<String,DocValuesProducer> dvProducersByField = new HashMap<>();
+  /** Producers of the sparse overlays of numeric fields, oldest first, see {@link NumericUpdateOverlays}. */
+  final Map<String,DocValuesProducer[]> overlayProducersByField = new HashMap<>();
   final Set<DocValuesProducer> dvProducers = Collections.newSetFromMap(new IdentityHashMap<DocValuesProducer,Boolean>());
   final List<Long> dvGens = new ArrayList<>();
   
@@ -78,6 +80,17 @@ class SegmentDocValuesProducer extends DocValuesProducer {
           dvProducers.add(dvp);
           dvProducersByField.put(fi.name, dvp);
         }
+        final long[] overlayGens = NumericUpdateOverlays.getGens(fi);
+        if (overlayGens.length > 0) {
+          final DocValuesProducer[] overlays = new DocValuesProducer[overlayGens.length];
+          for (int i = 0; i < overlayGens.length; i++) {
+            // each overlay generation holds a single field
+            overlays[i] = segDocValues.getDocValuesProducer(overlayGens[i], si, dir, new FieldInfos(new FieldInfo[]{fi}));
+            dvGens.add(overlayGens[i]);
+            dvProducers.add(overlays[i]);
+          }
+          overlayProducersByField.put(fi.name, overlays);
+        }
       }
     } catch (Throwable t) {
       try {
@@ -93,7 +106,12 @@ class SegmentDocValuesProducer extends DocValuesProducer {
   public NumericDocValues getNumeric(FieldInfo field) throws IOException {
     DocValuesProducer dvProducer = dvProducersByField.get(field.name);
     assert dvProducer != null;
-    return dvProducer.getNumeric(field);
+    NumericDocValues values = dvProducer.getNumeric(field);
+    DocValuesProducer[] overlays = overlayProducersByField.get(field.name);
+    if (overlays != null) {
+      values = NumericUpdateOverlays.overlay(field, values, overlays);
+    }
+    return values;
   }
 
   @Override
@@ -124,6 +142,17 @@ class SegmentDocValuesProducer extends DocValuesProducer {
     return dvProducer.getSortedSet(field);
   }
 
+  @Override
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    if (overlayProducersByField.containsKey(field.name)) {
+      // the skip index of the base generation doesn't know about the overlays
+      return null;
+    }
+    DocValuesProducer dvProducer = dvProducersByField.get(field.name);
+    assert dvProducer != null;
+    return dvProducer.getSkipper(field);
+  }
+
   @Override
   public void checkIntegrity() throws IOException {
     for (DocValuesProducer producer : dvProducers) {
@@ -142,6 +171,9 @@ class SegmentDocValuesProducer extends DocValuesProducer {
     ramBytesUsed += dvGens.size() * LONG_RAM_BYTES_USED;
     ramBytesUsed += dvProducers.size() * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
     ramBytesUsed += dvProducersByField.size() * 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    for (DocValuesProducer[] overlays : overlayProducersByField.values()) {
+      ramBytesUsed += 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.shallowSizeOf(overlays);
+    }
     for (DocValuesProducer producer : dvProducers) {
       ramBytesUsed += producer.ramBytesUsed();
     }
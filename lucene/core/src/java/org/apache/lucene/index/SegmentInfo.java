@@ -20,6 +20,7 @@ package org.apache.lucene.index;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
@@ -37,6 +38,9 @@ import org.apache.lucene.util.Version;
 /**
  * Information about a segment such as its name, directory, and files related
  * to the segment.
+ * <p>
+ * Codec attributes may be read and put by several threads, since formats
+ * may write the files of a segment concurrently.
  *
  * @lucene.experimental
  */
@@ -301,7 +305,7 @@ public final class SegmentInfo {
   /**
    * Get a codec attribute value, or null if it does not exist
    */
-  public String getAttribute(String key) {
+  public synchronized String getAttribute(String key) {
     return attributes.get(key);
   }
   
@@ -315,16 +319,16 @@ public final class SegmentInfo {
    * If a value already exists for the field, it will be replaced with the new
    * value.
    */
-  public String putAttribute(String key, String value) {
+  public synchronized String putAttribute(String key, String value) {
     return attributes.put(key, value);
   }
   
   /**
-   * Returns the internal codec attributes map.
-   * @return internal codec attributes map.
+   * Returns an unmodifiable snapshot of the codec attributes.
+   * @return codec attributes map.
    */
-  public Map<String,String> getAttributes() {
-    return attributes;
+  public synchronized Map<String,String> getAttributes() {
+    return Collections.unmodifiableMap(new HashMap<>(attributes));
   }
 
   /** Return the sort order of this segment, or null if the index has no sort. */
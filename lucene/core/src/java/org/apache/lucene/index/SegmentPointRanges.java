@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Set;
+
+import org.apache.lucene.codecs.PointsReader;
+import org.apache.lucene.util.FutureArrays;
+
+/**
+ * Reads and writes the minimum and maximum packed values of point fields
+ * that are recorded in the {@link SegmentInfo#getAttributes() attributes}
+ * of segments, see {@link IndexWriterConfig#setPointRangeFields(String...)}.
+ * Like {@link PointValues#getMinPackedValue()}, each dimension is bounded
+ * independently. Deleted documents are not taken into account, so the range
+ * of a segment may be wider than the range of its live documents.
+ *
+ * @lucene.experimental
+ */
+public final class SegmentPointRanges {
+
+  private static final String PREFIX = "pointRange.";
+
+  private SegmentPointRanges() {}
+
+  /**
+   * Returns the minimum packed value of the given field in the given segment,
+   * or {@code null} if it was not recorded.
+   */
+  public static byte[] getMinPackedValue(SegmentInfo info, String field) {
+    return decode(info.getAttribute(PREFIX + field + ".min"));
+  }
+
+  /**
+   * Returns the maximum packed value of the given field in the given segment,
+   * or {@code null} if it was not recorded.
+   */
+  public static byte[] getMaxPackedValue(SegmentInfo info, String field) {
+    return decode(info.getAttribute(PREFIX + field + ".max"));
+  }
+
+  private static byte[] decode(String value) {
+    return value == null ? null : Base64.getDecoder().decode(value);
+  }
+
+  static void setRange(SegmentInfo info, String field, byte[] minPackedValue, byte[] maxPackedValue) {
+    info.putAttribute(PREFIX + field + ".min", Base64.getEncoder().encodeToString(minPackedValue));
+    info.putAttribute(PREFIX + field + ".max", Base64.getEncoder().encodeToString(maxPackedValue));
+  }
+
+  /** Records the ranges of the given fields in the segment that is being
+   *  merged, as the union of the ranges of the merged segments. */
+  static void recordMerged(MergeState mergeState, Set<String> fields) throws IOException {
+    for (String field : fields) {
+      FieldInfo fieldInfo = mergeState.mergeFieldInfos.fieldInfo(field);
+      if (fieldInfo == null || fieldInfo.getPointDimensionCount() == 0) {
+        continue;
+      }
+      final int numDims = fieldInfo.getPointDimensionCount();
+      final int bytesPerDim = fieldInfo.getPointNumBytes();
+      byte[] min = null, max = null;
+      for (int i = 0; i < mergeState.pointsReaders.length; i++) {
+        PointsReader reader = mergeState.pointsReaders[i];
+        FieldInfo readerFieldInfo = mergeState.fieldInfos[i].fieldInfo(field);
+        if (reader == null || readerFieldInfo == null || readerFieldInfo.getPointDimensionCount() == 0) {
+          continue;
+        }
+        PointValues values = reader.getValues(field);
+        if (values == null || values.size() == 0) {
+          continue;
+        }
+        if (min == null) {
+          min = values.getMinPackedValue().clone();
+          max = values.getMaxPackedValue().clone();
+        } else {
+          union(numDims, bytesPerDim, min, max, values.getMinPackedValue(), values.getMaxPackedValue());
+        }
+      }
+      if (min != null) {
+        setRange(mergeState.segmentInfo, field, min, max);
+      }
+    }
+  }
+
+  /** Extends {@code min} and {@code max}, per dimension, so that they include
+   *  {@code otherMin} and {@code otherMax}. */
+  static void union(int numDims, int bytesPerDim, byte[] min, byte[] max, byte[] otherMin, byte[] otherMax) {
+    for (int dim = 0; dim < numDims; dim++) {
+      final int from = dim * bytesPerDim;
+      final int to = from + bytesPerDim;
+      if (FutureArrays.compareUnsigned(otherMin, from, to, min, from, to) < 0) {
+        System.arraycopy(otherMin, from, min, from, bytesPerDim);
+      }
+      if (FutureArrays.compareUnsigned(otherMax, from, to, max, from, to) > 0) {
+        System.arraycopy(otherMax, from, max, from, bytesPerDim);
+      }
+    }
+  }
+}
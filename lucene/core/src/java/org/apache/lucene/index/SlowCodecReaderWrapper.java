@@ -213,6 +213,11 @@ public final class SlowCodecReaderWrapper {
         return reader.getSortedSetDocValues(field.name);
       }
 
+      @Override
+      public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+        return reader.getDocValuesSkipper(field.name);
+      }
+
       @Override
       public void checkIntegrity() throws IOException {
         // We already checkIntegrity the entire reader up front
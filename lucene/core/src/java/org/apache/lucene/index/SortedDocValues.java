@@ -48,6 +48,32 @@ public abstract class SortedDocValues extends BinaryDocValues {
    */
   public abstract int ordValue() throws IOException;
 
+  /**
+   * Bulk version of {@link #advanceExact(int)} and {@link #ordValue()}.
+   * The first {@code size} entries of {@code docs} must be valid doc IDs in
+   * strictly increasing order, the first of which is greater than or equal to
+   * the current {@link #docID() doc ID}. The doc IDs of the documents that
+   * have a value are written back to the start of {@code docs}, in order, and
+   * their ordinals to the same indices of {@code ords}, which must have at
+   * least {@code size} entries. After this method returns, the iterator is
+   * positioned as if {@link #advanceExact(int)} had been called with
+   * {@code docs[size-1]}.
+   * @return the number of documents that have a value
+   * @lucene.experimental
+   */
+  public int ordValues(int size, int[] docs, int[] ords) throws IOException {
+    int count = 0;
+    for (int i = 0; i < size; ++i) {
+      final int doc = docs[i];
+      if (advanceExact(doc)) {
+        docs[count] = doc;
+        ords[count] = ordValue();
+        count++;
+      }
+    }
+    return count;
+  }
+
   /** Retrieves the value for the specified ordinal. The returned
    * {@link BytesRef} may be re-used across calls to {@link #lookupOrd(int)}
    * so make sure to {@link BytesRef#deepCopyOf(BytesRef) copy it} if you want
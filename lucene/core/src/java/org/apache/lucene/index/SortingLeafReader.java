@@ -1239,6 +1239,12 @@ class SortingLeafReader extends FilterLeafReader {
     return new SortingSortedSetDocValues(oldDocValues, ords);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    // blocks of documents don't survive sorting
+    return null;
+  }
+
   @Override
   public Fields getTermVectors(final int docID) throws IOException {
     return in.getTermVectors(docMap.newToOld(docID));
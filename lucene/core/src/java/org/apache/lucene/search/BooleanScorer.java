@@ -122,6 +122,8 @@ final class BooleanScorer extends BulkScorer {
   final FakeScorer fakeScorer = new FakeScorer();
   final int minShouldMatch;
   final long cost;
+  // matches of the current window, for collectors that accept batches
+  final int[] batch = new int[SIZE];
 
   final class OrCollector implements LeafCollector {
     Scorer scorer;
@@ -191,6 +193,10 @@ final class BooleanScorer extends BulkScorer {
   }
 
   private void scoreMatches(LeafCollector collector, int base) throws IOException {
+    if (collector.acceptsBatches()) {
+      collectMatches(collector, base);
+      return;
+    }
     long matching[] = this.matching;
     for (int idx = 0; idx < matching.length; idx++) {
       long bits = matching[idx];
@@ -203,6 +209,30 @@ final class BooleanScorer extends BulkScorer {
     }
   }
 
+  /** Pass all matches of the window to the collector at once. */
+  private void collectMatches(LeafCollector collector, int base) throws IOException {
+    final long matching[] = this.matching;
+    final int[] batch = this.batch;
+    int size = 0;
+    for (int idx = 0; idx < matching.length; idx++) {
+      long bits = matching[idx];
+      while (bits != 0L) {
+        int ntz = Long.numberOfTrailingZeros(bits);
+        int i = idx << 6 | ntz;
+        final Bucket bucket = buckets[i];
+        if (bucket.freq >= minShouldMatch) {
+          batch[size++] = base | i;
+        }
+        bucket.freq = 0;
+        bucket.score = 0;
+        bits ^= 1L << ntz;
+      }
+    }
+    if (size > 0) {
+      collector.collect(batch, size);
+    }
+  }
+
   private void scoreWindowIntoBitSetAndReplay(LeafCollector collector, Bits acceptDocs,
       int base, int min, int max, BulkScorerAndDoc[] scorers, int numScorers) throws IOException {
     for (int i = 0; i < numScorers; ++i) {
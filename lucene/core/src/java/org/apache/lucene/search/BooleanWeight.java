@@ -137,6 +137,16 @@ final class BooleanWeight extends Weight {
             fake.doc = doc;
             collector.collect(doc);
           }
+
+          @Override
+          public void collect(int[] docs, int size) throws IOException {
+            collector.collect(docs, size);
+          }
+
+          @Override
+          public boolean acceptsBatches() {
+            return collector.acceptsBatches();
+          }
         };
         return scorer.score(noScoreCollector, acceptDocs, min, max);
       }
@@ -324,6 +334,35 @@ final class BooleanWeight extends Weight {
     return true;
   }
 
+  @Override
+  public long estimateCost(LeafReaderContext context) throws IOException {
+    // a conjunction matches at most as many documents as its least costly required clause,
+    // and a disjunction at most the sum of the costs of its optional clauses
+    boolean hasRequiredClauses = false;
+    long requiredCost = -1;
+    long optionalCost = 0;
+    Iterator<BooleanClause> cIter = query.iterator();
+    for (Weight w : weights) {
+      BooleanClause c = cIter.next();
+      if (c.isRequired()) {
+        hasRequiredClauses = true;
+        final long cost = w.estimateCost(context);
+        if (cost != -1) {
+          requiredCost = requiredCost == -1 ? cost : Math.min(requiredCost, cost);
+        }
+      } else if (c.getOccur() == Occur.SHOULD && hasRequiredClauses == false && optionalCost != -1) {
+        final long cost = w.estimateCost(context);
+        optionalCost = cost == -1 ? -1 : optionalCost + cost;
+      }
+    }
+    if (hasRequiredClauses) {
+      return requiredCost;
+    } else if (optionalCost == -1) {
+      return -1;
+    }
+    return Math.min(optionalCost, context.reader().maxDoc());
+  }
+
   @Override
   public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
     int minShouldMatch = query.getMinimumNumberShouldMatch();
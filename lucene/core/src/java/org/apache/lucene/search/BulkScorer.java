@@ -50,6 +50,11 @@ public abstract class BulkScorer {
    * </ul>
    * <p>{@code min} is the minimum document to be considered for matching. All
    * documents strictly before this value must be ignored.</p>
+   * <p>The first call may use a {@code min} that is greater than 0: this is how
+   * {@link IndexSearcher} searches a {@link IndexSearcher.LeafReaderContextPartition}
+   * of a segment. Several bulk scorers pulled from the same {@link Weight} may
+   * be used concurrently by different threads in order to score disjoint ranges
+   * of the same segment.</p>
    * <p>Although {@code max} would be a legal return value for this method, higher
    * values might help callers skip more efficiently over non-matching portions
    * of the docID space.</p>
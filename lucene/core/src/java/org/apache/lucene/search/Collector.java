@@ -77,4 +77,12 @@ public interface Collector {
    * Indicates what features are required from the scorer.
    */
   ScoreMode scoreMode();
+
+  /**
+   * Set the {@link Weight} that will be used to produce hits, before
+   * {@link #getLeafCollector} is called on whole segments. Collectors may use
+   * it to compute results without collecting hits, for instance with
+   * {@link Weight#count}. The default implementation does nothing.
+   */
+  default void setWeight(Weight weight) {}
 }
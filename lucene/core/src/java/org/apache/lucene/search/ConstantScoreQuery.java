@@ -100,6 +100,16 @@ public final class ConstantScoreQuery extends Query {
             }
           });
         }
+
+        @Override
+        public void collect(int[] docs, int size) throws IOException {
+          in.collect(docs, size);
+        }
+
+        @Override
+        public boolean acceptsBatches() {
+          return in.acceptsBatches();
+        }
       };
     }
 
@@ -172,6 +182,16 @@ public final class ConstantScoreQuery extends Query {
           return innerWeight.isCacheable(ctx);
         }
 
+        @Override
+        public int count(LeafReaderContext context) throws IOException {
+          return innerWeight.count(context);
+        }
+
+        @Override
+        public long estimateCost(LeafReaderContext context) throws IOException {
+          return innerWeight.estimateCost(context);
+        }
+
       };
     } else {
       return innerWeight;
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SliceExecutionPolicy} that only searches queries concurrently
+ * when they are expected to match enough documents for the parallelism to
+ * outweigh the overhead of dispatching tasks to the executor. Queries whose
+ * estimated cost is less than twice {@link #getMinCostPerTask() the minimum
+ * cost per task} are searched on the calling thread, and other queries use
+ * one task per {@link #getMinCostPerTask() minimum cost per task}, up to the
+ * number of slices.
+ * <p>
+ * This class also exposes some statistics about the decisions that it made
+ * ({@link #getSequentialCount() sequential searches},
+ * {@link #getConcurrentCount() concurrent searches} and
+ * {@link #getTaskCount() number of tasks} that concurrent searches used).
+ *
+ * @lucene.experimental
+ */
+public class CostBasedSliceExecutionPolicy implements SliceExecutionPolicy {
+
+  /** Default minimum cost of a task, see {@link #getMinCostPerTask()}. */
+  public static final long DEFAULT_MIN_COST_PER_TASK = 100_000;
+
+  private final long minCostPerTask;
+  private final LongAdder sequentialCount = new LongAdder();
+  private final LongAdder concurrentCount = new LongAdder();
+  private final LongAdder taskCount = new LongAdder();
+
+  /** Create a new instance that uses one task per <code>minCostPerTask</code>
+   *  estimated matches. */
+  public CostBasedSliceExecutionPolicy(long minCostPerTask) {
+    if (minCostPerTask < 1) {
+      throw new IllegalArgumentException("minCostPerTask must be at least 1, got " + minCostPerTask);
+    }
+    this.minCostPerTask = minCostPerTask;
+  }
+
+  /** Create a new instance that uses a minimum cost per task of
+   *  {@value #DEFAULT_MIN_COST_PER_TASK}. */
+  public CostBasedSliceExecutionPolicy() {
+    this(DEFAULT_MIN_COST_PER_TASK);
+  }
+
+  @Override
+  public boolean needsCost() {
+    return true;
+  }
+
+  @Override
+  public int numTasks(Query query, long cost, int numSlices) {
+    final int numTasks = (int) Math.max(1, Math.min(numSlices, cost / minCostPerTask));
+    if (numTasks == 1) {
+      sequentialCount.increment();
+    } else {
+      concurrentCount.increment();
+      taskCount.add(numTasks);
+    }
+    return numTasks;
+  }
+
+  /** Return the minimum estimated cost that a task needs to have. */
+  public final long getMinCostPerTask() {
+    return minCostPerTask;
+  }
+
+  /** Return the number of queries that have been searched on the calling
+   *  thread. */
+  public final long getSequentialCount() {
+    return sequentialCount.sum();
+  }
+
+  /** Return the number of queries that have been searched concurrently. */
+  public final long getConcurrentCount() {
+    return concurrentCount.sum();
+  }
+
+  /** Return the total number of tasks that concurrent searches have been
+   *  split into. */
+  public final long getTaskCount() {
+    return taskCount.sum();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(minCostPerTask=" + minCostPerTask + ")";
+  }
+
+}
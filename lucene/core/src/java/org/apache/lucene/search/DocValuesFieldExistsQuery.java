@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
@@ -99,6 +100,23 @@ public final class DocValuesFieldExistsQuery extends Query {
         return new ConstantScoreScorer(this, score(), iterator);
       }
 
+      @Override
+      public int count(LeafReaderContext context) throws IOException {
+        LeafReader reader = context.reader();
+        FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null || fieldInfo.getDocValuesType() == DocValuesType.NONE) {
+          return 0;
+        }
+        if (reader.hasDeletions() == false) {
+          // the skip index records how many documents have a value
+          DocValuesSkipper skipper = reader.getDocValuesSkipper(field);
+          if (skipper != null) {
+            return skipper.docCount();
+          }
+        }
+        return -1;
+      }
+
       @Override
       public boolean isCacheable(LeafReaderContext ctx) {
         return DocValues.isCacheable(ctx, field);
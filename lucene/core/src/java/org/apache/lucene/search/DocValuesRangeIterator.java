@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.DocValuesSkipper;
+
+/**
+ * Wrapper around a {@link TwoPhaseIterator} for a doc values range query that
+ * uses a {@link DocValuesSkipper} to skip blocks of documents whose values are
+ * all out of the range, and to skip the verification of documents in blocks
+ * whose values are all in the range.
+ * @lucene.internal
+ */
+public final class DocValuesRangeIterator extends TwoPhaseIterator {
+
+  enum Match {
+    /** None of the documents in the range match */
+    NO,
+    /** Document values need to be checked to verify matches */
+    MAYBE,
+    /** All documents in the range that have a value match */
+    IF_DOC_HAS_VALUE,
+    /** All docs in the range match */
+    YES;
+  }
+
+  private final Approximation approximation;
+  private final TwoPhaseIterator innerTwoPhase;
+
+  /**
+   * Wrap {@code twoPhase}, which must match documents whose value is in
+   * {@code [lowerValue, upperValue]}, with a skipper over the same field.
+   */
+  public DocValuesRangeIterator(TwoPhaseIterator twoPhase, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+    super(new Approximation(twoPhase.approximation(), skipper, lowerValue, upperValue));
+    this.approximation = (Approximation) approximation();
+    this.innerTwoPhase = twoPhase;
+  }
+
+  private static class Approximation extends DocIdSetIterator {
+
+    private final DocIdSetIterator innerApproximation;
+    private final DocValuesSkipper skipper;
+    private final long lowerValue;
+    private final long upperValue;
+
+    private int doc = -1;
+
+    // State computed from the skipper: how documents up to upTo match
+    private Match match;
+    private int upTo = -1;
+
+    Approximation(DocIdSetIterator innerApproximation, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+      this.innerApproximation = innerApproximation;
+      this.skipper = skipper;
+      this.lowerValue = lowerValue;
+      this.upperValue = upperValue;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(docID() + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      while (true) {
+        if (target > upTo) {
+          skipper.advance(target);
+          if (skipper.minDocID(0) == NO_MORE_DOCS) {
+            return doc = NO_MORE_DOCS;
+          }
+          // documents between blocks have no value
+          target = Math.max(target, skipper.minDocID(0));
+          upTo = skipper.maxDocID(0);
+          match = match(0);
+          if (match != Match.MAYBE) {
+            // extend to larger blocks that match the same way
+            for (int level = 1; level < skipper.numLevels() && match(level) == match; ++level) {
+              upTo = skipper.maxDocID(level);
+            }
+          }
+        }
+        switch (match) {
+          case YES:
+            return doc = target;
+          case MAYBE:
+          case IF_DOC_HAS_VALUE:
+            final int innerDoc = innerApproximation.docID();
+            if (target == innerDoc + 1) {
+              target = innerApproximation.nextDoc();
+            } else if (target > innerDoc) {
+              target = innerApproximation.advance(target);
+            } else {
+              target = innerDoc;
+            }
+            if (target <= upTo) {
+              return doc = target;
+            }
+            // the inner approximation went past the current block, check the next one
+            break;
+          case NO:
+            target = upTo + 1;
+            break;
+          default:
+            throw new AssertionError("Unknown match: " + match);
+        }
+      }
+    }
+
+    @Override
+    public long cost() {
+      return innerApproximation.cost();
+    }
+
+    private Match match(int level) {
+      return DocValuesRangeIterator.match(skipper, level, lowerValue, upperValue);
+    }
+  }
+
+  private static Match match(DocValuesSkipper skipper, int level, long lowerValue, long upperValue) {
+    final long minValue = skipper.minValue(level);
+    final long maxValue = skipper.maxValue(level);
+    if (minValue > upperValue || maxValue < lowerValue) {
+      return Match.NO;
+    } else if (minValue >= lowerValue && maxValue <= upperValue) {
+      if (skipper.docCount(level) == skipper.maxDocID(level) - skipper.minDocID(level) + 1) {
+        return Match.YES;
+      } else {
+        return Match.IF_DOC_HAS_VALUE;
+      }
+    } else {
+      return Match.MAYBE;
+    }
+  }
+
+  /** Number of places in a segment where {@link #canSkip} checks blocks. */
+  private static final int NUM_CAN_SKIP_SAMPLES = 8;
+
+  /**
+   * Return whether {@code skipper} likely has blocks whose values are either
+   * all in or all out of {@code [lowerValue, upperValue]}. When this returns
+   * false, typically because the field is not clustered, wrapping a
+   * {@link TwoPhaseIterator} into a {@link DocValuesRangeIterator} would only
+   * add overhead. This only checks the blocks that contain a few documents
+   * spread across the segment, on all levels, so that its cost doesn't depend
+   * on the size of the segment. This method advances {@code skipper} so it
+   * may not be reused.
+   */
+  public static boolean canSkip(DocValuesSkipper skipper, int maxDoc, long lowerValue, long upperValue) throws IOException {
+    for (int i = 0; i < NUM_CAN_SKIP_SAMPLES; ++i) {
+      skipper.advance((int) ((long) maxDoc * i / NUM_CAN_SKIP_SAMPLES));
+      if (skipper.minDocID(0) == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+      // check the top level first: it can tell about the whole segment at once
+      for (int level = skipper.numLevels() - 1; level >= 0; --level) {
+        if (match(skipper, level, lowerValue, upperValue) != Match.MAYBE) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean matches() throws IOException {
+    switch (approximation.match) {
+      case YES:
+      case IF_DOC_HAS_VALUE:
+        return true;
+      case MAYBE:
+        return innerTwoPhase.matches();
+      case NO:
+      default:
+        throw new AssertionError("Unexpected match: " + approximation.match);
+    }
+  }
+
+  @Override
+  public float matchCost() {
+    return innerTwoPhase.matchCost();
+  }
+
+}
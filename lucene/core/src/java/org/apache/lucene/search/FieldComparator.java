@@ -24,9 +24,13 @@ import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.DocIdSetBuilder;
+import org.apache.lucene.util.FutureArrays;
+import org.apache.lucene.util.NumericUtils;
 
 /**
  * Expert: a FieldComparator compares hits so as to determine their
@@ -144,21 +148,239 @@ public abstract class FieldComparator<T> {
     protected final T missingValue;
     protected final String field;
     protected NumericDocValues currentReaderValues;
+
+    // skipping of non-competitive documents using the points of the field,
+    // see SortField#setCanUsePoints
+    private final int pointBytes;
+    private final PointEncoder<T> pointEncoder;
+    private final byte[] bottomValue;
+    private final byte[] missingPointValue;
+    private boolean canUsePoints;
+    private boolean reverse;
+    private int bottomSlot = -1;
+    private PointValues currentPointValues;
+    private int currentMaxDoc;
+    private boolean canSkipNonCompetitive;
+    private CompetitiveIterator competitiveIterator;
+    private int updateCounter;
+    // only compares cells, to estimate how many documents are competitive
+    private final PointValues.IntersectVisitor estimateVisitor = new PointValues.IntersectVisitor() {
+
+      @Override
+      public void visit(int docID) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void visit(int docID, byte[] packedValue) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+        return relate(minPackedValue, maxPackedValue);
+      }
+    };
     
     public NumericComparator(String field, T missingValue) {
+      this(field, missingValue, -1, null);
+    }
+
+    /**
+     * Creates a comparator that encodes its values on {@code pointBytes} bytes
+     * like the points of the field, or that can't use points if the encoder is
+     * {@code null}.
+     */
+    NumericComparator(String field, T missingValue, int pointBytes, PointEncoder<T> pointEncoder) {
       this.field = field;
       this.missingValue = missingValue;
+      this.pointBytes = pointBytes;
+      this.pointEncoder = pointEncoder;
+      if (pointEncoder != null) {
+        bottomValue = new byte[pointBytes];
+        missingPointValue = new byte[pointBytes];
+        pointEncoder.encode(missingValue, missingPointValue);
+      } else {
+        bottomValue = null;
+        missingPointValue = null;
+      }
+    }
+
+    /** Encodes a value of this comparator like the points of the field. */
+    @FunctionalInterface
+    interface PointEncoder<T> {
+      void encode(T value, byte[] packedValue);
+    }
+
+    /**
+     * Lets this comparator skip non-competitive documents using the points
+     * that index the same values as the doc values of the field. This is a
+     * no-op if the values of this comparator can't be encoded as points.
+     */
+    void setCanUsePoints(boolean reverse) {
+      this.canUsePoints = pointEncoder != null;
+      this.reverse = reverse;
     }
 
     @Override
     protected void doSetNextReader(LeafReaderContext context) throws IOException {
       currentReaderValues = getNumericDocValues(context, field);
+      currentPointValues = null;
+      competitiveIterator = null;
+      canSkipNonCompetitive = false;
+      updateCounter = 0;
+      if (canUsePoints) {
+        final PointValues pointValues = context.reader().getPointValues(field);
+        if (pointValues != null && pointValues.getNumDimensions() == 1 && pointValues.getBytesPerDimension() == pointBytes) {
+          currentPointValues = pointValues;
+          currentMaxDoc = context.reader().maxDoc();
+          competitiveIterator = new CompetitiveIterator(DocIdSetIterator.all(currentMaxDoc));
+        }
+      }
     }
     
     /** Retrieves the NumericDocValues for the field in this segment */
     protected NumericDocValues getNumericDocValues(LeafReaderContext context, String field) throws IOException {
       return DocValues.getNumeric(context.reader(), field);
     }
+
+    @Override
+    public void setCanSkipNonCompetitive() throws IOException {
+      canSkipNonCompetitive = true;
+      updateCompetitiveIterator();
+    }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() {
+      return competitiveIterator;
+    }
+
+    /**
+     * Restricts the competitive iterator to the documents whose value is
+     * competitive with the bottom of the queue. Must be called each time the
+     * bottom changes.
+     */
+    void updateCompetitiveIterator(int bottomSlot) throws IOException {
+      this.bottomSlot = bottomSlot;
+      updateCompetitiveIterator();
+    }
+
+    private void updateCompetitiveIterator() throws IOException {
+      if (canSkipNonCompetitive == false || competitiveIterator == null || bottomSlot == -1) {
+        return;
+      }
+      // the bottom changes on every competitive hit, so after a while only
+      // look at some of the updates
+      updateCounter++;
+      if (updateCounter > 256 && (updateCounter & 0x1f) != 0x1f) {
+        return;
+      }
+
+      final int bytesPerDim = pointBytes;
+      pointEncoder.encode(value(bottomSlot), bottomValue);
+      if (currentPointValues.getDocCount() < currentMaxDoc) {
+        // documents without a value are not indexed as points, so nothing
+        // can be skipped as long as the missing value is competitive
+        if (isCompetitive(missingPointValue, bottomValue, bytesPerDim)) {
+          return;
+        }
+      }
+
+      // only rebuild the iterator if it skips significantly more documents,
+      // which is not the case for most updates: estimating only needs to
+      // compare cells, so the doc ID set is only built if it will be used
+      final long estimatedCount = currentPointValues.estimatePointCount(estimateVisitor);
+      if (estimatedCount >= competitiveIterator.cost() * 0.8) {
+        return;
+      }
+
+      final DocIdSetBuilder result = new DocIdSetBuilder(currentMaxDoc);
+      currentPointValues.intersect(new PointValues.IntersectVisitor() {
+        DocIdSetBuilder.BulkAdder adder;
+
+        @Override
+        public void grow(int count) {
+          adder = result.grow(count);
+        }
+
+        @Override
+        public void visit(int docID) {
+          adder.add(docID);
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+          if (isCompetitive(packedValue, bottomValue, bytesPerDim)) {
+            adder.add(docID);
+          }
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+          return relate(minPackedValue, maxPackedValue);
+        }
+      });
+      competitiveIterator.update(result.build().iterator());
+    }
+
+    private PointValues.Relation relate(byte[] minPackedValue, byte[] maxPackedValue) {
+      final boolean minCompetitive = isCompetitive(minPackedValue, bottomValue, pointBytes);
+      final boolean maxCompetitive = isCompetitive(maxPackedValue, bottomValue, pointBytes);
+      if (minCompetitive && maxCompetitive) {
+        return PointValues.Relation.CELL_INSIDE_QUERY;
+      } else if (minCompetitive || maxCompetitive) {
+        return PointValues.Relation.CELL_CROSSES_QUERY;
+      } else {
+        return PointValues.Relation.CELL_OUTSIDE_QUERY;
+      }
+    }
+
+    private boolean isCompetitive(byte[] packedValue, byte[] bottomValue, int bytesPerDim) {
+      final int cmp = FutureArrays.compareUnsigned(packedValue, 0, bytesPerDim, bottomValue, 0, bytesPerDim);
+      return reverse ? cmp >= 0 : cmp <= 0;
+    }
+
+    /**
+     * Iterator over the competitive documents, whose delegate is replaced by a
+     * more restrictive one each time the bottom of the queue changes enough.
+     */
+    private static final class CompetitiveIterator extends DocIdSetIterator {
+      private DocIdSetIterator delegate;
+      private int doc = -1;
+
+      CompetitiveIterator(DocIdSetIterator delegate) {
+        this.delegate = delegate;
+      }
+
+      void update(DocIdSetIterator delegate) {
+        // the new delegate is unpositioned, which is fine since documents
+        // are only visited forward
+        this.delegate = delegate;
+      }
+
+      @Override
+      public int docID() {
+        return doc;
+      }
+
+      @Override
+      public int nextDoc() throws IOException {
+        return advance(doc + 1);
+      }
+
+      @Override
+      public int advance(int target) throws IOException {
+        if (delegate.docID() >= target) {
+          return doc = delegate.docID();
+        }
+        return doc = delegate.advance(target);
+      }
+
+      @Override
+      public long cost() {
+        return delegate.cost();
+      }
+    }
   }
 
   /** Parses field's values as double (using {@link
@@ -173,7 +395,8 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted.
      */
     public DoubleComparator(int numHits, String field, Double missingValue) {
-      super(field, missingValue != null ? missingValue : 0.0);
+      super(field, missingValue != null ? missingValue : 0.0,
+          Double.BYTES, (value, packedValue) -> NumericUtils.longToSortableBytes(NumericUtils.doubleToSortableLong(value), packedValue, 0));
       values = new double[numHits];
     }
 
@@ -201,8 +424,9 @@ public abstract class FieldComparator<T> {
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      updateCompetitiveIterator(bottom);
     }
 
     @Override
@@ -233,7 +457,8 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted. 
      */
     public FloatComparator(int numHits, String field, Float missingValue) {
-      super(field, missingValue != null ? missingValue : 0.0f);
+      super(field, missingValue != null ? missingValue : 0.0f,
+          Float.BYTES, (value, packedValue) -> NumericUtils.intToSortableBytes(NumericUtils.floatToSortableInt(value), packedValue, 0));
       values = new float[numHits];
     }
     
@@ -261,8 +486,9 @@ public abstract class FieldComparator<T> {
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      updateCompetitiveIterator(bottom);
     }
 
     @Override
@@ -293,7 +519,8 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted. 
      */
     public IntComparator(int numHits, String field, Integer missingValue) {
-      super(field, missingValue != null ? missingValue : 0);
+      super(field, missingValue != null ? missingValue : 0,
+          Integer.BYTES, (value, packedValue) -> NumericUtils.intToSortableBytes(value, packedValue, 0));
       //System.out.println("IntComparator.init");
       //new Throwable().printStackTrace(System.out);
       values = new int[numHits];
@@ -323,8 +550,9 @@ public abstract class FieldComparator<T> {
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      updateCompetitiveIterator(bottom);
     }
 
     @Override
@@ -355,7 +583,8 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted. 
      */
     public LongComparator(int numHits, String field, Long missingValue) {
-      super(field, missingValue != null ? missingValue : 0L);
+      super(field, missingValue != null ? missingValue : 0L,
+          Long.BYTES, (value, packedValue) -> NumericUtils.longToSortableBytes(value, packedValue, 0));
       values = new long[numHits];
     }
 
@@ -383,8 +612,9 @@ public abstract class FieldComparator<T> {
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      updateCompetitiveIterator(bottom);
     }
 
     @Override
@@ -31,6 +31,12 @@ import org.apache.lucene.index.Term;
  * {@code FilterWeight} must provide their bulkScorer implementation
  * if required.
  *
+ * Likewise, {@code FilterWeight} does not override
+ * {@link Weight#count(LeafReaderContext)} and
+ * {@link Weight#estimateCost(LeafReaderContext)} since subclasses may match
+ * other documents than the contained weight. Subclasses that match the same
+ * documents may forward them to the contained weight.
+ *
  * @lucene.internal
  */
 public abstract class FilterWeight extends Weight {
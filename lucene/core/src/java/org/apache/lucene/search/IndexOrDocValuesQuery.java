@@ -161,6 +161,11 @@ public final class IndexOrDocValuesQuery extends Query {
         };
       }
 
+      @Override
+      public long estimateCost(LeafReaderContext context) throws IOException {
+        return indexWeight.estimateCost(context);
+      }
+
       @Override
       public Scorer scorer(LeafReaderContext context) throws IOException {
         ScorerSupplier scorerSupplier = scorerSupplier(context);
@@ -29,6 +29,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
@@ -74,6 +75,11 @@ import org.apache.lucene.util.ThreadInterruptedException;
  */
 public class IndexSearcher {
 
+  /** Default maximum number of documents that a {@link LeafSlice} may hold. */
+  public static final int MAX_DOCS_PER_SLICE = 250_000;
+  /** Default maximum number of leaves that a {@link LeafSlice} may hold. */
+  public static final int MAX_SEGMENTS_PER_SLICE = 5;
+
   private static QueryCache DEFAULT_QUERY_CACHE;
   private static QueryCachingPolicy DEFAULT_CACHING_POLICY = new UsageTrackingQueryCachingPolicy();
   static {
@@ -100,6 +106,8 @@ public class IndexSearcher {
 
   private QueryCache queryCache = DEFAULT_QUERY_CACHE;
   private QueryCachingPolicy queryCachingPolicy = DEFAULT_CACHING_POLICY;
+  private QueryProfiler queryProfiler;
+  private SliceExecutionPolicy sliceExecutionPolicy = SliceExecutionPolicy.ALWAYS_CONCURRENT;
 
   /**
    * Expert: returns a default Similarity instance.
@@ -249,19 +257,115 @@ public class IndexSearcher {
     return queryCachingPolicy;
   }
 
+  /**
+   * Set a {@link QueryProfiler} that records where time goes when executing
+   * queries, or {@code null} to disable profiling, which is the default.
+   * Profiling has a significant overhead.
+   * @see QueryProfiler
+   * @lucene.experimental
+   */
+  public void setQueryProfiler(QueryProfiler queryProfiler) {
+    this.queryProfiler = queryProfiler;
+  }
+
+  /**
+   * Return the {@link QueryProfiler} of this {@link IndexSearcher}, or
+   * {@code null} if profiling is disabled.
+   * @lucene.experimental
+   */
+  public QueryProfiler getQueryProfiler() {
+    return queryProfiler;
+  }
+
+  /**
+   * Set the {@link SliceExecutionPolicy} that decides, for each query, on how
+   * many tasks {@link #search(Query, CollectorManager)} searches the
+   * {@link #getSlices() slices} of this searcher. This has no effect if no
+   * {@link ExecutorService} was passed to the constructor. The default is
+   * {@link SliceExecutionPolicy#ALWAYS_CONCURRENT}.
+   * @lucene.experimental
+   */
+  public void setSliceExecutionPolicy(SliceExecutionPolicy sliceExecutionPolicy) {
+    this.sliceExecutionPolicy = Objects.requireNonNull(sliceExecutionPolicy);
+  }
+
+  /**
+   * Return the {@link SliceExecutionPolicy} of this {@link IndexSearcher}.
+   * @lucene.experimental
+   */
+  public SliceExecutionPolicy getSliceExecutionPolicy() {
+    return sliceExecutionPolicy;
+  }
+
   /**
    * Expert: Creates an array of leaf slices each holding a subset of the given leaves.
-   * Each {@link LeafSlice} is executed in a single thread. By default there
-   * will be one {@link LeafSlice} per leaf ({@link org.apache.lucene.index.LeafReaderContext}).
+   * Each {@link LeafSlice} is executed in a single thread. By default, consecutive
+   * leaves are grouped into slices of at most {@value #MAX_DOCS_PER_SLICE} documents
+   * and {@value #MAX_SEGMENTS_PER_SLICE} leaves, see {@link #slices(List, int, int, boolean)}.
    */
   protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
-    LeafSlice[] slices = new LeafSlice[leaves.size()];
-    for (int i = 0; i < slices.length; i++) {
-      slices[i] = new LeafSlice(leaves.get(i));
+    return slices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, false);
+  }
+
+  /**
+   * Static method to segregate {@link LeafReaderContext}s amongst multiple slices
+   * of roughly equal size. Leaves are grouped in order, so that each slice covers
+   * a contiguous range of doc IDs, and a new slice is started whenever adding the
+   * next leaf would make the current slice exceed {@code maxDocsPerSlice} documents
+   * or {@code maxSegmentsPerSlice} leaves. Leaves that have more than
+   * {@code maxDocsPerSlice} documents on their own are either put in their own
+   * slice, or, if {@code allowSegmentPartitions} is {@code true}, split into
+   * {@link LeafReaderContextPartition partitions} of consecutive doc IDs that are
+   * each searched in their own slice.
+   *
+   * @lucene.experimental
+   */
+  public static LeafSlice[] slices(List<LeafReaderContext> leaves, int maxDocsPerSlice,
+      int maxSegmentsPerSlice, boolean allowSegmentPartitions) {
+    if (maxDocsPerSlice < 1) {
+      throw new IllegalArgumentException("maxDocsPerSlice must be at least 1, got " + maxDocsPerSlice);
+    }
+    if (maxSegmentsPerSlice < 1) {
+      throw new IllegalArgumentException("maxSegmentsPerSlice must be at least 1, got " + maxSegmentsPerSlice);
     }
-    return slices;
+    final List<LeafSlice> slices = new ArrayList<>();
+    final List<LeafReaderContext> group = new ArrayList<>();
+    long docCount = 0;
+    for (LeafReaderContext ctx : leaves) {
+      final int maxDoc = ctx.reader().maxDoc();
+      if (group.isEmpty() == false
+          && (docCount + maxDoc > maxDocsPerSlice || group.size() >= maxSegmentsPerSlice)) {
+        slices.add(new LeafSlice(group.toArray(new LeafReaderContext[0])));
+        group.clear();
+        docCount = 0;
+      }
+      if (maxDoc > maxDocsPerSlice && allowSegmentPartitions) {
+        final int numPartitions = (int) ((maxDoc + (long) maxDocsPerSlice - 1) / maxDocsPerSlice);
+        for (int i = 0; i < numPartitions; ++i) {
+          final int minDocId = (int) ((long) maxDoc * i / numPartitions);
+          final int maxDocId = (int) ((long) maxDoc * (i + 1) / numPartitions);
+          slices.add(new LeafSlice(new LeafReaderContextPartition(ctx, minDocId, maxDocId)));
+        }
+      } else {
+        group.add(ctx);
+        docCount += maxDoc;
+      }
+    }
+    if (group.isEmpty() == false) {
+      slices.add(new LeafSlice(group.toArray(new LeafReaderContext[0])));
+    }
+    return slices.toArray(new LeafSlice[0]);
   }
   
+  /**
+   * Returns the leaf slices used for concurrent searching, or {@code null} if
+   * no {@link ExecutorService} was passed to the constructor.
+   * @lucene.experimental
+   */
+  public LeafSlice[] getSlices() {
+    return leafSlices;
+  }
+
   /** Return the {@link IndexReader} this searches. */
   public IndexReader getIndexReader() {
     return reader;
@@ -283,6 +387,14 @@ public class IndexSearcher {
     reader.document(docID, fieldVisitor);
   }
 
+  /**
+   * Sugar for <code>.getIndexReader().documents(docIDs, visitors)</code>
+   * @see IndexReader#documents(int[], IntFunction)
+   */
+  public void docs(int[] docIDs, IntFunction<StoredFieldVisitor> visitors) throws IOException {
+    reader.documents(docIDs, visitors);
+  }
+
   /** 
    * Sugar for <code>.getIndexReader().document(docID, fieldsToLoad)</code>
    * @see IndexReader#document(int, Set) 
@@ -319,19 +431,8 @@ public class IndexSearcher {
       }
     }
 
-    // some counts can be computed in constant time
-    if (query instanceof MatchAllDocsQuery) {
-      return reader.numDocs();
-    } else if (query instanceof TermQuery && reader.hasDeletions() == false) {
-      Term term = ((TermQuery) query).getTerm();
-      int count = 0;
-      for (LeafReaderContext leaf : reader.leaves()) {
-        count += leaf.reader().docFreq(term);
-      }
-      return count;
-    }
-
-    // general case: create a collecor and count matches
+    // create a collector and count matches, segments whose count can be
+    // computed in constant time are not collected, see Weight#count
     final CollectorManager<TotalHitCountCollector, Integer> collectorManager = new CollectorManager<TotalHitCountCollector, Integer>() {
 
       @Override
@@ -528,7 +629,8 @@ public class IndexSearcher {
   * Search all leaves using the given {@link CollectorManager}. In contrast
   * to {@link #search(Query, Collector)}, this method will use the searcher's
   * {@link ExecutorService} in order to parallelize execution of the collection
-  * on the configured {@link #leafSlices}.
+  * on the configured {@link #leafSlices}. The {@link SliceExecutionPolicy}
+  * decides how many tasks are used for each query.
   * @see CollectorManager
   * @lucene.experimental
   */
@@ -537,6 +639,8 @@ public class IndexSearcher {
       final C collector = collectorManager.newCollector();
       search(query, collector);
       return collectorManager.reduce(Collections.singletonList(collector));
+    } else if (sliceExecutionPolicy != SliceExecutionPolicy.ALWAYS_CONCURRENT && leafSlices.length > 1) {
+      return search(query, collectorManager, sliceExecutionPolicy);
     } else {
       final List<C> collectors = new ArrayList<>(leafSlices.length);
       ScoreMode scoreMode = null;
@@ -557,12 +661,16 @@ public class IndexSearcher {
       final Weight weight = createNormalizedWeight(query, scoreMode);
       final List<Future<C>> topDocsFutures = new ArrayList<>(leafSlices.length);
       for (int i = 0; i < leafSlices.length; ++i) {
-        final LeafReaderContext[] leaves = leafSlices[i].leaves;
+        final LeafSlice slice = leafSlices[i];
         final C collector = collectors.get(i);
         topDocsFutures.add(executor.submit(new Callable<C>() {
           @Override
           public C call() throws Exception {
-            search(Arrays.asList(leaves), weight, collector);
+            if (slice.partitions == null) {
+              search(Arrays.asList(slice.leaves), weight, collector);
+            } else {
+              search(slice.partitions, weight, collector);
+            }
             return collector;
           }
         }));
@@ -583,6 +691,115 @@ public class IndexSearcher {
     }
   }
 
+  private <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager,
+      SliceExecutionPolicy sliceExecutionPolicy) throws IOException {
+    final C firstCollector = collectorManager.newCollector();
+    final ScoreMode scoreMode = firstCollector.scoreMode();
+    final Weight weight = createNormalizedWeight(query, scoreMode);
+
+    long cost = -1;
+    if (sliceExecutionPolicy.needsCost()) {
+      // pulling scorer suppliers would do work, eg. rewriting multi-term queries
+      // or visiting points, that the search would then do again: only use cheap
+      // estimates and fall back to maxDoc for weights that can't provide one
+      cost = 0;
+      for (LeafReaderContext ctx : leafContexts) {
+        final long leafCost = weight.estimateCost(ctx);
+        cost += leafCost == -1 ? ctx.reader().maxDoc() : leafCost;
+      }
+    }
+
+    final int numTasks = sliceExecutionPolicy.numTasks(weight.getQuery(), cost, leafSlices.length);
+    if (numTasks < 1 || numTasks > leafSlices.length) {
+      throw new IllegalStateException("SliceExecutionPolicy must return a number of tasks between 1 and "
+          + leafSlices.length + ", got " + numTasks);
+    }
+    if (numTasks == 1) {
+      // not worth the overhead of going through the executor
+      search(leafContexts, weight, firstCollector);
+      return collectorManager.reduce(Collections.singletonList(firstCollector));
+    }
+
+    final List<C> collectors = new ArrayList<>(numTasks);
+    final List<Future<C>> topDocsFutures = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; ++i) {
+      final C collector = i == 0 ? firstCollector : collectorManager.newCollector();
+      if (collector.scoreMode() != scoreMode) {
+        throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
+      }
+      collectors.add(collector);
+      // group consecutive slices so that each task covers a contiguous range of doc IDs
+      final int from = (int) ((long) leafSlices.length * i / numTasks);
+      final int to = (int) ((long) leafSlices.length * (i + 1) / numTasks);
+      final LeafSlice[] group = Arrays.copyOfRange(leafSlices, from, to);
+      topDocsFutures.add(executor.submit(new Callable<C>() {
+        @Override
+        public C call() throws Exception {
+          final LeafReaderContextPartition[] partitions = partitions(group);
+          if (partitions == null) {
+            search(leaves(group), weight, collector);
+          } else {
+            search(partitions, weight, collector);
+          }
+          return collector;
+        }
+      }));
+    }
+
+    for (Future<C> future : topDocsFutures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    return collectorManager.reduce(collectors);
+  }
+
+  /** Return the leaves of the given slices. */
+  private static List<LeafReaderContext> leaves(LeafSlice[] slices) {
+    final List<LeafReaderContext> leaves = new ArrayList<>();
+    for (LeafSlice slice : slices) {
+      leaves.addAll(Arrays.asList(slice.leaves));
+    }
+    return leaves;
+  }
+
+  /** Return the partitions that cover the given slices, or {@code null} if
+   *  none of them is partitioned. Partitions of the same leaf that follow
+   *  each other are merged so that a collector never sees a leaf twice. */
+  private static LeafReaderContextPartition[] partitions(LeafSlice[] slices) {
+    boolean partitioned = false;
+    for (LeafSlice slice : slices) {
+      partitioned |= slice.partitions != null;
+    }
+    if (partitioned == false) {
+      return null;
+    }
+    final List<LeafReaderContextPartition> merged = new ArrayList<>();
+    for (LeafSlice slice : slices) {
+      if (slice.partitions == null) {
+        for (LeafReaderContext ctx : slice.leaves) {
+          merged.add(new LeafReaderContextPartition(ctx, 0, ctx.reader().maxDoc()));
+        }
+        continue;
+      }
+      for (LeafReaderContextPartition partition : slice.partitions) {
+        final int last = merged.size() - 1;
+        if (last >= 0 && merged.get(last).ctx == partition.ctx) {
+          assert merged.get(last).maxDocId == partition.minDocId;
+          merged.set(last, new LeafReaderContextPartition(partition.ctx, merged.get(last).minDocId, partition.maxDocId));
+        } else {
+          merged.add(partition);
+        }
+      }
+    }
+    return merged.toArray(new LeafReaderContextPartition[0]);
+  }
+
   /**
    * Lower-level search API.
    * 
@@ -605,6 +822,13 @@ public class IndexSearcher {
   protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector)
       throws IOException {
 
+    final QueryProfiler queryProfiler = this.queryProfiler;
+    if (queryProfiler != null) {
+      collector = queryProfiler.wrapCollector(collector);
+    }
+
+    collector.setWeight(weight);
+
     // TODO: should we make this
     // threaded...?  the Collector could be sync'd?
     // always use single thread:
@@ -629,16 +853,99 @@ public class IndexSearcher {
     }
   }
 
+  /**
+   * Lower-level search API.
+   *
+   * <p>
+   * Same as {@link #search(List, Weight, Collector)} but only collects the
+   * documents whose ID is within the range of each of the given partitions.
+   * Partitions are expected to be in doc ID order and {@link Collector#getLeafCollector}
+   * is called once per partition. The weight that is passed to
+   * {@link Collector#setWeight} only reports the {@link Weight#count count} of
+   * a leaf to the partition that starts at the first document of the leaf, so
+   * that it is added once even if the leaf is split across several collectors.
+   *
+   * @param partitions
+   *          the partitions of the searchers leaves to execute the searches on
+   * @param weight
+   *          to match documents
+   * @param collector
+   *          to receive hits
+   * @throws BooleanQuery.TooManyClauses If a query would exceed
+   *         {@link BooleanQuery#getMaxClauseCount()} clauses.
+   * @lucene.experimental
+   */
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector)
+      throws IOException {
+    final QueryProfiler queryProfiler = this.queryProfiler;
+    if (queryProfiler != null) {
+      collector = queryProfiler.wrapCollector(collector);
+    }
+
+    final PartitionCountWeight countWeight = new PartitionCountWeight(weight);
+    collector.setWeight(countWeight);
+
+    for (LeafReaderContextPartition partition : partitions) {
+      final LeafReaderContext ctx = partition.ctx;
+      countWeight.partition = partition;
+      final LeafCollector leafCollector;
+      try {
+        leafCollector = collector.getLeafCollector(ctx);
+      } catch (CollectionTerminatedException e) {
+        // there is no doc of interest in this reader context
+        // continue with the following partition
+        continue;
+      }
+      BulkScorer scorer = weight.bulkScorer(ctx);
+      if (scorer != null) {
+        try {
+          scorer.score(leafCollector, ctx.reader().getLiveDocs(), partition.minDocId, partition.maxDocId);
+        } catch (CollectionTerminatedException e) {
+          // collection was terminated prematurely
+          // continue with the following partition
+        }
+      }
+    }
+  }
+
+  /** Only reports the count of a leaf to its partition that starts at doc 0:
+   *  the count covers the whole leaf, and other partitions of the same leaf
+   *  have no hits left to count. */
+  static class PartitionCountWeight extends FilterWeight {
+
+    LeafReaderContextPartition partition;
+
+    PartitionCountWeight(Weight weight) {
+      super(weight);
+    }
+
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      assert partition != null && partition.ctx == context;
+      final int count = in.count(context);
+      if (count == -1 || partition.minDocId == 0) {
+        return count;
+      }
+      return 0;
+    }
+
+  }
+
   /** Expert: called to re-write queries into primitive queries.
    * @throws BooleanQuery.TooManyClauses If a query would exceed 
    *         {@link BooleanQuery#getMaxClauseCount()} clauses.
    */
   public Query rewrite(Query original) throws IOException {
+    final QueryProfiler queryProfiler = this.queryProfiler;
+    final long start = queryProfiler == null ? 0L : System.nanoTime();
     Query query = original;
     for (Query rewrittenQuery = query.rewrite(reader); rewrittenQuery != query;
          rewrittenQuery = query.rewrite(reader)) {
       query = rewrittenQuery;
     }
+    if (queryProfiler != null) {
+      queryProfiler.recordRewrite(System.nanoTime() - start);
+    }
     return query;
   }
 
@@ -695,12 +1002,26 @@ public class IndexSearcher {
    * @lucene.experimental
    */
   public Weight createWeight(Query query, ScoreMode scoreMode, float boost) throws IOException {
-    final QueryCache queryCache = this.queryCache;
-    Weight weight = query.createWeight(this, scoreMode, boost);
-    if (scoreMode.needsScores() == false && queryCache != null) {
-      weight = queryCache.doCache(weight, queryCachingPolicy);
+    final QueryProfiler queryProfiler = this.queryProfiler;
+    final long start = queryProfiler == null ? 0L : System.nanoTime();
+    final QueryProfile previousProfile = queryProfiler == null ? null : queryProfiler.startCreateWeight(query);
+    boolean success = false;
+    try {
+      final QueryCache queryCache = this.queryCache;
+      Weight weight = query.createWeight(this, scoreMode, boost);
+      if (scoreMode.needsScores() == false && queryCache != null) {
+        weight = queryCache.doCache(weight, queryCachingPolicy);
+      }
+      if (queryProfiler != null) {
+        weight = queryProfiler.endCreateWeight(weight, previousProfile, start);
+      }
+      success = true;
+      return weight;
+    } finally {
+      if (success == false && queryProfiler != null) {
+        queryProfiler.abortCreateWeight(previousProfile);
+      }
     }
-    return weight;
   }
 
   /**
@@ -720,9 +1041,69 @@ public class IndexSearcher {
    */
   public static class LeafSlice {
     final LeafReaderContext[] leaves;
-    
+    // null if this slice covers whole leaves
+    final LeafReaderContextPartition[] partitions;
+
+    /** Return the leaves that this slice searches. */
+    public List<LeafReaderContext> getLeaves() {
+      return Collections.unmodifiableList(Arrays.asList(leaves));
+    }
+
+    /**
+     * Return the partitions that this slice searches, or {@code null} if this
+     * slice searches all documents of its {@link #getLeaves() leaves}.
+     */
+    public List<LeafReaderContextPartition> getPartitions() {
+      return partitions == null ? null : Collections.unmodifiableList(Arrays.asList(partitions));
+    }
+
+    /** Create a slice that searches the given leaves entirely. */
     public LeafSlice(LeafReaderContext... leaves) {
       this.leaves = leaves;
+      this.partitions = null;
+    }
+
+    /** Create a slice that only searches the given partitions of leaves. */
+    public LeafSlice(LeafReaderContextPartition... partitions) {
+      final List<LeafReaderContext> leaves = new ArrayList<>();
+      for (LeafReaderContextPartition partition : partitions) {
+        if (leaves.isEmpty() || leaves.get(leaves.size() - 1) != partition.ctx) {
+          leaves.add(partition.ctx);
+        }
+      }
+      this.leaves = leaves.toArray(new LeafReaderContext[0]);
+      this.partitions = partitions;
+    }
+  }
+
+  /**
+   * A range of doc IDs of a {@link LeafReaderContext}, which allows a single
+   * leaf to be searched by multiple threads concurrently.
+   *
+   * @lucene.experimental
+   */
+  public static final class LeafReaderContextPartition {
+    /** The leaf that this partition is a part of. */
+    public final LeafReaderContext ctx;
+    /** The first doc ID of this partition, inclusive. */
+    public final int minDocId;
+    /** The last doc ID of this partition, exclusive. */
+    public final int maxDocId;
+
+    /** Sole constructor. */
+    public LeafReaderContextPartition(LeafReaderContext ctx, int minDocId, int maxDocId) {
+      if (minDocId < 0 || minDocId > maxDocId || maxDocId > ctx.reader().maxDoc()) {
+        throw new IllegalArgumentException("Invalid doc ID range [" + minDocId + ", " + maxDocId
+            + ") for a leaf with maxDoc=" + ctx.reader().maxDoc());
+      }
+      this.ctx = ctx;
+      this.minDocId = minDocId;
+      this.maxDocId = maxDocId;
+    }
+
+    @Override
+    public String toString() {
+      return "LeafReaderContextPartition(ord=" + ctx.ord + ", minDocId=" + minDocId + ", maxDocId=" + maxDocId + ")";
     }
   }
 
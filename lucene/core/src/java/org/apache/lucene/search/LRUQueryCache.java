@@ -678,6 +678,17 @@ public class LRUQueryCache implements QueryCache, Accountable {
       in.extractTerms(terms);
     }
 
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      // counting is cheaper than caching when the wrapped weight supports it
+      return in.count(context);
+    }
+
+    @Override
+    public long estimateCost(LeafReaderContext context) throws IOException {
+      return in.estimateCost(context);
+    }
+
     private boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
       // The worst-case (dense) is a bit set which needs one bit per document
       final long worstCaseRamUsage = maxDoc / 8;
@@ -93,4 +93,42 @@ public interface LeafCollector {
    */
   void collect(int doc) throws IOException;
 
+  /**
+   * Bulk version of {@link #collect(int)}, called with the first {@code size}
+   * doc IDs of {@code docs}, in increasing order, in order to save a method
+   * call per hit. The array belongs to the caller: it may be reused after this
+   * method returns and must not be modified. {@link BulkScorer}s only call
+   * this method if {@link #acceptsBatches()} returns {@code true}. The default
+   * implementation calls {@link #collect(int)} for every document.
+   */
+  default void collect(int[] docs, int size) throws IOException {
+    for (int i = 0; i < size; ++i) {
+      collect(docs[i]);
+    }
+  }
+
+  /**
+   * Return whether hits may be passed to {@link #collect(int[], int)} in
+   * batches. Collectors that return {@code true} must not use the
+   * {@link Scorer} passed to {@link #setScorer(Scorer)} when collecting
+   * batches, since it is not positioned on the collected documents. This is
+   * typically useful for collectors that do cheap work per hit and don't need
+   * scores, like counting. The default implementation returns {@code false}.
+   */
+  default boolean acceptsBatches() {
+    return false;
+  }
+
+  /**
+   * Optionally returns an iterator over the documents that may be
+   * competitive, so that the {@link BulkScorer} can skip the others. The
+   * returned iterator is advanced alongside the query, and documents it
+   * doesn't match are not passed to {@link #collect(int)}. The default
+   * implementation returns {@code null}, which means that all matches are
+   * collected.
+   */
+  default DocIdSetIterator competitiveIterator() throws IOException {
+    return null;
+  }
+
 }
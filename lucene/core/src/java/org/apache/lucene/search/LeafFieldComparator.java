@@ -116,4 +116,25 @@ public interface LeafFieldComparator {
    * obtain the current hit's score, if necessary. */
   void setScorer(Scorer scorer) throws IOException;
 
+  /**
+   * Informs this comparator that the queue is full and that the total hit
+   * count doesn't need to be tracked, so that it may start skipping
+   * documents that can't compete with the bottom of the queue, see
+   * {@link #competitiveIterator()}. This is only called on the primary
+   * comparator of the sort. The default implementation does nothing.
+   */
+  default void setCanSkipNonCompetitive() throws IOException {}
+
+  /**
+   * Optionally returns an iterator over the documents of the current segment
+   * that may be competitive. The iterator is consumed alongside the query and
+   * may start skipping documents after {@link #setCanSkipNonCompetitive()} is
+   * called, each time {@link #setBottom} makes the bottom of the queue more
+   * restrictive. The default implementation returns {@code null}, which means
+   * that all documents may be competitive.
+   */
+  default DocIdSetIterator competitiveIterator() throws IOException {
+    return null;
+  }
+
 }
@@ -45,6 +45,11 @@ public final class MatchAllDocsQuery extends Query {
         return true;
       }
 
+      @Override
+      public int count(LeafReaderContext context) throws IOException {
+        return context.reader().numDocs();
+      }
+
       @Override
       public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
         final float score = score();
@@ -56,10 +61,43 @@ public final class MatchAllDocsQuery extends Query {
             FakeScorer scorer = new FakeScorer();
             scorer.score = score;
             collector.setScorer(scorer);
-            for (int doc = min; doc < max; ++doc) {
-              scorer.doc = doc;
-              if (acceptDocs == null || acceptDocs.get(doc)) {
-                collector.collect(doc);
+            final DocIdSetIterator competitiveIterator = collector.competitiveIterator();
+            if (competitiveIterator == null && collector.acceptsBatches()) {
+              final int[] batch = new int[DefaultBulkScorer.BATCH_SIZE];
+              int size = 0;
+              for (int doc = min; doc < max; ++doc) {
+                if (acceptDocs == null || acceptDocs.get(doc)) {
+                  batch[size++] = doc;
+                  if (size == batch.length) {
+                    scorer.doc = doc;
+                    collector.collect(batch, size);
+                    size = 0;
+                  }
+                }
+              }
+              if (size > 0) {
+                scorer.doc = batch[size - 1];
+                collector.collect(batch, size);
+              }
+            } else if (competitiveIterator == null) {
+              for (int doc = min; doc < max; ++doc) {
+                scorer.doc = doc;
+                if (acceptDocs == null || acceptDocs.get(doc)) {
+                  collector.collect(doc);
+                }
+              }
+            } else {
+              // all documents match, so only the competitive ones need to be collected
+              int doc = competitiveIterator.docID();
+              if (doc < min) {
+                doc = competitiveIterator.advance(min);
+              }
+              while (doc < max) {
+                scorer.doc = doc;
+                if (acceptDocs == null || acceptDocs.get(doc)) {
+                  collector.collect(doc);
+                }
+                doc = competitiveIterator.nextDoc();
               }
             }
             return max == maxDoc ? DocIdSetIterator.NO_MORE_DOCS : max;
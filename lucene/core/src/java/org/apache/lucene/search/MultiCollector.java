@@ -115,6 +115,13 @@ public class MultiCollector implements Collector {
     return scoreMode;
   }
 
+  @Override
+  public void setWeight(Weight weight) {
+    for (Collector collector : collectors) {
+      collector.setWeight(weight);
+    }
+  }
+
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
     final List<LeafCollector> leafCollectors = new ArrayList<>();
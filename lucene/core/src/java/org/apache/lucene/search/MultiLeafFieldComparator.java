@@ -89,4 +89,16 @@ final class MultiLeafFieldComparator implements LeafFieldComparator {
     }
   }
 
+  @Override
+  public void setCanSkipNonCompetitive() throws IOException {
+    // only the primary sort may skip documents, since documents that are tied
+    // on the primary sort may still be competitive on the next ones
+    firstComparator.setCanSkipNonCompetitive();
+  }
+
+  @Override
+  public DocIdSetIterator competitiveIterator() throws IOException {
+    return firstComparator.competitiveIterator();
+  }
+
 }
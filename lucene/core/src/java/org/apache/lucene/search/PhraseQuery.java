@@ -453,6 +453,26 @@ public class PhraseQuery extends Query {
       return reader.docFreq(term) == 0;
     }
 
+    @Override
+    public long estimateCost(LeafReaderContext context) throws IOException {
+      final Terms fieldTerms = context.reader().terms(field);
+      if (fieldTerms == null) {
+        return 0;
+      }
+      // a document that contains the phrase contains all of its terms
+      final TermsEnum te = fieldTerms.iterator();
+      long cost = Long.MAX_VALUE;
+      for (int i = 0; i < terms.length; i++) {
+        final TermState state = states[i].get(context);
+        if (state == null) {
+          return 0;
+        }
+        te.seekExact(terms[i].bytes(), state);
+        cost = Math.min(cost, te.docFreq());
+      }
+      return cost;
+    }
+
     @Override
     public Explanation explain(LeafReaderContext context, int doc) throws IOException {
       Scorer scorer = scorer(context);
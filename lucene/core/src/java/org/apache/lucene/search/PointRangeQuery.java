@@ -240,10 +240,20 @@ public abstract class PointRangeQuery extends Query {
           throw new IllegalArgumentException("field=\"" + field + "\" was indexed with bytesPerDim=" + values.getBytesPerDimension() + " but this query has bytesPerDim=" + bytesPerDim);
         }
 
+        final byte[] fieldPackedLower = values.getMinPackedValue();
+        final byte[] fieldPackedUpper = values.getMaxPackedValue();
+        for (int i = 0; i < numDims; ++i) {
+          int offset = i * bytesPerDim;
+          if (StringHelper.compare(bytesPerDim, lowerPoint, offset, fieldPackedUpper, offset) > 0
+              || StringHelper.compare(bytesPerDim, upperPoint, offset, fieldPackedLower, offset) < 0) {
+            // the range of values of this segment is disjoint from the query:
+            // skip it without allocating anything
+            return null;
+          }
+        }
+
         boolean allDocsMatch;
         if (values.getDocCount() == reader.maxDoc()) {
-          final byte[] fieldPackedLower = values.getMinPackedValue();
-          final byte[] fieldPackedUpper = values.getMaxPackedValue();
           allDocsMatch = true;
           for (int i = 0; i < numDims; ++i) {
             int offset = i * bytesPerDim;
@@ -322,6 +332,55 @@ public abstract class PointRangeQuery extends Query {
         return scorerSupplier.get(Long.MAX_VALUE);
       }
 
+      @Override
+      public long estimateCost(LeafReaderContext context) throws IOException {
+        // the scorer supplier only visits points when the scorer is pulled, and
+        // estimates its cost from the inner nodes of the tree
+        final ScorerSupplier scorerSupplier = scorerSupplier(context);
+        if (scorerSupplier == null) {
+          return 0;
+        }
+        // the estimate counts points and may exceed the number of documents on small trees
+        return Math.min(scorerSupplier.cost(), context.reader().getPointValues(field).getDocCount());
+      }
+
+      @Override
+      public int count(LeafReaderContext context) throws IOException {
+        LeafReader reader = context.reader();
+
+        PointValues values = reader.getPointValues(field);
+        if (values == null) {
+          // No docs in this segment/field indexed any points
+          return 0;
+        }
+        if (values.getNumDimensions() != numDims || bytesPerDim != values.getBytesPerDimension()) {
+          // let the scorer report the misconfiguration
+          return -1;
+        }
+
+        final byte[] fieldPackedLower = values.getMinPackedValue();
+        final byte[] fieldPackedUpper = values.getMaxPackedValue();
+        boolean allPointsMatch = true;
+        for (int i = 0; i < numDims; ++i) {
+          int offset = i * bytesPerDim;
+          if (StringHelper.compare(bytesPerDim, lowerPoint, offset, fieldPackedUpper, offset) > 0
+              || StringHelper.compare(bytesPerDim, upperPoint, offset, fieldPackedLower, offset) < 0) {
+            // the range of values of this segment is disjoint from the query
+            return 0;
+          }
+          if (StringHelper.compare(bytesPerDim, lowerPoint, offset, fieldPackedLower, offset) > 0
+              || StringHelper.compare(bytesPerDim, upperPoint, offset, fieldPackedUpper, offset) < 0) {
+            allPointsMatch = false;
+          }
+        }
+
+        if (allPointsMatch && reader.hasDeletions() == false) {
+          // every document that has a point matches
+          return values.getDocCount();
+        }
+        return -1;
+      }
+
       @Override
       public boolean isCacheable(LeafReaderContext ctx) {
         return true;
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.lucene.search.QueryProfile.Operation;
+
+/**
+ * A {@link Scorer} that records calls to its iterators and to
+ * {@link #score()} on a {@link QueryProfile}.
+ */
+final class ProfileScorer extends Scorer {
+
+  private final Scorer in;
+  private final QueryProfile profile;
+  private final QueryProfiler profiler;
+  private final DocIdSetIterator iterator;
+
+  ProfileScorer(ProfileWeight weight, Scorer in, QueryProfile profile, QueryProfiler profiler) {
+    super(weight);
+    this.in = in;
+    this.profile = profile;
+    this.profiler = profiler;
+    this.iterator = new ProfileIterator(in.iterator());
+  }
+
+  @Override
+  public int docID() {
+    return in.docID();
+  }
+
+  @Override
+  public float score() throws IOException {
+    final QueryProfile previous = profiler.enter(profile);
+    final long start = System.nanoTime();
+    try {
+      return in.score();
+    } finally {
+      profile.record(Operation.SCORE, System.nanoTime() - start);
+      profiler.exit(previous);
+    }
+  }
+
+  @Override
+  public Collection<ChildScorer> getChildren() throws IOException {
+    return in.getChildren();
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) {
+    in.setMinCompetitiveScore(minScore);
+  }
+
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    return in.advanceShallow(target);
+  }
+
+  @Override
+  public float getMaxScore(int upTo) throws IOException {
+    return in.getMaxScore(upTo);
+  }
+
+  @Override
+  public DocIdSetIterator iterator() {
+    return iterator;
+  }
+
+  @Override
+  public TwoPhaseIterator twoPhaseIterator() {
+    final TwoPhaseIterator twoPhase = in.twoPhaseIterator();
+    if (twoPhase == null) {
+      return null;
+    }
+    return new TwoPhaseIterator(new ProfileIterator(twoPhase.approximation())) {
+      @Override
+      public boolean matches() throws IOException {
+        final QueryProfile previous = profiler.enter(profile);
+        final long start = System.nanoTime();
+        try {
+          return twoPhase.matches();
+        } finally {
+          profile.record(Operation.MATCH, System.nanoTime() - start);
+          profiler.exit(previous);
+        }
+      }
+
+      @Override
+      public float matchCost() {
+        return twoPhase.matchCost();
+      }
+    };
+  }
+
+  private final class ProfileIterator extends DocIdSetIterator {
+
+    private final DocIdSetIterator in;
+
+    ProfileIterator(DocIdSetIterator in) {
+      this.in = in;
+    }
+
+    @Override
+    public int docID() {
+      return in.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      final QueryProfile previous = profiler.enter(profile);
+      final long start = System.nanoTime();
+      try {
+        return in.nextDoc();
+      } finally {
+        profile.record(Operation.NEXT_DOC, System.nanoTime() - start);
+        profiler.exit(previous);
+      }
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      final QueryProfile previous = profiler.enter(profile);
+      final long start = System.nanoTime();
+      try {
+        return in.advance(target);
+      } finally {
+        profile.record(Operation.ADVANCE, System.nanoTime() - start);
+        profiler.exit(previous);
+      }
+    }
+
+    @Override
+    public long cost() {
+      return in.cost();
+    }
+
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.QueryProfile.Operation;
+
+/**
+ * A {@link Weight} that records the creation of {@link Scorer}s on a
+ * {@link QueryProfile} and wraps them in order to record how they are used.
+ * It doesn't override {@link #bulkScorer} so that scoring goes through the
+ * wrapped {@link Scorer}.
+ */
+final class ProfileWeight extends Weight {
+
+  private final Weight in;
+  private final QueryProfile profile;
+  private final QueryProfiler profiler;
+
+  ProfileWeight(Weight in, QueryProfile profile, QueryProfiler profiler) {
+    super(in.getQuery());
+    this.in = in;
+    this.profile = profile;
+    this.profiler = profiler;
+  }
+
+  @Override
+  public void extractTerms(Set<Term> terms) {
+    in.extractTerms(terms);
+  }
+
+  @Override
+  public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+    return in.explain(context, doc);
+  }
+
+  @Override
+  public Scorer scorer(LeafReaderContext context) throws IOException {
+    final ScorerSupplier supplier = scorerSupplier(context);
+    if (supplier == null) {
+      return null;
+    }
+    return supplier.get(Long.MAX_VALUE);
+  }
+
+  @Override
+  public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+    final QueryProfile previous = profiler.enter(profile);
+    final long start = System.nanoTime();
+    final ScorerSupplier supplier;
+    try {
+      supplier = in.scorerSupplier(context);
+    } finally {
+      profile.record(Operation.BUILD_SCORER, System.nanoTime() - start);
+      profiler.exit(previous);
+    }
+    if (supplier == null) {
+      return null;
+    }
+    return new ScorerSupplier() {
+      @Override
+      public Scorer get(long leadCost) throws IOException {
+        final QueryProfile previous = profiler.enter(profile);
+        final long start = System.nanoTime();
+        try {
+          return new ProfileScorer(ProfileWeight.this, supplier.get(leadCost), profile, profiler);
+        } finally {
+          // the call to scorerSupplier already counted
+          profile.addTime(Operation.BUILD_SCORER, System.nanoTime() - start);
+          profiler.exit(previous);
+        }
+      }
+
+      @Override
+      public long cost() {
+        return supplier.cost();
+      }
+    };
+  }
+
+  @Override
+  public boolean isCacheable(LeafReaderContext ctx) {
+    return in.isCacheable(ctx);
+  }
+
+  @Override
+  public int count(LeafReaderContext context) throws IOException {
+    return in.count(context);
+  }
+
+  @Override
+  public long estimateCost(LeafReaderContext context) throws IOException {
+    return in.estimateCost(context);
+  }
+
+}
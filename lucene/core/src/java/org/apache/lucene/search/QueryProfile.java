@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expert: Describes the cost of executing a {@link Query}, as recorded by a
+ * {@link QueryProfiler}. Like {@link Explanation}, profiles form a tree, with
+ * one node per {@link Weight} that the query created, whose children are the
+ * profiles of sub queries. Every node records how many times, and for how
+ * long, each {@link Operation} was performed, as well as the number of bytes
+ * read from the index while it was running. Times and bytes include those of
+ * children, since for instance advancing a conjunction advances its clauses.
+ *
+ * @lucene.experimental
+ */
+public final class QueryProfile {
+
+  /** An operation whose count and time are recorded. */
+  public enum Operation {
+    /** {@link IndexSearcher#createWeight}, which includes term lookups for the statistics of term queries. */
+    CREATE_WEIGHT,
+    /** Creation of a {@link Scorer} for a segment, which includes term lookups, counted once per segment. */
+    BUILD_SCORER,
+    /** {@link DocIdSetIterator#nextDoc()}. */
+    NEXT_DOC,
+    /** {@link DocIdSetIterator#advance(int)}. */
+    ADVANCE,
+    /** {@link TwoPhaseIterator#matches()}. */
+    MATCH,
+    /** {@link Scorer#score()}. */
+    SCORE,
+    /** {@link LeafCollector#collect(int)} and {@link LeafCollector#collect(int[], int)}, counted once per hit, only recorded on the profile of the collector. */
+    COLLECT
+  }
+
+  private static final Operation[] OPERATIONS = Operation.values();
+
+  private final Query query;
+  private final String description;
+  private final List<QueryProfile> children = Collections.synchronizedList(new ArrayList<>());
+  private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+  private final LongAdder[] timesNanos = new LongAdder[OPERATIONS.length];
+  private final LongAdder bytesRead = new LongAdder();
+
+  QueryProfile(Query query, String description) {
+    this.query = query;
+    this.description = description;
+    for (int i = 0; i < OPERATIONS.length; ++i) {
+      counts[i] = new LongAdder();
+      timesNanos[i] = new LongAdder();
+    }
+  }
+
+  /** The query that this profile describes, or {@code null} for the profile of a collector. */
+  public Query getQuery() {
+    return query;
+  }
+
+  /** A description of this profile node. */
+  public String getDescription() {
+    return description;
+  }
+
+  /** The profiles of the sub queries. */
+  public List<QueryProfile> getChildren() {
+    synchronized (children) {
+      return Collections.unmodifiableList(new ArrayList<>(children));
+    }
+  }
+
+  /** How many times the given operation has been performed. */
+  public long getCount(Operation operation) {
+    return counts[operation.ordinal()].sum();
+  }
+
+  /** How long the given operation took in total, in nanoseconds. */
+  public long getTimeNanos(Operation operation) {
+    return timesNanos[operation.ordinal()].sum();
+  }
+
+  /** How long all operations took in total, in nanoseconds. */
+  public long getTotalTimeNanos() {
+    long total = 0;
+    for (LongAdder time : timesNanos) {
+      total += time.sum();
+    }
+    return total;
+  }
+
+  /**
+   * The number of bytes that have been read from the index while operations
+   * of this node were running. This is only recorded for readers that have been
+   * opened on a directory wrapped with {@link QueryProfiler#wrapDirectory}.
+   */
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  void addChild(QueryProfile child) {
+    children.add(child);
+  }
+
+  void record(Operation operation, long timeNanos) {
+    counts[operation.ordinal()].increment();
+    timesNanos[operation.ordinal()].add(timeNanos);
+  }
+
+  void record(Operation operation, int count, long timeNanos) {
+    counts[operation.ordinal()].add(count);
+    timesNanos[operation.ordinal()].add(timeNanos);
+  }
+
+  void addTime(Operation operation, long timeNanos) {
+    timesNanos[operation.ordinal()].add(timeNanos);
+  }
+
+  void addBytesRead(long numBytes) {
+    bytesRead.add(numBytes);
+  }
+
+  private String getSummary() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(description).append(" [total=").append(formatNanos(getTotalTimeNanos()))
+        .append(", bytesRead=").append(getBytesRead()).append(']');
+    for (Operation operation : OPERATIONS) {
+      final long count = getCount(operation);
+      if (count > 0) {
+        sb.append(' ').append(operation.name().toLowerCase(Locale.ROOT)).append('=')
+            .append(formatNanos(getTimeNanos(operation))).append('/').append(count);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String formatNanos(long nanos) {
+    return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000d);
+  }
+
+  private String toString(int depth) {
+    final StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      buffer.append("  ");
+    }
+    buffer.append(getSummary());
+    buffer.append("\n");
+    for (QueryProfile child : getChildren()) {
+      buffer.append(child.toString(depth + 1));
+    }
+    return buffer.toString();
+  }
+
+  /** Render the profile as a tree, with one line per node, and for every
+   *  operation that has been performed its total time and its count. */
+  @Override
+  public String toString() {
+    return toString(0);
+  }
+
+}
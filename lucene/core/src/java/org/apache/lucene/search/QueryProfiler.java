@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.QueryProfile.Operation;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+
+/**
+ * Expert: Records where time goes when executing queries. Set it on an
+ * {@link IndexSearcher} with {@link IndexSearcher#setQueryProfiler} and every
+ * {@link Weight} that the searcher creates gets wrapped so that its
+ * {@link Scorer}s and iterators record how many times, and for how long,
+ * they are called. Results are exposed as a tree of {@link QueryProfile}s
+ * that follows the structure of the query:
+ * <pre class="prettyprint">
+ *   QueryProfiler profiler = new QueryProfiler();
+ *   searcher.setQueryProfiler(profiler);
+ *   searcher.search(query, 10);
+ *   System.out.println(profiler.getProfiles().get(0));
+ * </pre>
+ * <p>
+ * In order to also record the number of bytes that each query reads from the
+ * index, readers must be opened on a directory that has been wrapped with
+ * {@link #wrapDirectory(Directory)}.
+ * <p>
+ * Profiling has a significant overhead, and {@link BulkScorer}s are not used
+ * when profiling, so absolute numbers are higher than without profiling and
+ * should rather be used to compare clauses with each other. Profiles of a
+ * query can be recorded while it runs concurrently on several threads, but a
+ * profiler should only be used for one query at a time.
+ *
+ * @lucene.experimental
+ */
+public final class QueryProfiler {
+
+  private final List<QueryProfile> profiles = Collections.synchronizedList(new ArrayList<>());
+  private final QueryProfile collectorProfile = new QueryProfile(null, "collector");
+  private final LongAdder rewriteTimeNanos = new LongAdder();
+  // the profile of the query that is being executed by the current thread
+  private final ThreadLocal<QueryProfile> current = new ThreadLocal<>();
+  private volatile boolean trackBytesRead;
+
+  /** Sole constructor. */
+  public QueryProfiler() {}
+
+  /**
+   * Return the profiles of the top-level queries that have been executed, in
+   * the order in which their weight was created.
+   */
+  public List<QueryProfile> getProfiles() {
+    synchronized (profiles) {
+      return Collections.unmodifiableList(new ArrayList<>(profiles));
+    }
+  }
+
+  /**
+   * Return the profile of collectors, which records collected hits, whether
+   * they are passed to {@link LeafCollector#collect(int)} or in batches to
+   * {@link LeafCollector#collect(int[], int)}. The time of collection includes the
+   * time that collectors spend computing scores.
+   */
+  public QueryProfile getCollectorProfile() {
+    return collectorProfile;
+  }
+
+  /** Return the total time spent rewriting queries, in nanoseconds. */
+  public long getRewriteTimeNanos() {
+    return rewriteTimeNanos.sum();
+  }
+
+  /**
+   * Wrap the given directory so that bytes that are read from it while a query
+   * is executing are recorded in its {@link QueryProfile}. This only works
+   * for readers that are opened on the returned directory.
+   */
+  public Directory wrapDirectory(Directory in) {
+    trackBytesRead = true;
+    return new ProfilingDirectory(in, this);
+  }
+
+  void recordRewrite(long timeNanos) {
+    rewriteTimeNanos.add(timeNanos);
+  }
+
+  /**
+   * Create the profile of a query whose weight is about to be created, and
+   * make it the current profile. Returns the previous current profile.
+   */
+  QueryProfile startCreateWeight(Query query) {
+    final QueryProfile parent = current.get();
+    final QueryProfile profile = new QueryProfile(query, query.getClass().getSimpleName() + " " + query);
+    if (parent == null) {
+      profiles.add(profile);
+    } else {
+      parent.addChild(profile);
+    }
+    current.set(profile);
+    return parent;
+  }
+
+  /** Wrap the weight of the current profile, and restore the previous profile. */
+  Weight endCreateWeight(Weight weight, QueryProfile previous, long startNanos) {
+    final QueryProfile profile = current.get();
+    profile.record(Operation.CREATE_WEIGHT, System.nanoTime() - startNanos);
+    current.set(previous);
+    return new ProfileWeight(weight, profile, this);
+  }
+
+  /** Restore the previous profile after a weight failed to be created. */
+  void abortCreateWeight(QueryProfile previous) {
+    current.set(previous);
+  }
+
+  /**
+   * Make the given profile the current one, so that bytes read are recorded
+   * on it, and return the previous one, which should be restored with
+   * {@link #exit}.
+   */
+  QueryProfile enter(QueryProfile profile) {
+    if (trackBytesRead) {
+      final QueryProfile previous = current.get();
+      current.set(profile);
+      return previous;
+    }
+    return null;
+  }
+
+  /** Restore the profile that was current before the call to {@link #enter}. */
+  void exit(QueryProfile previous) {
+    if (trackBytesRead) {
+      current.set(previous);
+    }
+  }
+
+  /** Wrap a collector so that collection is recorded on the collector profile. */
+  Collector wrapCollector(Collector collector) {
+    return new FilterCollector(collector) {
+      @Override
+      public void setWeight(Weight weight) {
+        in.setWeight(weight);
+      }
+
+      @Override
+      public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        return new FilterLeafCollector(super.getLeafCollector(context)) {
+          @Override
+          public void collect(int doc) throws IOException {
+            final QueryProfile previous = enter(collectorProfile);
+            final long start = System.nanoTime();
+            try {
+              super.collect(doc);
+            } finally {
+              collectorProfile.record(Operation.COLLECT, System.nanoTime() - start);
+              exit(previous);
+            }
+          }
+
+          @Override
+          public void collect(int[] docs, int size) throws IOException {
+            final QueryProfile previous = enter(collectorProfile);
+            final long start = System.nanoTime();
+            try {
+              in.collect(docs, size);
+            } finally {
+              collectorProfile.record(Operation.COLLECT, size, System.nanoTime() - start);
+              exit(previous);
+            }
+          }
+
+          @Override
+          public boolean acceptsBatches() {
+            return in.acceptsBatches();
+          }
+
+          @Override
+          public DocIdSetIterator competitiveIterator() throws IOException {
+            return in.competitiveIterator();
+          }
+        };
+      }
+    };
+  }
+
+  private void addBytesRead(long numBytes) {
+    final QueryProfile profile = current.get();
+    if (profile != null) {
+      profile.addBytesRead(numBytes);
+    }
+  }
+
+  private static final class ProfilingDirectory extends FilterDirectory {
+
+    private final QueryProfiler profiler;
+
+    ProfilingDirectory(Directory in, QueryProfiler profiler) {
+      super(in);
+      this.profiler = profiler;
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+      return new ProfilingIndexInput(in.openInput(name, context), profiler);
+    }
+
+  }
+
+  private static final class ProfilingIndexInput extends IndexInput {
+
+    private final IndexInput in;
+    private final QueryProfiler profiler;
+
+    ProfilingIndexInput(IndexInput in, QueryProfiler profiler) {
+      super("ProfilingIndexInput(" + in + ")");
+      this.in = in;
+      this.profiler = profiler;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      final byte b = in.readByte();
+      profiler.addBytesRead(1);
+      return b;
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+      in.readBytes(b, offset, len);
+      profiler.addBytesRead(len);
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len, boolean useBuffer) throws IOException {
+      in.readBytes(b, offset, len, useBuffer);
+      profiler.addBytesRead(len);
+    }
+
+    @Override
+    public short readShort() throws IOException {
+      final short s = in.readShort();
+      profiler.addBytesRead(Short.BYTES);
+      return s;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      final int i = in.readInt();
+      profiler.addBytesRead(Integer.BYTES);
+      return i;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      final long l = in.readLong();
+      profiler.addBytesRead(Long.BYTES);
+      return l;
+    }
+
+    @Override
+    public int readVInt() throws IOException {
+      final long start = in.getFilePointer();
+      final int i = in.readVInt();
+      profiler.addBytesRead(in.getFilePointer() - start);
+      return i;
+    }
+
+    @Override
+    public long readVLong() throws IOException {
+      final long start = in.getFilePointer();
+      final long l = in.readVLong();
+      profiler.addBytesRead(in.getFilePointer() - start);
+      return l;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+    @Override
+    public long getFilePointer() {
+      return in.getFilePointer();
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      in.seek(pos);
+    }
+
+    @Override
+    public long length() {
+      return in.length();
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+      return new ProfilingIndexInput(in.slice(sliceDescription, offset, length), profiler);
+    }
+
+    @Override
+    public RandomAccessInput randomAccessSlice(long offset, long length) throws IOException {
+      final RandomAccessInput slice = in.randomAccessSlice(offset, length);
+      return new RandomAccessInput() {
+        @Override
+        public byte readByte(long pos) throws IOException {
+          final byte b = slice.readByte(pos);
+          profiler.addBytesRead(1);
+          return b;
+        }
+
+        @Override
+        public short readShort(long pos) throws IOException {
+          final short s = slice.readShort(pos);
+          profiler.addBytesRead(Short.BYTES);
+          return s;
+        }
+
+        @Override
+        public int readInt(long pos) throws IOException {
+          final int i = slice.readInt(pos);
+          profiler.addBytesRead(Integer.BYTES);
+          return i;
+        }
+
+        @Override
+        public long readLong(long pos) throws IOException {
+          final long l = slice.readLong(pos);
+          profiler.addBytesRead(Long.BYTES);
+          return l;
+        }
+      };
+    }
+
+    @Override
+    public ProfilingIndexInput clone() {
+      return new ProfilingIndexInput(in.clone(), profiler);
+    }
+
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+/**
+ * A policy deciding, for each query, on how many threads an
+ * {@link IndexSearcher} that has been created with an
+ * {@link java.util.concurrent.ExecutorService} should search its
+ * {@link IndexSearcher.LeafSlice slices}.
+ *
+ * Implementations of this class must be thread-safe.
+ *
+ * @see CostBasedSliceExecutionPolicy
+ * @see IndexSearcher#setSliceExecutionPolicy
+ * @lucene.experimental
+ */
+public interface SliceExecutionPolicy {
+
+  /** A policy that always searches each slice in its own task. */
+  public static final SliceExecutionPolicy ALWAYS_CONCURRENT = new SliceExecutionPolicy() {
+
+    @Override
+    public boolean needsCost() {
+      return false;
+    }
+
+    @Override
+    public int numTasks(Query query, long cost, int numSlices) {
+      return numSlices;
+    }
+
+  };
+
+  /** Whether {@link #numTasks} needs the estimated cost of the query. If
+   *  this returns <tt>false</tt>, the searcher does not estimate it and passes
+   *  <tt>-1</tt> as a cost instead. */
+  boolean needsCost();
+
+  /** Return the number of tasks to search the given query with, between
+   *  <tt>1</tt> and <tt>numSlices</tt> included. Consecutive slices are
+   *  grouped so that there are as many groups as tasks, and <tt>1</tt> means
+   *  that the query is searched on the calling thread without using the
+   *  executor at all.
+   *  @param query the query, after rewriting
+   *  @param cost an estimate of the number of matching documents: the sum
+   *              across all leaves of the {@link Weight#estimateCost estimated
+   *              cost} of the weight if it is available, and of the number of
+   *              documents of the leaf otherwise
+   *  @param numSlices the number of slices of the searcher */
+  int numTasks(Query query, long cost, int numSlices);
+
+}
@@ -98,6 +98,9 @@ public class SortField {
   // Used for 'sortMissingFirst/Last'
   protected Object missingValue = null;
 
+  // Whether numeric sorts may skip documents using points
+  private boolean canUsePoints = false;
+
   /** Creates a sort by terms in the given field with the type of term
    * values explicitly given.
    * @param field  Name of field to sort by.  Can be <code>null</code> if
@@ -168,6 +171,30 @@ public class SortField {
     this.missingValue = missingValue;
   }
 
+  /**
+   * Expert: Lets a numeric sort skip documents that can't be competitive
+   * using the points indexed under the same field, for instance a {@link
+   * org.apache.lucene.document.LongPoint} that is indexed alongside a {@link
+   * org.apache.lucene.document.NumericDocValuesField}. This only applies to
+   * the primary sort of a {@link TopFieldCollector} that doesn't track the
+   * total hit count or the max score, and requires that the field has exactly
+   * one value per document that has a value, which is indexed both as a
+   * single-dimension point and as doc values.
+   * @lucene.experimental
+   */
+  public void setCanUsePoints() {
+    if (type != Type.INT && type != Type.LONG && type != Type.FLOAT && type != Type.DOUBLE) {
+      throw new IllegalArgumentException("Only numeric sorts can use points, got " + type);
+    }
+    this.canUsePoints = true;
+  }
+
+  /** Returns whether this sort may skip documents using points, see {@link #setCanUsePoints()}.
+   * @lucene.experimental */
+  public boolean getCanUsePoints() {
+    return canUsePoints;
+  }
+
   /** Creates a sort with a custom comparison function.
    * @param field Name of field to sort by; cannot be <code>null</code>.
    * @param comparator Returns a comparator for sorting hits.
@@ -284,13 +311,18 @@ public class SortField {
       buffer.append(" missingValue=");
       buffer.append(missingValue);
     }
+    if (canUsePoints) {
+      buffer.append(" canUsePoints");
+    }
 
     return buffer.toString();
   }
 
   /** Returns true if <code>o</code> is equal to this.  If a
    *  {@link FieldComparatorSource} was provided, it must properly
-   *  implement equals (unless a singleton is always used). */
+   *  implement equals (unless a singleton is always used).
+   *  {@link #setCanUsePoints()} is an execution hint that doesn't change the
+   *  sort order, so it is ignored. */
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -345,16 +377,16 @@ public class SortField {
       return new FieldComparator.DocComparator(numHits);
 
     case INT:
-      return new FieldComparator.IntComparator(numHits, field, (Integer) missingValue);
+      return usePoints(new FieldComparator.IntComparator(numHits, field, (Integer) missingValue), sortPos);
 
     case FLOAT:
-      return new FieldComparator.FloatComparator(numHits, field, (Float) missingValue);
+      return usePoints(new FieldComparator.FloatComparator(numHits, field, (Float) missingValue), sortPos);
 
     case LONG:
-      return new FieldComparator.LongComparator(numHits, field, (Long) missingValue);
+      return usePoints(new FieldComparator.LongComparator(numHits, field, (Long) missingValue), sortPos);
 
     case DOUBLE:
-      return new FieldComparator.DoubleComparator(numHits, field, (Double) missingValue);
+      return usePoints(new FieldComparator.DoubleComparator(numHits, field, (Double) missingValue), sortPos);
 
     case CUSTOM:
       assert comparatorSource != null;
@@ -374,6 +406,15 @@ public class SortField {
     }
   }
 
+  private FieldComparator<?> usePoints(FieldComparator.NumericComparator<?> comparator, int sortPos) {
+    // documents tied on the primary sort may be competitive on the next
+    // ones, so only the primary sort can skip documents
+    if (canUsePoints && sortPos == 0) {
+      comparator.setCanUsePoints(reverse);
+    }
+    return comparator;
+  }
+
   /**
    * Rewrites this SortField, returning a new SortField if a change is made.
    * Subclasses should override this define their rewriting behavior when this
@@ -117,6 +117,25 @@ public class TermQuery extends Query {
       return true;
     }
 
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      if (termStates == null || context.reader().hasDeletions()) {
+        // the doc freq also counts deleted documents
+        return -1;
+      }
+      final TermsEnum termsEnum = getTermsEnum(context);
+      return termsEnum == null ? 0 : termsEnum.docFreq();
+    }
+
+    @Override
+    public long estimateCost(LeafReaderContext context) throws IOException {
+      if (termStates == null) {
+        return -1;
+      }
+      final TermsEnum termsEnum = getTermsEnum(context);
+      return termsEnum == null ? 0 : termsEnum.docFreq();
+    }
+
     /**
      * Returns a {@link TermsEnum} positioned at this weights Term or null if
      * the term does not exist in the given context
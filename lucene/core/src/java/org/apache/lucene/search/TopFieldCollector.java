@@ -45,9 +45,11 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     final LeafFieldComparator comparator;
     final int reverseMul;
     final boolean mayNeedScoresTwice;
+    final boolean canSkipNonCompetitive;
     Scorer scorer;
 
-    MultiComparatorLeafCollector(LeafFieldComparator[] comparators, int[] reverseMul, boolean mayNeedScoresTwice) {
+    MultiComparatorLeafCollector(LeafFieldComparator[] comparators, int[] reverseMul, boolean mayNeedScoresTwice,
+        boolean canSkipNonCompetitive) {
       if (comparators.length == 1) {
         this.reverseMul = reverseMul[0];
         this.comparator = comparators[0];
@@ -56,6 +58,19 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         this.comparator = new MultiLeafFieldComparator(comparators, reverseMul);
       }
       this.mayNeedScoresTwice = mayNeedScoresTwice;
+      this.canSkipNonCompetitive = canSkipNonCompetitive;
+    }
+
+    /** Called once the queue is full, either while collecting or before collecting a new segment. */
+    void onQueueFull() throws IOException {
+      if (canSkipNonCompetitive) {
+        comparator.setCanSkipNonCompetitive();
+      }
+    }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() throws IOException {
+      return canSkipNonCompetitive ? comparator.competitiveIterator() : null;
     }
 
     @Override
@@ -127,8 +142,11 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
           indexSort != null &&
           canEarlyTerminate(sort, indexSort);
       final int initialTotalHits = totalHits;
+      // documents can only be skipped if hits don't need to be counted
+      final boolean canSkipNonCompetitive = trackTotalHits == false && trackMaxScore == false;
 
-      return new MultiComparatorLeafCollector(comparators, reverseMul, mayNeedScoresTwice) {
+      final MultiComparatorLeafCollector leafCollector = new MultiComparatorLeafCollector(comparators, reverseMul,
+          mayNeedScoresTwice, canSkipNonCompetitive) {
 
         @Override
         public void collect(int doc) throws IOException {
@@ -179,11 +197,16 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
             add(slot, doc, score);
             if (queueFull) {
               comparator.setBottom(bottom.slot);
+              onQueueFull();
             }
           }
         }
 
       };
+      if (queueFull) {
+        leafCollector.onQueueFull();
+      }
+      return leafCollector;
     }
 
   }
@@ -237,7 +260,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
           indexSort != null &&
           canEarlyTerminate(sort, indexSort);
       final int initialTotalHits = totalHits;
-      return new MultiComparatorLeafCollector(queue.getComparators(context), queue.getReverseMul(), mayNeedScoresTwice) {
+      // documents can only be skipped if hits don't need to be counted
+      final boolean canSkipNonCompetitive = trackTotalHits == false && trackMaxScore == false;
+      final MultiComparatorLeafCollector leafCollector = new MultiComparatorLeafCollector(queue.getComparators(context),
+          queue.getReverseMul(), mayNeedScoresTwice, canSkipNonCompetitive) {
 
         @Override
         public void collect(int doc) throws IOException {
@@ -306,10 +332,15 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
             queueFull = collectedHits == numHits;
             if (queueFull) {
               comparator.setBottom(bottom.slot);
+              onQueueFull();
             }
           }
         }
       };
+      if (queueFull) {
+        leafCollector.onQueueFull();
+      }
+      return leafCollector;
     }
 
   }
@@ -380,7 +411,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
    * @param trackTotalHits
    *          specifies whether the total number of hits should be tracked. If
    *          set to false, the value of {@link TopFieldDocs#totalHits} will be
-   *          approximated.
+   *          approximated, and non-competitive documents may be skipped if the
+   *          primary sort allows it, see {@link SortField#setCanUsePoints()}.
    * @return a {@link TopFieldCollector} instance which will sort the results by
    *         the sort criteria.
    */
@@ -423,7 +455,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
    * @param trackTotalHits
    *          specifies whether the total number of hits should be tracked. If
    *          set to false, the value of {@link TopFieldDocs#totalHits} will be
-   *          approximated.
+   *          approximated, and non-competitive documents may be skipped if the
+   *          primary sort allows it, see {@link SortField#setCanUsePoints()}.
    * @return a {@link TopFieldCollector} instance which will sort the results by
    *         the sort criteria.
    */
@@ -17,11 +17,18 @@
 package org.apache.lucene.search;
 
 
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+
 /**
- * Just counts the total number of hits.
+ * Just counts the total number of hits. Segments whose number of hits can be
+ * read from index statistics, see {@link Weight#count}, are not collected,
+ * unless this class is extended: subclasses see every hit.
  */
 
 public class TotalHitCountCollector extends SimpleCollector {
+  private Weight weight;
   private int totalHits;
 
   /** Returns how many hits matched the search. */
@@ -29,11 +36,40 @@ public class TotalHitCountCollector extends SimpleCollector {
     return totalHits;
   }
 
+  @Override
+  public void setWeight(Weight weight) {
+    this.weight = weight;
+  }
+
+  @Override
+  protected void doSetNextReader(LeafReaderContext context) throws IOException {
+    // subclasses may override collect(int) to see every hit
+    if (weight != null && getClass() == TotalHitCountCollector.class) {
+      final int count = weight.count(context);
+      if (count != -1) {
+        totalHits += count;
+        // no need to collect this segment
+        throw new CollectionTerminatedException();
+      }
+    }
+  }
+
   @Override
   public void collect(int doc) {
     totalHits++;
   }
 
+  @Override
+  public void collect(int[] docs, int size) {
+    totalHits += size;
+  }
+
+  @Override
+  public boolean acceptsBatches() {
+    // subclasses may override collect(int) without overriding collect(int[], int)
+    return getClass() == TotalHitCountCollector.class;
+  }
+
   @Override
   public ScoreMode scoreMode() {
     return ScoreMode.COMPLETE_NO_SCORES;
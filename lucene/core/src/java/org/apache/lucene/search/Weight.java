@@ -127,6 +127,43 @@ public abstract class Weight implements SegmentCacheable {
     };
   }
 
+  /**
+   * Optional method.
+   * Return the exact number of live documents of the given leaf that match
+   * this weight, or {@code -1} if it can't be computed much more cheaply than
+   * by iterating over the matches. The default implementation returns
+   * {@code -1}, queries override it when the count can be read from index
+   * statistics, eg. the doc freq of a term when the segment has no deletions.
+   * {@link IndexSearcher#count} and {@link TotalHitCountCollector} use it to
+   * skip collection of whole segments.
+   *
+   * @param context
+   *          the {@link org.apache.lucene.index.LeafReaderContext} to count matches of.
+   * @throws IOException if there is a low-level I/O error
+   */
+  public int count(LeafReaderContext context) throws IOException {
+    return -1;
+  }
+
+  /**
+   * Optional method.
+   * Return an estimate, usually an upper bound, of the number of documents of
+   * the given leaf that match this weight, or {@code -1} if it can't be
+   * estimated cheaply. Unlike
+   * the {@link ScorerSupplier#cost() cost} of a {@link ScorerSupplier}, this
+   * must not do work that creating the scorer would then do again, such as
+   * enumerating the terms of a multi-term query. The default implementation
+   * returns the {@link #count} of matches. {@link IndexSearcher} uses it to
+   * decide how many tasks to search a query with.
+   *
+   * @param context
+   *          the {@link org.apache.lucene.index.LeafReaderContext} to estimate the cost of.
+   * @throws IOException if there is a low-level I/O error
+   */
+  public long estimateCost(LeafReaderContext context) throws IOException {
+    return count(context);
+  }
+
   /**
    * Optional method, to return a {@link BulkScorer} to
    * score the query and send hits to a {@link Collector}.
@@ -158,9 +195,13 @@ public abstract class Weight implements SegmentCacheable {
   /** Just wraps a Scorer and performs top scoring using it.
    *  @lucene.internal */
   protected static class DefaultBulkScorer extends BulkScorer {
+    /** Number of hits that are buffered before being passed to {@link LeafCollector#collect(int[], int)}. */
+    static final int BATCH_SIZE = 128;
+
     private final Scorer scorer;
     private final DocIdSetIterator iterator;
     private final TwoPhaseIterator twoPhase;
+    private int[] batch;
 
     /** Sole constructor. */
     public DefaultBulkScorer(Scorer scorer) {
@@ -172,6 +213,16 @@ public abstract class Weight implements SegmentCacheable {
       this.twoPhase = scorer.twoPhaseIterator();
     }
 
+    private int[] batch(LeafCollector collector) {
+      if (collector.acceptsBatches() == false) {
+        return null;
+      }
+      if (batch == null) {
+        batch = new int[BATCH_SIZE];
+      }
+      return batch;
+    }
+
     @Override
     public long cost() {
       return iterator.cost();
@@ -181,7 +232,18 @@ public abstract class Weight implements SegmentCacheable {
     public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
       collector.setScorer(scorer);
       if (scorer.docID() == -1 && min == 0 && max == DocIdSetIterator.NO_MORE_DOCS) {
-        scoreAll(collector, iterator, twoPhase, acceptDocs);
+        final DocIdSetIterator competitiveIterator = collector.competitiveIterator();
+        final int[] batch = batch(collector);
+        if (competitiveIterator == null) {
+          if (batch != null) {
+            final DocIdSetIterator approximation = twoPhase == null ? iterator : twoPhase.approximation();
+            scoreRangeInBatches(collector, approximation, twoPhase, acceptDocs, approximation.nextDoc(), DocIdSetIterator.NO_MORE_DOCS, batch);
+          } else {
+            scoreAll(collector, iterator, twoPhase, acceptDocs);
+          }
+        } else {
+          scoreCompetitive(collector, iterator, twoPhase, competitiveIterator, acceptDocs);
+        }
         return DocIdSetIterator.NO_MORE_DOCS;
       } else {
         int doc = scorer.docID();
@@ -192,6 +254,11 @@ public abstract class Weight implements SegmentCacheable {
             doc = twoPhase.approximation().advance(min);
           }
         }
+        final int[] batch = batch(collector);
+        if (batch != null) {
+          final DocIdSetIterator approximation = twoPhase == null ? iterator : twoPhase.approximation();
+          return scoreRangeInBatches(collector, approximation, twoPhase, acceptDocs, doc, max, batch);
+        }
         return scoreRange(collector, iterator, twoPhase, acceptDocs, doc, max);
       }
     }
@@ -243,6 +310,50 @@ public abstract class Weight implements SegmentCacheable {
         }
       }
     }
+
+    /** Bulk-scores a range of hits and passes them to the collector in
+     *  batches of up to {@code batch.length} documents. */
+    static int scoreRangeInBatches(LeafCollector collector, DocIdSetIterator approximation, TwoPhaseIterator twoPhase,
+        Bits acceptDocs, int currentDoc, int end, int[] batch) throws IOException {
+      int size = 0;
+      while (currentDoc < end) {
+        if ((acceptDocs == null || acceptDocs.get(currentDoc)) && (twoPhase == null || twoPhase.matches())) {
+          batch[size++] = currentDoc;
+          if (size == batch.length) {
+            collector.collect(batch, size);
+            size = 0;
+          }
+        }
+        currentDoc = approximation.nextDoc();
+      }
+      if (size > 0) {
+        collector.collect(batch, size);
+      }
+      return currentDoc;
+    }
+
+    /** Bulk-scores all hits that are also matched by the competitive iterator
+     *  of the collector, see {@link LeafCollector#competitiveIterator()}. The
+     *  competitive iterator may skip more documents as collection progresses. */
+    static void scoreCompetitive(LeafCollector collector, DocIdSetIterator iterator, TwoPhaseIterator twoPhase,
+        DocIdSetIterator competitiveIterator, Bits acceptDocs) throws IOException {
+      final DocIdSetIterator approximation = twoPhase == null ? iterator : twoPhase.approximation();
+      int doc = approximation.nextDoc();
+      while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+        if (competitiveIterator.docID() < doc) {
+          final int competitiveDoc = competitiveIterator.advance(doc);
+          if (competitiveDoc != doc) {
+            // leap-frog to the next document that may be competitive
+            doc = approximation.advance(competitiveDoc);
+            continue;
+          }
+        }
+        if ((acceptDocs == null || acceptDocs.get(doc)) && (twoPhase == null || twoPhase.matches())) {
+          collector.collect(doc);
+        }
+        doc = approximation.nextDoc();
+      }
+    }
   }
 
 }
@@ -158,25 +158,110 @@ public final class BytesRefHash {
    */
   public int[] sort() {
     final int[] compact = compact();
-    new StringMSBRadixSorter() {
+    // keep the start of each term next to its id, so that reading a byte of
+    // a term does not need a random access to bytesStart
+    final int[] starts = new int[count];
+    for (int i = 0; i < count; ++i) {
+      starts[i] = bytesStart[compact[i]];
+    }
+    new PoolMSBRadixSorter(pool.buffers, compact, starts).sort(0, count);
+    return compact;
+  }
 
-      BytesRef scratch = new BytesRef();
+  /**
+   * Sorts ids by the bytes of their terms, which are read directly from the
+   * blocks of the pool rather than through {@link BytesRef}s.
+   */
+  private static final class PoolMSBRadixSorter extends MSBRadixSorter {
+
+    private final byte[][] buffers;
+    private final int[] ids;
+    private final int[] starts;
+
+    // the block, offset and length of the term that was last loaded
+    private byte[] block;
+    private int offset;
+    private int length;
+
+    PoolMSBRadixSorter(byte[][] buffers, int[] ids, int[] starts) {
+      super(Integer.MAX_VALUE);
+      this.buffers = buffers;
+      this.ids = ids;
+      this.starts = starts;
+    }
 
-      @Override
-      protected void swap(int i, int j) {
-        int tmp = compact[i];
-        compact[i] = compact[j];
-        compact[j] = tmp;
+    /** Decode the length of the i-th term, see {@link ByteBlockPool#setBytesRef(BytesRef, int)}. */
+    private void load(int i) {
+      final int start = starts[i];
+      final byte[] block = buffers[start >> BYTE_BLOCK_SHIFT];
+      final int pos = start & BYTE_BLOCK_MASK;
+      final int b = block[pos];
+      if ((b & 0x80) == 0) {
+        length = b;
+        offset = pos + 1;
+      } else {
+        length = (b & 0x7f) + ((block[pos + 1] & 0xff) << 7);
+        offset = pos + 2;
       }
+      this.block = block;
+    }
+
+    @Override
+    protected void swap(int i, int j) {
+      int tmp = ids[i];
+      ids[i] = ids[j];
+      ids[j] = tmp;
+      tmp = starts[i];
+      starts[i] = starts[j];
+      starts[j] = tmp;
+    }
 
-      @Override
-      protected BytesRef get(int i) {
-        pool.setBytesRef(scratch, bytesStart[compact[i]]);
-        return scratch;
+    @Override
+    protected int byteAt(int i, int k) {
+      load(i);
+      if (length <= k) {
+        return -1;
       }
+      return block[offset + k] & 0xff;
+    }
 
-    }.sort(0, count);
-    return compact;
+    @Override
+    protected Sorter getFallbackSorter(int k) {
+      return new IntroSorter() {
+
+        private byte[] pivotBlock;
+        private int pivotOffset, pivotLength;
+
+        @Override
+        protected void swap(int i, int j) {
+          PoolMSBRadixSorter.this.swap(i, j);
+        }
+
+        @Override
+        protected int compare(int i, int j) {
+          load(i);
+          final byte[] block1 = block;
+          final int offset1 = offset, length1 = length;
+          load(j);
+          assert length1 >= k && length >= k;
+          return FutureArrays.compareUnsigned(block1, offset1 + k, offset1 + length1, block, offset + k, offset + length);
+        }
+
+        @Override
+        protected void setPivot(int i) {
+          load(i);
+          pivotBlock = block;
+          pivotOffset = offset;
+          pivotLength = length;
+        }
+
+        @Override
+        protected int comparePivot(int j) {
+          load(j);
+          return FutureArrays.compareUnsigned(pivotBlock, pivotOffset + k, pivotOffset + pivotLength, block, offset + k, offset + length);
+        }
+      };
+    }
   }
 
   private boolean equals(int id, BytesRef b) {
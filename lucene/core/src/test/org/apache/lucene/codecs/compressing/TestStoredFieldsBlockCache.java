@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.RamUsageEstimator;
+
+public class TestStoredFieldsBlockCache extends LuceneTestCase {
+
+  public void testLRU() {
+    final byte[] block = new byte[100];
+    final long entryRamBytesUsed = StoredFieldsBlockCache.ENTRY_RAM_BYTES_USED + RamUsageEstimator.sizeOf(block);
+    final StoredFieldsBlockCache cache = new StoredFieldsBlockCache(3 * entryRamBytesUsed);
+    final Object segment1 = "seg1";
+    final Object segment2 = "seg2";
+
+    assertNull(cache.get(segment1, 0));
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0, cache.getHitCount());
+
+    cache.put(segment1, 0, block);
+    cache.put(segment1, 42, block);
+    cache.put(segment2, 0, block);
+    assertEquals(3, cache.getCacheSize());
+    assertEquals(3 * entryRamBytesUsed, cache.ramBytesUsed());
+
+    assertSame(block, cache.get(segment1, 0));
+    assertEquals(1, cache.getHitCount());
+    assertNull(cache.get(segment2, 42));
+    assertEquals(2, cache.getMissCount());
+
+    // segment1/42 is the least recently used block
+    cache.put(segment2, 42, block);
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(3, cache.getCacheSize());
+    assertNull(cache.get(segment1, 42));
+    assertSame(block, cache.get(segment1, 0));
+    assertSame(block, cache.get(segment2, 0));
+    assertSame(block, cache.get(segment2, 42));
+    assertEquals(3 * entryRamBytesUsed, cache.ramBytesUsed());
+
+    // too large to be cached
+    cache.put(segment1, 100, new byte[1000]);
+    assertNull(cache.get(segment1, 100));
+    assertEquals(3, cache.getCacheSize());
+
+    cache.clearSegment(segment2);
+    assertEquals(1, cache.getCacheSize());
+    assertEquals(entryRamBytesUsed, cache.ramBytesUsed());
+    assertSame(block, cache.get(segment1, 0));
+
+    cache.clear();
+    assertEquals(0, cache.getCacheSize());
+    assertEquals(0, cache.ramBytesUsed());
+  }
+
+  public void testReadDocuments() throws IOException {
+    final StoredFieldsBlockCache cache = new StoredFieldsBlockCache(1L << 24);
+    final StoredFieldsBlockCache previous = CompressingStoredFieldsReader.getDefaultBlockCache();
+    CompressingStoredFieldsReader.setDefaultBlockCache(cache);
+    try (Directory dir = newDirectory()) {
+      IndexWriterConfig iwc = newIndexWriterConfig().setCodec(CompressingCodec.reasonableInstance(random()));
+      IndexWriter w = new IndexWriter(dir, iwc);
+      final int numDocs = atLeast(200);
+      for (int i = 0; i < numDocs; ++i) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(i), Store.YES));
+        doc.add(new StoredField("value", i));
+        w.addDocument(doc);
+      }
+      w.close();
+
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        for (int iter = 0; iter < 2; ++iter) {
+          for (int i = 0; i < reader.maxDoc(); ++i) {
+            Document doc = reader.document(i);
+            assertEquals(Integer.parseInt(doc.get("id")), doc.getField("value").numericValue().intValue());
+          }
+        }
+        assertTrue(cache.getCacheSize() > 0);
+        assertTrue(cache.ramBytesUsed() > 0);
+      }
+      // the second iteration only has hits, and so do most documents of the first one
+      assertTrue(cache.getHitCount() >= numDocs);
+      assertTrue(cache.getMissCount() > 0);
+      // closing the reader closed the cores of its segments, which removed their blocks
+      assertEquals(0, cache.getCacheSize());
+      assertEquals(0, cache.ramBytesUsed());
+    } finally {
+      CompressingStoredFieldsReader.setDefaultBlockCache(previous);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.MockTokenizer;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+
+public class TestAnalysisExecutor extends BaseIndexingExecutorTestCase {
+
+  private static void indexDocs(Directory dir, Analyzer analyzer, ExecutorService executor, List<Document> docs) throws IOException {
+    IndexWriterConfig iwc = new IndexWriterConfig(analyzer).setAnalysisExecutor(executor);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    for (Document doc : docs) {
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    w.close();
+  }
+
+  public void testSameIndex() throws Exception {
+    Analyzer analyzer = newAnalyzer(random());
+    List<Document> docs = randomDocuments(random(), atLeast(100));
+    Directory expectedDir = newDirectory();
+    indexDocs(expectedDir, analyzer, null, docs);
+
+    ExecutorService executor = newExecutor("TestAnalysisExecutor");
+    Directory actualDir = newDirectory();
+    try {
+      indexDocs(actualDir, analyzer, executor, docs);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+
+    assertSameIndex("analysis executor", expectedDir, actualDir);
+    analyzer.close();
+    expectedDir.close();
+    actualDir.close();
+  }
+
+  public void testExceptionInAnalysis() throws Exception {
+    // components are reused per field: the crashing field may be analyzed by
+    // a thread that already analyzed another field
+    Analyzer analyzer = new Analyzer(Analyzer.PER_FIELD_REUSE_STRATEGY) {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        MockTokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        tokenizer.setEnableChecks(false); // the stream is closed right after the exception
+        TokenStream stream = tokenizer;
+        if (fieldName.equals("crash")) {
+          stream = new TokenFilter(stream) {
+            @Override
+            public boolean incrementToken() throws IOException {
+              throw new IOException("intentionally failing");
+            }
+          };
+        }
+        return new TokenStreamComponents(tokenizer, stream);
+      }
+    };
+    ExecutorService executor = newExecutor("TestAnalysisExecutor");
+    try {
+      doTestExceptionInAnalysis(analyzer, executor);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+  }
+
+  private void doTestExceptionInAnalysis(Analyzer analyzer, ExecutorService executor) throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(analyzer).setAnalysisExecutor(executor));
+
+    Document doc = new Document();
+    doc.add(new TextField("body", "some text", Field.Store.NO));
+    doc.add(new TextField("title", "a title", Field.Store.NO));
+    w.addDocument(doc);
+
+    Document crashDoc = new Document();
+    crashDoc.add(new TextField("body", "some more text", Field.Store.NO));
+    crashDoc.add(new TextField("crash", "do it", Field.Store.NO));
+    IOException e = expectThrows(IOException.class, () -> {
+      w.addDocument(crashDoc);
+    });
+    assertEquals("intentionally failing", e.getMessage());
+
+    // the exception is not aborting
+    w.addDocument(doc);
+    DirectoryReader reader = DirectoryReader.open(w);
+    assertEquals(2, reader.numDocs());
+    assertEquals(2, reader.docFreq(new Term("title", "title")));
+    reader.close();
+    w.close();
+    dir.close();
+  }
+}
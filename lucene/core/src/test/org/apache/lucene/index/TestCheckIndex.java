@@ -17,9 +17,21 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
 import org.junit.Test;
 
 public class TestCheckIndex extends BaseTestCheckIndex {
@@ -56,4 +68,163 @@ public class TestCheckIndex extends BaseTestCheckIndex {
   public void testObtainsLock() throws IOException {
     testObtainsLock(directory);
   }
+
+  private void addSegments(int numSegments) throws IOException {
+    IndexWriter w = new IndexWriter(directory, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE));
+    int numDocs = w.maxDoc();
+    for (int i = 0; i < numSegments; i++) {
+      for (int j = 0; j < 10; j++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(numDocs++), Field.Store.YES));
+        w.addDocument(doc);
+      }
+      w.commit();
+    }
+    w.close();
+  }
+
+  @Test
+  public void testThreadCount() throws IOException {
+    addSegments(5);
+    IndexWriter w = new IndexWriter(directory, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE));
+    w.deleteDocuments(new Term("id", "3"));
+    w.close();
+
+    ByteArrayOutputStream sequentialOutput = new ByteArrayOutputStream();
+    ByteArrayOutputStream concurrentOutput = new ByteArrayOutputStream();
+    CheckIndex.Status sequential, concurrent;
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setInfoStream(new PrintStream(sequentialOutput, true, IOUtils.UTF_8));
+      sequential = checker.checkIndex();
+      checker.setThreadCount(3);
+      checker.setInfoStream(new PrintStream(concurrentOutput, true, IOUtils.UTF_8));
+      concurrent = checker.checkIndex();
+    }
+    assertTrue(sequential.clean);
+    assertTrue(concurrent.clean);
+    assertEquals(sequential.segmentInfos.size(), concurrent.segmentInfos.size());
+    for (int i = 0; i < sequential.segmentInfos.size(); i++) {
+      CheckIndex.Status.SegmentInfoStatus expected = sequential.segmentInfos.get(i);
+      CheckIndex.Status.SegmentInfoStatus actual = concurrent.segmentInfos.get(i);
+      assertEquals(expected.name, actual.name);
+      assertEquals(expected.liveDocStatus.numDeleted, actual.liveDocStatus.numDeleted);
+      assertEquals(expected.termIndexStatus.termCount, actual.termIndexStatus.termCount);
+      assertEquals(expected.storedFieldStatus.totFields, actual.storedFieldStatus.totFields);
+    }
+    assertEquals(sequential.newSegments.size(), concurrent.newSegments.size());
+
+    // segments are reported in order
+    String output = concurrentOutput.toString(IOUtils.UTF_8);
+    int previous = -1;
+    for (CheckIndex.Status.SegmentInfoStatus status : concurrent.segmentInfos) {
+      int index = output.indexOf("name=" + status.name + " ");
+      assertTrue(index > previous);
+      previous = index;
+    }
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      try (CheckIndex checker = new CheckIndex(directory)) {
+        checker.setThreadCount(0);
+      }
+    });
+  }
+
+  @Test
+  public void testVerifiedSegmentsFile() throws IOException {
+    Path verifiedSegmentsFile = createTempDir().resolve("verified");
+    addSegments(3);
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setVerifiedSegmentsFile(verifiedSegmentsFile);
+      checker.setThreadCount(random().nextBoolean() ? 1 : 2);
+
+      // a checksums only check does not allow to skip a full check
+      checker.setChecksumsOnly(true);
+      CheckIndex.Status status = checker.checkIndex();
+      assertTrue(status.clean);
+      assertTrue(Files.exists(verifiedSegmentsFile));
+      for (CheckIndex.Status.SegmentInfoStatus segment : status.segmentInfos) {
+        assertFalse(segment.previouslyVerified);
+      }
+      status = checker.checkIndex();
+      for (CheckIndex.Status.SegmentInfoStatus segment : status.segmentInfos) {
+        assertTrue(segment.previouslyVerified);
+      }
+
+      checker.setChecksumsOnly(false);
+      status = checker.checkIndex();
+      for (CheckIndex.Status.SegmentInfoStatus segment : status.segmentInfos) {
+        assertFalse(segment.previouslyVerified);
+      }
+      status = checker.checkIndex();
+      assertTrue(status.clean);
+      assertEquals(3, status.newSegments.size());
+      for (CheckIndex.Status.SegmentInfoStatus segment : status.segmentInfos) {
+        assertTrue(segment.previouslyVerified);
+      }
+    }
+
+    // new segments and segments with new deletes are checked again
+    addSegments(1);
+    IndexWriter w = new IndexWriter(directory, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE));
+    w.deleteDocuments(new Term("id", "0"));
+    w.close();
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setVerifiedSegmentsFile(verifiedSegmentsFile);
+      CheckIndex.Status status = checker.checkIndex();
+      assertTrue(status.clean);
+      assertEquals(4, status.segmentInfos.size());
+      assertFalse(status.segmentInfos.get(0).previouslyVerified);
+      assertTrue(status.segmentInfos.get(1).previouslyVerified);
+      assertTrue(status.segmentInfos.get(2).previouslyVerified);
+      assertFalse(status.segmentInfos.get(3).previouslyVerified);
+      assertEquals(4, Files.readAllLines(verifiedSegmentsFile, StandardCharsets.UTF_8).size());
+    }
+  }
+
+  @Test
+  public void testMalformedVerifiedSegmentsFile() throws IOException {
+    Path verifiedSegmentsFile = createTempDir().resolve("verified");
+    addSegments(2);
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setVerifiedSegmentsFile(verifiedSegmentsFile);
+      assertTrue(checker.checkIndex().clean);
+    }
+
+    // corrupt the level of the first segment and add a garbage line
+    List<String> lines = new ArrayList<>(Files.readAllLines(verifiedSegmentsFile, StandardCharsets.UTF_8));
+    assertEquals(2, lines.size());
+    String corruptedKey = lines.get(0).split(" ")[0];
+    lines.set(0, corruptedKey + " notanumber");
+    lines.add("garbage");
+    Files.write(verifiedSegmentsFile, lines, StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setVerifiedSegmentsFile(verifiedSegmentsFile);
+      checker.setInfoStream(new PrintStream(output, true, IOUtils.UTF_8));
+      CheckIndex.Status status = checker.checkIndex();
+      assertTrue(status.clean);
+      int previouslyVerified = 0;
+      for (CheckIndex.Status.SegmentInfoStatus segment : status.segmentInfos) {
+        if (segment.previouslyVerified) {
+          previouslyVerified++;
+        }
+      }
+      assertEquals(1, previouslyVerified);
+    }
+    String message = output.toString(IOUtils.UTF_8);
+    assertTrue(message, message.contains("malformed line in verified segments file"));
+    assertTrue(message, message.contains("\"" + corruptedKey + " notanumber\""));
+    assertTrue(message, message.contains("\"garbage\""));
+
+    // malformed lines are dropped when the file is rewritten
+    lines = Files.readAllLines(verifiedSegmentsFile, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    for (String line : lines) {
+      Integer.parseInt(line.split(" ")[1]);
+    }
+  }
 }
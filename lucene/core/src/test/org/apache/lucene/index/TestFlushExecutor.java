@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+
+public class TestFlushExecutor extends BaseIndexingExecutorTestCase {
+
+  private static void indexDocs(Directory dir, Analyzer analyzer, Executor executor, boolean indexSort,
+                                List<Document> docs, int flushEvery) throws IOException {
+    // segments are only flushed by addDocuments
+    IndexWriterConfig iwc = new IndexWriterConfig(analyzer)
+        .setFlushExecutor(executor)
+        .setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setRAMBufferSizeMB(256)
+        .setMergePolicy(NoMergePolicy.INSTANCE);
+    if (indexSort) {
+      iwc.setIndexSort(new Sort(new SortField(SORT_FIELD, SortField.Type.LONG)));
+    }
+    IndexWriter w = new IndexWriter(dir, iwc);
+    addDocuments(w, docs, flushEvery, 50);
+    w.close();
+  }
+
+  private void doTestSameIndex(boolean indexSort) throws Exception {
+    Analyzer analyzer = newAnalyzer(random());
+    List<Document> docs = randomDocuments(random(), atLeast(300));
+    final int flushEvery = TestUtil.nextInt(random(), 10, 100);
+    Directory expectedDir = newDirectory();
+    indexDocs(expectedDir, analyzer, null, indexSort, docs, flushEvery);
+
+    ExecutorService executor = newExecutor("TestFlushExecutor");
+    Directory actualDir = newDirectory();
+    try {
+      indexDocs(actualDir, analyzer, executor, indexSort, docs, flushEvery);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+
+    assertSameIndex("flush executor", expectedDir, actualDir);
+    analyzer.close();
+    expectedDir.close();
+    actualDir.close();
+  }
+
+  public void testSameIndex() throws Exception {
+    doTestSameIndex(false);
+  }
+
+  public void testSameIndexWithIndexSort() throws Exception {
+    doTestSameIndex(true);
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestHeapPressureFlushPolicy extends LuceneTestCase {
+
+  /** Simulates the occupancy of the old generation. */
+  private static class MockHeapPressureFlushPolicy extends HeapPressureFlushPolicy {
+    volatile long collectionCount;
+    volatile double occupancy;
+
+    MockHeapPressureFlushPolicy(double maxOldGenOccupancy, double maxRAMBufferSizeMB) {
+      super(maxOldGenOccupancy, maxRAMBufferSizeMB, null);
+    }
+
+    @Override
+    long collectionCount() {
+      return collectionCount;
+    }
+
+    @Override
+    double oldGenOccupancy() {
+      return occupancy;
+    }
+
+    void collect(double occupancy) throws InterruptedException {
+      this.occupancy = occupancy;
+      collectionCount++;
+      // wait for the policy to sample the heap again
+      Thread.sleep(20);
+    }
+  }
+
+  private static void addDocs(IndexWriter w, int numDocs) throws IOException {
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new TextField("body", TestUtil.randomSimpleString(random(), 20), Field.Store.NO));
+      w.addDocument(doc);
+    }
+  }
+
+  public void testFlushOnHeapPressure() throws Exception {
+    Directory dir = newDirectory();
+    MockHeapPressureFlushPolicy policy = new MockHeapPressureFlushPolicy(0.75, 512);
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setFlushPolicy(policy)
+        .setRAMBufferSizeMB(256)
+        .setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+
+    // the first document triggers a flush since the heap is already under pressure
+    policy.occupancy = 0.9;
+    addDocs(w, 5);
+    assertEquals(1, w.getFlushCount());
+    assertEquals(256, policy.getRAMBufferSizeMB(), 0d);
+
+    // no new collection: no early flush
+    addDocs(w, 5);
+    assertEquals(1, w.getFlushCount());
+
+    // one early flush per collection
+    for (int i = 0; i < 3; ++i) {
+      policy.collect(0.8);
+      addDocs(w, 5);
+    }
+    assertEquals(4, w.getFlushCount());
+
+    // heap is plentiful: no more early flushes, and the buffer may grow
+    policy.collect(0.15);
+    addDocs(w, 5);
+    assertEquals(4, w.getFlushCount());
+    assertEquals(256 + 256 * 0.8, policy.getRAMBufferSizeMB(), 0.01);
+
+    w.close();
+    dir.close();
+  }
+
+  public void testFlushOnOccupancyGrowth() throws Exception {
+    Directory dir = newDirectory();
+    MockHeapPressureFlushPolicy policy = new MockHeapPressureFlushPolicy(0.5, 64);
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setFlushPolicy(policy)
+        .setRAMBufferSizeMB(16)
+        .setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+
+    policy.occupancy = 0.3;
+    addDocs(w, 5);
+    assertEquals(0, w.getFlushCount());
+    assertTrue(policy.getRAMBufferSizeMB() > 16);
+
+    // 0.45 is below the threshold but the next collection is expected to exceed it
+    policy.collect(0.45);
+    addDocs(w, 5);
+    assertEquals(1, w.getFlushCount());
+    assertEquals(16, policy.getRAMBufferSizeMB(), 0d);
+
+    w.close();
+    dir.close();
+  }
+
+  public void testDisabledFlushByRAM() throws Exception {
+    Directory dir = newDirectory();
+    MockHeapPressureFlushPolicy policy = new MockHeapPressureFlushPolicy(0.5, 64);
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setFlushPolicy(policy)
+        .setMaxBufferedDocs(100)
+        .setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    policy.occupancy = 0.9;
+    addDocs(w, 10);
+    assertEquals(0, w.getFlushCount());
+    assertEquals(IndexWriterConfig.DISABLE_AUTO_FLUSH, policy.getRAMBufferSizeMB(), 0d);
+    w.close();
+    dir.close();
+  }
+
+  public void testActualHeap() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(new MockAnalyzer(random()))
+        .setHeapPressureFlushing(0.75, 64));
+    addDocs(w, atLeast(100));
+    w.commit();
+    try (DirectoryReader reader = DirectoryReader.open(dir)) {
+      assertTrue(reader.numDocs() >= 100);
+    }
+    w.close();
+    dir.close();
+  }
+
+  public void testIllegalArguments() {
+    IndexWriterConfig iwc = new IndexWriterConfig(null);
+    expectThrows(IllegalArgumentException.class, () -> {
+      iwc.setHeapPressureFlushing(0, 64);
+    });
+    expectThrows(IllegalArgumentException.class, () -> {
+      iwc.setHeapPressureFlushing(1.5, 64);
+    });
+    expectThrows(IllegalArgumentException.class, () -> {
+      iwc.setHeapPressureFlushing(0.75, -1);
+    });
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.store.Directory;
+
+public class TestHeatAwareMergePolicy extends BaseMergePolicyTestCase {
+
+  public MergePolicy mergePolicy() {
+    return new HeatAwareMergePolicy(new SegmentAccessStats(1, TimeUnit.HOURS));
+  }
+
+  /** Creates {@code numSegments} segments of 10 docs each, with ids from 0 to 10*numSegments-1. */
+  private static IndexWriter newWriterWithSegments(Directory dir, int numSegments) throws IOException {
+    IndexWriterConfig conf = new IndexWriterConfig(new MockAnalyzer(random()));
+    conf.setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, conf);
+    for (int i = 0; i < numSegments; i++) {
+      for (int j = 0; j < 10; j++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(10 * i + j), Field.Store.NO));
+        w.addDocument(doc);
+      }
+      w.commit();
+    }
+    assertEquals(numSegments, w.segmentInfos.size());
+    return w;
+  }
+
+  private static Set<String> mergedSegments(MergePolicy.MergeSpecification spec) {
+    Set<String> names = new HashSet<>();
+    if (spec != null) {
+      for (MergePolicy.OneMerge merge : spec.merges) {
+        for (SegmentCommitInfo info : merge.segments) {
+          names.add(info.info.name);
+        }
+      }
+    }
+    return names;
+  }
+
+  public void testColdSegmentsAreNotMerged() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = newWriterWithSegments(dir, 12);
+    SegmentAccessStats stats = new SegmentAccessStats(1, TimeUnit.HOURS);
+    HeatAwareMergePolicy mp = new HeatAwareMergePolicy(stats);
+    mp.setFloorSegmentMB(1e-6);
+
+    Set<String> hot = new HashSet<>();
+    for (int i = 0; i < 12; i++) {
+      String name = w.segmentInfos.info(i).info.name;
+      if (i < 6) {
+        // rarely read
+        stats.record(name, 1);
+      } else {
+        stats.record(name, 1000);
+        hot.add(name);
+      }
+    }
+
+    Set<String> merged = mergedSegments(mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w));
+    assertFalse(merged.isEmpty());
+    assertTrue("merged=" + merged + " hot=" + hot, hot.containsAll(merged));
+
+    w.close();
+    dir.close();
+  }
+
+  public void testColdSegmentsWithDeletesAreMerged() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = newWriterWithSegments(dir, 4);
+    SegmentAccessStats stats = new SegmentAccessStats(1, TimeUnit.HOURS);
+    HeatAwareMergePolicy mp = new HeatAwareMergePolicy(stats);
+    mp.setFloorSegmentMB(1e-6);
+    for (int i = 1; i < 4; i++) {
+      stats.record(w.segmentInfos.info(i).info.name, 1000);
+    }
+    String cold = w.segmentInfos.info(0).info.name;
+    stats.record(cold, 1);
+
+    assertFalse(mergedSegments(mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w)).contains(cold));
+
+    for (int i = 0; i < 6; i++) {
+      w.deleteDocuments(new Term("id", Integer.toString(i)));
+    }
+    w.commit();
+    assertTrue(mergedSegments(mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w)).contains(cold));
+
+    mp.setColdDeletesPctAllowed(70);
+    assertFalse(mergedSegments(mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w)).contains(cold));
+
+    w.close();
+    dir.close();
+  }
+
+  public void testSegmentsWithoutStatsAreHot() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = newWriterWithSegments(dir, 12);
+    SegmentAccessStats stats = new SegmentAccessStats(1, TimeUnit.HOURS);
+    HeatAwareMergePolicy mp = new HeatAwareMergePolicy(stats);
+    mp.setFloorSegmentMB(1e-6);
+
+    Set<String> cold = new HashSet<>();
+    for (int i = 0; i < 6; i++) {
+      String name = w.segmentInfos.info(i).info.name;
+      stats.record(name, 1);
+      cold.add(name);
+    }
+    stats.record(w.segmentInfos.info(6).info.name, 1000);
+    // the other segments have no stats, like segments that have just been flushed or merged
+
+    Set<String> merged = mergedSegments(mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w));
+    assertFalse(merged.isEmpty());
+    for (String name : merged) {
+      assertFalse("merged=" + merged + " cold=" + cold, cold.contains(name));
+    }
+
+    w.close();
+    dir.close();
+  }
+
+  public void testMergedHotSegmentKeepsMerging() throws Exception {
+    Directory dir = newDirectory();
+    SegmentAccessStats stats = new SegmentAccessStats(1, TimeUnit.HOURS);
+    HeatAwareMergePolicy mp = new HeatAwareMergePolicy(stats);
+    mp.setFloorSegmentMB(1e-6);
+    IndexWriterConfig conf = new IndexWriterConfig(new MockAnalyzer(random()));
+    conf.setMergePolicy(mp);
+    conf.setMergeScheduler(new SerialMergeScheduler());
+    IndexWriter w = new IndexWriter(dir, conf);
+
+    final int docsPerSegment = 10;
+    int id = 0;
+    for (int i = 0; i < 50; i++) {
+      for (int j = 0; j < docsPerSegment; j++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(id++), Field.Store.NO));
+        w.addDocument(doc);
+      }
+      w.commit();
+      // only new segments are queried, merged segments get their stats from the segments they merged
+      for (SegmentCommitInfo info : w.segmentInfos) {
+        if (stats.contains(info.info.name) == false && info.info.maxDoc() == docsPerSegment) {
+          stats.record(info.info.name, 1000);
+        }
+      }
+    }
+
+    int maxDoc = 0;
+    for (SegmentCommitInfo info : w.segmentInfos) {
+      assertTrue(info.info.name, stats.contains(info.info.name));
+      maxDoc = Math.max(maxDoc, info.info.maxDoc());
+    }
+    // a segment that was created by a merge has been merged again
+    assertTrue("maxDoc=" + maxDoc, maxDoc > mp.getHotSegmentsPerTier() * docsPerSegment);
+    assertTrue(w.segmentInfos.toString(), w.segmentInfos.size() < 15);
+
+    w.close();
+    dir.close();
+  }
+
+  public void testMergeStats() throws Exception {
+    AtomicLong clock = new AtomicLong();
+    SegmentAccessStats stats = new SegmentAccessStats(10, TimeUnit.SECONDS, clock::get);
+    stats.record("_0", 100);
+    stats.record("_1", 300);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    stats.merge(Arrays.asList("_0", "_1", "_2"), "_3");
+    assertEquals(1, stats.getHits("_3"), 1e-9);
+    assertEquals(200, stats.getCostNanos("_3"), 1e-9);
+
+    stats.merge(Arrays.asList("_2", "_4"), "_5");
+    assertFalse(stats.contains("_5"));
+  }
+
+  public void testNoStatsIsTiered() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = newWriterWithSegments(dir, 12);
+    TieredMergePolicy tmp = new TieredMergePolicy();
+    HeatAwareMergePolicy mp = new HeatAwareMergePolicy(new SegmentAccessStats(1, TimeUnit.HOURS));
+    assertEquals(mergedSegments(tmp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w)),
+        mergedSegments(mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w)));
+    w.close();
+    dir.close();
+  }
+
+  public void testStatsDecay() throws Exception {
+    AtomicLong clock = new AtomicLong();
+    SegmentAccessStats stats = new SegmentAccessStats(10, TimeUnit.SECONDS, clock::get);
+    stats.record("_0", 100);
+    stats.record("_0", 100);
+    assertEquals(2, stats.getHits("_0"), 0d);
+    assertEquals(200, stats.getCostNanos("_0"), 0d);
+    assertEquals(0, stats.getHits("_1"), 0d);
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertEquals(1, stats.getHits("_0"), 1e-9);
+    assertEquals(100, stats.getCostNanos("_0"), 1e-9);
+
+    stats.record("_0", 100);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(20));
+    assertEquals(0.5, stats.getHits("_0"), 1e-9);
+    assertEquals(50, stats.getCostNanos("_0"), 1e-9);
+
+    stats.retainAll(new HashSet<>());
+    assertEquals(0, stats.getHits("_0"), 0d);
+  }
+
+  public void testRecordLeaf() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = newWriterWithSegments(dir, 2);
+    SegmentAccessStats stats = new SegmentAccessStats(1, TimeUnit.HOURS);
+    try (DirectoryReader reader = DirectoryReader.open(w)) {
+      for (LeafReaderContext ctx : reader.leaves()) {
+        stats.record(ctx, 10);
+      }
+    }
+    for (SegmentCommitInfo info : w.segmentInfos) {
+      assertEquals(1, stats.getHits(info.info.name), 0.01);
+    }
+    w.close();
+    dir.close();
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new HeatAwareMergePolicy(null));
+    expectThrows(IllegalArgumentException.class, () -> new SegmentAccessStats(0, TimeUnit.SECONDS));
+    expectThrows(IllegalArgumentException.class, () -> new SegmentAccessStats(1, TimeUnit.SECONDS).record("_0", -1));
+    HeatAwareMergePolicy mp = new HeatAwareMergePolicy(new SegmentAccessStats(1, TimeUnit.HOURS));
+    expectThrows(IllegalArgumentException.class, () -> mp.setHotSegmentsPerTier(1.5));
+    expectThrows(IllegalArgumentException.class, () -> mp.setColdHeatRatio(-1));
+    expectThrows(IllegalArgumentException.class, () -> mp.setColdDeletesPctAllowed(101));
+  }
+}
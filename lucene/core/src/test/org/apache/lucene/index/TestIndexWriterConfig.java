@@ -75,6 +75,11 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     assertEquals(InfoStream.getDefault(), conf.getInfoStream());
     assertEquals(IndexWriterConfig.DEFAULT_USE_COMPOUND_FILE_SYSTEM, conf.getUseCompoundFile());
     assertTrue(conf.isCheckPendingFlushOnUpdate());
+    assertNull(conf.getAnalysisExecutor());
+    assertNull(conf.getFlushExecutor());
+    assertSame(IndexingBufferAllocator.NON_RECYCLING, conf.getIndexingBufferAllocator());
+    assertTrue(conf.getPointRangeFields().isEmpty());
+    assertEquals(0, conf.getMaxNumericUpdateOverlays());
     // Sanity check - validate that all getters are covered.
     Set<String> getters = new HashSet<>();
     getters.add("getAnalyzer");
@@ -100,6 +105,11 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     getters.add("getInfoStream");
     getters.add("getUseCompoundFile");
     getters.add("isCheckPendingFlushOnUpdate");
+    getters.add("getAnalysisExecutor");
+    getters.add("getFlushExecutor");
+    getters.add("getIndexingBufferAllocator");
+    getters.add("getPointRangeFields");
+    getters.add("getMaxNumericUpdateOverlays");
     
     for (Method m : IndexWriterConfig.class.getDeclaredMethods()) {
       if (m.getDeclaringClass() == IndexWriterConfig.class && m.getName().startsWith("get")) {
@@ -257,6 +267,10 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     expectThrows(IllegalArgumentException.class, () -> {
       conf.setRAMPerThreadHardLimitMB(0);
     });
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      conf.setMaxNumericUpdateOverlays(-1);
+    });
     
     // Test MergePolicy
     assertEquals(TieredMergePolicy.class, conf.getMergePolicy().getClass());
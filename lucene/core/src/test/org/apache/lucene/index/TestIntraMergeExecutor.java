@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+
+public class TestIntraMergeExecutor extends BaseIndexingExecutorTestCase {
+
+  private static void indexDocs(Directory dir) throws IOException {
+    IndexWriterConfig iwc = new IndexWriterConfig(newAnalyzer(random()))
+        .setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setRAMBufferSizeMB(256)
+        .setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    addDocuments(w, randomDocuments(random(), atLeast(300)), TestUtil.nextInt(random(), 10, 100), 50);
+    w.close();
+  }
+
+  private static void forceMerge(Directory dir, Executor executor, double mbPerSec) throws IOException {
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setIntraMergeExecutor(executor);
+    cms.setForceMergeMBPerSec(mbPerSec);
+    IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(null).setMergeScheduler(cms));
+    w.forceMerge(1);
+    w.close();
+  }
+
+  private void doTestSameIndex(double mbPerSec) throws Exception {
+    Directory expectedDir = newDirectory();
+    indexDocs(expectedDir);
+    // index once and copy so that both merges start from the exact same segments
+    Directory actualDir = newDirectory(expectedDir);
+    forceMerge(expectedDir, null, mbPerSec);
+
+    ExecutorService executor = newExecutor("TestIntraMergeExecutor");
+    try {
+      forceMerge(actualDir, executor, mbPerSec);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+
+    assertSameIndex("intra-merge executor", expectedDir, actualDir);
+    expectedDir.close();
+    actualDir.close();
+  }
+
+  public void testSameIndex() throws Exception {
+    doTestSameIndex(Double.POSITIVE_INFINITY);
+  }
+
+  public void testSameIndexWithRateLimit() throws Exception {
+    // helper threads write through the rate limiter of the merge
+    doTestSameIndex(TestUtil.nextInt(random(), 5, 20));
+  }
+}
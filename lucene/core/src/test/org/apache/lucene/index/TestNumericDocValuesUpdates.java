@@ -42,6 +42,9 @@ import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
@@ -1691,4 +1694,117 @@ public class TestNumericDocValuesUpdates extends LuceneTestCase {
     IOUtils.close(reader, writer, cachingDir);
   }
   
+  public void testUpdateOverlays() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
+    final int numDocs = atLeast(50);
+    conf.setMaxNumericUpdateOverlays(2);
+    conf.setMergePolicy(NoMergePolicy.INSTANCE);
+    // a single segment so that doc IDs match the ids
+    conf.setMaxBufferedDocs(numDocs + 1);
+    conf.setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+    IndexWriter writer = new IndexWriter(dir, conf);
+
+    final long[] expected = new long[numDocs + 1];
+    for (int i = 0; i < numDocs; i++) {
+      if (i % 3 == 0) {
+        // docs without a value must not get one from the overlays
+        Document doc = new Document();
+        doc.add(new StringField("id", "doc-" + i, Store.NO));
+        writer.addDocument(doc);
+        expected[i] = -1;
+      } else {
+        writer.addDocument(doc(i));
+        expected[i] = i + 1;
+      }
+    }
+    writer.commit();
+
+    for (int round = 0; round < 4; round++) {
+      for (int i = 0; i < 5; i++) {
+        int id = random().nextInt(numDocs);
+        long value = TestUtil.nextLong(random(), 0, Long.MAX_VALUE);
+        writer.updateNumericDocValue(new Term("id", "doc-" + id), "val", value);
+        expected[id] = value;
+      }
+      writer.commit();
+
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertEquals(1, reader.leaves().size());
+        LeafReader leaf = reader.leaves().get(0).reader();
+        // updates are written as overlays until the limit is reached, then
+        // compacted into a new base gen, on top of which overlays start again
+        long[] gens = NumericUpdateOverlays.getGens(leaf.getFieldInfos().fieldInfo("val"));
+        assertEquals(round % 3 == 2 ? 0 : round % 3 + 1, gens.length);
+        assertValues(leaf, expected);
+      }
+    }
+
+    // merging rewrites the overlaid values into the merged segment
+    writer.addDocument(doc(numDocs));
+    expected[numDocs] = numDocs + 1;
+    writer.getConfig().setMergePolicy(newLogMergePolicy());
+    writer.forceMerge(1);
+    writer.commit();
+    try (DirectoryReader reader = DirectoryReader.open(dir)) {
+      assertEquals(1, reader.leaves().size());
+      LeafReader leaf = reader.leaves().get(0).reader();
+      assertEquals(0, NumericUpdateOverlays.getGens(leaf.getFieldInfos().fieldInfo("val")).length);
+      assertValues(leaf, expected);
+    }
+
+    writer.close();
+    TestUtil.checkIndex(dir);
+    dir.close();
+  }
+
+  public void testUpdateOverlaysWithQueryCache() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
+    conf.setMaxNumericUpdateOverlays(4);
+    conf.setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter writer = new IndexWriter(dir, conf);
+    writer.addDocument(doc(0, 1));
+    writer.addDocument(doc(1, 10));
+    writer.addDocument(doc(2, 10));
+    writer.commit();
+
+    final LRUQueryCache queryCache = new LRUQueryCache(10, Long.MAX_VALUE, context -> true);
+    final Query query = NumericDocValuesField.newSlowRangeQuery("val", 0, 5);
+    DirectoryReader reader = DirectoryReader.open(dir);
+    for (int i = 1; i <= 2; i++) {
+      IndexSearcher searcher = newSearcher(reader);
+      searcher.setQueryCache(queryCache);
+      searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+      assertEquals(i, searcher.count(query));
+
+      // the update is written as an overlay, which leaves the base gen as is
+      writer.updateNumericDocValue(new Term("id", "doc-" + i), "val", 2);
+      writer.commit();
+      DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+      assertNotNull(newReader);
+      reader.close();
+      reader = newReader;
+      assertEquals(i, NumericUpdateOverlays.getGens(reader.leaves().get(0).reader().getFieldInfos().fieldInfo("val")).length);
+    }
+    IndexSearcher searcher = newSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+    assertEquals(3, searcher.count(query));
+
+    IOUtils.close(reader, writer, dir);
+  }
+
+  private static void assertValues(LeafReader leaf, long[] expected) throws IOException {
+    NumericDocValues values = leaf.getNumericDocValues("val");
+    for (int doc = 0; doc < leaf.maxDoc(); doc++) {
+      if (expected[doc] == -1) {
+        assertFalse(values.advanceExact(doc));
+      } else {
+        assertTrue(values.advanceExact(doc));
+        assertEquals(expected[doc], values.longValue());
+      }
+    }
+  }
+
 }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.store.Directory;
+
+public class TestPointRangeMergePolicy extends BaseMergePolicyTestCase {
+
+  public MergePolicy mergePolicy() {
+    return new PointRangeMergePolicy("t");
+  }
+
+  private static void addSegment(IndexWriter w, long from, long to) throws Exception {
+    for (long t = from; t <= to; t++) {
+      Document doc = new Document();
+      doc.add(new LongPoint("t", t));
+      doc.add(new LongPoint("other", t));
+      w.addDocument(doc);
+    }
+    w.commit();
+  }
+
+  private static long min(SegmentCommitInfo info) {
+    return LongPoint.decodeDimension(SegmentPointRanges.getMinPackedValue(info.info, "t"), 0);
+  }
+
+  private static long max(SegmentCommitInfo info) {
+    return LongPoint.decodeDimension(SegmentPointRanges.getMaxPackedValue(info.info, "t"), 0);
+  }
+
+  public void testRangesAreRecorded() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = new IndexWriterConfig(new MockAnalyzer(random()));
+    conf.setMergePolicy(NoMergePolicy.INSTANCE);
+    conf.setPointRangeFields("t");
+    IndexWriter w = new IndexWriter(dir, conf);
+    addSegment(w, 10, 19);
+    addSegment(w, -5, 5);
+    w.addDocument(new Document());
+    w.commit();
+
+    assertEquals(3, w.segmentInfos.size());
+    assertEquals(10, min(w.segmentInfos.info(0)));
+    assertEquals(19, max(w.segmentInfos.info(0)));
+    assertEquals(-5, min(w.segmentInfos.info(1)));
+    assertEquals(5, max(w.segmentInfos.info(1)));
+    assertNull(SegmentPointRanges.getMinPackedValue(w.segmentInfos.info(2).info, "t"));
+    assertNull(SegmentPointRanges.getMinPackedValue(w.segmentInfos.info(0).info, "other"));
+
+    w.getConfig().setMergePolicy(new TieredMergePolicy());
+    w.forceMerge(1);
+    assertEquals(1, w.segmentInfos.size());
+    assertEquals(-5, min(w.segmentInfos.info(0)));
+    assertEquals(19, max(w.segmentInfos.info(0)));
+    w.close();
+
+    // ranges are persisted
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    assertEquals(-5, min(infos.info(0)));
+    assertEquals(19, max(infos.info(0)));
+    dir.close();
+  }
+
+  public void testMergesAdjacentRanges() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = new IndexWriterConfig(new MockAnalyzer(random()));
+    conf.setMergePolicy(NoMergePolicy.INSTANCE);
+    conf.setPointRangeFields("t");
+    IndexWriter w = new IndexWriter(dir, conf);
+    addSegment(w, 0, 9);
+    addSegment(w, 100, 109);
+    addSegment(w, 10, 19);
+    addSegment(w, 110, 119);
+
+    PointRangeMergePolicy mp = new PointRangeMergePolicy("t");
+    mp.setMergeFactor(2);
+    MergePolicy.MergeSpecification spec = mp.findMerges(MergeTrigger.EXPLICIT, w.segmentInfos, w);
+    assertNotNull(spec);
+    assertEquals(2, spec.merges.size());
+    Set<Set<String>> merged = new HashSet<>();
+    for (MergePolicy.OneMerge merge : spec.merges) {
+      Set<String> names = new HashSet<>();
+      for (SegmentCommitInfo info : merge.segments) {
+        names.add(info.info.name);
+      }
+      merged.add(names);
+    }
+    Set<Set<String>> expected = new HashSet<>();
+    expected.add(new HashSet<>(Arrays.asList(w.segmentInfos.info(0).info.name, w.segmentInfos.info(2).info.name)));
+    expected.add(new HashSet<>(Arrays.asList(w.segmentInfos.info(1).info.name, w.segmentInfos.info(3).info.name)));
+    assertEquals(expected, merged);
+
+    w.getConfig().setMergePolicy(mp);
+    w.forceMerge(2);
+    assertEquals(2, w.segmentInfos.size());
+    SegmentCommitInfo first = w.segmentInfos.info(0), second = w.segmentInfos.info(1);
+    // merged segments do not overlap
+    assertTrue(max(first) < min(second) || max(second) < min(first));
+
+    w.close();
+    dir.close();
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new PointRangeMergePolicy(null));
+    IndexWriterConfig conf = new IndexWriterConfig(new MockAnalyzer(random()));
+    expectThrows(IllegalArgumentException.class, () -> conf.setPointRangeFields("t", null));
+  }
+}
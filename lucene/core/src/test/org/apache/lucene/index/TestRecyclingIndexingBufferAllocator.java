@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestRecyclingIndexingBufferAllocator extends LuceneTestCase {
+
+  private static void indexDocs(Directory dir, IndexingBufferAllocator allocator, long seed) throws IOException {
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(new Random(seed)))
+        .setIndexingBufferAllocator(allocator)
+        .setMaxBufferedDocs(TestUtil.nextInt(new Random(seed), 10, 100))
+        .setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    Random random = new Random(seed);
+    FieldType withVectors = new FieldType(TextField.TYPE_STORED);
+    withVectors.setStoreTermVectors(true);
+    withVectors.setStoreTermVectorPositions(true);
+    withVectors.setStoreTermVectorOffsets(true);
+    final int numDocs = atLeast(random, 500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new Field("body", TestUtil.randomAnalysisString(random, 50, false), withVectors));
+      if (random.nextBoolean()) {
+        doc.add(new TextField("title", TestUtil.randomSimpleString(random, 10), Field.Store.NO));
+      }
+      doc.add(new IntPoint("point", random.nextInt(), random.nextInt()));
+      doc.add(new SortedDocValuesField("sorted", new BytesRef(TestUtil.randomSimpleString(random, 2))));
+      w.addDocument(doc);
+      if (random.nextInt(50) == 0) {
+        w.deleteDocuments(new Term("id", Integer.toString(random.nextInt(i + 1))));
+      }
+    }
+    w.commit();
+    assertTrue(w.ramBytesUsed() >= allocator.ramBytesUsed());
+    w.close();
+  }
+
+  public void testSameIndex() throws Exception {
+    final long seed = random().nextLong();
+    Directory expectedDir = newDirectory();
+    indexDocs(expectedDir, IndexingBufferAllocator.NON_RECYCLING, seed);
+
+    RecyclingIndexingBufferAllocator allocator = new RecyclingIndexingBufferAllocator(1000, 1000);
+    Directory actualDir = newDirectory();
+    indexDocs(actualDir, allocator, seed);
+    // blocks of the last flushed segment have been recycled
+    assertTrue(allocator.numBufferedByteBlocks() > 0);
+    assertTrue(allocator.numBufferedIntBlocks() > 0);
+    assertTrue(allocator.ramBytesUsed() > 0);
+
+    DirectoryReader expected = DirectoryReader.open(expectedDir);
+    DirectoryReader actual = DirectoryReader.open(actualDir);
+    assertEquals(expected.leaves().size(), actual.leaves().size());
+    assertReaderEquals("recycling allocator", expected, actual);
+    expected.close();
+    actual.close();
+    expectedDir.close();
+    actualDir.close();
+  }
+
+  public void testMaxBufferedBlocks() throws Exception {
+    RecyclingIndexingBufferAllocator allocator = new RecyclingIndexingBufferAllocator(2, 1);
+    Directory dir = newDirectory();
+    indexDocs(dir, allocator, random().nextLong());
+    assertTrue(allocator.numBufferedByteBlocks() <= 2);
+    assertTrue(allocator.numBufferedIntBlocks() <= 1);
+
+    allocator.clear();
+    assertEquals(0, allocator.numBufferedByteBlocks());
+    assertEquals(0, allocator.numBufferedIntBlocks());
+    assertEquals(0, allocator.ramBytesUsed());
+    dir.close();
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> {
+      new RecyclingIndexingBufferAllocator(-1, 1);
+    });
+    expectThrows(IllegalArgumentException.class, () -> {
+      new RecyclingIndexingBufferAllocator(1, -1);
+    });
+    expectThrows(IllegalArgumentException.class, () -> {
+      new IndexWriterConfig(null).setIndexingBufferAllocator(null);
+    });
+  }
+}
@@ -284,4 +284,36 @@ public class TestBooleanScorer extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testPartitions() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(3000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      for (String value : Arrays.asList("foo", "bar", "baz")) {
+        if (random().nextInt(5) == 0) {
+          doc.add(new StringField("field", value, Store.NO));
+        }
+      }
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.forceMerge(1);
+    }
+    IndexReader reader = w.getReader();
+    IndexSearcher searcher = newSearcher(reader);
+
+    Query query = new BooleanQuery.Builder()
+      .add(new TermQuery(new Term("field", "foo")), Occur.SHOULD)
+      .add(new TermQuery(new Term("field", "bar")), Occur.SHOULD)
+      .add(new TermQuery(new Term("field", "baz")), Occur.SHOULD)
+      .build();
+    QueryUtils.checkBulkScorerPartitions(random(), query, searcher, ScoreMode.COMPLETE);
+    QueryUtils.checkBulkScorerPartitions(random(), query, searcher, ScoreMode.COMPLETE_NO_SCORES);
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
 }
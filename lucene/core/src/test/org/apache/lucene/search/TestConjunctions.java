@@ -154,4 +154,13 @@ public class TestConjunctions extends LuceneTestCase {
     assertTrue(setScorerCalled[0]);
     IOUtils.close(r, w, dir);
   }
+
+  public void testPartitions() throws Exception {
+    BooleanQuery.Builder bq = new BooleanQuery.Builder();
+    bq.add(new TermQuery(new Term(F2, "lucene")), BooleanClause.Occur.MUST);
+    bq.add(new TermQuery(new Term(F2, "is")), BooleanClause.Occur.MUST);
+    Query query = bq.build();
+    QueryUtils.checkBulkScorerPartitions(random(), query, searcher, ScoreMode.COMPLETE);
+    QueryUtils.checkBulkScorerPartitions(random(), query, searcher, ScoreMode.COMPLETE_NO_SCORES);
+  }
 }
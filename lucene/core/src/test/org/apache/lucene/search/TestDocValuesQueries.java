@@ -19,13 +19,18 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
@@ -92,6 +97,89 @@ public class TestDocValuesQueries extends LuceneTestCase {
     }
   }
 
+  public void testDuelPointRangeNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQueryWithSkipIndex(false);
+  }
+
+  public void testDuelPointRangeSortedNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQueryWithSkipIndex(true);
+  }
+
+  private void doTestDuelPointRangeNumericRangeQueryWithSkipIndex(boolean sortedNumeric) throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setCodec(TestUtil.alwaysDocValuesFormat(new Lucene80DocValuesFormat()));
+    IndexWriter iw = new IndexWriter(dir, iwc);
+    // clustered values so that the skip index can skip blocks
+    final int numDocs = atLeast(20000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextInt(20) != 0) {
+        final long value = i / 10 + TestUtil.nextLong(random(), -50, 50);
+        if (sortedNumeric) {
+          doc.add(new SortedNumericDocValuesField("dv", value));
+        } else {
+          doc.add(new NumericDocValuesField("dv", value));
+        }
+        doc.add(new LongPoint("idx", value));
+      }
+      iw.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      iw.forceMerge(1);
+    }
+    final IndexReader reader = DirectoryReader.open(iw);
+    final IndexSearcher searcher = newSearcher(reader, false);
+    iw.close();
+
+    for (int i = 0; i < 100; ++i) {
+      final long min = TestUtil.nextLong(random(), -100, numDocs / 10);
+      final long max = min + TestUtil.nextLong(random(), 0, random().nextBoolean() ? 100 : numDocs / 10);
+      final Query q1 = LongPoint.newRangeQuery("idx", min, max);
+      final Query q2;
+      if (sortedNumeric) {
+        q2 = SortedNumericDocValuesField.newSlowRangeQuery("dv", min, max);
+      } else {
+        q2 = NumericDocValuesField.newSlowRangeQuery("dv", min, max);
+      }
+      assertSameMatches(searcher, q1, q2, false);
+      assertEquals(searcher.count(q1), searcher.count(q2));
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testSkipIndexOnlyUsedWhenBlocksCanBeSkipped() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setCodec(TestUtil.alwaysDocValuesFormat(new Lucene80DocValuesFormat()));
+    IndexWriter iw = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(3 * 4096);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new NumericDocValuesField("clustered", i));
+      doc.add(new NumericDocValuesField("random", random().nextInt(1000)));
+      iw.addDocument(doc);
+    }
+    iw.forceMerge(1);
+    final IndexReader reader = DirectoryReader.open(iw);
+    iw.close();
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    final LeafReaderContext context = reader.leaves().get(0);
+
+    Weight weight = searcher.createNormalizedWeight(NumericDocValuesField.newSlowRangeQuery("clustered", 100, 900), ScoreMode.COMPLETE_NO_SCORES);
+    assertTrue(weight.scorer(context).twoPhaseIterator() instanceof DocValuesRangeIterator);
+
+    // every block of 4096 random values between 0 and 999 overlaps the range without being contained in it
+    weight = searcher.createNormalizedWeight(NumericDocValuesField.newSlowRangeQuery("random", 100, 900), ScoreMode.COMPLETE_NO_SCORES);
+    final TwoPhaseIterator twoPhase = weight.scorer(context).twoPhaseIterator();
+    assertNotNull(twoPhase);
+    assertFalse(twoPhase instanceof DocValuesRangeIterator);
+
+    reader.close();
+    dir.close();
+  }
+
   private void doTestDuelPointRangeSortedRangeQuery(boolean sortedSet, int maxValuesPerDoc) throws IOException {
     final int iters = atLeast(10);
     for (int iter = 0; iter < iters; ++iter) {
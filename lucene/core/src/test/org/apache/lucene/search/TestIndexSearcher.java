@@ -19,22 +19,34 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.IndexSearcher.LeafReaderContextPartition;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
@@ -147,6 +159,11 @@ public class TestIndexSearcher extends LuceneTestCase {
       if (random().nextBoolean()) {
         doc.add(new StringField("foo", "baz", Store.NO));
       }
+      if (random().nextBoolean()) {
+        final long value = random().nextInt(10);
+        doc.add(new LongPoint("point", value));
+        doc.add(new NumericDocValuesField("dv", value));
+      }
       if (rarely()) {
         doc.add(new StringField("delete", "yes", Store.NO));
       }
@@ -167,9 +184,14 @@ public class TestIndexSearcher extends LuceneTestCase {
           new BooleanQuery.Builder()
             .add(new TermQuery(new Term("foo", "bar")), Occur.SHOULD)
             .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
-            .build()
+            .build(),
+          LongPoint.newRangeQuery("point", 0, 9),
+          LongPoint.newRangeQuery("point", 3, 5),
+          LongPoint.newRangeQuery("point", 20, 30),
+          new DocValuesFieldExistsQuery("dv")
           )) {
         assertEquals(searcher.count(query), searcher.search(query, 1).totalHits);
+        assertWeightCount(searcher, query);
       }
       reader.close();
     }
@@ -177,6 +199,39 @@ public class TestIndexSearcher extends LuceneTestCase {
     dir.close();
   }
 
+  private static void assertWeightCount(IndexSearcher searcher, Query query) throws IOException {
+    final Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1);
+    for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+      final int count = weight.count(context);
+      if (query instanceof MatchAllDocsQuery
+          || (context.reader().hasDeletions() == false && query instanceof TermQuery)) {
+        assertTrue(count != -1);
+      }
+      final long cost = weight.estimateCost(context);
+      if (query instanceof TermQuery || query instanceof BooleanQuery || query instanceof PointRangeQuery) {
+        assertTrue(cost != -1);
+      }
+      int expected = 0;
+      final Scorer scorer = weight.scorer(context);
+      if (scorer != null) {
+        final Bits liveDocs = context.reader().getLiveDocs();
+        final DocIdSetIterator iterator = scorer.iterator();
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+          if (liveDocs == null || liveDocs.get(doc)) {
+            expected++;
+          }
+        }
+      }
+      if (count != -1) {
+        assertEquals(expected, count);
+      }
+      if (query instanceof TermQuery || query instanceof BooleanQuery) {
+        // doc freqs are an upper bound of the number of matches
+        assertTrue(cost + " < " + expected, cost >= expected);
+      }
+    }
+  }
+
   public void testGetQueryCache() throws IOException {
     IndexSearcher searcher = new IndexSearcher(new MultiReader());
     assertEquals(IndexSearcher.getDefaultQueryCache(), searcher.getQueryCache());
@@ -219,4 +274,308 @@ public class TestIndexSearcher extends LuceneTestCase {
     searcher = new IndexSearcher(new MultiReader());
     assertEquals(dummyPolicy, searcher.getQueryCachingPolicy());
   }
+
+  public void testSlices() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    final int numSegments = TestUtil.nextInt(random(), 1, 15);
+    for (int i = 0; i < numSegments; ++i) {
+      final int numDocs = TestUtil.nextInt(random(), 1, 50);
+      for (int j = 0; j < numDocs; ++j) {
+        w.addDocument(new Document());
+      }
+      w.flush();
+    }
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+
+    final List<LeafReaderContext> leaves = reader.leaves();
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, 100);
+    final int maxSegmentsPerSlice = TestUtil.nextInt(random(), 1, 5);
+    final boolean allowSegmentPartitions = random().nextBoolean();
+    LeafSlice[] slices = IndexSearcher.slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice, allowSegmentPartitions);
+
+    // slices must cover all documents exactly once and in order
+    int nextDoc = 0;
+    for (LeafSlice slice : slices) {
+      if (slice.partitions == null) {
+        assertTrue(slice.leaves.length <= maxSegmentsPerSlice);
+        int docCount = 0;
+        for (LeafReaderContext ctx : slice.leaves) {
+          assertEquals(nextDoc, ctx.docBase);
+          nextDoc += ctx.reader().maxDoc();
+          docCount += ctx.reader().maxDoc();
+        }
+        if (slice.leaves.length > 1 || allowSegmentPartitions) {
+          assertTrue(docCount <= maxDocsPerSlice);
+        }
+      } else {
+        assertTrue(allowSegmentPartitions);
+        for (LeafReaderContextPartition partition : slice.partitions) {
+          assertEquals(nextDoc, partition.ctx.docBase + partition.minDocId);
+          assertTrue(partition.maxDocId - partition.minDocId <= maxDocsPerSlice);
+          nextDoc = partition.ctx.docBase + partition.maxDocId;
+        }
+      }
+    }
+    assertEquals(reader.maxDoc(), nextDoc);
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      IndexSearcher.slices(leaves, 0, maxSegmentsPerSlice, allowSegmentPartitions);
+    });
+    expectThrows(IllegalArgumentException.class, () -> {
+      IndexSearcher.slices(leaves, maxDocsPerSlice, 0, allowSegmentPartitions);
+    });
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testSearchWithPartitions() throws Exception {
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, 30);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    IndexSearcher partitionedSearcher = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocsPerSlice, MAX_SEGMENTS_PER_SLICE, true);
+      }
+    };
+
+    Query[] queries = new Query[] {
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("field", "1")),
+        new TermQuery(new Term("field2", "true")),
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("field", "3")), Occur.SHOULD)
+          .add(new TermQuery(new Term("field2", "false")), Occur.SHOULD)
+          .build()
+    };
+    Sort sort = new Sort(new SortField("field2", SortField.Type.STRING));
+    for (Query query : queries) {
+      assertEquals(searcher.count(query), partitionedSearcher.count(query));
+      CheckHits.checkEqual(query, searcher.search(query, 10).scoreDocs, partitionedSearcher.search(query, 10).scoreDocs);
+      CheckHits.checkEqual(query, searcher.search(query, 10, sort, true, false).scoreDocs,
+          partitionedSearcher.search(query, 10, sort, true, false).scoreDocs);
+    }
+
+    TestUtil.shutdownExecutorService(service);
+  }
+
+  public void testCountWithPartitions() throws Exception {
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, 30);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    IndexSearcher partitionedSearcher = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocsPerSlice, MAX_SEGMENTS_PER_SLICE, true);
+      }
+    };
+    // the test searcher that only uses Scorer must give the same counts
+    IndexSearcher partitionedScorerSearcher = new ScorerIndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocsPerSlice, MAX_SEGMENTS_PER_SLICE, true);
+      }
+    };
+    for (IndexSearcher s : new IndexSearcher[] { partitionedSearcher, partitionedScorerSearcher }) {
+      doTestCountWithPartitions(searcher, s);
+    }
+
+    TestUtil.shutdownExecutorService(service);
+  }
+
+  private void doTestCountWithPartitions(IndexSearcher searcher, IndexSearcher partitionedSearcher) throws IOException {
+    final AtomicInteger collected = new AtomicInteger();
+    final CollectorManager<TotalHitCountCollector, Integer> collectorManager = new CollectorManager<TotalHitCountCollector, Integer>() {
+
+      @Override
+      public TotalHitCountCollector newCollector() {
+        return new TotalHitCountCollector() {
+          @Override
+          public void collect(int doc) {
+            super.collect(doc);
+            collected.incrementAndGet();
+          }
+
+          @Override
+          public void collect(int[] docs, int size) {
+            super.collect(docs, size);
+            collected.addAndGet(size);
+          }
+        };
+      }
+
+      @Override
+      public Integer reduce(Collection<TotalHitCountCollector> collectors) {
+        int total = 0;
+        for (TotalHitCountCollector collector : collectors) {
+          total += collector.getTotalHits();
+        }
+        return total;
+      }
+
+    };
+
+    // counts are read from index statistics, once per leaf
+    final CollectorManager<TotalHitCountCollector, Integer> countManager = new CollectorManager<TotalHitCountCollector, Integer>() {
+
+      @Override
+      public TotalHitCountCollector newCollector() {
+        return new TotalHitCountCollector();
+      }
+
+      @Override
+      public Integer reduce(Collection<TotalHitCountCollector> collectors) throws IOException {
+        return collectorManager.reduce(collectors);
+      }
+
+    };
+    for (Query query : new Query[] { new MatchAllDocsQuery(), new TermQuery(new Term("field2", "true")) }) {
+      assertEquals(searcher.count(query), partitionedSearcher.search(query, countManager).intValue());
+    }
+
+    // counts are not available, every hit is collected once
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("field", "3")), Occur.SHOULD)
+        .add(new TermQuery(new Term("field2", "false")), Occur.SHOULD)
+        .build();
+    collected.set(0);
+    final int count = partitionedSearcher.search(query, collectorManager);
+    assertEquals(searcher.count(query), count);
+    assertEquals(count, collected.get());
+  }
+
+  public void testCostBasedSliceExecutionPolicy() throws Exception {
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, 30);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    IndexSearcher adaptiveSearcher = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocsPerSlice, TestUtil.nextInt(random(), 1, 3), true);
+      }
+    };
+    assertSame(SliceExecutionPolicy.ALWAYS_CONCURRENT, adaptiveSearcher.getSliceExecutionPolicy());
+    CostBasedSliceExecutionPolicy policy = new CostBasedSliceExecutionPolicy(TestUtil.nextInt(random(), 1, 60));
+    adaptiveSearcher.setSliceExecutionPolicy(policy);
+    assertSame(policy, adaptiveSearcher.getSliceExecutionPolicy());
+
+    Query[] queries = new Query[] {
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("field", "1")),
+        new TermQuery(new Term("field2", "true")),
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("field", "3")), Occur.SHOULD)
+          .add(new TermQuery(new Term("field2", "false")), Occur.SHOULD)
+          .build()
+    };
+    Sort sort = new Sort(new SortField("field2", SortField.Type.STRING));
+    for (Query query : queries) {
+      CheckHits.checkEqual(query, searcher.search(query, 10).scoreDocs, adaptiveSearcher.search(query, 10).scoreDocs);
+      CheckHits.checkEqual(query, searcher.search(query, 10, sort, true, false).scoreDocs,
+          adaptiveSearcher.search(query, 10, sort, true, false).scoreDocs);
+    }
+    if (adaptiveSearcher.getSlices().length > 1) {
+      assertEquals(2 * queries.length, policy.getSequentialCount() + policy.getConcurrentCount());
+      // the term query on "field" matches a single document
+      assertTrue(policy.getSequentialCount() >= 2);
+      assertTrue(policy.getTaskCount() >= 2 * policy.getConcurrentCount());
+    }
+
+    TestUtil.shutdownExecutorService(service);
+  }
+
+  public void testCostBasedSliceExecutionPolicyUsesQueryCost() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig()
+        .setMaxBufferedDocs(100)
+        .setMergePolicy(NoMergePolicy.INSTANCE));
+    final int numDocs = 2000;
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+      doc.add(new StringField("body", i % 2 == 0 ? "even" : "odd", Field.Store.NO));
+      doc.add(new LongPoint("value", i));
+      w.addDocument(doc);
+      if (i % 100 == 50) {
+        // segments with deletions can't count hits from index statistics
+        w.deleteDocuments(new Term("id", Integer.toString(i)));
+      }
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    assertTrue(reader.hasDeletions());
+
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    IndexSearcher searcher = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, 200, 1, false);
+      }
+    };
+    assertTrue(searcher.getSlices().length > 1);
+    CostBasedSliceExecutionPolicy policy = new CostBasedSliceExecutionPolicy(200);
+    searcher.setSliceExecutionPolicy(policy);
+
+    // selective queries stay on the calling thread, even though the index is large
+    Query[] selectiveQueries = new Query[] {
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("id", "42")), Occur.MUST)
+          .add(new TermQuery(new Term("body", "even")), Occur.MUST)
+          .build(),
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("id", "3")), Occur.SHOULD)
+          .add(new TermQuery(new Term("id", "7")), Occur.SHOULD)
+          .build(),
+        LongPoint.newRangeQuery("value", 10, 20)
+    };
+    for (Query query : selectiveQueries) {
+      searcher.search(query, 10);
+    }
+    assertEquals(selectiveQueries.length, policy.getSequentialCount());
+    assertEquals(0, policy.getConcurrentCount());
+
+    // queries that match many documents are split into several tasks
+    Query[] expensiveQueries = new Query[] {
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("body", "even")), Occur.SHOULD)
+          .add(new TermQuery(new Term("body", "odd")), Occur.SHOULD)
+          .build(),
+        LongPoint.newRangeQuery("value", 0, numDocs)
+    };
+    for (Query query : expensiveQueries) {
+      searcher.search(query, 10);
+    }
+    assertEquals(selectiveQueries.length, policy.getSequentialCount());
+    assertEquals(expensiveQueries.length, policy.getConcurrentCount());
+
+    TestUtil.shutdownExecutorService(service);
+    reader.close();
+    dir.close();
+  }
+
+  public void testCostBasedSliceExecutionPolicyNumTasks() {
+    CostBasedSliceExecutionPolicy policy = new CostBasedSliceExecutionPolicy(100);
+    Query query = new MatchAllDocsQuery();
+    assertEquals(1, policy.numTasks(query, 0, 8));
+    assertEquals(1, policy.numTasks(query, 199, 8));
+    assertEquals(2, policy.numTasks(query, 200, 8));
+    assertEquals(5, policy.numTasks(query, 550, 8));
+    assertEquals(8, policy.numTasks(query, Long.MAX_VALUE, 8));
+    assertEquals(2, policy.getSequentialCount());
+    assertEquals(3, policy.getConcurrentCount());
+    assertEquals(15, policy.getTaskCount());
+
+    expectThrows(IllegalArgumentException.class, () -> new CostBasedSliceExecutionPolicy(0));
+  }
 }
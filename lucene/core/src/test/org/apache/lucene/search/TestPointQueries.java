@@ -2115,4 +2115,34 @@ public class TestPointQueries extends LuceneTestCase {
     r.close();
     dir.close();
   }
+
+  public void testSegmentRangeDisjointFromQuery() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    for (int i = 0; i < 10; ++i) {
+      Document doc = new Document();
+      doc.add(new IntPoint("f", i, 100 + i));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader r = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(r);
+    searcher.setQueryCache(null);
+    LeafReaderContext leaf = searcher.getIndexReader().leaves().get(0);
+
+    // disjoint on the first dimension
+    Weight weight = searcher.createNormalizedWeight(IntPoint.newRangeQuery("f", new int[] {10, 0}, new int[] {20, 200}), ScoreMode.COMPLETE_NO_SCORES);
+    assertNull(weight.scorerSupplier(leaf));
+    // disjoint on the second dimension
+    weight = searcher.createNormalizedWeight(IntPoint.newRangeQuery("f", new int[] {0, 0}, new int[] {20, 99}), ScoreMode.COMPLETE_NO_SCORES);
+    assertNull(weight.scorerSupplier(leaf));
+    // intersects
+    weight = searcher.createNormalizedWeight(IntPoint.newRangeQuery("f", new int[] {9, 109}, new int[] {20, 200}), ScoreMode.COMPLETE_NO_SCORES);
+    assertNotNull(weight.scorerSupplier(leaf));
+    assertEquals(1, searcher.count(IntPoint.newRangeQuery("f", new int[] {9, 109}, new int[] {20, 200})));
+
+    r.close();
+    dir.close();
+  }
 }
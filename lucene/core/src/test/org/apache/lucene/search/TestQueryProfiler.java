@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.QueryProfile.Operation;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestQueryProfiler extends LuceneTestCase {
+
+  public void testBooleanQuery() throws IOException {
+    QueryProfiler profiler = new QueryProfiler();
+    Directory dir = profiler.wrapDirectory(newDirectory());
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec()));
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", (i % 2 == 0) ? "a" : "b", Store.NO));
+      if (i % 3 == 0) {
+        doc.add(new StringField("f", "c", Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    w.close();
+
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    searcher.setQueryProfiler(profiler);
+    assertSame(profiler, searcher.getQueryProfiler());
+
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("f", "a")), Occur.MUST)
+        .add(new TermQuery(new Term("f", "c")), Occur.MUST)
+        .build();
+    TotalHitCountCollector collector = new TotalHitCountCollector();
+    searcher.search(query, collector);
+    final int expectedHits = (numDocs + 5) / 6;
+    assertEquals(expectedHits, collector.getTotalHits());
+
+    List<QueryProfile> profiles = profiler.getProfiles();
+    assertEquals(1, profiles.size());
+    QueryProfile root = profiles.get(0);
+    assertEquals(query, root.getQuery());
+    assertEquals(1, root.getCount(Operation.CREATE_WEIGHT));
+    assertEquals(1, root.getCount(Operation.BUILD_SCORER));
+    assertTrue(root.getCount(Operation.NEXT_DOC) > 0);
+    assertTrue(root.getTotalTimeNanos() > 0);
+
+    List<QueryProfile> children = root.getChildren();
+    assertEquals(2, children.size());
+    long childAdvances = 0;
+    for (QueryProfile child : children) {
+      assertTrue(child.getQuery() instanceof TermQuery);
+      assertEquals(1, child.getCount(Operation.CREATE_WEIGHT));
+      assertEquals(1, child.getCount(Operation.BUILD_SCORER));
+      assertTrue(child.getBytesRead() > 0);
+      assertTrue(child.getChildren().isEmpty());
+      childAdvances += child.getCount(Operation.NEXT_DOC) + child.getCount(Operation.ADVANCE);
+    }
+    assertTrue(childAdvances > 0);
+
+    QueryProfile collectorProfile = profiler.getCollectorProfile();
+    assertNull(collectorProfile.getQuery());
+    assertEquals(expectedHits, collectorProfile.getCount(Operation.COLLECT));
+    assertTrue(root.toString().contains("TermQuery"));
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomAccessSlicesCountBytesRead() throws IOException {
+    QueryProfiler profiler = new QueryProfiler();
+    Directory dir = profiler.wrapDirectory(newDirectory());
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec()));
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new NumericDocValuesField("f", random().nextInt(1000)));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    w.close();
+
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    searcher.setQueryProfiler(profiler);
+    // doc values are read through random-access slices
+    searcher.count(NumericDocValuesField.newSlowRangeQuery("f", 100, 200));
+    assertTrue(profiler.getProfiles().get(0).getBytesRead() > 0);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testWrapCollectorForwardsBatchesAndCompetitiveIterator() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    w.addDocument(new Document());
+    w.close();
+    IndexReader reader = DirectoryReader.open(dir);
+
+    final DocIdSetIterator competitiveIterator = DocIdSetIterator.all(1);
+    final int[] collected = new int[1];
+    Collector collector = new SimpleCollector() {
+      @Override
+      public void collect(int doc) throws IOException {
+        collected[0]++;
+      }
+
+      @Override
+      public void collect(int[] docs, int size) throws IOException {
+        collected[0] += size;
+      }
+
+      @Override
+      public boolean acceptsBatches() {
+        return true;
+      }
+
+      @Override
+      public DocIdSetIterator competitiveIterator() {
+        return competitiveIterator;
+      }
+
+      @Override
+      public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+      }
+    };
+
+    QueryProfiler profiler = new QueryProfiler();
+    LeafCollector leafCollector = profiler.wrapCollector(collector).getLeafCollector(reader.leaves().get(0));
+    assertTrue(leafCollector.acceptsBatches());
+    assertSame(competitiveIterator, leafCollector.competitiveIterator());
+    leafCollector.collect(new int[] {0, 3, 5}, 2);
+    leafCollector.collect(7);
+    assertEquals(3, collected[0]);
+    assertEquals(3, profiler.getCollectorProfile().getCount(Operation.COLLECT));
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testForwardsCountAndEstimateCost() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(20);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", (i % 2 == 0) ? "a" : "b", Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    w.close();
+
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    Query query = new TermQuery(new Term("f", "a"));
+    Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+    searcher.setQueryProfiler(new QueryProfiler());
+    Weight profiledWeight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+    assertTrue(profiledWeight instanceof ProfileWeight);
+
+    LeafReaderContext context = reader.leaves().get(0);
+    assertEquals((numDocs + 1) / 2, profiledWeight.count(context));
+    assertEquals(weight.count(context), profiledWeight.count(context));
+    assertEquals(weight.estimateCost(context), profiledWeight.estimateCost(context));
+
+    TotalHitCountCollector collector = new TotalHitCountCollector();
+    searcher.search(query, collector);
+    assertEquals((numDocs + 1) / 2, collector.getTotalHits());
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testNoProfilerByDefault() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    w.addDocument(new Document());
+    w.close();
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    assertNull(searcher.getQueryProfiler());
+    Weight weight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE, 1f);
+    assertFalse(weight instanceof ProfileWeight);
+    reader.close();
+    dir.close();
+  }
+}
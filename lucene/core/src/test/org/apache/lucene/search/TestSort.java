@@ -81,6 +81,14 @@ public class TestSort extends LuceneTestCase {
 
     sortField2 = new SortField("foo", SortField.Type.STRING, true);
     assertDifferent(new Sort(sortField1), new Sort(sortField2));
+
+    // using points doesn't change the sort order
+    sortField1 = new SortField("foo", SortField.Type.LONG);
+    sortField2 = new SortField("foo", SortField.Type.LONG);
+    sortField2.setCanUsePoints();
+    assertEquals(new Sort(sortField1), new Sort(sortField2));
+    assertEquals(sortField1.hashCode(), sortField2.hashCode());
+    assertFalse(sortField1.toString().equals(sortField2.toString()));
   }
 
   /** Tests sorting on type string */
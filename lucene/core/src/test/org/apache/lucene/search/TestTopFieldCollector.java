@@ -19,11 +19,15 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 
+import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
@@ -284,4 +288,106 @@ public class TestTopFieldCollector extends LuceneTestCase {
     dir.close();
   }
 
+  public void testSkipNonCompetitiveWithPoints() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random())));
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (i % 10 != 0) {
+        // documents without a value get the missing value
+        long value = random().nextInt(1000);
+        doc.add(new LongPoint("value", value));
+        doc.add(new NumericDocValuesField("value", value));
+      }
+      doc.add(new StringField("text", random().nextBoolean() ? "a" : "b", Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    // not newSearcher, whose asserting collectors don't expose the competitive iterator
+    IndexSearcher searcher = new IndexSearcher(reader);
+
+    for (Query query : new Query[] { new MatchAllDocsQuery(), new TermQuery(new Term("text", "a")) }) {
+      for (boolean reverse : new boolean[] { false, true }) {
+        for (Long missingValue : new Long[] { null, reverse ? Long.MIN_VALUE : Long.MAX_VALUE }) {
+          SortField sortField = new SortField("value", SortField.Type.LONG, reverse);
+          sortField.setMissingValue(missingValue);
+          TopFieldCollector collector = TopFieldCollector.create(new Sort(sortField), 10, true, false, false, false);
+          searcher.search(query, collector);
+          TopFieldDocs expected = collector.topDocs();
+
+          SortField skippingSortField = new SortField("value", SortField.Type.LONG, reverse);
+          skippingSortField.setMissingValue(missingValue);
+          skippingSortField.setCanUsePoints();
+          TopFieldCollector skippingCollector = TopFieldCollector.create(new Sort(skippingSortField), 10, true, false, false, false);
+          searcher.search(query, skippingCollector);
+          TopFieldDocs actual = skippingCollector.topDocs();
+
+          assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+          for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+            assertEquals(((FieldDoc) expected.scoreDocs[i]).fields[0], ((FieldDoc) actual.scoreDocs[i]).fields[0]);
+          }
+          if (missingValue != null) {
+            // the missing value is never competitive, so documents must have been skipped
+            assertTrue(actual.totalHits < expected.totalHits);
+          }
+        }
+      }
+    }
+
+    // tracking the total hit count disables skipping
+    SortField sortField = new SortField("value", SortField.Type.LONG);
+    sortField.setMissingValue(Long.MAX_VALUE);
+    sortField.setCanUsePoints();
+    TopFieldCollector collector = TopFieldCollector.create(new Sort(sortField), 10, true, false, false, true);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    assertEquals(numDocs, collector.topDocs().totalHits);
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      new SortField("value", SortField.Type.STRING).setCanUsePoints();
+    });
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testEarlyTerminationWithCanUsePoints() throws Exception {
+    Directory dir = newDirectory();
+    final Sort indexSort = new Sort(new SortField("value", SortField.Type.LONG));
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random())).setIndexSort(indexSort));
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      // no points, so that only the index sort can make collection terminate early
+      doc.add(new NumericDocValuesField("value", random().nextInt(1000)));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+
+    SortField sortField = new SortField("value", SortField.Type.LONG);
+    sortField.setCanUsePoints();
+    final Sort searchSort = new Sort(sortField);
+    // using points is an execution hint, the index sort still applies
+    assertTrue(TopFieldCollector.canEarlyTerminate(searchSort, indexSort));
+
+    TopFieldCollector collector = TopFieldCollector.create(searchSort, 10, true, false, false, false);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopFieldDocs topDocs = collector.topDocs();
+    assertEquals(10, topDocs.scoreDocs.length);
+    // the segment is sorted by value, so collection terminates after the top hits
+    assertTrue(collector.isEarlyTerminated());
+    for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+      assertEquals(i, topDocs.scoreDocs[i].doc);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
 }
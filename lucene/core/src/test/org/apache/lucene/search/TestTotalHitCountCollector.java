@@ -16,12 +16,17 @@
  */
 package org.apache.lucene.search;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
 
@@ -46,4 +51,154 @@ public class TestTotalHitCountCollector extends LuceneTestCase {
     reader.close();
     indexStore.close();
   }
+
+  public void testBatches() throws Exception {
+    Directory indexStore = newDirectory();
+    RandomIndexWriter writer = new RandomIndexWriter(random(), indexStore);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (random().nextInt(3) == 0) {
+        doc.add(new StringField("f", "a", Field.Store.NO));
+      }
+      if (random().nextInt(5) == 0) {
+        doc.add(new StringField("f", "b", Field.Store.NO));
+      }
+      writer.addDocument(doc);
+      if (random().nextInt(50) == 0) {
+        writer.deleteDocuments(new Term("f", "b"));
+      }
+    }
+    IndexReader reader = writer.getReader();
+    writer.close();
+
+    IndexSearcher searcher = newSearcher(reader);
+    TermQuery a = new TermQuery(new Term("f", "a"));
+    TermQuery b = new TermQuery(new Term("f", "b"));
+    Query[] queries = new Query[] {
+        new MatchAllDocsQuery(),
+        a,
+        new ConstantScoreQuery(a),
+        new BooleanQuery.Builder()
+            .add(a, BooleanClause.Occur.SHOULD)
+            .add(b, BooleanClause.Occur.SHOULD)
+            .build(),
+        new BooleanQuery.Builder()
+            .add(a, BooleanClause.Occur.MUST)
+            .add(b, BooleanClause.Occur.FILTER)
+            .build(),
+        new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+            .add(b, BooleanClause.Occur.MUST_NOT)
+            .build()
+    };
+    for (Query query : queries) {
+      DocIdCollector expected = new DocIdCollector(false);
+      searcher.search(query, expected);
+      DocIdCollector actual = new DocIdCollector(true);
+      searcher.search(query, actual);
+      assertEquals(query.toString(), expected.docs, actual.docs);
+      TotalHitCountCollector c = new TotalHitCountCollector();
+      searcher.search(query, c);
+      assertEquals(query.toString(), expected.docs.size(), c.getTotalHits());
+    }
+    reader.close();
+    indexStore.close();
+  }
+
+  public void testSubclassOverridingCollect() throws Exception {
+    Directory indexStore = newDirectory();
+    RandomIndexWriter writer = new RandomIndexWriter(random(), indexStore);
+    final int numDocs = atLeast(1000);
+    int expectedHits = 0;
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      final boolean a = random().nextInt(3) == 0;
+      if (a) {
+        doc.add(new StringField("f", "a", Field.Store.NO));
+      }
+      final boolean b = random().nextInt(5) == 0;
+      if (b) {
+        doc.add(new StringField("f", "b", Field.Store.NO));
+      }
+      if (a && b) {
+        expectedHits++;
+      }
+      writer.addDocument(doc);
+    }
+    IndexReader reader = writer.getReader();
+    writer.close();
+
+    IndexSearcher searcher = newSearcher(reader);
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("f", "a")), BooleanClause.Occur.MUST)
+        .add(new TermQuery(new Term("f", "b")), BooleanClause.Occur.FILTER)
+        .build();
+    final int[] collected = new int[1];
+    TotalHitCountCollector c = new TotalHitCountCollector() {
+      @Override
+      public void collect(int doc) {
+        super.collect(doc);
+        collected[0]++;
+      }
+    };
+    assertFalse(c.acceptsBatches());
+    searcher.search(query, c);
+    assertEquals(expectedHits, c.getTotalHits());
+    assertEquals(expectedHits, collected[0]);
+
+    // subclasses see every hit even if the weight can count them
+    collected[0] = 0;
+    c = new TotalHitCountCollector() {
+      @Override
+      public void collect(int doc) {
+        super.collect(doc);
+        collected[0]++;
+      }
+    };
+    searcher.search(new MatchAllDocsQuery(), c);
+    assertEquals(reader.numDocs(), c.getTotalHits());
+    assertEquals(reader.numDocs(), collected[0]);
+    reader.close();
+    indexStore.close();
+  }
+
+  private static class DocIdCollector extends SimpleCollector {
+
+    final boolean acceptsBatches;
+    final List<Integer> docs = new ArrayList<>();
+    int docBase;
+
+    DocIdCollector(boolean acceptsBatches) {
+      this.acceptsBatches = acceptsBatches;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+      docBase = context.docBase;
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+      docs.add(docBase + doc);
+    }
+
+    @Override
+    public void collect(int[] docs, int size) throws IOException {
+      assertTrue(acceptsBatches);
+      for (int i = 0; i < size; ++i) {
+        this.docs.add(docBase + docs[i]);
+      }
+    }
+
+    @Override
+    public boolean acceptsBatches() {
+      return acceptsBatches;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return ScoreMode.COMPLETE_NO_SCORES;
+    }
+  }
 }
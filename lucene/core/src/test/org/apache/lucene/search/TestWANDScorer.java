@@ -372,4 +372,35 @@ public class TestWANDScorer extends LuceneTestCase {
     }
   }
 
+  public void testPartitions() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      int numValues = random().nextInt(1 << random().nextInt(5));
+      int start = random().nextInt(10);
+      for (int j = 0; j < numValues; ++j) {
+        doc.add(new StringField("foo", Integer.toString(start + j), Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 10; ++iter) {
+      int start = random().nextInt(10);
+      int numClauses = TestUtil.nextInt(random(), 2, 5);
+      BooleanQuery.Builder builder = new BooleanQuery.Builder();
+      for (int i = 0; i < numClauses; ++i) {
+        builder.add(maybeWrap(new TermQuery(new Term("foo", Integer.toString(start + i)))), Occur.SHOULD);
+      }
+      Query query = builder.build();
+
+      QueryUtils.checkBulkScorerPartitions(random(), query, searcher, ScoreMode.TOP_SCORES);
+    }
+    reader.close();
+    dir.close();
+  }
 }
@@ -130,6 +130,27 @@ public class FacetsCollector extends SimpleCollector implements Collector {
     totalHits++;
   }
 
+  @Override
+  public final void collect(int[] docs, int size) throws IOException {
+    if (keepScores) {
+      for (int i = 0; i < size; ++i) {
+        collect(docs[i]);
+      }
+      return;
+    }
+    final DocIdSetBuilder.BulkAdder adder = docsBuilder.grow(size);
+    for (int i = 0; i < size; ++i) {
+      adder.add(docs[i]);
+    }
+    totalHits += size;
+  }
+
+  @Override
+  public final boolean acceptsBatches() {
+    // scores are read from the scorer for every hit
+    return keepScores == false;
+  }
+
   @Override
   public ScoreMode scoreMode() {
     return ScoreMode.COMPLETE;
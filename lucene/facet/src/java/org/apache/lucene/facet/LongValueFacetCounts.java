@@ -59,6 +59,12 @@ public class LongValueFacetCounts extends Facets {
   /** Total number of values counted, which is the subset of hits that had a value for this field. */
   private int totCount;
 
+  /** Number of docs whose values are retrieved at once. */
+  private static final int BULK_SIZE = 128;
+
+  /** Values are only retrieved in bulk if at least one hit in this many has a value. */
+  private static final int SPARSE_VALUES_RATIO = 8;
+
   /** Create {@code LongValueFacetCounts}, using either single-valued {@link
    *  NumericDocValues} or multi-valued {@link SortedNumericDocValues} from the
    *  specified field. */
@@ -145,13 +151,39 @@ public class LongValueFacetCounts extends Facets {
   }
 
   private void countOneSegment(NumericDocValues values, MatchingDocs hits) throws IOException {
-    DocIdSetIterator it = ConjunctionDISI.intersectIterators(
-                             Arrays.asList(hits.bits.iterator(), values));
-
-    for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
-      increment(values.longValue());
-      totCount++;
+    if (values.cost() < hits.totalHits / SPARSE_VALUES_RATIO) {
+      // few hits have a value: leap-frog between hits and values rather than
+      // looking up the value of every hit
+      DocIdSetIterator it = ConjunctionDISI.intersectIterators(
+                               Arrays.asList(hits.bits.iterator(), values));
+
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        increment(values.longValue());
+        totCount++;
+      }
+      return;
     }
+
+    // retrieve values in bulk
+    final int[] docs = new int[BULK_SIZE];
+    final long[] docValues = new long[BULK_SIZE];
+    DocIdSetIterator it = hits.bits.iterator();
+    int size = 0;
+    int doc;
+    do {
+      doc = it.nextDoc();
+      if (doc != DocIdSetIterator.NO_MORE_DOCS) {
+        docs[size++] = doc;
+      }
+      if (size == BULK_SIZE || (doc == DocIdSetIterator.NO_MORE_DOCS && size > 0)) {
+        final int count = values.longValues(size, docs, docValues);
+        for (int i = 0; i < count; i++) {
+          increment(docValues[i]);
+        }
+        totCount += count;
+        size = 0;
+      }
+    } while (doc != DocIdSetIterator.NO_MORE_DOCS);
   }
 
   /** Counts directly from SortedNumericDocValues. */
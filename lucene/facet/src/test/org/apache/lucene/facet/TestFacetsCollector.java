@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.facet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.TestUtil;
+
+public class TestFacetsCollector extends FacetTestCase {
+
+  public void testCollectBatches() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    FacetsCollector expected = new FacetsCollector();
+    FacetsCollector actual = new FacetsCollector();
+    for (LeafReaderContext context : reader.leaves()) {
+      LeafCollector expectedLeaf = expected.getLeafCollector(context);
+      LeafCollector actualLeaf = actual.getLeafCollector(context);
+      assertTrue(actualLeaf.acceptsBatches());
+
+      final int maxDoc = context.reader().maxDoc();
+      final int[] batch = new int[TestUtil.nextInt(random(), 1, 200)];
+      int size = 0;
+      for (int doc = 0; doc < maxDoc; ++doc) {
+        if (random().nextInt(3) == 0) {
+          continue;
+        }
+        expectedLeaf.collect(doc);
+        batch[size++] = doc;
+        if (size == batch.length || random().nextInt(10) == 0) {
+          actualLeaf.collect(batch, size);
+          // the collector must not retain the batch
+          Arrays.fill(batch, -1);
+          size = 0;
+        }
+      }
+      actualLeaf.collect(batch, size);
+    }
+
+    assertSameMatchingDocs(expected.getMatchingDocs(), actual.getMatchingDocs());
+    reader.close();
+    dir.close();
+  }
+
+  public void testSearchBatches() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(new Document());
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    // MatchAllDocsQuery passes hits in batches to collectors that accept them
+    IndexSearcher searcher = newSearcher(reader);
+    FacetsCollector batches = new FacetsCollector();
+    searcher.search(new MatchAllDocsQuery(), batches);
+    FacetsCollector scores = new FacetsCollector(true);
+    searcher.search(new MatchAllDocsQuery(), scores);
+
+    int totalHits = 0;
+    for (MatchingDocs matchingDocs : batches.getMatchingDocs()) {
+      totalHits += matchingDocs.totalHits;
+    }
+    assertEquals(numDocs, totalHits);
+    assertSameMatchingDocs(scores.getMatchingDocs(), batches.getMatchingDocs());
+    IOUtils.close(reader, dir);
+  }
+
+  public void testKeepScoresDoesNotAcceptBatches() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    w.addDocument(new Document());
+    IndexReader reader = w.getReader();
+    w.close();
+
+    LeafReaderContext context = reader.leaves().get(0);
+    assertTrue(new FacetsCollector().getLeafCollector(context).acceptsBatches());
+    // scores are read from the scorer, which is not positioned on batched hits
+    assertFalse(new FacetsCollector(true).getLeafCollector(context).acceptsBatches());
+    IOUtils.close(reader, dir);
+  }
+
+  private static void assertSameMatchingDocs(List<MatchingDocs> expected, List<MatchingDocs> actual) throws IOException {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      MatchingDocs expectedDocs = expected.get(i);
+      MatchingDocs actualDocs = actual.get(i);
+      assertSame(expectedDocs.context, actualDocs.context);
+      assertEquals(expectedDocs.totalHits, actualDocs.totalHits);
+      DocIdSetIterator expectedIt = expectedDocs.bits.iterator();
+      DocIdSetIterator actualIt = actualDocs.bits.iterator();
+      for (int doc = expectedIt.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = expectedIt.nextDoc()) {
+        assertEquals(doc, actualIt.nextDoc());
+      }
+      assertEquals(DocIdSetIterator.NO_MORE_DOCS, actualIt.nextDoc());
+    }
+  }
+}
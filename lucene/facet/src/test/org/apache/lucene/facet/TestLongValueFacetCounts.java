@@ -74,6 +74,34 @@ public class TestLongValueFacetCounts extends LuceneTestCase {
     d.close();
   }
 
+  public void testSparseValues() throws Exception {
+    Directory d = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), d);
+    for (long l = 0; l < 1000; l++) {
+      Document doc = new Document();
+      // only one doc in 50 has a value
+      if (l % 50 == 0) {
+        doc.add(new NumericDocValuesField("field", l % 3));
+      }
+      w.addDocument(doc);
+    }
+
+    IndexReader r = w.getReader();
+    w.close();
+
+    FacetsCollector fc = new FacetsCollector();
+    IndexSearcher s = newSearcher(r);
+    s.search(new MatchAllDocsQuery(), fc);
+
+    LongValueFacetCounts facets = new LongValueFacetCounts("field", fc, false);
+
+    FacetResult result = facets.getAllChildrenSortByValue();
+    assertEquals("dim=field path=[] value=20 childCount=3\n  0 (7)\n  1 (6)\n  2 (7)\n",
+                 result.toString());
+    r.close();
+    d.close();
+  }
+
   public void testOnlyBigLongs() throws Exception {
     Directory d = newDirectory();
     RandomIndexWriter w = new RandomIndexWriter(random(), d);
@@ -1653,6 +1653,118 @@ public abstract class BaseDocValuesFormatTestCase extends BaseIndexFileFormatTes
     });
   }
 
+  public void testNumericBulkRetrieval() throws IOException {
+    doTestNumericBulkRetrieval(1, () -> 42);
+    doTestNumericBulkRetrieval(random().nextDouble(), () -> 42);
+    doTestNumericBulkRetrieval(1, () -> TestUtil.nextLong(random(), 0, 3) * 1000);
+    doTestNumericBulkRetrieval(random().nextDouble(), () -> TestUtil.nextLong(random(), 0, 3) * 1000);
+    doTestNumericBulkRetrieval(1, () -> TestUtil.nextLong(random(), -1000, 1000) * 7);
+    doTestNumericBulkRetrieval(random().nextDouble(), () -> random().nextLong());
+  }
+
+  private void doTestNumericBulkRetrieval(double density, LongSupplier longs) throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
+    int numDocs = atLeast(300);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (random().nextDouble() <= density) {
+        long value = longs.getAsLong();
+        doc.add(new NumericDocValuesField("dv", value));
+        doc.add(new StoredField("stored", value));
+      }
+      writer.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      writer.forceMerge(1);
+    }
+    DirectoryReader ir = writer.getReader();
+    writer.close();
+
+    for (LeafReaderContext context : ir.leaves()) {
+      LeafReader r = context.reader();
+      NumericDocValues docValues = DocValues.getNumeric(r, "dv");
+      int[] docs = new int[TestUtil.nextInt(random(), 1, 256)];
+      long[] values = new long[docs.length];
+      for (int doc = random().nextInt(3); doc < r.maxDoc(); ) {
+        int size = 0;
+        for (; size < docs.length && doc < r.maxDoc(); doc += TestUtil.nextInt(random(), 1, 3)) {
+          docs[size++] = doc;
+        }
+        int[] requested = Arrays.copyOf(docs, size);
+        int count = docValues.longValues(size, docs, values);
+        int upto = 0;
+        for (int requestedDoc : requested) {
+          IndexableField stored = r.document(requestedDoc).getField("stored");
+          if (stored != null) {
+            assertEquals(requestedDoc, docs[upto]);
+            assertEquals(stored.numericValue().longValue(), values[upto]);
+            upto++;
+          }
+        }
+        assertEquals(upto, count);
+        assertEquals(requested[size - 1], docValues.docID());
+      }
+    }
+    ir.close();
+    dir.close();
+  }
+
+  public void testSortedBulkRetrieval() throws IOException {
+    doTestSortedBulkRetrieval(1, 1);
+    doTestSortedBulkRetrieval(1, 100);
+    doTestSortedBulkRetrieval(random().nextDouble(), 1);
+    doTestSortedBulkRetrieval(random().nextDouble(), 100);
+  }
+
+  private void doTestSortedBulkRetrieval(double density, int numValues) throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
+    int numDocs = atLeast(300);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (random().nextDouble() <= density) {
+        BytesRef value = new BytesRef(Integer.toString(random().nextInt(numValues)));
+        doc.add(new SortedDocValuesField("dv", value));
+        doc.add(new StoredField("stored", value));
+      }
+      writer.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      writer.forceMerge(1);
+    }
+    DirectoryReader ir = writer.getReader();
+    writer.close();
+
+    for (LeafReaderContext context : ir.leaves()) {
+      LeafReader r = context.reader();
+      SortedDocValues docValues = DocValues.getSorted(r, "dv");
+      int[] docs = new int[TestUtil.nextInt(random(), 1, 256)];
+      int[] ords = new int[docs.length];
+      for (int doc = random().nextInt(3); doc < r.maxDoc(); ) {
+        int size = 0;
+        for (; size < docs.length && doc < r.maxDoc(); doc += TestUtil.nextInt(random(), 1, 3)) {
+          docs[size++] = doc;
+        }
+        int[] requested = Arrays.copyOf(docs, size);
+        int count = docValues.ordValues(size, docs, ords);
+        int upto = 0;
+        for (int requestedDoc : requested) {
+          BytesRef stored = r.document(requestedDoc).getBinaryValue("stored");
+          if (stored != null) {
+            assertEquals(requestedDoc, docs[upto]);
+            assertEquals(stored, docValues.lookupOrd(ords[upto]));
+            upto++;
+          }
+        }
+        assertEquals(upto, count);
+        assertEquals(requested[size - 1], docValues.docID());
+      }
+    }
+    ir.close();
+    dir.close();
+  }
+
   public void testSortedSetOneValue() throws IOException {
     Directory directory = newDirectory();
     RandomIndexWriter iwriter = new RandomIndexWriter(random(), directory);
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.analysis.MockTokenizer;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Base class for tests of the executors that {@link IndexWriter} may use to
+ * analyze, flush or merge concurrently. Such tests index the same documents
+ * with and without an executor and check that both indexes are the same.
+ */
+public abstract class BaseIndexingExecutorTestCase extends LuceneTestCase {
+
+  /** Name of the {@link NumericDocValuesField} that tests may sort the index by. */
+  protected static final String SORT_FIELD = "sort";
+
+  private static final FieldType TEXT_WITH_VECTORS = new FieldType(TextField.TYPE_STORED);
+  static {
+    TEXT_WITH_VECTORS.setStoreTermVectors(true);
+    TEXT_WITH_VECTORS.setStoreTermVectorPositions(true);
+    TEXT_WITH_VECTORS.setStoreTermVectorOffsets(true);
+    TEXT_WITH_VECTORS.freeze();
+  }
+
+  /**
+   * Returns an analyzer that always produces the same tokens for the same
+   * text. {@link MockAnalyzer} may add random payloads, which would differ
+   * between indexes.
+   */
+  protected static Analyzer newAnalyzer(Random random) {
+    final int positionIncrementGap = random.nextInt(10);
+    final int offsetGap = random.nextInt(10);
+    return new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        return new TokenStreamComponents(new MockTokenizer(MockTokenizer.WHITESPACE, true));
+      }
+
+      @Override
+      public int getPositionIncrementGap(String fieldName) {
+        return positionIncrementGap;
+      }
+
+      @Override
+      public int getOffsetGap(String fieldName) {
+        return offsetGap;
+      }
+    };
+  }
+
+  /** Returns an executor with 1 to 4 threads. */
+  protected static ExecutorService newExecutor(String name) {
+    final int numThreads = TestUtil.nextInt(random(), 1, 4);
+    return new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new NamedThreadFactory(name));
+  }
+
+  /**
+   * Returns documents that have fields of all types. Text fields may have
+   * several values, and some of them store term vectors.
+   */
+  protected static List<Document> randomDocuments(Random random, int numDocs) {
+    List<Document> docs = new ArrayList<>(numDocs);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new NumericDocValuesField(SORT_FIELD, random.nextInt(100)));
+      final int numBodies = TestUtil.nextInt(random, 1, 2);
+      for (int j = 0; j < numBodies; ++j) {
+        doc.add(new Field("body", TestUtil.randomAnalysisString(random, 50, false), TEXT_WITH_VECTORS));
+      }
+      final int numTitles = random.nextInt(3);
+      for (int j = 0; j < numTitles; ++j) {
+        doc.add(new TextField("title", TestUtil.randomSimpleString(random, 10), random.nextBoolean() ? Field.Store.YES : Field.Store.NO));
+      }
+      doc.add(new IntPoint("point", random.nextInt(), random.nextInt()));
+      doc.add(new StoredField("stored", random.nextLong()));
+      doc.add(new BinaryDocValuesField("binary", new BytesRef(TestUtil.randomSimpleString(random, 5))));
+      doc.add(new SortedDocValuesField("sorted", new BytesRef(TestUtil.randomSimpleString(random, 2))));
+      doc.add(new SortedNumericDocValuesField("sorted_numeric", random.nextLong()));
+      doc.add(new SortedSetDocValuesField("sorted_set", new BytesRef(TestUtil.randomSimpleString(random, 2))));
+      doc.add(new SortedSetDocValuesField("sorted_set", new BytesRef(TestUtil.randomSimpleString(random, 2))));
+      docs.add(doc);
+    }
+    return docs;
+  }
+
+  /**
+   * Adds the given documents, flushes a segment every {@code flushEvery}
+   * documents and deletes a document every {@code deleteEvery} documents.
+   * The writer should not flush on its own, so that adding the same
+   * documents to several writers gives the same segments.
+   */
+  protected static void addDocuments(IndexWriter w, List<Document> docs, int flushEvery, int deleteEvery) throws IOException {
+    for (int i = 0; i < docs.size(); ++i) {
+      w.addDocument(docs.get(i));
+      if ((i + 1) % deleteEvery == 0) {
+        w.deleteDocuments(new Term("id", Integer.toString(i / 2)));
+      }
+      if ((i + 1) % flushEvery == 0) {
+        w.flush();
+      }
+    }
+  }
+
+  /** Asserts that both directories hold the same index. */
+  protected void assertSameIndex(String info, Directory expectedDir, Directory actualDir) throws IOException {
+    try (DirectoryReader expected = DirectoryReader.open(expectedDir);
+         DirectoryReader actual = DirectoryReader.open(actualDir)) {
+      assertEquals(info, expected.leaves().size(), actual.leaves().size());
+      assertReaderEquals(info, expected, actual);
+    }
+  }
+}
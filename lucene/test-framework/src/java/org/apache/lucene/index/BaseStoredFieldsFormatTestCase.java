@@ -33,6 +33,7 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.StoredFieldsFormat;
 import org.apache.lucene.codecs.simpletext.SimpleTextCodec;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
@@ -395,6 +396,61 @@ public abstract class BaseStoredFieldsFormatTestCase extends BaseIndexFileFormat
     dir.close();
   }
   
+  public void testVisitDocuments() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMaxBufferedDocs(RandomNumbers.randomIntBetween(random(), 2, 30));
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwConf);
+
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      doc.add(new StoredField("id", i));
+      if (random().nextInt(10) != 0) {
+        doc.add(new StoredField("text", TestUtil.randomSimpleString(random(), random().nextInt(50))));
+      }
+      iw.addDocument(doc);
+    }
+    iw.commit();
+    final DirectoryReader rd = DirectoryReader.open(dir);
+
+    for (IndexReader reader : Arrays.asList(rd, rd.leaves().get(random().nextInt(rd.leaves().size())).reader())) {
+      final int maxDoc = reader.maxDoc();
+      final int[] docIDs = new int[random().nextInt(Math.min(maxDoc, 200) + 1)];
+      for (int i = 0; i < docIDs.length; ++i) {
+        docIDs[i] = random().nextInt(maxDoc);
+      }
+      if (random().nextBoolean()) {
+        Arrays.sort(docIDs);
+      }
+      final int[] expectedDocIDs = docIDs.clone();
+      Arrays.sort(expectedDocIDs);
+
+      final List<Integer> visitedDocIDs = new ArrayList<>();
+      final List<DocumentStoredFieldVisitor> visitors = new ArrayList<>();
+      reader.documents(docIDs, docID -> {
+        visitedDocIDs.add(docID);
+        final DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor();
+        visitors.add(visitor);
+        return visitor;
+      });
+
+      assertEquals(expectedDocIDs.length, visitedDocIDs.size());
+      for (int i = 0; i < expectedDocIDs.length; ++i) {
+        final int docID = expectedDocIDs[i];
+        assertEquals(docID, visitedDocIDs.get(i).intValue());
+        final Document expected = reader.document(docID);
+        final Document actual = visitors.get(i).getDocument();
+        assertEquals(expected.getField("id").numericValue(), actual.getField("id").numericValue());
+        assertEquals(expected.get("text"), actual.get("text"));
+      }
+    }
+    rd.close();
+
+    iw.close();
+    dir.close();
+  }
+
   public void testConcurrentReads() throws Exception {
     Directory dir = newDirectory();
     IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
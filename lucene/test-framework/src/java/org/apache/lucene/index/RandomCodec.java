@@ -42,6 +42,7 @@ import org.apache.lucene.codecs.blocktreeords.BlockTreeOrdsPostingsFormat;
 import org.apache.lucene.codecs.bloom.TestBloomFilteredLucenePostings;
 import org.apache.lucene.codecs.lucene60.Lucene60PointsReader;
 import org.apache.lucene.codecs.lucene60.Lucene60PointsWriter;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
 import org.apache.lucene.codecs.memory.DirectDocValuesFormat;
 import org.apache.lucene.codecs.memory.DirectPostingsFormat;
 import org.apache.lucene.codecs.memory.FSTOrdPostingsFormat;
@@ -214,6 +215,7 @@ public class RandomCodec extends AssertingCodec {
         new DirectDocValuesFormat(), // maybe not a great idea...
         new MemoryDocValuesFormat(),
         TestUtil.getDefaultDocValuesFormat(),
+        new Lucene80DocValuesFormat(),
         new AssertingDocValuesFormat());
 
     Collections.shuffle(formats, random);
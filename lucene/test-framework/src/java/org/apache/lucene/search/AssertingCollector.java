@@ -42,6 +42,11 @@ class AssertingCollector extends FilterCollector {
     this.random = random;
   }
 
+  @Override
+  public void setWeight(Weight weight) {
+    in.setWeight(weight);
+  }
+
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
     final LeafCollector in = super.getLeafCollector(context);
@@ -56,6 +61,16 @@ class AssertingCollector extends FilterCollector {
         super.collect(doc);
         maxDoc = docBase + doc;
       }
+
+      @Override
+      public void collect(int[] docs, int size) throws IOException {
+        assert size == 0 || docBase + docs[0] >= maxDoc : "collection is not in order: current doc="
+            + (docBase + docs[0]) + " while " + maxDoc + " has already been collected";
+        super.collect(docs, size);
+        if (size > 0) {
+          maxDoc = docBase + docs[size - 1];
+        }
+      }
     };
   }
 
@@ -72,6 +72,12 @@ public class AssertingIndexSearcher extends IndexSearcher {
     super.search(leaves, weight, AssertingCollector.wrap(random, collector));
   }
 
+  @Override
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector) throws IOException {
+    assert weight instanceof AssertingWeight;
+    super.search(partitions, weight, AssertingCollector.wrap(random, collector));
+  }
+
   @Override
   public String toString() {
     return "AssertingIndexSearcher(" + super.toString() + ")";
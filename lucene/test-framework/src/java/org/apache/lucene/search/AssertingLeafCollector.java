@@ -55,5 +55,24 @@ class AssertingLeafCollector extends FilterLeafCollector {
     lastCollected = doc;
   }
 
+  @Override
+  public void collect(int[] docs, int size) throws IOException {
+    assert acceptsBatches() : "Collected a batch but batches are not accepted";
+    assert size > 0 && size <= docs.length : "Invalid batch size: " + size;
+    for (int i = 0; i < size; ++i) {
+      final int doc = docs[i];
+      assert doc > lastCollected : "Out of order : " + lastCollected + " " + doc;
+      assert doc >= min : "Out of range: " + doc + " < " + min;
+      assert doc < max : "Out of range: " + doc + " >= " + max;
+      lastCollected = doc;
+    }
+    in.collect(docs, size);
+  }
+
+  @Override
+  public boolean acceptsBatches() {
+    return in.acceptsBatches();
+  }
+
 }
 
@@ -75,6 +75,20 @@ class AssertingWeight extends FilterWeight {
     };
   }
 
+  @Override
+  public int count(LeafReaderContext context) throws IOException {
+    final int count = in.count(context);
+    assert count >= -1 && count <= context.reader().numDocs() : "Invalid count: " + count;
+    return count;
+  }
+
+  @Override
+  public long estimateCost(LeafReaderContext context) throws IOException {
+    final long cost = in.estimateCost(context);
+    assert cost >= -1 : "Invalid cost: " + cost;
+    return cost;
+  }
+
   @Override
   public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
     BulkScorer inScorer = in.bulkScorer(context);
@@ -17,8 +17,12 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import junit.framework.Assert;
 import org.apache.lucene.index.BinaryDocValues;
@@ -577,4 +581,84 @@ public class QueryUtils {
       }
     }
   }
+
+  /**
+   * Check that scoring disjoint ranges of doc IDs of a leaf concurrently, each
+   * with its own {@link BulkScorer}, collects the same documents with the same
+   * scores as scoring the whole leaf at once.
+   */
+  public static void checkBulkScorerPartitions(Random r, Query query, IndexSearcher searcher, ScoreMode scoreMode) throws IOException {
+    final Weight weight = searcher.createNormalizedWeight(query, scoreMode);
+    for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+      final int maxDoc = context.reader().maxDoc();
+      final Bits liveDocs = context.reader().getLiveDocs();
+      final Map<Integer, Float> expected = new TreeMap<>();
+      collect(weight.bulkScorer(context), liveDocs, 0, maxDoc, scoreMode, expected);
+
+      final int[] bounds = new int[1 + r.nextInt(8)];
+      for (int i = 0; i < bounds.length; ++i) {
+        bounds[i] = r.nextInt(maxDoc + 1);
+      }
+      Arrays.sort(bounds);
+      final Map<Integer, Float> actual = new TreeMap<>();
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      final Thread[] threads = new Thread[bounds.length + 1];
+      for (int i = 0; i < threads.length; ++i) {
+        final int min = i == 0 ? 0 : bounds[i - 1];
+        final int max = i == bounds.length ? maxDoc : bounds[i];
+        threads[i] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              final Map<Integer, Float> partition = new TreeMap<>();
+              collect(weight.bulkScorer(context), liveDocs, min, max, scoreMode, partition);
+              synchronized (actual) {
+                actual.putAll(partition);
+              }
+            } catch (Throwable t) {
+              failure.compareAndSet(null, t);
+            }
+          }
+        };
+      }
+      for (Thread thread : threads) {
+        thread.start();
+      }
+      for (Thread thread : threads) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      if (failure.get() != null) {
+        throw new AssertionError("Scoring a partition failed", failure.get());
+      }
+
+      assertEquals(expected.keySet(), actual.keySet());
+      for (Map.Entry<Integer, Float> entry : expected.entrySet()) {
+        assertEquals(entry.getValue(), actual.get(entry.getKey()), 0.01f);
+      }
+    }
+  }
+
+  private static void collect(BulkScorer bulkScorer, Bits liveDocs, int min, int max,
+      ScoreMode scoreMode, Map<Integer, Float> hits) throws IOException {
+    if (bulkScorer == null || min == max) {
+      return;
+    }
+    bulkScorer.score(new LeafCollector() {
+      Scorer scorer;
+      @Override
+      public void setScorer(Scorer scorer) throws IOException {
+        this.scorer = scorer;
+      }
+      @Override
+      public void collect(int doc) throws IOException {
+        assert doc >= min;
+        assert doc < max;
+        hits.put(doc, scoreMode.needsScores() ? scorer.score() : 0f);
+      }
+    }, liveDocs, min, max);
+  }
 }
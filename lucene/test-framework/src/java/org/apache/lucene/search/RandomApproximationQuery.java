@@ -85,6 +85,16 @@ public class RandomApproximationQuery extends Query {
       return new RandomApproximationScorer(scorer, new Random(random.nextLong()));
     }
 
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      return in.count(context);
+    }
+
+    @Override
+    public long estimateCost(LeafReaderContext context) throws IOException {
+      return in.estimateCost(context);
+    }
+
   }
 
   private static class RandomApproximationScorer extends Scorer {
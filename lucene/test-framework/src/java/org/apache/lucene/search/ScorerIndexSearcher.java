@@ -44,21 +44,48 @@ public class ScorerIndexSearcher extends IndexSearcher {
 
   @Override
   protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+    collector.setWeight(weight);
     for (LeafReaderContext ctx : leaves) { // search each subreader
       // we force the use of Scorer (not BulkScorer) to make sure
       // that the scorer passed to LeafCollector.setScorer supports
       // Scorer.getChildren
-      Scorer scorer = weight.scorer(ctx);
-      if (scorer != null) {
-        final DocIdSetIterator iterator = scorer.iterator();
-        final LeafCollector leafCollector = collector.getLeafCollector(ctx);
-        leafCollector.setScorer(scorer);
-        final Bits liveDocs = ctx.reader().getLiveDocs();
-        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+      searchLeaf(ctx, 0, DocIdSetIterator.NO_MORE_DOCS, weight, collector);
+    }
+  }
+
+  @Override
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector) throws IOException {
+    // like IndexSearcher, make sure that Weight#count only counts a segment once
+    final PartitionCountWeight countWeight = new PartitionCountWeight(weight);
+    collector.setWeight(countWeight);
+    for (LeafReaderContextPartition partition : partitions) {
+      countWeight.partition = partition;
+      searchLeaf(partition.ctx, partition.minDocId, partition.maxDocId, weight, collector);
+    }
+  }
+
+  private void searchLeaf(LeafReaderContext ctx, int minDocId, int maxDocId, Weight weight, Collector collector) throws IOException {
+    final LeafCollector leafCollector;
+    try {
+      leafCollector = collector.getLeafCollector(ctx);
+    } catch (CollectionTerminatedException e) {
+      // there is no doc of interest in this reader context
+      return;
+    }
+    Scorer scorer = weight.scorer(ctx);
+    if (scorer != null) {
+      final DocIdSetIterator iterator = scorer.iterator();
+      leafCollector.setScorer(scorer);
+      final Bits liveDocs = ctx.reader().getLiveDocs();
+      try {
+        for (int doc = iterator.advance(minDocId); doc < maxDocId; doc = iterator.nextDoc()) {
           if (liveDocs == null || liveDocs.get(doc)) {
             leafCollector.collect(doc);
           }
         }
+      } catch (CollectionTerminatedException e) {
+        // collection was terminated prematurely
+        // continue with the following leaf
       }
     }
   }
@@ -28,6 +28,7 @@ public enum LicenseType {
   CDDL("Common Development and Distribution License", false),
   CPL("Common Public License", true),
   EPL("Eclipse Public License Version 1.0", false),
+  GPL_CPE("GNU General Public License Version 2 with Classpath Exception", false), // only for build-time tools that are never distributed
   MIT("Massachusetts Institute of Tech. License", false),
   MPL("Mozilla Public License", false), //NOT SURE on the required notice
   PD("Public Domain", false),
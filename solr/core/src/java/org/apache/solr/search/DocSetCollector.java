@@ -73,6 +73,26 @@ public class DocSetCollector extends SimpleCollector {
     pos++;
   }
 
+  @Override
+  public void collect(int[] docs, int size) throws IOException {
+    if (pos < smallSetSize) {
+      for (int i = 0; i < size; i++) {
+        collect(docs[i]);
+      }
+    } else {
+      if (bits==null) bits = new FixedBitSet(maxDoc);
+      for (int i = 0; i < size; i++) {
+        bits.set(base + docs[i]);
+      }
+      pos += size;
+    }
+  }
+
+  @Override
+  public boolean acceptsBatches() {
+    return true;
+  }
+
   /** The number of documents that have been collected */
   public int size() {
     return pos;
@@ -41,6 +41,7 @@ import org.apache.solr.uninverting.FieldCacheImpl;
  */
 class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
   static boolean unwrap_singleValued_multiDv = true;  // only set to false for test coverage
+  private static final int BULK_SIZE = 128; // number of docs whose ords are retrieved at once
 
   boolean multiValuedField;
   SortedSetDocValues si;  // only used for term lookups (for both single and multi-valued)
@@ -205,11 +206,23 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         counts[fc.getOrd(doc) + 1]++;
       }
     } else {
-      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-        if (singleDv.advanceExact(doc)) {
-          counts[singleDv.ordValue() + 1]++;
+      // retrieve ords in bulk
+      final int[] docs = new int[BULK_SIZE];
+      final int[] ords = new int[BULK_SIZE];
+      int size = 0;
+      do {
+        doc = disi.nextDoc();
+        if (doc != DocIdSetIterator.NO_MORE_DOCS) {
+          docs[size++] = doc;
         }
-      }
+        if (size == BULK_SIZE || (doc == DocIdSetIterator.NO_MORE_DOCS && size > 0)) {
+          final int count = singleDv.ordValues(size, docs, ords);
+          for (int i = 0; i < count; i++) {
+            counts[ords[i] + 1]++;
+          }
+          size = 0;
+        }
+      } while (doc != DocIdSetIterator.NO_MORE_DOCS);
     }
 
     // convert segment-local counts to global counts
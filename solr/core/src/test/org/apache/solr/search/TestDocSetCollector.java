@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestDocSetCollector extends LuceneTestCase {
+
+  public void testCollectBatches() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(new Document());
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    final int maxDoc = reader.maxDoc();
+    // small sets make it likely that a batch moves the collector from the
+    // array of docs to the bit set
+    final int smallSetSize = random().nextBoolean()
+        ? TestUtil.nextInt(random(), 0, 100)
+        : DocSetUtil.smallSetSize(maxDoc);
+    DocSetCollector expected = new DocSetCollector(smallSetSize, maxDoc);
+    DocSetCollector actual = new DocSetCollector(smallSetSize, maxDoc);
+    final int frequency = TestUtil.nextInt(random(), 1, 100);
+    for (LeafReaderContext context : reader.leaves()) {
+      LeafCollector expectedLeaf = expected.getLeafCollector(context);
+      LeafCollector actualLeaf = actual.getLeafCollector(context);
+      assertTrue(actualLeaf.acceptsBatches());
+
+      final int[] batch = new int[TestUtil.nextInt(random(), 1, 200)];
+      int size = 0;
+      for (int doc = 0; doc < context.reader().maxDoc(); ++doc) {
+        if (random().nextInt(frequency) != 0) {
+          continue;
+        }
+        expectedLeaf.collect(doc);
+        batch[size++] = doc;
+        if (size == batch.length || random().nextInt(10) == 0) {
+          actualLeaf.collect(batch, size);
+          // the collector must not retain the batch
+          Arrays.fill(batch, -1);
+          size = 0;
+        }
+      }
+      actualLeaf.collect(batch, size);
+    }
+
+    assertEquals(expected.size(), actual.size());
+    assertSameDocSet(expected.getDocSet(), actual.getDocSet());
+    IOUtils.close(reader, dir);
+  }
+
+  public void testBatchFillsSmallSet() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    for (int i = 0; i < 100; ++i) {
+      w.addDocument(new Document());
+    }
+    w.forceMerge(1);
+    IndexReader reader = w.getReader();
+    w.close();
+
+    DocSetCollector collector = new DocSetCollector(5, reader.maxDoc());
+    LeafCollector leaf = collector.getLeafCollector(reader.leaves().get(0));
+    // fits in the small set
+    leaf.collect(new int[] {1, 2, 3}, 3);
+    assertEquals(3, collector.size());
+    assertTrue(collector.getDocSet() instanceof SortedIntDocSet);
+
+    // the first two docs go to the small set and the others to the bit set
+    leaf.collect(new int[] {4, 5, 6, 7, 42}, 5);
+    // the small set is full
+    leaf.collect(new int[] {50, 99}, 2);
+    assertEquals(10, collector.size());
+
+    DocSet docSet = collector.getDocSet();
+    assertTrue(docSet instanceof BitDocSet);
+    assertSameDocSet(new SortedIntDocSet(new int[] {1, 2, 3, 4, 5, 6, 7, 42, 50, 99}), docSet);
+    IOUtils.close(reader, dir);
+  }
+
+  private static void assertSameDocSet(DocSet expected, DocSet actual) {
+    assertEquals(expected.size(), actual.size());
+    DocIterator expectedIt = expected.iterator();
+    DocIterator actualIt = actual.iterator();
+    while (expectedIt.hasNext()) {
+      assertTrue(actualIt.hasNext());
+      assertEquals(expectedIt.nextDoc(), actualIt.nextDoc());
+    }
+    assertFalse(actualIt.hasNext());
+  }
+}